@@ -7,7 +7,10 @@ public enum AppointmentStatus {
     PENDING("pending"), // Just created
     CANCELLED("cancelled"),
     APPROVED("approved"), // Doctor approved, has not been checked
-    COMPLETED("completed"); // Patient checked (at this point, there is an outcome)
+    COMPLETED("completed"), // Patient checked (at this point, there is an outcome)
+    DECLINED("declined"), // Doctor declined, the slot was returned
+    EXPIRED("expired"), // Not approved in time, the slot was returned
+    NO_SHOW("no-show"); // Appointment passed without an outcome
 
     private final String value;
 
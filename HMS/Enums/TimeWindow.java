@@ -0,0 +1,77 @@
+package HMS.Enums;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Enum representing the preferred time of day of a patient waiting for an appointment slot.
+ * Each window covers a range of hours within the working hours (9:00 AM to 5:00 PM).
+ */
+public enum TimeWindow {
+    MORNING("morning", 9, 12),
+    AFTERNOON("afternoon", 12, 17),
+    ANY("any", 9, 17);
+
+    private final String value;
+    private final int startHour;
+    private final int endHour;
+
+    /**
+     * Constructor for the enum, assigning a string value and an hour range to each window.
+     *
+     * @param value     the string value representing the window (e.g., "morning")
+     * @param startHour the first hour of the window, inclusive
+     * @param endHour   the last hour of the window, exclusive
+     */
+    TimeWindow(String value, int startHour, int endHour) {
+        this.value = value;
+        this.startHour = startHour;
+        this.endHour = endHour;
+    }
+
+    /**
+     * Checks whether the given slot falls within this window.
+     *
+     * @param slot the date and time of the slot.
+     * @return true if the hour of the slot is within the window, false otherwise.
+     */
+    public boolean matches(Date slot) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(slot);
+        return matches(calendar.get(Calendar.HOUR_OF_DAY));
+    }
+
+    /**
+     * Checks whether the given hour of the day falls within this window.
+     *
+     * @param hour the hour of the day, from 0 to 23.
+     * @return true if the hour is within the window, false otherwise.
+     */
+    public boolean matches(int hour) {
+        return hour >= startHour && hour < endHour;
+    }
+
+    /**
+     * Gets the specific window (MORNING or AFTERNOON) that the given slot falls within.
+     *
+     * @param slot the date and time of the slot.
+     * @return the window of the slot, or ANY if the slot is outside both.
+     */
+    public static TimeWindow of(Date slot) {
+        if (MORNING.matches(slot)) {
+            return MORNING;
+        }
+        return AFTERNOON.matches(slot) ? AFTERNOON : ANY;
+    }
+
+    /**
+     * Returns the string representation of the window.
+     * The string is returned in lowercase format.
+     *
+     * @return the lowercase value of the window (e.g., "morning")
+     */
+    @Override
+    public String toString() {
+        return value;
+    }
+}
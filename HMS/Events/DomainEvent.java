@@ -0,0 +1,135 @@
+package HMS.Events;
+
+import HMS.Models.Appointment;
+import HMS.Models.AppointmentOutcomeRecord;
+
+/**
+ * A domain event in a slot of the event bus. Slots are preallocated and reused, so an event is filled in place by
+ * one of the {@code set} methods, which overwrite every field of the previous event of the slot.
+ * The appointments and outcomes an event refers to are copies taken when it was published.
+ */
+public final class DomainEvent {
+
+    /**
+     * The types of domain events.
+     */
+    public enum Type {
+        /**
+         * A patient booked an appointment.
+         */
+        APPOINTMENT_BOOKED,
+        /**
+         * A doctor approved an appointment.
+         */
+        APPOINTMENT_APPROVED,
+        /**
+         * An appointment was declined, cancelled, rescheduled or settled.
+         */
+        APPOINTMENT_CHANGED,
+        /**
+         * A doctor recorded the outcome of an appointment.
+         */
+        OUTCOME_RECORDED,
+        /**
+         * A pharmacist dispensed the medications of an outcome.
+         */
+        MEDICATION_DISPENSED,
+        /**
+         * The level of a stock fell to or below its low stock alert threshold.
+         */
+        STOCK_BELOW_THRESHOLD
+    }
+
+    private Type type;
+    private Appointment appointment;
+    private AppointmentOutcomeRecord outcome;
+    private int stockID;
+
+    /**
+     * Fills the event for a change of an appointment.
+     *
+     * @param type        the type of the event, one of the appointment types.
+     * @param appointment a copy of the appointment after the change.
+     */
+    public void setAppointment(Type type, Appointment appointment) {
+        set(type, appointment, null, 0);
+    }
+
+    /**
+     * Fills the event for a recorded outcome.
+     *
+     * @param outcome a copy of the outcome.
+     */
+    public void setOutcome(AppointmentOutcomeRecord outcome) {
+        set(Type.OUTCOME_RECORDED, null, outcome, 0);
+    }
+
+    /**
+     * Fills the event for the medications dispensed for an outcome.
+     *
+     * @param outcome a copy of the outcome after dispensing.
+     */
+    public void setMedicationDispensed(AppointmentOutcomeRecord outcome) {
+        set(Type.MEDICATION_DISPENSED, null, outcome, 0);
+    }
+
+    /**
+     * Fills the event for a stock that fell to or below its alert threshold.
+     *
+     * @param stockID the ID of the stock.
+     */
+    public void setStockBelowThreshold(int stockID) {
+        set(Type.STOCK_BELOW_THRESHOLD, null, null, stockID);
+    }
+
+    /**
+     * Overwrites every field of the event.
+     *
+     * @param type        the type of the event.
+     * @param appointment the appointment, or null.
+     * @param outcome     the outcome, or null.
+     * @param stockID     the ID of the stock, or 0.
+     */
+    private void set(Type type, Appointment appointment, AppointmentOutcomeRecord outcome, int stockID) {
+        this.type = type;
+        this.appointment = appointment;
+        this.outcome = outcome;
+        this.stockID = stockID;
+    }
+
+    /**
+     * Gets the type of the event.
+     *
+     * @return the type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the appointment of an appointment event.
+     *
+     * @return a copy of the appointment after the change, or null for other events.
+     */
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * Gets the outcome of an outcome or dispensing event.
+     *
+     * @return a copy of the outcome, or null for other events.
+     */
+    public AppointmentOutcomeRecord getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the stock of a stock event.
+     *
+     * @return the ID of the stock, or 0 for other events.
+     */
+    public int getStockID() {
+        return stockID;
+    }
+}
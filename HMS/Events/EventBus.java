@@ -0,0 +1,278 @@
+package HMS.Events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * An in-process event bus on a ring buffer of preallocated events, in the style of the LMAX Disruptor.
+ * Publishers claim the next sequence number, fill the event of its slot and publish it; no event is allocated and no
+ * lock is taken on the way. Every handler has its own consumer thread that follows the published sequence and handles
+ * all events available to it in one batch, so a consumer that falls behind catches up without waking per event.
+ *
+ * <p>A slot is reused only once every consumer has handled its event: a publisher that would overwrite an event not
+ * handled yet waits for the slowest consumer. Publishing never waits on a consumer otherwise.
+ * Any number of threads may publish.</p>
+ *
+ * @param <E> the type of the events.
+ */
+public class EventBus<E> {
+    private static final int SPIN_TRIES = 100;
+
+    private final Object[] entries;
+    private final int mask;
+    private final int indexShift;
+    private final AtomicIntegerArray available; // Round of the sequence last published in each slot
+    private final AtomicLong cursor = new AtomicLong(-1); // Last claimed sequence
+    private final List<ConsumerThread> consumers = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private volatile int waitingConsumers;
+    private volatile boolean running;
+
+    /**
+     * Constructs an event bus.
+     *
+     * @param capacity the number of slots, rounded up to a power of two.
+     * @param factory  creates the event held by each slot.
+     */
+    public EventBus(int capacity, Supplier<E> factory) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.entries = new Object[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = factory.get();
+        }
+        this.mask = size - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(size);
+        this.available = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            available.set(i, -1);
+        }
+    }
+
+    /**
+     * Adds a handler with its own consumer. Handlers must be added before the bus is started.
+     *
+     * @param name    the name of the consumer, used to name its thread.
+     * @param handler the handler.
+     */
+    public synchronized void addHandler(String name, EventHandler<E> handler) {
+        if (running) {
+            throw new IllegalStateException("Handlers must be added before the event bus is started.");
+        }
+        consumers.add(new ConsumerThread(name, handler, cursor.get()));
+    }
+
+    /**
+     * Starts the consumer threads. Does nothing if the bus is already started.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (ConsumerThread consumer : consumers) {
+            consumer.thread.start();
+        }
+    }
+
+    /**
+     * Publishes an event: claims the next slot, lets the translator fill its event and makes it visible to the consumers.
+     *
+     * @param translator fills the event of the claimed slot, overwriting every field of the previous event.
+     * @return the sequence number of the event.
+     */
+    public long publish(Consumer<E> translator) {
+        long sequence = claim();
+        try {
+            translator.accept(get(sequence));
+        } finally {
+            available.set((int) sequence & mask, (int) (sequence >>> indexShift));
+            if (waitingConsumers > 0) {
+                lock.lock();
+                try {
+                    published.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Waits until every consumer has handled every event published so far.
+     *
+     * @param timeoutMillis the maximum time to wait in milliseconds.
+     * @return true if the consumers caught up, false if the time ran out.
+     */
+    public boolean awaitHandled(long timeoutMillis) {
+        long target = cursor.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (getMinimumHandled() < target) {
+            if (!running || System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(1_000_000);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of events published but not yet handled by the slowest consumer.
+     *
+     * @return the backlog of the slowest consumer.
+     */
+    public long getBacklog() {
+        return cursor.get() - getMinimumHandled();
+    }
+
+    /**
+     * Claims the next sequence number, waiting while its slot still holds an event not handled by every consumer.
+     *
+     * @return the claimed sequence number.
+     */
+    private long claim() {
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - entries.length;
+            if (wrapPoint > getMinimumHandled()) {
+                LockSupport.parkNanos(1); // The ring is full
+                continue;
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Gets the event of a slot.
+     *
+     * @param sequence the sequence number of the event.
+     * @return the event.
+     */
+    @SuppressWarnings("unchecked")
+    private E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    /**
+     * Gets the sequence number up to which every consumer has handled the events.
+     *
+     * @return the minimum handled sequence, or the cursor if there is no consumer.
+     */
+    private long getMinimumHandled() {
+        long minimum = cursor.get();
+        for (ConsumerThread consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum;
+    }
+
+    /**
+     * Gets the highest sequence number published without a gap after a given one. Sequences are claimed in order
+     * but may be published out of order by concurrent publishers.
+     *
+     * @param from the first sequence number to check.
+     * @param to   the last claimed sequence number.
+     * @return the highest published sequence number with no unpublished one before it, {@code from - 1} if none.
+     */
+    private long getHighestPublished(long from, long to) {
+        for (long sequence = from; sequence <= to; sequence++) {
+            if (available.get((int) sequence & mask) != (int) (sequence >>> indexShift)) {
+                return sequence - 1;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * The thread following the published events for one handler.
+     */
+    private class ConsumerThread implements Runnable {
+        private final EventHandler<E> handler;
+        private final AtomicLong sequence; // Last handled sequence
+        private final Thread thread;
+
+        /**
+         * Constructs the consumer of a handler.
+         *
+         * @param name     the name of the consumer.
+         * @param handler  the handler.
+         * @param sequence the sequence number to start after.
+         */
+        ConsumerThread(String name, EventHandler<E> handler, long sequence) {
+            this.handler = handler;
+            this.sequence = new AtomicLong(sequence);
+            this.thread = new Thread(this, "hms-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Handles the published events in batches until the thread is interrupted.
+         */
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            while (!Thread.currentThread().isInterrupted()) {
+                long availableSequence = waitFor(next);
+                for (long current = next; current <= availableSequence; current++) {
+                    try {
+                        handler.onEvent(get(current), current, current == availableSequence);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error handling event " + current + " on " + thread.getName() + ": " + e.getMessage());
+                    }
+                }
+                sequence.set(availableSequence);
+                next = availableSequence + 1;
+            }
+        }
+
+        /**
+         * Waits until an event is published at or after the given sequence: spins briefly, then blocks until a
+         * publisher signals.
+         *
+         * @param next the sequence number of the next event to handle.
+         * @return the highest sequence number that can be handled.
+         */
+        private long waitFor(long next) {
+            for (int tries = 0; ; tries++) {
+                long highest = getHighestPublished(next, cursor.get());
+                if (highest >= next) {
+                    return highest;
+                }
+                if (tries < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                lock.lock();
+                try {
+                    waitingConsumers++;
+                    try {
+                        if (getHighestPublished(next, cursor.get()) < next) {
+                            published.awaitNanos(100_000_000); // Bounded in case a signal raced the check
+                        }
+                    } finally {
+                        waitingConsumers--;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return next - 1;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
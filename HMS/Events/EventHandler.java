@@ -0,0 +1,21 @@
+package HMS.Events;
+
+/**
+ * Handles the events of an event bus on the thread of its consumer.
+ *
+ * @param <E> the type of the events.
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+
+    /**
+     * Handles an event. The event is only valid during the call: its slot is reused for a later event once every
+     * consumer has handled it.
+     *
+     * @param event      the event.
+     * @param sequence   the sequence number of the event.
+     * @param endOfBatch true if the event is the last of the batch available to the consumer, so that a handler
+     *                   gathering the batch can act on it.
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch);
+}
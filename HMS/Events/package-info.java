@@ -0,0 +1,5 @@
+/**
+ * This package contains the in-process event bus the Systems publish domain events on, such as an appointment being
+ * booked or a stock falling below its alert threshold, so that other Systems react to them off the request path.
+ */
+package HMS.Events;
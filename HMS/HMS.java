@@ -3,7 +3,13 @@ package HMS;
 import HMS.Enums.UserRole;
 import HMS.Menus.*;
 import HMS.Models.User;
+import HMS.Storage.Storage;
+import HMS.Systems.AppointmentExpirySystem;
+import HMS.Systems.DataChangeMonitor;
+import HMS.Systems.DomainEvents;
 import HMS.Systems.InputHandler;
+import HMS.Systems.ReminderSystem;
+import HMS.Systems.SessionContext;
 import HMS.Systems.UserManagementSystem;
 
 import java.io.IOException;
@@ -21,16 +27,24 @@ public class HMS {
      * or register as new patients.
      */
     public void start() {
+        DataChangeMonitor.refresh(); // Note the version of the data before loading it
         try {
             UserManagementSystem.loadUsers(); // Load user HMS.data from the file.
             System.out.println("Users loaded successfully.");
         } catch (IOException e) {
             System.err.println("An error occurred while loading users: " + e.getMessage());
         }
+        if (Storage.getEngine().isReadOnly()) {
+            System.out.println("This HMS is read-only while another HMS writes the data: data can be viewed, but not changed.");
+        } else {
+            AppointmentExpirySystem.start(); // Expire and settle appointments in the background
+            ReminderSystem.start(); // Write appointment reminders to the outbox in the background
+        }
 
         System.out.println("Welcome to the Hospital Management System!\n");
 
         while (true) { // Main loop for login and registration
+            DataChangeMonitor.refresh();
             System.out.println("Please choose an option:");
             System.out.println("1. Log in");
             System.out.println("2. Register as a new patient");
@@ -65,6 +79,9 @@ public class HMS {
                         }
                     }
                 } else if (choice == 2) {
+                    if (!DataChangeMonitor.checkWritable()) {
+                        continue;
+                    }
                     user = UserManagementSystem.addNewUserMenu("patient");
                     System.out.println("Patient registered successfully! Your User ID is: " + user.getUserId());
                     System.out.println("The default password is 'password'.");
@@ -78,6 +95,7 @@ public class HMS {
                       This logic handles logged-in users
                      */
                     System.out.println("\nWelcome, " + user.getRole() + " " + user.getName() + ".");
+                    SessionContext.setCurrentUser(user);
 
                     Menu menu = switch (user.getRole()) {
                         case PATIENT -> new PatientMenu(user);
@@ -88,12 +106,14 @@ public class HMS {
 
                     boolean logout = false;
                     while (!logout) { // Loop for menu until logout
+                        DataChangeMonitor.refresh();
                         System.out.println();
                         int menuChoice = menu.displayOptions();
                         System.out.println();
 
                         logout = user.functionCall(menuChoice);
                         if (logout) {
+                            SessionContext.clear();
                             System.out.println("Logging out...");
                             System.out.println();
                         }
@@ -106,6 +126,7 @@ public class HMS {
             }
         }
 
+        DomainEvents.awaitHandled(5000); // Let the reminders and replenish requests catch up with the last changes
         InputHandler.close();
     }
 
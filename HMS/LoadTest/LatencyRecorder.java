@@ -0,0 +1,100 @@
+package HMS.LoadTest;
+
+import java.util.Arrays;
+
+/**
+ * Records the latencies of one workflow. Each worker thread owns its own recorder, so recording does not
+ * need any synchronization; the recorders of all workers are merged once the run has finished.
+ */
+public class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private int skipped;
+    private int failed;
+
+    /**
+     * Records the latency of one executed workflow.
+     *
+     * @param nanos   the latency in nanoseconds.
+     * @param success whether the workflow succeeded.
+     */
+    public void record(long nanos, boolean success) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        if (!success) {
+            failed++;
+        }
+    }
+
+    /**
+     * Records a workflow that was skipped because there was nothing to act on (e.g., no pending appointment).
+     */
+    public void skip() {
+        skipped++;
+    }
+
+    /**
+     * Adds all latencies recorded by another recorder to this one.
+     *
+     * @param other the recorder to merge.
+     */
+    public void merge(LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        skipped += other.skipped;
+        failed += other.failed;
+    }
+
+    /**
+     * Gets the number of executed workflows.
+     *
+     * @return the number of recorded latencies.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of skipped workflows.
+     *
+     * @return the number of skipped workflows.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Gets the number of executed workflows that did not succeed.
+     *
+     * @return the number of failed workflows.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Sorts the recorded latencies so that percentiles can be read. Must be called once recording is over.
+     */
+    public void sort() {
+        Arrays.sort(latencies, 0, count);
+    }
+
+    /**
+     * Returns the latency at the given percentile. The latencies must have been sorted first.
+     *
+     * @param percentile the percentile between 0 and 100 (e.g., 99.9).
+     * @return the latency in milliseconds, or 0 if nothing was recorded.
+     */
+    public double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return latencies[Math.min(Math.max(index, 0), count - 1)] / 1_000_000.0;
+    }
+}
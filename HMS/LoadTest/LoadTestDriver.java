@@ -0,0 +1,428 @@
+package HMS.LoadTest;
+
+import HMS.Enums.AppointmentStatus;
+import HMS.Enums.Dispensed;
+import HMS.Enums.ReplenishStatus;
+import HMS.Enums.UserRole;
+import HMS.Models.*;
+import HMS.Systems.AppointmentOutcomeSystem;
+import HMS.Systems.AppointmentSystem;
+import HMS.Systems.DashboardCounters;
+import HMS.Systems.SessionContext;
+import HMS.Systems.StockSystem;
+import HMS.Systems.UserManagementSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load generator that simulates concurrent patients, doctors, pharmacists and administrators executing
+ * realistic workflows against the HMS. Every simulated user runs on its own thread and drives the HMS
+ * only through the public methods of the Systems, as the menus do.
+ * At the end of the run the throughput and p50/p99/p999 latency of every workflow are reported.
+ *
+ * <p>Usage: {@code java HMS.LoadTest.LoadTestDriver [--option=value ...]} with the options:
+ * <ul>
+ *   <li>{@code --patients}, {@code --doctors}, {@code --pharmacists}, {@code --administrators} - number of simulated users of each role</li>
+ *   <li>{@code --duration} - length of the run in seconds</li>
+ *   <li>{@code --think-ms} - mean think time between two workflows of the same user, in milliseconds</li>
+ *   <li>{@code --slots} - number of available slots seeded for every doctor</li>
+ *   <li>{@code --mix} - relative weights of the workflows, e.g. {@code book:30,reschedule:10,approve:20}</li>
+ *   <li>{@code --data-dir} - data directory to run against; a scratch directory is created when omitted</li>
+ * </ul>
+ */
+public class LoadTestDriver {
+    private static final SimpleDateFormat SLOT_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+    private final Map<UserRole, Integer> userCounts = new EnumMap<>(UserRole.class);
+    private final Map<Workflow, Integer> mix = new EnumMap<>(Workflow.class);
+    private final int durationSeconds;
+    private final int thinkMillis;
+    private final int slotsPerDoctor;
+
+    private final List<User> doctors = new ArrayList<>();
+    private final List<Worker> workers = new ArrayList<>();
+
+    /**
+     * Constructs a driver from the parsed command-line options.
+     *
+     * @param options the command-line options, keyed by option name without the leading dashes.
+     */
+    public LoadTestDriver(Map<String, String> options) {
+        userCounts.put(UserRole.PATIENT, Integer.parseInt(options.getOrDefault("patients", "50")));
+        userCounts.put(UserRole.DOCTOR, Integer.parseInt(options.getOrDefault("doctors", "5")));
+        userCounts.put(UserRole.PHARMACIST, Integer.parseInt(options.getOrDefault("pharmacists", "2")));
+        userCounts.put(UserRole.ADMINISTRATOR, Integer.parseInt(options.getOrDefault("administrators", "1")));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.thinkMillis = Integer.parseInt(options.getOrDefault("think-ms", "20"));
+        this.slotsPerDoctor = Integer.parseInt(options.getOrDefault("slots", "500"));
+
+        for (Workflow workflow : Workflow.values()) {
+            mix.put(workflow, workflow.getDefaultWeight());
+        }
+        if (options.containsKey("mix")) {
+            mix.replaceAll((workflow, weight) -> 0);
+            for (String entry : options.get("mix").split(",")) {
+                String[] parts = entry.split(":");
+                mix.put(Workflow.fromString(parts[0]), Integer.parseInt(parts[1].trim()));
+            }
+        }
+    }
+
+    /**
+     * Seeds the simulated users, doctor availability and stocks, runs all workers for the configured
+     * duration and prints the report.
+     *
+     * @throws InterruptedException if the driver is interrupted while waiting for the workers.
+     */
+    public void run() throws InterruptedException {
+        PrintStream console = System.out;
+        console.println("Seeding users, availability and stocks...");
+        seed();
+
+        long deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (Worker worker : workers) {
+            Thread thread = new Thread(() -> worker.run(deadline), "hms-load-" + worker.user.getUserId());
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+
+        console.printf("Running %d simulated users for %d seconds...%n", workers.size(), durationSeconds);
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // The Systems print every action
+        long start = System.nanoTime();
+        try {
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            System.setOut(console);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        printReport(elapsedSeconds);
+
+        List<String> counterMismatches = DashboardCounters.verify();
+        System.out.println(counterMismatches.isEmpty()
+                ? "Dashboard counters match the data."
+                : "Dashboard counters differ from the data: " + counterMismatches);
+    }
+
+    /**
+     * Creates the simulated users and gives every doctor slots to book and the pharmacy stock to dispense.
+     */
+    private void seed() {
+        try {
+            UserManagementSystem.loadUsers();
+        } catch (IOException e) {
+            // Scratch data directory without users, all users are created below
+        }
+
+        for (Map.Entry<UserRole, Integer> entry : userCounts.entrySet()) {
+            List<Workflow> workflows = new ArrayList<>();
+            for (Workflow workflow : Workflow.values()) {
+                if (workflow.getRole() == entry.getKey() && mix.get(workflow) > 0) {
+                    workflows.add(workflow);
+                }
+            }
+
+            for (int i = 0; i < entry.getValue(); i++) {
+                User user = UserManagementSystem.createUser(entry.getKey().toString(), "load-" + entry.getKey() + "-" + i, "male", 30);
+                if (entry.getKey() == UserRole.DOCTOR) {
+                    doctors.add(user);
+                }
+                if (!workflows.isEmpty()) {
+                    workers.add(new Worker(user, workflows));
+                }
+            }
+        }
+        UserManagementSystem.saveUsers();
+
+        Calendar calendar = Calendar.getInstance();
+        for (User doctor : doctors) {
+            calendar.setTime(new Date());
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            calendar.set(Calendar.HOUR_OF_DAY, 9);
+            calendar.set(Calendar.MINUTE, 0);
+            for (int i = 0; i < slotsPerDoctor; i++) {
+                AppointmentSystem.addDoctorAvailability(doctor.getUserId(), calendar.getTime());
+                calendar.add(Calendar.MINUTE, 30);
+                if (calendar.get(Calendar.HOUR_OF_DAY) >= 17) { // Next working day
+                    calendar.add(Calendar.DAY_OF_MONTH, 1);
+                    calendar.set(Calendar.HOUR_OF_DAY, 9);
+                    calendar.set(Calendar.MINUTE, 0);
+                }
+            }
+        }
+
+        if (StockSystem.getStocks().isEmpty()) {
+            for (int i = 1; i <= 5; i++) {
+                StockSystem.addStock("Medicine-" + i, 1000, 100);
+            }
+        }
+    }
+
+    /**
+     * Prints the throughput and latency percentiles of every workflow in a table format.
+     *
+     * @param elapsedSeconds the length of the run in seconds.
+     */
+    private void printReport(double elapsedSeconds) {
+        Map<Workflow, LatencyRecorder> totals = new EnumMap<>(Workflow.class);
+        for (Workflow workflow : Workflow.values()) {
+            totals.put(workflow, new LatencyRecorder());
+        }
+        for (Worker worker : workers) {
+            worker.recorders.forEach((workflow, recorder) -> totals.get(workflow).merge(recorder));
+        }
+
+        System.out.printf("%nCompleted in %.1f seconds.%n", elapsedSeconds);
+        System.out.println("+------------+----------+---------+---------+------------+-----------+-----------+-----------+");
+        System.out.println("| Workflow   | Executed | Failed  | Skipped | Ops/second | p50 (ms)  | p99 (ms)  | p999 (ms) |");
+        System.out.println("+------------+----------+---------+---------+------------+-----------+-----------+-----------+");
+        for (Map.Entry<Workflow, LatencyRecorder> entry : totals.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            recorder.sort();
+            System.out.printf("| %-10s | %-8d | %-7d | %-7d | %-10.1f | %-9.3f | %-9.3f | %-9.3f |%n",
+                    entry.getKey(),
+                    recorder.getCount(),
+                    recorder.getFailed(),
+                    recorder.getSkipped(),
+                    recorder.getCount() / elapsedSeconds,
+                    recorder.percentileMillis(50),
+                    recorder.percentileMillis(99),
+                    recorder.percentileMillis(99.9));
+        }
+        System.out.println("+------------+----------+---------+---------+------------+-----------+-----------+-----------+");
+    }
+
+    /**
+     * A simulated user that repeatedly picks a workflow of its role according to the mix, executes it and
+     * thinks before the next one.
+     */
+    private class Worker {
+        private final User user;
+        private final List<Workflow> workflows;
+        private final int totalWeight;
+        private final Map<Workflow, LatencyRecorder> recorders = new EnumMap<>(Workflow.class);
+        private final SimpleDateFormat slotFormat = (SimpleDateFormat) SLOT_FORMAT.clone();
+
+        /**
+         * Constructs a worker for a simulated user.
+         *
+         * @param user      the simulated user.
+         * @param workflows the workflows of the user's role with a positive weight in the mix.
+         */
+        Worker(User user, List<Workflow> workflows) {
+            this.user = user;
+            this.workflows = workflows;
+            this.totalWeight = workflows.stream().mapToInt(mix::get).sum();
+            for (Workflow workflow : workflows) {
+                recorders.put(workflow, new LatencyRecorder());
+            }
+        }
+
+        /**
+         * Executes workflows until the deadline is reached.
+         *
+         * @param deadline the {@link System#nanoTime()} at which to stop.
+         */
+        void run(long deadline) {
+            SessionContext.setCurrentUser(user);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            while (System.nanoTime() < deadline) {
+                Workflow workflow = pickWorkflow(random);
+                LatencyRecorder recorder = recorders.get(workflow);
+
+                try {
+                    long start = System.nanoTime();
+                    Boolean success = execute(workflow, random);
+                    long latency = System.nanoTime() - start;
+                    if (success == null) {
+                        recorder.skip();
+                    } else {
+                        recorder.record(latency, success);
+                    }
+                } catch (RuntimeException e) {
+                    recorder.record(0, false);
+                }
+
+                if (thinkMillis > 0) {
+                    try {
+                        Thread.sleep(random.nextInt(thinkMillis * 2 + 1)); // Uniform think time around the mean
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Picks one of the worker's workflows according to the weights of the mix.
+         *
+         * @param random the random generator of the current thread.
+         * @return the picked workflow.
+         */
+        private Workflow pickWorkflow(Random random) {
+            int ticket = random.nextInt(totalWeight);
+            for (Workflow workflow : workflows) {
+                ticket -= mix.get(workflow);
+                if (ticket < 0) {
+                    return workflow;
+                }
+            }
+            return workflows.get(workflows.size() - 1);
+        }
+
+        /**
+         * Executes one workflow as the simulated user.
+         *
+         * @param workflow the workflow to execute.
+         * @param random   the random generator of the current thread.
+         * @return whether the workflow succeeded, or {@code null} if there was nothing to act on.
+         */
+        private Boolean execute(Workflow workflow, Random random) {
+            String userID = user.getUserId();
+            switch (workflow) {
+                case BOOK -> {
+                    String doctorID = doctors.get(random.nextInt(doctors.size())).getUserId();
+                    Date slot = pickSlot(doctorID, random);
+                    return slot == null ? null : AppointmentSystem.scheduleAppointment(userID, doctorID, slot) != null;
+                }
+                case RESCHEDULE -> {
+                    List<Appointment> appointments = AppointmentSystem.getAppointmentsByPatient(userID,
+                            Arrays.asList(AppointmentStatus.PENDING, AppointmentStatus.APPROVED));
+                    if (appointments.isEmpty()) {
+                        return null;
+                    }
+                    Appointment appointment = appointments.get(random.nextInt(appointments.size()));
+                    String doctorID = doctors.get(random.nextInt(doctors.size())).getUserId();
+                    Date slot = pickSlot(doctorID, random);
+                    return slot == null ? null : AppointmentSystem.rescheduleAppointment(appointment.getID(), doctorID, slot);
+                }
+                case APPROVE -> {
+                    List<Appointment> pending = AppointmentSystem.getAppointmentsByDoctor(userID, AppointmentStatus.PENDING);
+                    return pending.isEmpty() ? null : AppointmentSystem.approveAppointment(pending.get(0).getID(), userID);
+                }
+                case OUTCOME -> {
+                    Appointment appointment = AppointmentSystem.getAppointmentsByDoctor(userID, AppointmentStatus.APPROVED).stream()
+                            .filter(app -> AppointmentOutcomeSystem.getOutcomeByAppointmentID(app.getID()) == null)
+                            .findFirst()
+                            .orElse(null);
+                    List<Stock> stocks = StockSystem.getStocks();
+                    if (appointment == null || stocks.isEmpty()) {
+                        return null;
+                    }
+                    AppointmentOutcomeRecord outcome = new AppointmentOutcomeRecord(
+                            appointment.getID(),
+                            slotFormat.format(appointment.getAppointmentDate()),
+                            "Consultation",
+                            "Load test consultation",
+                            Dispensed.NO,
+                            appointment.getDoctorID(),
+                            appointment.getPatientID()
+                    );
+                    Stock stock = stocks.get(random.nextInt(stocks.size()));
+                    outcome.addMedication(new Medication(stock.getMedicineName(), "pending", 1 + random.nextInt(5)));
+                    AppointmentOutcomeSystem.addOutcome(outcome);
+                    return true;
+                }
+                case DISPENSE -> {
+                    List<AppointmentOutcomeRecord> outcomes = AppointmentOutcomeSystem.getOutcomes();
+                    if (outcomes.isEmpty()) {
+                        return null;
+                    }
+                    int outcomeID = outcomes.get(random.nextInt(outcomes.size())).getAppointmentID();
+                    return AppointmentOutcomeSystem.dispenseMedication(outcomeID);
+                }
+                case REPLENISH -> {
+                    List<Stock> lowStocks = StockSystem.getLowLevelStocks();
+                    if (lowStocks.isEmpty()) {
+                        return null;
+                    }
+                    Stock stock = lowStocks.get(random.nextInt(lowStocks.size()));
+                    StockSystem.createReplenishRequest(new StockReplenishRequest(
+                            stock.getID(), stock.getLowStockAlertThreshold() * 2, ReplenishStatus.PENDING));
+                    return true;
+                }
+                case RESTOCK -> {
+                    List<StockReplenishRequest> requests = StockSystem.getReplenishRequests();
+                    return requests.isEmpty() ? null : StockSystem.approveReplenishRequest(requests.get(0).getID());
+                }
+                default -> throw new IllegalStateException("Unhandled workflow: " + workflow);
+            }
+        }
+
+        /**
+         * Picks a random available slot of a doctor.
+         *
+         * @param doctorID the ID of the doctor.
+         * @param random   the random generator of the current thread.
+         * @return the date of the slot, or {@code null} if the doctor has no available slot.
+         */
+        private Date pickSlot(String doctorID, Random random) {
+            List<String> slots = AppointmentSystem.getAvailableSlots(doctorID);
+            if (slots.isEmpty()) {
+                return null;
+            }
+            try {
+                return slotFormat.parse(slots.get(random.nextInt(slots.size())));
+            } catch (ParseException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Parses options of the form {@code --name=value}.
+     *
+     * @param args the command-line arguments.
+     * @return the options keyed by name.
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Invalid option: " + arg);
+            }
+            String[] parts = arg.substring(2).split("=", 2);
+            options.put(parts[0], parts.length == 2 ? parts[1] : "true");
+        }
+        return options;
+    }
+
+    /**
+     * The entry point of the load-test driver.
+     *
+     * @param args Command-line options, see the class documentation.
+     * @throws Exception if the scratch data directory cannot be created or the run is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (options.containsKey("help")) {
+            System.out.println("Usage: java HMS.LoadTest.LoadTestDriver [--patients=N] [--doctors=N] [--pharmacists=N] "
+                    + "[--administrators=N] [--duration=SECONDS] [--think-ms=MILLIS] [--slots=N] "
+                    + "[--mix=book:30,reschedule:10,approve:20,outcome:15,dispense:15,replenish:5,restock:5] [--data-dir=DIR]");
+            return;
+        }
+
+        // The data directory must be set before any System is loaded, as they read their files on first access
+        String dataDir = options.get("data-dir");
+        if (dataDir == null) {
+            dataDir = Files.createTempDirectory("hms-load").toString();
+        }
+        System.setProperty("hms.data.dir", new File(dataDir).getPath());
+        System.out.println("Using data directory: " + dataDir);
+
+        new LoadTestDriver(options).run();
+    }
+}
@@ -0,0 +1,77 @@
+package HMS.LoadTest;
+
+import HMS.Enums.UserRole;
+
+/**
+ * Enum representing the workflows executed by the load-test driver and the role that performs each of them.
+ */
+public enum Workflow {
+    BOOK("book", UserRole.PATIENT, 30),
+    RESCHEDULE("reschedule", UserRole.PATIENT, 10),
+    APPROVE("approve", UserRole.DOCTOR, 20),
+    OUTCOME("outcome", UserRole.DOCTOR, 15),
+    DISPENSE("dispense", UserRole.PHARMACIST, 15),
+    REPLENISH("replenish", UserRole.PHARMACIST, 5),
+    RESTOCK("restock", UserRole.ADMINISTRATOR, 5);
+
+    private final String value;
+    private final UserRole role;
+    private final int defaultWeight;
+
+    /**
+     * Constructor to assign the name, performing role and default mix weight of each workflow.
+     *
+     * @param value         the lowercase name of the workflow used on the command line
+     * @param role          the role of the simulated user performing the workflow
+     * @param defaultWeight the relative weight of the workflow in the default mix
+     */
+    Workflow(String value, UserRole role, int defaultWeight) {
+        this.value = value;
+        this.role = role;
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * Returns the role of the simulated user performing the workflow.
+     *
+     * @return the performing role
+     */
+    public UserRole getRole() {
+        return role;
+    }
+
+    /**
+     * Returns the relative weight of the workflow in the default mix.
+     *
+     * @return the default weight
+     */
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    /**
+     * Finds the workflow with the given lowercase name.
+     *
+     * @param value the name of the workflow (e.g., "book")
+     * @return the matching workflow
+     * @throws IllegalArgumentException if no workflow has the given name
+     */
+    public static Workflow fromString(String value) {
+        for (Workflow workflow : values()) {
+            if (workflow.value.equalsIgnoreCase(value.trim())) {
+                return workflow;
+            }
+        }
+        throw new IllegalArgumentException("Unknown workflow: " + value);
+    }
+
+    /**
+     * Returns the string representation of the workflow.
+     *
+     * @return the workflow as a lowercase string
+     */
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains the load generator that simulates concurrent patients, doctors, pharmacists and administrators
+ * driving the HMS through the public methods of its Systems.
+ */
+package HMS.LoadTest;
@@ -1,6 +1,8 @@
 package HMS.Menus;
 
+import HMS.Enums.AppointmentStatus;
 import HMS.Models.User;
+import HMS.Systems.DashboardCounters;
 import HMS.Systems.InputHandler;
 
 /**
@@ -26,12 +28,16 @@ public class AdministratorMenu extends Menu {
     @Override
     public int displayOptions() {
         System.out.println("Administrator Menu:");
+        System.out.println("Pending appointments: " + DashboardCounters.getAppointmentCount(AppointmentStatus.PENDING)
+                + " | Pending replenishment requests: " + DashboardCounters.getPendingReplenishRequestCount()
+                + " | Low-stock items: " + DashboardCounters.getLowStockItemCount());
         System.out.println("0. Change Password.");
         System.out.println("1. View and Manage Hospital Staff");
         System.out.println("2. View Appointments Details");
         System.out.println("3. View and Manage Medication Inventory");
         System.out.println("4. Approve Replenishment Requests");
-        System.out.println("5. Logout");
+        System.out.println("5. View Hospital Analytics");
+        System.out.println("6. Logout");
         System.out.print("Choose an option: ");
 
         return InputHandler.nextInt();
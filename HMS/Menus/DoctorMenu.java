@@ -1,6 +1,8 @@
 package HMS.Menus;
 
+import HMS.Enums.AppointmentStatus;
 import HMS.Models.User;
+import HMS.Systems.DashboardCounters;
 import HMS.Systems.InputHandler;
 
 /**
@@ -25,6 +27,10 @@ public class DoctorMenu extends Menu {
     @Override
     public int displayOptions() {
         System.out.println("Doctor Menu:");
+        System.out.println("Pending appointment requests: "
+                + DashboardCounters.getDoctorAppointmentCount(user.getUserId(), AppointmentStatus.PENDING)
+                + " | Approved appointments: "
+                + DashboardCounters.getDoctorAppointmentCount(user.getUserId(), AppointmentStatus.APPROVED));
         System.out.println("0. Change Password.");
         System.out.println("1. View Patient Medical Records");
         System.out.println("2. Update Patient Medical Records");
@@ -33,7 +39,8 @@ public class DoctorMenu extends Menu {
         System.out.println("5. Accept or Decline Appointment Requests");
         System.out.println("6. View Upcoming Appointments");
         System.out.println("7. Record Appointment Outcome");
-        System.out.println("8. Logout");
+        System.out.println("8. Search Clinical Notes");
+        System.out.println("9. Logout");
         System.out.print("Choose an option: ");
 
         return InputHandler.nextInt();
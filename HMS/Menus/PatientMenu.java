@@ -33,7 +33,8 @@ public class PatientMenu extends Menu {
         System.out.println("6. Cancel an Appointment");
         System.out.println("7. View Scheduled Appointments");
         System.out.println("8. View Past Appointment Outcome Records");
-        System.out.println("9. Logout");
+        System.out.println("9. Book Earliest Available Slot");
+        System.out.println("10. Logout");
         System.out.print("Choose an option: ");
 
         return InputHandler.nextInt();
@@ -1,6 +1,7 @@
 package HMS.Menus;
 
 import HMS.Models.User;
+import HMS.Systems.DashboardCounters;
 import HMS.Systems.InputHandler;
 
 /**
@@ -25,6 +26,8 @@ public class PharmacistMenu extends Menu {
     @Override
     public int displayOptions() {
         System.out.println("Pharmacist Menu:");
+        System.out.println("Undispensed outcomes: " + DashboardCounters.getUndispensedOutcomeCount()
+                + " | Low-stock items: " + DashboardCounters.getLowStockItemCount());
         System.out.println("0. Change Password.");
         System.out.println("1. View Appointment Outcome Record");
         System.out.println("2. Update Prescription Status");
@@ -9,13 +9,14 @@ import java.util.Date;
  * This class stores the details about the appointment including patient and doctor IDs,
  * appointment status, date, and the appointment outcome (if completed).
  */
-public class Appointment {
+public class Appointment extends VersionedModel {
 
     private int ID;
     private final String patientID;
     private String doctorID;
     private AppointmentStatus appointmentStatus; // e.g., "confirmed", "canceled", "completed"
     private Date appointmentDate;
+    private Date expiresAt; // Deadline for a pending appointment to be approved
     private final AppointmentOutcomeRecord outcomeRecord;
 
     /**
@@ -36,6 +37,18 @@ public class Appointment {
         this.outcomeRecord = null; // Outcome record is only set for completed appointments
     }
 
+    /**
+     * Copies the appointment as it is now, with its version.
+     *
+     * @return a new appointment with the same details.
+     */
+    public synchronized Appointment copy() {
+        Appointment copy = new Appointment(ID, patientID, doctorID, appointmentStatus, new Date(appointmentDate.getTime()));
+        copy.expiresAt = expiresAt == null ? null : new Date(expiresAt.getTime());
+        copy.setVersion(getVersion());
+        return copy;
+    }
+
     /**
      * get the unique identifier of the appointment.
      *
@@ -116,4 +129,27 @@ public class Appointment {
     public void setAppointmentDate(Date appointmentDate) {
         this.appointmentDate = appointmentDate;
     }
+
+    /**
+     * Gets the deadline for the appointment to be approved while it is pending.
+     *
+     * @return the approval deadline, or null if none is set.
+     */
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Sets the deadline for the appointment to be approved while it is pending.
+     *
+     * @param expiresAt the new approval deadline.
+     */
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    protected String describe() {
+        return "Appointment " + ID;
+    }
 }
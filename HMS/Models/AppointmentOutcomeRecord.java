@@ -9,7 +9,7 @@ import java.util.List;
  * Represents the outcome of a completed appointment, including details like service type,
  * prescribed medications, and consultation notes.
  */
-public class AppointmentOutcomeRecord {
+public class AppointmentOutcomeRecord extends VersionedModel {
 
     private final List<Medication> prescribedMedications;
     private final String consultationNotes;
@@ -42,6 +42,21 @@ public class AppointmentOutcomeRecord {
         this.patientID = patientID;
     }
 
+    /**
+     * Copies the outcome as it is now, with its medications and version.
+     *
+     * @return a new outcome with the same details.
+     */
+    public synchronized AppointmentOutcomeRecord copy() {
+        AppointmentOutcomeRecord copy = new AppointmentOutcomeRecord(appointmentID, appointmentDate, serviceType,
+                consultationNotes, dispensed, doctorID, patientID);
+        for (Medication medication : prescribedMedications) {
+            copy.addMedication(new Medication(medication.getMedicationName(), medication.getStatus(), medication.getQuantity()));
+        }
+        copy.setVersion(getVersion());
+        return copy;
+    }
+
     /**
      * Gets the unique ID of the doctor who handled the appointment.
      *
@@ -146,4 +161,9 @@ public class AppointmentOutcomeRecord {
         }
         return sb.toString().trim();
     }
-}
\ No newline at end of file
+
+    @Override
+    protected String describe() {
+        return "Outcome of appointment " + appointmentID;
+    }
+}
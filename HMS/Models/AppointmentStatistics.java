@@ -0,0 +1,150 @@
+package HMS.Models;
+
+import HMS.Enums.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Counts of appointments by status, in total, per doctor and per day.
+ * Statistics of separate parts of the appointments can be computed independently and merged.
+ */
+public class AppointmentStatistics {
+    private static final int STATUS_COUNT = AppointmentStatus.values().length;
+
+    private final long[] totals = new long[STATUS_COUNT];
+    private final Map<String, long[]> doctorCounts = new HashMap<>();
+    private final Map<LocalDate, long[]> dayCounts = new HashMap<>();
+
+    /**
+     * Counts an appointment.
+     *
+     * @param appointment the appointment to count.
+     */
+    public void add(Appointment appointment) {
+        int status = appointment.getAppointmentStatus().ordinal();
+        totals[status]++;
+        doctorCounts.computeIfAbsent(appointment.getDoctorID(), k -> new long[STATUS_COUNT])[status]++;
+        if (appointment.getAppointmentDate() != null) {
+            LocalDate day = appointment.getAppointmentDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            dayCounts.computeIfAbsent(day, k -> new long[STATUS_COUNT])[status]++;
+        }
+    }
+
+    /**
+     * Adds the counts of other statistics to these statistics.
+     *
+     * @param other the statistics to merge in.
+     * @return these statistics.
+     */
+    public AppointmentStatistics merge(AppointmentStatistics other) {
+        addCounts(totals, other.totals);
+        other.doctorCounts.forEach((doctorID, counts) -> addCounts(doctorCounts.computeIfAbsent(doctorID, k -> new long[STATUS_COUNT]), counts));
+        other.dayCounts.forEach((day, counts) -> addCounts(dayCounts.computeIfAbsent(day, k -> new long[STATUS_COUNT]), counts));
+        return this;
+    }
+
+    /**
+     * Gets the number of appointments counted.
+     *
+     * @return the total number of appointments.
+     */
+    public long getTotal() {
+        return sum(totals);
+    }
+
+    /**
+     * Gets the number of appointments with a status.
+     *
+     * @param status the status.
+     * @return the number of appointments with the status.
+     */
+    public long getCount(AppointmentStatus status) {
+        return totals[status.ordinal()];
+    }
+
+    /**
+     * Gets the IDs of the doctors with appointments.
+     *
+     * @return the doctor IDs in ascending order.
+     */
+    public List<String> getDoctorIDs() {
+        List<String> doctorIDs = new ArrayList<>(doctorCounts.keySet());
+        Collections.sort(doctorIDs);
+        return doctorIDs;
+    }
+
+    /**
+     * Gets the number of appointments of a doctor with a status.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param status   the status, or null for all statuses.
+     * @return the number of appointments.
+     */
+    public long getDoctorCount(String doctorID, AppointmentStatus status) {
+        return count(doctorCounts.get(doctorID), status);
+    }
+
+    /**
+     * Gets the days with appointments.
+     *
+     * @return the days in ascending order.
+     */
+    public List<LocalDate> getDays() {
+        List<LocalDate> days = new ArrayList<>(dayCounts.keySet());
+        Collections.sort(days);
+        return days;
+    }
+
+    /**
+     * Gets the number of appointments on a day with a status.
+     *
+     * @param day    the day.
+     * @param status the status, or null for all statuses.
+     * @return the number of appointments.
+     */
+    public long getDayCount(LocalDate day, AppointmentStatus status) {
+        return count(dayCounts.get(day), status);
+    }
+
+    /**
+     * Reads a count from an array of counts per status.
+     *
+     * @param counts the counts per status, or null if there are none.
+     * @param status the status, or null for the sum of all statuses.
+     * @return the count.
+     */
+    private static long count(long[] counts, AppointmentStatus status) {
+        if (counts == null) {
+            return 0;
+        }
+        return status == null ? sum(counts) : counts[status.ordinal()];
+    }
+
+    /**
+     * Adds counts per status to other counts per status.
+     *
+     * @param target the counts to add to.
+     * @param source the counts to add.
+     */
+    private static void addCounts(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    /**
+     * Sums counts per status.
+     *
+     * @param counts the counts per status.
+     * @return the sum of the counts.
+     */
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
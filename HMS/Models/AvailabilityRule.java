@@ -0,0 +1,145 @@
+package HMS.Models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Represents a recurring availability of a doctor, such as "Mon-Fri 09:00-17:00 every 30 minutes".
+ * The slots of a rule are generated on demand for the dates being queried instead of being stored one by one.
+ */
+public class AvailabilityRule {
+    private final int ID;
+    private final String doctorID;
+    private final Set<DayOfWeek> days;
+    private final LocalTime startTime;
+    private final LocalTime endTime;
+    private final int intervalMinutes;
+    private final LocalDate validFrom;
+    private final LocalDate validUntil;
+
+    /**
+     * Constructs a new AvailabilityRule object with the specified details.
+     *
+     * @param ID              The unique identifier of the rule.
+     * @param doctorID        The ID of the doctor the rule belongs to.
+     * @param days            The days of the week the rule applies to.
+     * @param startTime       The time of the first slot of each day.
+     * @param endTime         The time the last slot of each day must start before.
+     * @param intervalMinutes The number of minutes between two slots.
+     * @param validFrom       The first date the rule applies to.
+     * @param validUntil      The last date the rule applies to, or null if the rule does not end.
+     */
+    public AvailabilityRule(int ID, String doctorID, Set<DayOfWeek> days, LocalTime startTime, LocalTime endTime,
+                            int intervalMinutes, LocalDate validFrom, LocalDate validUntil) {
+        this.ID = ID;
+        this.doctorID = doctorID;
+        this.days = days.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(days);
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.intervalMinutes = intervalMinutes;
+        this.validFrom = validFrom;
+        this.validUntil = validUntil;
+    }
+
+    /**
+     * Gets the unique identifier of this rule.
+     *
+     * @return The ID of the rule.
+     */
+    public int getID() {
+        return ID;
+    }
+
+    /**
+     * Gets the ID of the doctor the rule belongs to.
+     *
+     * @return The doctor ID.
+     */
+    public String getDoctorID() {
+        return doctorID;
+    }
+
+    /**
+     * Gets the days of the week the rule applies to.
+     *
+     * @return The days of the rule.
+     */
+    public Set<DayOfWeek> getDays() {
+        return EnumSet.copyOf(days);
+    }
+
+    /**
+     * Gets the time of the first slot of each day.
+     *
+     * @return The start time.
+     */
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the time the last slot of each day must start before.
+     *
+     * @return The end time.
+     */
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Gets the number of minutes between two slots.
+     *
+     * @return The slot interval in minutes.
+     */
+    public int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+
+    /**
+     * Gets the first date the rule applies to.
+     *
+     * @return The start date of the rule.
+     */
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    /**
+     * Gets the last date the rule applies to.
+     *
+     * @return The end date of the rule, or null if the rule does not end.
+     */
+    public LocalDate getValidUntil() {
+        return validUntil;
+    }
+
+    /**
+     * Checks whether the rule applies to the given date.
+     *
+     * @param date The date to check.
+     * @return True if the date is a rule day within the validity of the rule, false otherwise.
+     */
+    public boolean appliesTo(LocalDate date) {
+        return days.contains(date.getDayOfWeek())
+                && !date.isBefore(validFrom)
+                && (validUntil == null || !date.isAfter(validUntil));
+    }
+
+    /**
+     * Checks whether the rule generates a slot at the given date and time.
+     *
+     * @param date The date of the slot.
+     * @param time The time of the slot.
+     * @return True if the slot is one of the rule's slots, false otherwise.
+     */
+    public boolean generates(LocalDate date, LocalTime time) {
+        if (!appliesTo(date) || time.isBefore(startTime) || !time.isBefore(endTime)) {
+            return false;
+        }
+        int minutesFromStart = (time.toSecondOfDay() - startTime.toSecondOfDay()) / 60;
+        return time.getSecond() == 0 && minutesFromStart % intervalMinutes == 0;
+    }
+}
@@ -0,0 +1,40 @@
+package HMS.Models;
+
+import java.util.Date;
+
+/**
+ * Represents a free appointment slot of a doctor, as returned by the earliest available slot search.
+ */
+public class AvailableSlot {
+    private final String doctorID;
+    private final Date slot;
+
+    /**
+     * Constructs a new AvailableSlot object.
+     *
+     * @param doctorID The ID of the doctor offering the slot.
+     * @param slot     The date and time of the slot.
+     */
+    public AvailableSlot(String doctorID, Date slot) {
+        this.doctorID = doctorID;
+        this.slot = slot;
+    }
+
+    /**
+     * Gets the ID of the doctor offering the slot.
+     *
+     * @return The doctor ID.
+     */
+    public String getDoctorID() {
+        return doctorID;
+    }
+
+    /**
+     * Gets the date and time of the slot.
+     *
+     * @return The slot date.
+     */
+    public Date getSlot() {
+        return slot;
+    }
+}
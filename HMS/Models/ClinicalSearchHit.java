@@ -0,0 +1,99 @@
+package HMS.Models;
+
+/**
+ * Represents a piece of clinical text found by a search: either an appointment outcome or a diagnosis of a patient.
+ * The hit refers to the record it was found in rather than copying its text.
+ */
+public class ClinicalSearchHit {
+    private final String patientID;
+    private final AppointmentOutcomeRecord outcome;
+    private final Diagnosis diagnosis;
+
+    /**
+     * Constructs a hit on an appointment outcome.
+     *
+     * @param outcome the appointment outcome.
+     */
+    public ClinicalSearchHit(AppointmentOutcomeRecord outcome) {
+        this.patientID = outcome.getPatientID();
+        this.outcome = outcome;
+        this.diagnosis = null;
+    }
+
+    /**
+     * Constructs a hit on a diagnosis.
+     *
+     * @param patientID the ID of the patient the diagnosis belongs to.
+     * @param diagnosis the diagnosis.
+     */
+    public ClinicalSearchHit(String patientID, Diagnosis diagnosis) {
+        this.patientID = patientID;
+        this.outcome = null;
+        this.diagnosis = diagnosis;
+    }
+
+    /**
+     * Gets the ID of the patient.
+     *
+     * @return the patient ID.
+     */
+    public String getPatientID() {
+        return patientID;
+    }
+
+    /**
+     * Gets the kind of record the text was found in.
+     *
+     * @return "Outcome" or "Diagnosis".
+     */
+    public String getSource() {
+        return outcome != null ? "Outcome" : "Diagnosis";
+    }
+
+    /**
+     * Gets the date of the record.
+     *
+     * @return the appointment date or the diagnosis date.
+     */
+    public String getDate() {
+        return outcome != null ? outcome.getAppointmentDate() : diagnosis.getDiagnosisDate();
+    }
+
+    /**
+     * Gets what identifies the record for the patient.
+     *
+     * @return the appointment ID of an outcome, or the condition of a diagnosis.
+     */
+    public String getReference() {
+        return outcome != null ? "Appointment " + outcome.getAppointmentID() : diagnosis.getCondition();
+    }
+
+    /**
+     * Gets the text of the record that was searched.
+     *
+     * @return the service type and consultation notes of an outcome, or the prescription of a diagnosis.
+     */
+    public String getText() {
+        return outcome != null
+                ? outcome.getServiceType() + ": " + outcome.getConsultationNotes()
+                : "Prescription: " + diagnosis.getPrescription();
+    }
+
+    /**
+     * Gets the appointment outcome the text was found in.
+     *
+     * @return the outcome, or null if the hit is a diagnosis.
+     */
+    public AppointmentOutcomeRecord getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the diagnosis the text was found in.
+     *
+     * @return the diagnosis, or null if the hit is an outcome.
+     */
+    public Diagnosis getDiagnosis() {
+        return diagnosis;
+    }
+}
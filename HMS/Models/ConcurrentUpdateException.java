@@ -0,0 +1,43 @@
+package HMS.Models;
+
+/**
+ * Thrown when a change is based on a version of an aggregate that another session has changed since.
+ * The conflict is retryable: the aggregate can be read again and the change applied to the current version.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    /**
+     * Constructs a conflict.
+     *
+     * @param aggregate       a description of the changed aggregate.
+     * @param expectedVersion the version the change was based on.
+     * @param actualVersion   the current version of the aggregate.
+     */
+    public ConcurrentUpdateException(String aggregate, long expectedVersion, long actualVersion) {
+        super(aggregate + " was changed by another session (version " + expectedVersion + ", now " + actualVersion + ")");
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    /**
+     * Gets the version the refused change was based on.
+     *
+     * @return the expected version.
+     */
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    /**
+     * Gets the version of the aggregate when the change was refused.
+     *
+     * @return the current version.
+     */
+    public long getActualVersion() {
+        return actualVersion;
+    }
+}
@@ -0,0 +1,50 @@
+package HMS.Models;
+
+/**
+ * Represents the result of a doctor's decision on one appointment within a bulk approval or decline.
+ */
+public class DecisionResult {
+    private final int appointmentID;
+    private final boolean applied;
+    private final String message;
+
+    /**
+     * Constructs a new DecisionResult object.
+     *
+     * @param appointmentID The ID of the appointment the decision was made on.
+     * @param applied       Whether the decision was applied to the appointment.
+     * @param message       The outcome of the decision (e.g., "approved", "not pending").
+     */
+    public DecisionResult(int appointmentID, boolean applied, String message) {
+        this.appointmentID = appointmentID;
+        this.applied = applied;
+        this.message = message;
+    }
+
+    /**
+     * Gets the ID of the appointment the decision was made on.
+     *
+     * @return The appointment ID.
+     */
+    public int getAppointmentID() {
+        return appointmentID;
+    }
+
+    /**
+     * Checks whether the decision was applied to the appointment.
+     *
+     * @return True if the appointment was approved or declined, false if it was skipped.
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    /**
+     * Gets the outcome of the decision.
+     *
+     * @return The outcome message.
+     */
+    public String getMessage() {
+        return message;
+    }
+}
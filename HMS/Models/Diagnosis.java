@@ -1,5 +1,7 @@
 package HMS.Models;
 
+import java.util.Locale;
+
 /**
  * Represents a diagnosis with detailed medical information.
  */
@@ -47,4 +49,24 @@ public class Diagnosis {
     public String getPrescription() {
         return prescription;
     }
+
+    /**
+     * Gets the key identifying the condition of the diagnosis regardless of case and surrounding spaces.
+     * A patient has at most one diagnosis per condition key.
+     *
+     * @return the normalized condition.
+     */
+    public String getConditionKey() {
+        return toConditionKey(condition);
+    }
+
+    /**
+     * Normalizes a condition into its condition key.
+     *
+     * @param condition the condition, in any case.
+     * @return the condition without surrounding spaces, in lowercase.
+     */
+    public static String toConditionKey(String condition) {
+        return condition.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -1,17 +1,18 @@
 package HMS.Models;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a patient's medical record in the Hospital Management System.
  * This class is focused on holding the patient's personal and medical HMS.data.
  */
-public class MedicalRecord {
+public class MedicalRecord extends VersionedModel {
 
     private final String patientID;
-    private final List<Diagnosis> diagnoses;
+    private final Map<String, Diagnosis> diagnoses; // Condition key -> diagnosis, in order of first diagnosis
     private String dateOfBirth;
     private String phoneNumber;
     private String emailAddress;
@@ -24,7 +25,7 @@ public class MedicalRecord {
      */
     public MedicalRecord(String patientID) {
         this.patientID = patientID;
-        this.diagnoses = new ArrayList<>();
+        this.diagnoses = new LinkedHashMap<>();
     }
 
     /**
@@ -109,20 +110,48 @@ public class MedicalRecord {
     }
 
     /**
-     * Gets an unmodifiable list of the patient's diagnoses.
+     * Gets a list of the patient's diagnoses, one per condition.
      *
      * @return the list of diagnoses.
      */
     public List<Diagnosis> getDiagnoses() {
-        return Collections.unmodifiableList(diagnoses);
+        return new ArrayList<>(diagnoses.values());
+    }
+
+    /**
+     * Gets the patient's diagnosis of a condition.
+     *
+     * @param condition the condition, in any case.
+     * @return the diagnosis, or null if the condition has not been diagnosed.
+     */
+    public Diagnosis getDiagnosis(String condition) {
+        return diagnoses.get(Diagnosis.toConditionKey(condition));
+    }
+
+    /**
+     * Adds a diagnosis, replacing the diagnosis of the same condition if there is one.
+     *
+     * @param diagnosis the diagnosis to add.
+     * @return true if a diagnosis of the condition was replaced, false if it was added.
+     */
+    public boolean upsertDiagnosis(Diagnosis diagnosis) {
+        return diagnoses.put(diagnosis.getConditionKey(), diagnosis) != null;
     }
 
     /**
      * Adds a list of diagnoses to the patient's medical record.
+     * A diagnosis replaces any earlier diagnosis of the same condition.
      *
      * @param diagnoses the list of diagnoses to add.
      */
     public void addDiagnoses(List<Diagnosis> diagnoses) {
-        this.diagnoses.addAll(diagnoses);
+        for (Diagnosis diagnosis : diagnoses) {
+            upsertDiagnosis(diagnosis);
+        }
+    }
+
+    @Override
+    protected String describe() {
+        return "Medical record of patient " + patientID;
     }
-}
\ No newline at end of file
+}
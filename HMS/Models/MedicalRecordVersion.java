@@ -0,0 +1,130 @@
+package HMS.Models;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents one version in the history of a patient's medical record.
+ * A delta version holds only the fields and diagnoses that changed from the previous version,
+ * while a checkpoint version holds the whole record so that older versions are not needed to rebuild it.
+ */
+public class MedicalRecordVersion {
+    public static final String DATE_OF_BIRTH = "DateOfBirth";
+    public static final String PHONE_NUMBER = "PhoneNumber";
+    public static final String EMAIL_ADDRESS = "EmailAddress";
+    public static final String BLOOD_TYPE = "BloodType";
+
+    private final String patientID;
+    private final int version;
+    private final long timestamp;
+    private final boolean checkpoint;
+    private final Map<String, String> fields = new LinkedHashMap<>(); // Field name -> new value
+    private final Map<String, Diagnosis> diagnoses = new LinkedHashMap<>(); // Condition key -> new diagnosis, or null if removed
+
+    /**
+     * Constructs a new version without changes.
+     *
+     * @param patientID  the ID of the patient.
+     * @param version    the version number, starting from 1.
+     * @param timestamp  the time the version was saved, in milliseconds since the epoch.
+     * @param checkpoint true if the version holds the whole record, false if it only holds changes.
+     */
+    public MedicalRecordVersion(String patientID, int version, long timestamp, boolean checkpoint) {
+        this.patientID = patientID;
+        this.version = version;
+        this.timestamp = timestamp;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Gets the ID of the patient.
+     *
+     * @return the patient ID.
+     */
+    public String getPatientID() {
+        return patientID;
+    }
+
+    /**
+     * Gets the version number.
+     *
+     * @return the version number.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the time the version was saved.
+     *
+     * @return the time in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Checks whether the version holds the whole record.
+     *
+     * @return true for a checkpoint, false for a delta.
+     */
+    public boolean isCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Records the new value of a field.
+     *
+     * @param name  the name of the field, such as {@link #BLOOD_TYPE}.
+     * @param value the new value, may be null.
+     */
+    public void setField(String name, String value) {
+        fields.put(name, value);
+    }
+
+    /**
+     * Records a new or changed diagnosis.
+     *
+     * @param diagnosis the diagnosis.
+     */
+    public void putDiagnosis(Diagnosis diagnosis) {
+        diagnoses.put(diagnosis.getConditionKey(), diagnosis);
+    }
+
+    /**
+     * Records the removal of the diagnosis of a condition.
+     *
+     * @param conditionKey the condition key of the removed diagnosis.
+     */
+    public void removeDiagnosis(String conditionKey) {
+        diagnoses.put(conditionKey, null);
+    }
+
+    /**
+     * Gets the fields set by this version.
+     *
+     * @return the new value of each field, by field name.
+     */
+    public Map<String, String> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Gets the diagnoses set or removed by this version.
+     *
+     * @return the new diagnosis, or null if it was removed, by condition key.
+     */
+    public Map<String, Diagnosis> getDiagnoses() {
+        return Collections.unmodifiableMap(diagnoses);
+    }
+
+    /**
+     * Checks whether the version records any change.
+     *
+     * @return true if no field or diagnosis is recorded.
+     */
+    public boolean isEmpty() {
+        return fields.isEmpty() && diagnoses.isEmpty();
+    }
+}
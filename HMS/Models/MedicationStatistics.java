@@ -0,0 +1,86 @@
+package HMS.Models;
+
+import HMS.Enums.Dispensed;
+
+import java.util.*;
+
+/**
+ * Quantities of each medication prescribed and dispensed in appointment outcomes.
+ * Statistics of separate parts of the outcomes can be computed independently and merged.
+ */
+public class MedicationStatistics {
+    private final Map<String, long[]> quantities = new HashMap<>(); // Medication name -> {prescribed, dispensed, prescriptions}
+
+    /**
+     * Counts the medications of an appointment outcome.
+     *
+     * @param outcome the appointment outcome.
+     */
+    public void add(AppointmentOutcomeRecord outcome) {
+        boolean dispensed = outcome.isDispensed() == Dispensed.YES;
+        for (Medication medication : outcome.getPrescribedMedications()) {
+            long quantity = medication.getQuantity() == null ? 0 : medication.getQuantity();
+            long[] counts = quantities.computeIfAbsent(medication.getMedicationName(), k -> new long[3]);
+            counts[0] += quantity;
+            counts[1] += dispensed ? quantity : 0;
+            counts[2]++;
+        }
+    }
+
+    /**
+     * Adds the quantities of other statistics to these statistics.
+     *
+     * @param other the statistics to merge in.
+     * @return these statistics.
+     */
+    public MedicationStatistics merge(MedicationStatistics other) {
+        other.quantities.forEach((name, counts) -> {
+            long[] target = quantities.computeIfAbsent(name, k -> new long[3]);
+            for (int i = 0; i < target.length; i++) {
+                target[i] += counts[i];
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Gets the names of the prescribed medications.
+     *
+     * @return the medication names in ascending order.
+     */
+    public List<String> getMedicationNames() {
+        List<String> names = new ArrayList<>(quantities.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Gets the total quantity of a medication prescribed.
+     *
+     * @param medicationName the name of the medication.
+     * @return the quantity prescribed.
+     */
+    public long getPrescribedQuantity(String medicationName) {
+        return quantities.getOrDefault(medicationName, new long[3])[0];
+    }
+
+    /**
+     * Gets the total quantity of a medication dispensed.
+     *
+     * @param medicationName the name of the medication.
+     * @return the quantity dispensed.
+     */
+    public long getDispensedQuantity(String medicationName) {
+        return quantities.getOrDefault(medicationName, new long[3])[1];
+    }
+
+    /**
+     * Gets the number of prescriptions of a medication.
+     *
+     * @param medicationName the name of the medication.
+     * @return the number of outcomes prescribing the medication.
+     */
+    public long getPrescriptionCount(String medicationName) {
+        return quantities.getOrDefault(medicationName, new long[3])[2];
+    }
+}
@@ -0,0 +1,52 @@
+package HMS.Models;
+
+import java.util.List;
+
+/**
+ * Represents one page of rows of a listing, together with the cursor to fetch the page that follows it.
+ * The cursor is opaque to the caller and is only passed back to the listing that returned it.
+ *
+ * @param <T> the type of the rows on the page.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    /**
+     * Constructs a new Page object.
+     *
+     * @param items      The rows on the page.
+     * @param nextCursor The cursor of the next page, or null if this is the last page.
+     */
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the rows on the page.
+     *
+     * @return The rows on the page.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the cursor to fetch the next page with.
+     *
+     * @return The cursor of the next page, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks whether there is a page after this one.
+     *
+     * @return True if there is a next page, false otherwise.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,77 @@
+package HMS.Models;
+
+import java.util.Date;
+
+/**
+ * Represents a reminder to send to a patient before an approved appointment.
+ * The appointment details are captured when the reminder is scheduled, so that it can be written out without looking up the appointment.
+ */
+public class Reminder {
+    private final int appointmentID;
+    private final String patientID;
+    private final String doctorID;
+    private final Date appointmentDate;
+    private final long dueAt;
+
+    /**
+     * Constructs a new Reminder object with the specified details.
+     *
+     * @param appointmentID   The ID of the appointment.
+     * @param patientID       The ID of the patient to remind.
+     * @param doctorID        The ID of the doctor of the appointment.
+     * @param appointmentDate The date and time of the appointment.
+     * @param dueAt           The time the reminder is due, in milliseconds.
+     */
+    public Reminder(int appointmentID, String patientID, String doctorID, Date appointmentDate, long dueAt) {
+        this.appointmentID = appointmentID;
+        this.patientID = patientID;
+        this.doctorID = doctorID;
+        this.appointmentDate = appointmentDate;
+        this.dueAt = dueAt;
+    }
+
+    /**
+     * Gets the ID of the appointment.
+     *
+     * @return The appointment ID.
+     */
+    public int getAppointmentID() {
+        return appointmentID;
+    }
+
+    /**
+     * Gets the ID of the patient to remind.
+     *
+     * @return The patient ID.
+     */
+    public String getPatientID() {
+        return patientID;
+    }
+
+    /**
+     * Gets the ID of the doctor of the appointment.
+     *
+     * @return The doctor ID.
+     */
+    public String getDoctorID() {
+        return doctorID;
+    }
+
+    /**
+     * Gets the date and time of the appointment.
+     *
+     * @return The appointment date.
+     */
+    public Date getAppointmentDate() {
+        return appointmentDate;
+    }
+
+    /**
+     * Gets the time the reminder is due.
+     *
+     * @return The due time in milliseconds.
+     */
+    public long getDueAt() {
+        return dueAt;
+    }
+}
@@ -4,7 +4,7 @@ package HMS.Models;
  * Represents a stock entry for a specific medicine in the hospital management system.
  * This class maintains information about the medicine, stock levels, and alert thresholds.
  */
-public class Stock {
+public class Stock extends VersionedModel {
     private final String medicineName;
     private final int lowStockAlertThreshold;
     private int ID;
@@ -89,4 +89,9 @@ public class Stock {
         return String.format("ID: %d, Medicine: %s, Stock Level: %d, Low Stock Alert Threshold: %d",
                 ID, medicineName, stockLevel, lowStockAlertThreshold);
     }
+
+    @Override
+    protected String describe() {
+        return "Stock " + ID + " (" + medicineName + ")";
+    }
 }
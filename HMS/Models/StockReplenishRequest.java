@@ -7,7 +7,7 @@ import HMS.Enums.ReplenishStatus;
  * This class contains details about a stock request, including the StockID, incoming stock level
  * and the current status of the request.
  */
-public class StockReplenishRequest {
+public class StockReplenishRequest extends VersionedModel {
     private int ID;
     private int stockId;
     private int incomingStockLevel;
@@ -96,4 +96,9 @@ public class StockReplenishRequest {
     public void setStatus(ReplenishStatus status) {
         this.status = status;
     }
-}
\ No newline at end of file
+
+    @Override
+    protected String describe() {
+        return "Replenish request " + ID;
+    }
+}
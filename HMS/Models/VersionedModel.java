@@ -0,0 +1,67 @@
+package HMS.Models;
+
+/**
+ * Base class of the aggregates changed by more than one session, such as appointments, medical records,
+ * stocks and replenish requests. The version counts the changes of the aggregate, and is saved with the aggregates
+ * whose sessions decide on what their users saw.
+ *
+ * <p>A session that shows an aggregate to its user notes the version it showed, and applies the user's decision with
+ * {@link #compareAndSet(long, Runnable)}: if another session changed the aggregate in the meantime, the change is
+ * refused with a {@link ConcurrentUpdateException} and the session can read the aggregate again and retry, instead of
+ * every session holding a lock while its user decides. Changes that do not depend on what a user saw are made with
+ * {@link #update(Runnable)}. The setters of the subclasses do not count as changes, so that rows can be loaded
+ * through them. The version also tells whether a copy of the aggregate is still current.</p>
+ */
+public abstract class VersionedModel {
+    private long version;
+
+    /**
+     * Gets the version of the aggregate.
+     *
+     * @return the number of changes made to the aggregate, 0 for an aggregate never changed.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the aggregate, as loaded from storage.
+     *
+     * @param version the version.
+     */
+    public synchronized void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Applies a change to the aggregate if it is still at the expected version, and counts the change.
+     *
+     * @param expectedVersion the version the change is based on.
+     * @param change          the change, made through the setters of the aggregate.
+     * @throws ConcurrentUpdateException if the aggregate was changed since the expected version.
+     */
+    public synchronized void compareAndSet(long expectedVersion, Runnable change) {
+        if (version != expectedVersion) {
+            throw new ConcurrentUpdateException(describe(), expectedVersion, version);
+        }
+        change.run();
+        version++;
+    }
+
+    /**
+     * Applies a change to the aggregate whatever its version, and counts the change.
+     *
+     * @param change the change, made through the setters of the aggregate.
+     */
+    public synchronized void update(Runnable change) {
+        change.run();
+        version++;
+    }
+
+    /**
+     * Describes the aggregate in the message of a conflict.
+     *
+     * @return a short description, such as "Appointment 12".
+     */
+    protected abstract String describe();
+}
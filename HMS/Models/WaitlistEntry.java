@@ -0,0 +1,79 @@
+package HMS.Models;
+
+import HMS.Enums.TimeWindow;
+
+import java.util.Date;
+
+/**
+ * Represents a patient waiting for a slot of a fully booked doctor.
+ * Entries are served in the order they were requested, among those whose preferred window matches the freed slot.
+ */
+public class WaitlistEntry {
+    private final int ID;
+    private final String patientID;
+    private final String doctorID;
+    private final TimeWindow timeWindow;
+    private final Date requestedAt;
+
+    /**
+     * Constructs a new WaitlistEntry object with the specified details.
+     *
+     * @param ID          The unique identifier of the entry, increasing in request order.
+     * @param patientID   The ID of the waiting patient.
+     * @param doctorID    The ID of the doctor the patient is waiting for.
+     * @param timeWindow  The preferred time of day of the patient.
+     * @param requestedAt The date and time the patient joined the waitlist.
+     */
+    public WaitlistEntry(int ID, String patientID, String doctorID, TimeWindow timeWindow, Date requestedAt) {
+        this.ID = ID;
+        this.patientID = patientID;
+        this.doctorID = doctorID;
+        this.timeWindow = timeWindow;
+        this.requestedAt = requestedAt;
+    }
+
+    /**
+     * Gets the unique identifier of this entry.
+     *
+     * @return The ID of the entry.
+     */
+    public int getID() {
+        return ID;
+    }
+
+    /**
+     * Gets the ID of the waiting patient.
+     *
+     * @return The patient ID.
+     */
+    public String getPatientID() {
+        return patientID;
+    }
+
+    /**
+     * Gets the ID of the doctor the patient is waiting for.
+     *
+     * @return The doctor ID.
+     */
+    public String getDoctorID() {
+        return doctorID;
+    }
+
+    /**
+     * Gets the preferred time of day of the patient.
+     *
+     * @return The preferred time window.
+     */
+    public TimeWindow getTimeWindow() {
+        return timeWindow;
+    }
+
+    /**
+     * Gets the date and time the patient joined the waitlist.
+     *
+     * @return The request date.
+     */
+    public Date getRequestedAt() {
+        return requestedAt;
+    }
+}
@@ -0,0 +1,71 @@
+package HMS.Profiling;
+
+import HMS.Systems.SessionContext;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted around every save of an HMS data file.
+ * The event records which store was written, how many records were written, the number of bytes written
+ * and the role of the user whose action triggered the save.
+ */
+@Name("HMS.Persistence")
+@Label("HMS Persistence")
+@Category({"HMS", "Persistence"})
+@Description("Save of an HMS data store")
+public class PersistenceEvent extends Event {
+
+    @Label("Store")
+    @Description("Name of the data store being saved")
+    String store;
+
+    @Label("Record Count")
+    int recordCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("User Role")
+    String userRole;
+
+    /**
+     * Creates and begins timing a persistence event for the given store.
+     *
+     * @param store the name of the store being saved (e.g., "appointments").
+     * @return the started event.
+     */
+    public static PersistenceEvent start(String store) {
+        PersistenceEvent event = new PersistenceEvent();
+        if (event.isEnabled()) {
+            event.store = store;
+            event.userRole = SessionContext.getCurrentRole();
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it.
+     * The written bytes are also added to the workflow running on the current thread, if any.
+     *
+     * @param recordCount  the number of records written.
+     * @param bytesWritten the number of bytes written.
+     */
+    public void end(int recordCount, long bytesWritten) {
+        WorkflowEvent.addBytesWritten(bytesWritten);
+        if (!isEnabled()) {
+            return;
+        }
+        this.recordCount = recordCount;
+        this.bytesWritten = bytesWritten;
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package HMS.Profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event emitted every second by a standby HMS, recording how far it is behind the primary.
+ */
+@Name("HMS.Replication")
+@Label("HMS Replication")
+@Category({"HMS", "Replication"})
+@Description("Replication state of a standby HMS")
+@Period("1 s")
+public class ReplicationEvent extends Event {
+
+    @Label("Lag")
+    @Description("Time between the primary journaling an entry and the standby applying it, for the last batch applied")
+    @Timespan(Timespan.MILLISECONDS)
+    long lag;
+
+    @Label("Bytes Behind")
+    @Description("Journal bytes of the primary not applied yet")
+    @DataAmount
+    long bytesBehind;
+
+    @Label("Applied Sequence")
+    long appliedSequence;
+
+    @Label("Promoted")
+    boolean promoted;
+
+    /**
+     * Emits the replication state of the standby.
+     *
+     * @param lagMillis       the replication lag in milliseconds.
+     * @param bytesBehind     the journal bytes not applied yet.
+     * @param appliedSequence the sequence number of the last applied entry.
+     * @param promoted        true if the standby has been promoted.
+     */
+    public static void emit(long lagMillis, long bytesBehind, long appliedSequence, boolean promoted) {
+        ReplicationEvent event = new ReplicationEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.lag = lagMillis;
+        event.bytesBehind = bytesBehind;
+        event.appliedSequence = appliedSequence;
+        event.promoted = promoted;
+        event.commit();
+    }
+}
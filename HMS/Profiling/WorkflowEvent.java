@@ -0,0 +1,106 @@
+package HMS.Profiling;
+
+import HMS.Systems.SessionContext;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted around a hospital workflow such as booking, rescheduling or dispensing.
+ * The event records the records touched, the bytes written by every save made during the workflow
+ * and the role of the user performing it.
+ */
+@Name("HMS.Workflow")
+@Label("HMS Workflow")
+@Category({"HMS", "Workflow"})
+@Description("Hospital workflow such as booking, rescheduling or dispensing")
+public class WorkflowEvent extends Event {
+    private static final ThreadLocal<WorkflowEvent> current = new ThreadLocal<>();
+
+    @Label("Workflow")
+    String workflow;
+
+    @Label("Appointment ID")
+    int appointmentID;
+
+    @Label("Record Count")
+    int recordCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("User Role")
+    String userRole;
+
+    @Label("Success")
+    boolean success;
+
+    private WorkflowEvent previous;
+
+    /**
+     * Creates and begins timing a workflow event. Saves made on this thread until the event
+     * ends are accounted to it.
+     *
+     * @param workflow      the name of the workflow (e.g., "booking").
+     * @param appointmentID the appointment the workflow acts on, or 0 if not yet known.
+     * @return the started event.
+     */
+    public static WorkflowEvent start(String workflow, int appointmentID) {
+        WorkflowEvent event = new WorkflowEvent();
+        event.workflow = workflow;
+        event.appointmentID = appointmentID;
+        event.userRole = SessionContext.getCurrentRole();
+        event.previous = current.get();
+        current.set(event);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Adds the given number of bytes to the workflow running on the current thread, if any.
+     *
+     * @param bytes the number of bytes written by a save.
+     */
+    static void addBytesWritten(long bytes) {
+        WorkflowEvent event = current.get();
+        if (event != null) {
+            event.bytesWritten += bytes;
+        }
+    }
+
+    /**
+     * Sets the appointment the workflow acts on, once it is known.
+     *
+     * @param appointmentID the appointment ID.
+     */
+    public void setAppointmentID(int appointmentID) {
+        this.appointmentID = appointmentID;
+    }
+
+    /**
+     * Ends the event and commits it.
+     *
+     * @param recordCount the number of records the workflow created or changed.
+     * @param success     whether the workflow completed successfully.
+     */
+    public void end(int recordCount, boolean success) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+        if (!isEnabled()) {
+            return;
+        }
+        this.recordCount = recordCount;
+        this.success = success;
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
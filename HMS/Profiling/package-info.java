@@ -0,0 +1,4 @@
+/**
+ * This package contains the Java Flight Recorder event types emitted by the HMS around persistence and hospital workflows.
+ */
+package HMS.Profiling;
@@ -0,0 +1,336 @@
+package HMS.Replication;
+
+import HMS.HMS;
+import HMS.Profiling.ReplicationEvent;
+import HMS.Storage.*;
+import HMS.Systems.AppointmentExpirySystem;
+import HMS.Systems.ReminderSystem;
+import jdk.jfr.FlightRecorder;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A standby HMS following a primary HMS through a shared directory. The primary, started with
+ * {@code -Dhms.journal=true}, records every mutation in the journal of its data directory; the standby tails that
+ * journal and applies each entry to its own data directory, while its users may log in to read the replicated data.
+ *
+ * <p>On first start the standby copies the primary's tables and replays the journal from where it stood before the
+ * copy. The position reached is saved in {@code replication.pos}, so a restarted standby resumes from it, and
+ * acknowledged in the primary's {@code journal.ack}, so the primary may empty its journal once it has all been applied.
+ * A journal whose first entry is no longer the one it started with has been emptied, and is replayed from its start.
+ * Creating a file named {@code promote} in the standby's data directory promotes it: it applies the rest of the
+ * journal, stops following the primary and lets its sessions save changes, journaling them for a standby of its own.</p>
+ *
+ * <p>Usage: {@code java -Dhms.data.dir=<standby dir> HMS.Replication.Standby <primary dir>}, with the same
+ * {@code hms.storage} and {@code hms.shards} as the primary. The journal is polled every
+ * {@code hms.replication.poll.ms} milliseconds (100 by default) and the replication lag is emitted as the
+ * {@code HMS.Replication} Flight Recorder event. Sessions read each table when it is first used,
+ * so they see the data replicated by then.</p>
+ */
+public class Standby {
+    private static final long POLL_MILLIS = Long.getLong("hms.replication.poll.ms", 100);
+    private static final String POSITION_FILE = "replication.pos";
+    private static final String PROMOTE_FILE = "promote";
+
+    private final File journalFile;
+    private final File ackFile;
+    private final File positionFile;
+    private final File promoteFile;
+    private final StorageEngine local;
+    private final StandbyStorageEngine engine;
+    private final Map<String, RowCodec<?>> codecs = new HashMap<>();
+
+    private volatile long position; // Offset of the next entry to apply in the primary's journal
+    private volatile long baseSequence; // Sequence number of the first entry of the journal, -1 if it had none
+    private volatile long appliedSequence;
+    private volatile long lagMillis;
+    private volatile long bytesBehind;
+    private boolean positionError;
+    private boolean ackError;
+
+    /**
+     * Constructs a standby.
+     *
+     * @param primaryDirectory the data directory of the primary.
+     * @param directory        the data directory of the standby.
+     * @param local            the engine over the standby's data directory.
+     */
+    public Standby(File primaryDirectory, File directory, StorageEngine local) {
+        this.journalFile = new File(primaryDirectory, Journal.FILE_NAME);
+        this.ackFile = new File(primaryDirectory, Journal.ACK_FILE);
+        this.positionFile = new File(directory, POSITION_FILE);
+        this.promoteFile = new File(directory, PROMOTE_FILE);
+        this.local = local;
+        this.engine = new StandbyStorageEngine(local);
+        for (RowCodec<?> codec : Storage.getCodecs()) {
+            codecs.put(codec.getTable(), codec);
+        }
+    }
+
+    /**
+     * Gets the engine the sessions of the standby read with.
+     *
+     * @return the standby storage engine.
+     */
+    public StandbyStorageEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Resumes from the saved position, or copies the primary's tables if the standby has never followed it.
+     *
+     * @param primary the engine over the primary's data directory.
+     * @throws IOException if the tables or the position cannot be read or written.
+     */
+    public void bootstrap(StorageEngine primary) throws IOException {
+        if (positionFile.exists()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(positionFile))) {
+                String[] fields = br.readLine().split(",");
+                position = Long.parseLong(fields[0]);
+                appliedSequence = Long.parseLong(fields[1]);
+                baseSequence = fields.length > 2 ? Long.parseLong(fields[2]) : readFirstSequence(); // Saved before 3 fields
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid replication position in " + positionFile.getPath());
+            }
+            System.out.println("Resuming replication at journal entry " + (appliedSequence + 1) + ".");
+            return;
+        }
+
+        // Entries journaled during the copy are replayed after it; replaying an entry the copy already holds is harmless.
+        // The acknowledgment keeps the primary from emptying the journal before they are.
+        acknowledge();
+        long start = journalFile.length();
+        baseSequence = readFirstSequence();
+        for (RowCodec<?> codec : codecs.values()) {
+            local.writeRows(codec, primary.readRows(codec));
+        }
+        position = start;
+        savePosition();
+        System.out.println("Copied the primary's data; replicating from journal offset " + start + ".");
+    }
+
+    /**
+     * Follows the primary until the standby is promoted.
+     */
+    public void run() {
+        while (!engine.isPromoted()) {
+            try {
+                int applied = catchUp();
+                if (promoteFile.exists()) {
+                    catchUp();
+                    promote();
+                } else if (applied == 0) {
+                    Thread.sleep(POLL_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                System.err.println("Error replicating the journal: " + e.getMessage());
+                try {
+                    Thread.sleep(POLL_MILLIS * 10);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the complete journal entries not applied yet, and updates the replication lag if there were any.
+     *
+     * @return the number of entries applied.
+     * @throws IOException if the journal cannot be read or an entry cannot be applied.
+     */
+    public synchronized int catchUp() throws IOException {
+        if (!journalFile.exists()) {
+            return 0;
+        }
+        int applied = 0;
+        long oldest = 0;
+        try (RandomAccessFile in = new RandomAccessFile(journalFile, "r")) {
+            long firstSequence = JournalEntry.readFirstSequence(in);
+            if (position > 0 && (in.length() < position || firstSequence != baseSequence)) {
+                // Emptied by the primary, which only does so once every entry was applied
+                if (firstSequence >= 0 && appliedSequence > 0 && firstSequence != appliedSequence + 1) {
+                    if (!positionError) {
+                        System.err.println("Error replicating the journal: it no longer holds the replicated position. "
+                                + "Delete " + positionFile.getPath() + " to copy the primary again.");
+                        positionError = true;
+                    }
+                    return 0;
+                }
+                position = 0;
+            }
+            if (position == 0) {
+                baseSequence = firstSequence;
+            }
+            in.seek(position);
+            JournalEntry entry;
+            while ((entry = JournalEntry.read(in)) != null) {
+                for (String table : entry.getTables()) {
+                    if (!codecs.containsKey(table)) {
+                        System.err.println("Error replicating the journal: unknown table " + table);
+                    }
+                }
+                engine.apply(entry, codecs);
+                if (applied++ == 0) {
+                    oldest = entry.getTimestamp();
+                }
+                position = in.getFilePointer();
+                appliedSequence = entry.getSequence();
+            }
+            bytesBehind = in.length() - position;
+        }
+        if (applied > 0) {
+            lagMillis = Math.max(0, System.currentTimeMillis() - oldest);
+            savePosition();
+        }
+        return applied;
+    }
+
+    /**
+     * Promotes the standby: it stops following the primary, its sessions may save changes, and the background
+     * Systems of the HMS are started.
+     */
+    public synchronized void promote() {
+        if (engine.isPromoted()) {
+            return;
+        }
+        engine.promote(Storage.transactional(Storage.journaled(local)));
+        promoteFile.delete();
+        positionFile.delete(); // The data now diverges from the primary's
+        ackFile.delete(); // The primary may empty its journal
+        System.out.println("\nThis standby has been promoted to primary at journal entry " + appliedSequence
+                + "; changes are now saved.");
+        AppointmentExpirySystem.start();
+        ReminderSystem.start();
+    }
+
+    /**
+     * Gets the replication lag: the time between the primary journaling the oldest entry of the last batch applied
+     * and the standby applying it.
+     *
+     * @return the lag in milliseconds.
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Gets the number of journal bytes not applied yet, as of the last poll.
+     *
+     * @return the bytes behind the primary.
+     */
+    public long getBytesBehind() {
+        return bytesBehind;
+    }
+
+    /**
+     * Gets the sequence number of the last applied journal entry.
+     *
+     * @return the sequence number, 0 if none was applied.
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Saves the replicated position, replacing the position file at once so that a crash leaves either position,
+     * then acknowledges it to the primary.
+     *
+     * @throws IOException if the position cannot be written.
+     */
+    private void savePosition() throws IOException {
+        File temp = new File(positionFile.getPath() + ".tmp");
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(temp))) {
+            bw.write(position + "," + appliedSequence + "," + baseSequence);
+            bw.newLine();
+        }
+        Files.move(temp.toPath(), positionFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        acknowledge();
+    }
+
+    /**
+     * Acknowledges the last applied entry in the primary's data directory, replacing the acknowledgment at once.
+     * If the primary's directory cannot be written, the primary keeps its whole journal.
+     */
+    private void acknowledge() {
+        File temp = new File(ackFile.getPath() + ".tmp");
+        try {
+            try (BufferedWriter bw = new BufferedWriter(new FileWriter(temp))) {
+                bw.write(Long.toString(appliedSequence));
+                bw.newLine();
+            }
+            Files.move(temp.toPath(), ackFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (!ackError) {
+                System.err.println("Error acknowledging the replicated position: " + e.getMessage());
+                ackError = true;
+            }
+        }
+    }
+
+    /**
+     * Reads the sequence number of the first entry of the primary's journal.
+     *
+     * @return the sequence number, or -1 if the journal holds no entry.
+     * @throws IOException if the journal cannot be read.
+     */
+    private long readFirstSequence() throws IOException {
+        if (!journalFile.exists()) {
+            return -1;
+        }
+        try (RandomAccessFile in = new RandomAccessFile(journalFile, "r")) {
+            return JournalEntry.readFirstSequence(in);
+        }
+    }
+
+    /**
+     * The entry point of the standby HMS.
+     *
+     * @param args the data directory of the primary.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: java -Dhms.data.dir=<standby dir> HMS.Replication.Standby <primary dir>");
+            return;
+        }
+        String backend = System.getProperty("hms.storage", "csv");
+        if (backend.equalsIgnoreCase("sql")) {
+            System.out.println("A standby needs a file backend: csv or binary.");
+            return;
+        }
+        File primaryDirectory = new File(args[0]);
+        File directory = Storage.getDataDirectory();
+        if (primaryDirectory.getAbsoluteFile().equals(directory.getAbsoluteFile())) {
+            System.out.println("The standby needs its own data directory, set with -Dhms.data.dir.");
+            return;
+        }
+
+        Standby standby = new Standby(primaryDirectory, directory, Storage.open(backend));
+        StorageEngine primary = Storage.open(backend, primaryDirectory, Storage.getShardCount());
+        try {
+            standby.bootstrap(primary);
+        } catch (IOException e) {
+            System.err.println("Error starting the standby: " + e.getMessage());
+            return;
+        } finally {
+            primary.close();
+        }
+        Storage.setEngine(standby.getEngine());
+
+        Thread worker = new Thread(standby::run, "hms-standby");
+        worker.setDaemon(true);
+        worker.start();
+        FlightRecorder.addPeriodicEvent(ReplicationEvent.class, () -> ReplicationEvent.emit(standby.getLagMillis(),
+                standby.getBytesBehind(), standby.getAppliedSequence(), standby.getEngine().isPromoted()));
+
+        new HMS().start();
+    }
+}
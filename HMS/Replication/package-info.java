@@ -0,0 +1,5 @@
+/**
+ * This package contains the standby HMS, which replays the journal of a primary HMS to keep a copy of its data,
+ * serves read-only sessions and can be promoted to take over from the primary.
+ */
+package HMS.Replication;
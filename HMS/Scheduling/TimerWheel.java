@@ -0,0 +1,196 @@
+package HMS.Scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hashed timer wheel holding timers of payloads that expire at a deadline.
+ * Timers are hashed into a fixed ring of buckets by their deadline tick and kept in doubly linked lists,
+ * so scheduling and cancelling a timer are O(1) regardless of how many timers are held.
+ * Advancing the wheel only visits the buckets of the ticks that have passed.
+ *
+ * @param <T> the type of the payload of the timers.
+ */
+public class TimerWheel<T> {
+    private final long tickMillis;
+    private final Bucket<T>[] buckets;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Constructs a timer wheel.
+     *
+     * @param tickMillis the duration of one tick in milliseconds, the precision of the timers.
+     * @param wheelSize  the number of buckets, rounded up to a power of two.
+     * @param startTime  the current time in milliseconds.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long tickMillis, int wheelSize, long startTime) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive.");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.mask = size - 1;
+        this.currentTick = startTime / tickMillis;
+    }
+
+    /**
+     * Schedules a timer. A deadline in the past expires on the next advance.
+     *
+     * @param payload  the payload returned when the timer expires.
+     * @param deadline the time the timer expires, in milliseconds.
+     * @return the timer, which can be used to cancel it.
+     */
+    public synchronized Timer<T> schedule(T payload, long deadline) {
+        long tick = Math.max(deadline / tickMillis, currentTick);
+        Timer<T> timer = new Timer<>(payload, deadline, tick);
+        buckets[(int) (tick & mask)].add(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a timer so that it never expires.
+     *
+     * @param timer the timer to cancel.
+     * @return true if the timer was pending, false if it had already expired or been cancelled.
+     */
+    public synchronized boolean cancel(Timer<T> timer) {
+        if (timer.bucket == null) {
+            return false;
+        }
+        timer.bucket.remove(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to the given time and removes the timers that have expired.
+     *
+     * @param now the current time in milliseconds.
+     * @return the expired timers, in tick order.
+     */
+    public synchronized List<Timer<T>> advance(long now) {
+        List<Timer<T>> expired = new ArrayList<>();
+        long targetTick = now / tickMillis;
+        // A full turn visits every bucket, so a longer gap does not need to be replayed tick by tick
+        long firstTick = Math.max(currentTick, targetTick - mask);
+        for (long tick = firstTick; tick <= targetTick; tick++) {
+            Bucket<T> bucket = buckets[(int) (tick & mask)];
+            Timer<T> timer = bucket.head;
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                if (timer.tick <= targetTick) {
+                    bucket.remove(timer);
+                    size--;
+                    expired.add(timer);
+                }
+                timer = next;
+            }
+        }
+        currentTick = targetTick + 1;
+        return expired;
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return the number of timers that have neither expired nor been cancelled.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * A pending timer of the wheel.
+     *
+     * @param <T> the type of the payload of the timer.
+     */
+    public static class Timer<T> {
+        private final T payload;
+        private final long deadline;
+        private final long tick;
+        private Bucket<T> bucket;
+        private Timer<T> previous;
+        private Timer<T> next;
+
+        /**
+         * Constructs a timer.
+         *
+         * @param payload  the payload of the timer.
+         * @param deadline the time the timer expires, in milliseconds.
+         * @param tick     the tick the timer expires at.
+         */
+        private Timer(T payload, long deadline, long tick) {
+            this.payload = payload;
+            this.deadline = deadline;
+            this.tick = tick;
+        }
+
+        /**
+         * Gets the payload of the timer.
+         *
+         * @return the payload.
+         */
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * Gets the time the timer expires.
+         *
+         * @return the deadline in milliseconds.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+
+    /**
+     * A bucket of the wheel, holding the timers of every tick hashed to it in a doubly linked list.
+     *
+     * @param <T> the type of the payload of the timers.
+     */
+    private static class Bucket<T> {
+        private Timer<T> head;
+
+        /**
+         * Adds a timer at the head of the bucket.
+         *
+         * @param timer the timer to add.
+         */
+        void add(Timer<T> timer) {
+            timer.bucket = this;
+            timer.next = head;
+            if (head != null) {
+                head.previous = timer;
+            }
+            head = timer;
+        }
+
+        /**
+         * Unlinks a timer from the bucket.
+         *
+         * @param timer the timer to remove.
+         */
+        void remove(Timer<T> timer) {
+            if (timer.previous != null) {
+                timer.previous.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.previous = timer.previous;
+            }
+            timer.bucket = null;
+            timer.previous = null;
+            timer.next = null;
+        }
+    }
+}
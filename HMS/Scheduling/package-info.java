@@ -0,0 +1,4 @@
+/**
+ * This package contains the timer wheel used to schedule time-based transitions of HMS data, such as appointment expiry.
+ */
+package HMS.Scheduling;
@@ -0,0 +1,308 @@
+package HMS.Search;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An index of short texts, such as user IDs and names, answering prefix searches that tolerate typos.
+ * Each entry is found by its key. Its words are split into n-grams: the first letter and every three letters of the
+ * word padded with a space on each side, so "ann" gives " a", " an", "ann" and "nn ".
+ *
+ * <p>A query is split the same way without the trailing space, so that a query word also matches longer words that
+ * start with it. Entries sharing the most n-grams with the query are candidates, and the candidates are ranked by
+ * how well each query word matches their words: exactly, as a prefix, or within one or two typos.
+ * N-grams found in more than a quarter of the entries, such as the first letter of a common ID prefix,
+ * are only counted when no rarer n-gram of the query matched an entry the search accepts, which keeps a search to the
+ * entries that can rank.</p>
+ *
+ * <p>Entries are numbered in the order they are put. A changed entry is put again under a new number, and the
+ * n-gram lists are rebuilt once most of the numbers in them belong to removed entries.</p>
+ */
+public class FuzzyIndex {
+    private static final int MIN_CANDIDATES = 64;
+    private static final int COMPACT_THRESHOLD = 1024;
+    private static final int COMMON_GRAM_DIVISOR = 4;
+
+    private final Map<String, int[]> grams = new HashMap<>(); // N-gram -> {count, entry numbers...}
+    private final List<String> keys = new ArrayList<>(); // Key of each entry number, null if removed
+    private final List<String[]> entryWords = new ArrayList<>(); // Words of each entry number
+    private final Map<String, Integer> entryNumbers = new HashMap<>(); // Key -> entry number
+    private int[] gramCounts = new int[0];
+    private int removedCount;
+
+    /**
+     * Adds an entry, or replaces the entry with the same key.
+     *
+     * @param key    the key of the entry, returned by searches.
+     * @param fields the texts the entry is found by; null fields are skipped.
+     */
+    public synchronized void put(String key, String... fields) {
+        remove(key);
+        List<String> words = new ArrayList<>();
+        for (String field : fields) {
+            words.addAll(InvertedIndex.tokenize(field));
+        }
+        add(key, words.toArray(new String[0]));
+    }
+
+    /**
+     * Removes the entry with a key, if there is one.
+     *
+     * @param key the key of the entry.
+     */
+    public synchronized void remove(String key) {
+        Integer number = entryNumbers.remove(key);
+        if (number == null) {
+            return;
+        }
+        keys.set(number, null);
+        removedCount++;
+        if (removedCount > COMPACT_THRESHOLD && removedCount > entryNumbers.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the number of entries.
+     */
+    public synchronized int size() {
+        return entryNumbers.size();
+    }
+
+    /**
+     * Finds the entries best matching a query. Every word of the query must match a word of the entry.
+     *
+     * @param query  the query.
+     * @param limit  the maximum number of keys returned.
+     * @param filter accepts the keys of the entries that may be returned.
+     * @return the keys of the best matches, best first.
+     */
+    public synchronized List<String> search(String query, int limit, Predicate<String> filter) {
+        String[] queryWords = InvertedIndex.tokenize(query).toArray(new String[0]);
+        if (queryWords.length == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Count the n-grams each accepted entry shares with the query, rarest n-grams first.
+        // N-grams found in most entries are skipped once rarer ones have found accepted candidates.
+        Set<String> queryGrams = new HashSet<>();
+        for (String word : queryWords) {
+            addGrams(queryGrams, word, false);
+        }
+        List<int[]> gramEntries = new ArrayList<>();
+        for (String gram : queryGrams) {
+            int[] entries = grams.get(gram);
+            if (entries != null) {
+                gramEntries.add(entries);
+            }
+        }
+        gramEntries.sort(Comparator.comparingInt(entries -> entries[0]));
+
+        if (gramCounts.length < keys.size()) {
+            gramCounts = new int[keys.size()];
+        }
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        int acceptedCount = 0;
+        int maxCount = 0;
+        for (int[] entries : gramEntries) {
+            if (acceptedCount > 0 && entries[0] > entryNumbers.size() / COMMON_GRAM_DIVISOR) {
+                break;
+            }
+            for (int i = 1; i <= entries[0]; i++) {
+                int number = entries[i];
+                if (gramCounts[number] < 0) {
+                    continue; // Removed or not accepted
+                }
+                if (gramCounts[number] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = number;
+                    if (keys.get(number) == null || !filter.test(keys.get(number))) {
+                        gramCounts[number] = -1;
+                        continue;
+                    }
+                    acceptedCount++;
+                }
+                maxCount = Math.max(maxCount, ++gramCounts[number]);
+            }
+        }
+
+        // Take the live entries sharing the most n-grams as candidates, level by level
+        int candidateLimit = Math.max(MIN_CANDIDATES, limit * 8);
+        List<int[]> candidates = new ArrayList<>(); // {entry number, shared n-grams}
+        for (int count = maxCount; count > 0 && candidates.size() < candidateLimit; count--) {
+            for (int i = 0; i < touchedCount && candidates.size() < candidateLimit; i++) {
+                int number = touched[i];
+                if (gramCounts[number] == count) {
+                    candidates.add(new int[]{number, count});
+                }
+            }
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            gramCounts[touched[i]] = 0;
+        }
+
+        // Rank the candidates by how well their words match the query words
+        List<int[]> ranked = new ArrayList<>(); // {entry number, score, shared n-grams}
+        for (int[] candidate : candidates) {
+            int score = score(queryWords, entryWords.get(candidate[0]));
+            if (score > 0) {
+                ranked.add(new int[]{candidate[0], score, candidate[1]});
+            }
+        }
+        ranked.sort((a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1])
+                : a[2] != b[2] ? Integer.compare(b[2], a[2])
+                : keys.get(a[0]).compareTo(keys.get(b[0])));
+
+        List<String> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(keys.get(ranked.get(i)[0]));
+        }
+        return result;
+    }
+
+    /**
+     * Adds an entry under a new number.
+     *
+     * @param key   the key of the entry.
+     * @param words the words of the entry.
+     */
+    private void add(String key, String[] words) {
+        int number = keys.size();
+        keys.add(key);
+        entryWords.add(words);
+        entryNumbers.put(key, number);
+
+        Set<String> wordGrams = new HashSet<>();
+        for (String word : words) {
+            addGrams(wordGrams, word, true);
+        }
+        for (String gram : wordGrams) {
+            int[] entries = grams.computeIfAbsent(gram, k -> new int[4]);
+            if (entries[0] + 1 == entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+                grams.put(gram, entries);
+            }
+            entries[++entries[0]] = number;
+        }
+    }
+
+    /**
+     * Renumbers the live entries, dropping the removed entries from the n-gram lists.
+     */
+    private void compact() {
+        List<String> liveKeys = new ArrayList<>(entryNumbers.size());
+        List<String[]> liveWords = new ArrayList<>(entryNumbers.size());
+        for (int number = 0; number < keys.size(); number++) {
+            if (keys.get(number) != null) {
+                liveKeys.add(keys.get(number));
+                liveWords.add(entryWords.get(number));
+            }
+        }
+
+        grams.clear();
+        keys.clear();
+        entryWords.clear();
+        entryNumbers.clear();
+        removedCount = 0;
+        for (int i = 0; i < liveKeys.size(); i++) {
+            add(liveKeys.get(i), liveWords.get(i));
+        }
+    }
+
+    /**
+     * Adds the n-grams of a word: its first letter and every three letters of it padded with spaces.
+     *
+     * @param target      receives the n-grams.
+     * @param word        the word.
+     * @param padTrailing true to pad the end of the word, which a query word leaves open to match longer words.
+     */
+    private static void addGrams(Set<String> target, String word, boolean padTrailing) {
+        target.add(" " + word.charAt(0));
+        String padded = " " + word + (padTrailing ? " " : "");
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            target.add(padded.substring(i, i + 3));
+        }
+    }
+
+    /**
+     * Scores an entry against the query. Each query word scores its best match among the entry's words.
+     *
+     * @param queryWords the words of the query.
+     * @param words      the words of the entry.
+     * @return the score, or 0 if a query word matches none of the entry's words.
+     */
+    private static int score(String[] queryWords, String[] words) {
+        int total = 0;
+        for (String queryWord : queryWords) {
+            int best = 0;
+            for (String word : words) {
+                best = Math.max(best, wordScore(queryWord, word));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Scores how well a query word matches a word: 8 if equal, 6 if a prefix,
+     * and 4 or 2 if it is within one or two typos of the word or of its beginning.
+     * Query words of up to two letters allow no typo, and up to five letters one typo.
+     *
+     * @param queryWord the query word.
+     * @param word      the word of the entry.
+     * @return the score, or 0 if the words do not match.
+     */
+    private static int wordScore(String queryWord, String word) {
+        if (word.equals(queryWord)) {
+            return 8;
+        }
+        if (word.startsWith(queryWord)) {
+            return 6;
+        }
+        int allowed = queryWord.length() <= 2 ? 0 : queryWord.length() <= 5 ? 1 : 2;
+        if (allowed == 0) {
+            return 0;
+        }
+        int distance = editDistance(queryWord, word);
+        if (word.length() > queryWord.length()) {
+            distance = Math.min(distance, editDistance(queryWord, word.substring(0, queryWord.length())));
+        }
+        return distance <= allowed ? 6 - 2 * distance : 0;
+    }
+
+    /**
+     * Computes the number of insertions, deletions, substitutions and swaps of adjacent letters that turn one word
+     * into another.
+     *
+     * @param a the first word.
+     * @param b the second word.
+     * @return the edit distance.
+     */
+    private static int editDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
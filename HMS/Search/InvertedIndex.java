@@ -0,0 +1,367 @@
+package HMS.Search;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A full-text index mapping each term to the posting list of the documents containing it.
+ * Documents are numbered in the order they are added. A document is indexed once and never changed;
+ * a changed document is deleted and added again under a new ID.
+ *
+ * <p>Text is split into lowercase terms of letters and digits. A query is a list of clauses that must all match:</p>
+ * <ul>
+ *   <li>{@code word} - documents containing the word</li>
+ *   <li>{@code "two words"} - documents containing the words next to each other, in order</li>
+ *   <li>{@code a OR b} - documents matching either clause</li>
+ *   <li>{@code -word} or {@code -"two words"} - documents not matching the clause</li>
+ * </ul>
+ * <p>Queries are evaluated from the rarest clause: its documents are decoded first and the other clauses are only
+ * checked on those candidates, using the skip points of their posting lists.</p>
+ */
+public class InvertedIndex {
+    private static final Pattern TERM = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern QUERY_TOKEN = Pattern.compile("-?\"[^\"]*\"?|\\S+");
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private int nextDocID;
+    private int deletedCount;
+
+    /**
+     * Splits text into lowercase terms of letters and digits.
+     *
+     * @param text the text to split, may be null.
+     * @return the terms in the order they appear.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text != null) {
+            Matcher matcher = TERM.matcher(text);
+            while (matcher.find()) {
+                terms.add(matcher.group().toLowerCase(Locale.ROOT));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Indexes a document made of several fields. A phrase never matches across two fields.
+     *
+     * @param fields the text of each field; null fields are skipped.
+     * @return the ID of the new document.
+     */
+    public int add(String... fields) {
+        int docID = nextDocID++;
+        Map<String, int[]> termPositions = new HashMap<>(); // Term -> {count, positions...}
+        int position = 0;
+        for (String field : fields) {
+            for (String term : tokenize(field)) {
+                int[] positions = termPositions.computeIfAbsent(term, k -> new int[3]);
+                if (positions[0] + 1 == positions.length) {
+                    positions = Arrays.copyOf(positions, positions.length * 2);
+                    termPositions.put(term, positions);
+                }
+                positions[++positions[0]] = position++;
+            }
+            position++; // Leave a gap so that phrases do not span fields
+        }
+
+        termPositions.forEach((term, positions) ->
+                postings.computeIfAbsent(term, k -> new PostingList())
+                        .add(docID, Arrays.copyOfRange(positions, 1, positions[0] + 1), positions[0]));
+        return docID;
+    }
+
+    /**
+     * Deletes a document so that it no longer matches any query.
+     *
+     * @param docID the ID of the document.
+     */
+    public void delete(int docID) {
+        if (docID >= 0 && docID < nextDocID && !deleted.get(docID)) {
+            deleted.set(docID);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * Gets the number of documents that have not been deleted.
+     *
+     * @return the number of live documents.
+     */
+    public int size() {
+        return nextDocID - deletedCount;
+    }
+
+    /**
+     * Gets the number of distinct terms indexed.
+     *
+     * @return the number of terms.
+     */
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Gets the total size of the encoded posting lists.
+     *
+     * @return the number of bytes.
+     */
+    public long getByteSize() {
+        long size = 0;
+        for (PostingList list : postings.values()) {
+            size += list.getByteSize();
+        }
+        return size;
+    }
+
+    /**
+     * Finds the live documents matching a query.
+     *
+     * @param query the query.
+     * @return the IDs of the matching documents in ascending order.
+     * @throws IllegalArgumentException if the query has no clause that documents must match.
+     */
+    public int[] search(String query) {
+        List<List<String[]>> groups = new ArrayList<>(); // Every group must match; a group matches if any clause matches
+        List<String[]> excluded = new ArrayList<>();
+        parse(query, groups, excluded);
+        if (groups.isEmpty()) {
+            throw new IllegalArgumentException("The query needs at least one word or phrase to match.");
+        }
+
+        groups.sort(Comparator.comparingLong(this::cost));
+        int[] candidates = collect(groups.get(0));
+        for (int i = 1; i < groups.size() && candidates.length > 0; i++) {
+            candidates = filter(candidates, groups.get(i), true);
+        }
+        for (String[] clause : excluded) {
+            candidates = filter(candidates, List.<String[]>of(clause), false);
+        }
+
+        int count = 0;
+        for (int docID : candidates) {
+            if (!deleted.get(docID)) {
+                candidates[count++] = docID;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Splits a query into groups of clauses and excluded clauses. Each clause is the list of terms of a word or phrase.
+     *
+     * @param query    the query.
+     * @param groups   receives the groups of clauses, one of which must match in every group.
+     * @param excluded receives the clauses that must not match.
+     */
+    private static void parse(String query, List<List<String[]>> groups, List<String[]> excluded) {
+        Matcher matcher = QUERY_TOKEN.matcher(query);
+        boolean or = false;
+        while (matcher.find()) {
+            String token = matcher.group();
+            if (token.equals("OR")) {
+                or = !groups.isEmpty();
+                continue;
+            }
+
+            boolean negated = token.length() > 1 && token.startsWith("-");
+            String[] terms = tokenize(negated ? token.substring(1) : token).toArray(new String[0]);
+            if (terms.length == 0) {
+                continue;
+            }
+            if (negated) {
+                excluded.add(terms);
+            } else if (or) {
+                groups.get(groups.size() - 1).add(terms);
+            } else {
+                groups.add(new ArrayList<>(List.<String[]>of(terms)));
+            }
+            or = false;
+        }
+    }
+
+    /**
+     * Estimates the number of candidates of a group as the sum of the rarest term of each clause.
+     *
+     * @param group the clauses of the group.
+     * @return the estimated number of matching documents.
+     */
+    private long cost(List<String[]> group) {
+        long cost = 0;
+        for (String[] clause : group) {
+            int rarest = Integer.MAX_VALUE;
+            for (String term : clause) {
+                PostingList list = postings.get(term);
+                rarest = Math.min(rarest, list == null ? 0 : list.getDocCount());
+            }
+            cost += rarest;
+        }
+        return cost;
+    }
+
+    /**
+     * Collects every document matching any clause of a group.
+     *
+     * @param group the clauses of the group.
+     * @return the matching document IDs in ascending order, without duplicates.
+     */
+    private int[] collect(List<String[]> group) {
+        int[] result = new int[0];
+        for (String[] clause : group) {
+            ClauseMatcher matcher = new ClauseMatcher(clause);
+            int[] docs = matcher.collect();
+            result = result.length == 0 ? docs : union(result, docs);
+        }
+        return result;
+    }
+
+    /**
+     * Keeps or drops the candidates matching any clause of a group.
+     *
+     * @param candidates the candidate document IDs in ascending order.
+     * @param group      the clauses of the group.
+     * @param keep       true to keep the matching candidates, false to drop them.
+     * @return the remaining candidates in ascending order.
+     */
+    private int[] filter(int[] candidates, List<String[]> group, boolean keep) {
+        List<ClauseMatcher> matchers = new ArrayList<>(group.size());
+        for (String[] clause : group) {
+            matchers.add(new ClauseMatcher(clause));
+        }
+
+        int[] result = new int[candidates.length];
+        int count = 0;
+        for (int docID : candidates) {
+            boolean matches = false;
+            for (ClauseMatcher matcher : matchers) {
+                if (matcher.matches(docID)) {
+                    matches = true;
+                    break;
+                }
+            }
+            if (matches == keep) {
+                result[count++] = docID;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Merges two ascending arrays of document IDs.
+     *
+     * @param a the first array.
+     * @param b the second array.
+     * @return the IDs in either array in ascending order, without duplicates.
+     */
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Checks whether documents match a word or phrase, moving a cursor over the posting list of each of its terms.
+     * Documents must be checked in ascending order of ID.
+     */
+    private class ClauseMatcher {
+        private final PostingList.Cursor[] cursors;
+        private final PostingList.Cursor rarest;
+
+        /**
+         * Constructs a matcher of a clause.
+         *
+         * @param terms the terms of the word or phrase.
+         */
+        ClauseMatcher(String[] terms) {
+            PostingList.Cursor[] cursors = new PostingList.Cursor[terms.length];
+            PostingList.Cursor rarest = null;
+            int rarestCount = Integer.MAX_VALUE;
+            for (int i = 0; i < terms.length; i++) {
+                PostingList list = postings.get(terms[i]);
+                if (list == null) {
+                    cursors = null;
+                    rarest = null;
+                    break;
+                }
+                cursors[i] = list.cursor();
+                if (list.getDocCount() < rarestCount) {
+                    rarest = cursors[i];
+                    rarestCount = list.getDocCount();
+                }
+            }
+            this.cursors = cursors;
+            this.rarest = rarest;
+        }
+
+        /**
+         * Collects every document matching the clause by walking the posting list of its rarest term.
+         *
+         * @return the matching document IDs in ascending order.
+         */
+        int[] collect() {
+            if (rarest == null) {
+                return new int[0];
+            }
+            int[] result = new int[16];
+            int count = 0;
+            for (int docID = rarest.next(); docID != PostingList.NO_MORE_DOCS; docID = rarest.next()) {
+                if (matches(docID)) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = docID;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        /**
+         * Checks whether a document contains every term of the clause, next to each other if it is a phrase.
+         *
+         * @param docID the document ID, not less than the last one checked.
+         * @return true if the document matches the clause.
+         */
+        boolean matches(int docID) {
+            if (cursors == null) {
+                return false;
+            }
+            for (PostingList.Cursor cursor : cursors) {
+                if (cursor.advance(docID) != docID) {
+                    return false;
+                }
+            }
+            if (cursors.length == 1) {
+                return true;
+            }
+
+            int[][] positions = new int[cursors.length][];
+            for (int i = 0; i < cursors.length; i++) {
+                positions[i] = cursors[i].positions();
+            }
+            for (int start : positions[0]) {
+                int i = 1;
+                while (i < positions.length && Arrays.binarySearch(positions[i], start + i) >= 0) {
+                    i++;
+                }
+                if (i == positions.length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package HMS.Search;
+
+import java.util.Arrays;
+
+/**
+ * The compressed list of the documents containing a term, with the positions of the term in each document.
+ * Documents are appended in ascending order of ID. Each entry is stored as variable-length integers:
+ * the gap from the previous document ID, the number of positions, the byte length of the positions,
+ * and the gaps between the positions. Small gaps take a single byte.
+ *
+ * <p>Every {@value #SKIP_INTERVAL} documents a skip point is recorded, so a cursor can jump close to a target document
+ * without decoding the entries before it. The byte length of the positions lets a cursor step over positions it does
+ * not need.</p>
+ */
+public class PostingList {
+    private static final int SKIP_INTERVAL = 64;
+
+    /**
+     * The document ID of a cursor that has moved past the last document.
+     */
+    public static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    private byte[] bytes = new byte[8];
+    private int length;
+    private int docCount;
+    private int lastDocID = -1;
+    private int[] skipDocIDs; // The last document ID before each skip point
+    private int[] skipOffsets; // The offset of the entry at each skip point
+    private int skipCount;
+
+    /**
+     * Appends a document containing the term.
+     *
+     * @param docID         the ID of the document, greater than every document ID already added.
+     * @param positions     the positions of the term in the document, in ascending order.
+     * @param positionCount the number of positions to read from the array.
+     * @throws IllegalArgumentException if the document ID is not greater than the last one added.
+     */
+    public void add(int docID, int[] positions, int positionCount) {
+        if (docID <= lastDocID) {
+            throw new IllegalArgumentException("Documents must be added in ascending order of ID.");
+        }
+        if (docCount > 0 && docCount % SKIP_INTERVAL == 0) {
+            addSkipPoint();
+        }
+
+        int positionBytes = 0;
+        int previous = 0;
+        for (int i = 0; i < positionCount; i++) {
+            positionBytes += varIntSize(positions[i] - previous);
+            previous = positions[i];
+        }
+
+        writeVarInt(docID - lastDocID);
+        writeVarInt(positionCount);
+        writeVarInt(positionBytes);
+        previous = 0;
+        for (int i = 0; i < positionCount; i++) {
+            writeVarInt(positions[i] - previous);
+            previous = positions[i];
+        }
+        lastDocID = docID;
+        docCount++;
+    }
+
+    /**
+     * Gets the number of documents containing the term.
+     *
+     * @return the number of documents.
+     */
+    public int getDocCount() {
+        return docCount;
+    }
+
+    /**
+     * Gets the size of the encoded list.
+     *
+     * @return the number of bytes used by the entries.
+     */
+    public int getByteSize() {
+        return length;
+    }
+
+    /**
+     * Opens a cursor positioned before the first document.
+     *
+     * @return a new cursor.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Records a skip point before the next entry.
+     */
+    private void addSkipPoint() {
+        if (skipDocIDs == null) {
+            skipDocIDs = new int[4];
+            skipOffsets = new int[4];
+        } else if (skipCount == skipDocIDs.length) {
+            skipDocIDs = Arrays.copyOf(skipDocIDs, skipCount * 2);
+            skipOffsets = Arrays.copyOf(skipOffsets, skipCount * 2);
+        }
+        skipDocIDs[skipCount] = lastDocID;
+        skipOffsets[skipCount] = length;
+        skipCount++;
+    }
+
+    /**
+     * Appends a non-negative integer in 7-bit groups, the lowest group first.
+     *
+     * @param value the value to append.
+     */
+    private void writeVarInt(int value) {
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Computes the number of bytes a non-negative integer takes when encoded.
+     *
+     * @param value the value.
+     * @return the encoded size in bytes.
+     */
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Reads the documents of the list in ascending order of ID.
+     * A cursor must not be used after documents are added to its list.
+     */
+    public class Cursor {
+        private int offset;
+        private int docID = -1;
+        private int docsRead;
+        private int positionCount;
+        private int positionsOffset;
+
+        /**
+         * Constructs a cursor positioned before the first document.
+         */
+        private Cursor() {
+        }
+
+        /**
+         * Gets the document the cursor is on.
+         *
+         * @return the document ID, -1 before the first document, or {@link #NO_MORE_DOCS} after the last one.
+         */
+        public int docID() {
+            return docID;
+        }
+
+        /**
+         * Moves to the next document.
+         *
+         * @return the ID of the next document, or {@link #NO_MORE_DOCS} if there is none.
+         */
+        public int next() {
+            if (docsRead == docCount) {
+                docID = NO_MORE_DOCS;
+                return docID;
+            }
+            docID += readVarInt();
+            positionCount = readVarInt();
+            int positionBytes = readVarInt();
+            positionsOffset = offset;
+            offset += positionBytes;
+            docsRead++;
+            return docID;
+        }
+
+        /**
+         * Moves to the first document whose ID is at least the target, jumping over skip points when possible.
+         * The cursor does not move if it is already on or past the target.
+         *
+         * @param target the document ID to move to.
+         * @return the ID of the document moved to, or {@link #NO_MORE_DOCS} if there is none.
+         */
+        public int advance(int target) {
+            if (docID >= target) {
+                return docID;
+            }
+
+            // The last skip point still ahead of the cursor whose previous document is before the target
+            int low = docsRead / SKIP_INTERVAL;
+            int high = skipCount - 1;
+            int skip = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (skipDocIDs[mid] < target) {
+                    skip = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (skip >= 0) {
+                offset = skipOffsets[skip];
+                docID = skipDocIDs[skip];
+                docsRead = (skip + 1) * SKIP_INTERVAL;
+            }
+
+            while (docID < target) {
+                next();
+            }
+            return docID;
+        }
+
+        /**
+         * Decodes the positions of the term in the current document.
+         *
+         * @return the positions in ascending order.
+         */
+        public int[] positions() {
+            int[] positions = new int[positionCount];
+            int saved = offset;
+            offset = positionsOffset;
+            int position = 0;
+            for (int i = 0; i < positionCount; i++) {
+                position += readVarInt();
+                positions[i] = position;
+            }
+            offset = saved;
+            return positions;
+        }
+
+        /**
+         * Reads the integer at the cursor's offset and moves past it.
+         *
+         * @return the decoded value.
+         */
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
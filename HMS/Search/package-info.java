@@ -0,0 +1,5 @@
+/**
+ * This package contains the search indexes of the HMS: the full-text inverted index over clinical text,
+ * such as consultation notes and diagnoses, and the typo-tolerant index used to find users by ID or name.
+ */
+package HMS.Search;
@@ -0,0 +1,72 @@
+package HMS.Storage;
+
+import HMS.Enums.AppointmentStatus;
+import HMS.Models.Appointment;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Row codec of the appointments table.
+ */
+public class AppointmentCodec implements RowCodec<Appointment> {
+    private static final String[] COLUMNS = {"ID", "PatientID", "DoctorID", "Status", "Date", "ExpiresAt", "Version"};
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd HH:mm"));
+
+    @Override
+    public String getTable() {
+        return "appointments";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public String[] getIndexedColumns() {
+        return new String[]{"PatientID", "DoctorID", "Status"};
+    }
+
+    @Override
+    public int getShardColumn() {
+        return 1;
+    }
+
+    @Override
+    public String[] encode(Appointment appointment) {
+        return new String[]{
+                String.valueOf(appointment.getID()),
+                appointment.getPatientID(),
+                appointment.getDoctorID(),
+                appointment.getAppointmentStatus().toString(),
+                DATE_FORMAT.get().format(appointment.getAppointmentDate()),
+                appointment.getExpiresAt() == null ? "" : DATE_FORMAT.get().format(appointment.getExpiresAt()),
+                String.valueOf(appointment.getVersion())
+        };
+    }
+
+    @Override
+    public Appointment decode(String[] row) {
+        if (row.length < 5) {
+            return null;
+        }
+        try {
+            int id = Integer.parseInt(row[0]);
+            AppointmentStatus status = AppointmentStatus.valueOf(row[3].toUpperCase().replace('-', '_'));
+            Date date = DATE_FORMAT.get().parse(row[4]);
+            Appointment appointment = new Appointment(id, row[1], row[2], status, date);
+            if (row.length > 5 && !row[5].isBlank()) { // Rows saved before deadlines were stored have none
+                appointment.setExpiresAt(DATE_FORMAT.get().parse(row[5]));
+            }
+            if (row.length > 6 && !row[6].isBlank()) { // Rows saved before versions were stored are at version 0
+                appointment.setVersion(Long.parseLong(row[6]));
+            }
+            return appointment;
+        } catch (ParseException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
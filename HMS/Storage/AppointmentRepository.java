@@ -0,0 +1,9 @@
+package HMS.Storage;
+
+import HMS.Models.Appointment;
+
+/**
+ * Repository of the appointments.
+ */
+public interface AppointmentRepository extends Repository<Appointment> {
+}
@@ -0,0 +1,67 @@
+package HMS.Storage;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row codec of the doctor availability table. Each row holds a doctor ID and the doctor's
+ * available slots, separated by semicolons. The same layout is used for the slots excepted
+ * from the doctors' recurring availability rules.
+ */
+public class AvailabilityCodec implements RowCodec<Map.Entry<String, List<String>>> {
+    private final String table;
+    private final String[] columns;
+
+    /**
+     * Constructs the codec of the doctor availability table.
+     */
+    public AvailabilityCodec() {
+        this("doctor_availability", "AvailableSlots");
+    }
+
+    /**
+     * Constructs the codec of a table of slots per doctor.
+     *
+     * @param table       the name of the table.
+     * @param slotsColumn the name of the column holding the slots.
+     */
+    public AvailabilityCodec(String table, String slotsColumn) {
+        this.table = table;
+        this.columns = new String[]{"DoctorID", slotsColumn};
+    }
+
+    @Override
+    public String getTable() {
+        return table;
+    }
+
+    @Override
+    public String[] getColumns() {
+        return columns;
+    }
+
+    @Override
+    public String[] encode(Map.Entry<String, List<String>> entry) {
+        // Filter out empty or null slots
+        List<String> validSlots = entry.getValue().stream()
+                .filter(slot -> slot != null && !slot.trim().isEmpty())
+                .toList();
+        return new String[]{entry.getKey(), String.join(";", validSlots)};
+    }
+
+    @Override
+    public Map.Entry<String, List<String>> decode(String[] row) {
+        if (row.length < columns.length) {
+            return null;
+        }
+        List<String> slots = new ArrayList<>();
+        for (String slot : row[1].split(";")) {
+            if (!slot.trim().isEmpty()) {
+                slots.add(slot);
+            }
+        }
+        return new AbstractMap.SimpleEntry<>(row[0], slots);
+    }
+}
@@ -0,0 +1,28 @@
+package HMS.Storage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository of the doctors' available appointment slots.
+ */
+public interface AvailabilityRepository {
+
+    /**
+     * Loads the available slots of every doctor.
+     *
+     * @return the available slots, in the format "yyyy-MM-dd HH:mm", keyed by doctor ID.
+     * @throws IOException if the storage cannot be read.
+     */
+    Map<String, List<String>> loadAll() throws IOException;
+
+    /**
+     * Replaces the stored availability with the given one.
+     *
+     * @param availability the available slots keyed by doctor ID.
+     * @return the number of bytes written.
+     * @throws IOException if the storage cannot be written.
+     */
+    long saveAll(Map<String, List<String>> availability) throws IOException;
+}
@@ -0,0 +1,84 @@
+package HMS.Storage;
+
+import HMS.Models.AvailabilityRule;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Row codec of the recurring availability rules table. The days of a rule are stored in one column as "MON;TUE;" entries.
+ */
+public class AvailabilityRuleCodec implements RowCodec<AvailabilityRule> {
+    private static final String[] COLUMNS = {"ID", "DoctorID", "Days", "StartTime", "EndTime", "IntervalMinutes", "ValidFrom", "ValidUntil"};
+
+    @Override
+    public String getTable() {
+        return "availability_rules";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public String[] getIndexedColumns() {
+        return new String[]{"DoctorID"};
+    }
+
+    @Override
+    public String[] encode(AvailabilityRule rule) {
+        return new String[]{
+                String.valueOf(rule.getID()),
+                rule.getDoctorID(),
+                rule.getDays().stream().map(day -> day.name().substring(0, 3)).collect(Collectors.joining(";")),
+                rule.getStartTime().toString(),
+                rule.getEndTime().toString(),
+                String.valueOf(rule.getIntervalMinutes()),
+                rule.getValidFrom().toString(),
+                rule.getValidUntil() == null ? "" : rule.getValidUntil().toString()
+        };
+    }
+
+    @Override
+    public AvailabilityRule decode(String[] row) {
+        if (row.length < COLUMNS.length) {
+            return null;
+        }
+        try {
+            Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            for (String day : row[2].split(";")) {
+                if (!day.isBlank()) {
+                    days.add(parseDay(day.trim()));
+                }
+            }
+            int intervalMinutes = Integer.parseInt(row[5]);
+            LocalDate validUntil = row[7].isBlank() ? null : LocalDate.parse(row[7].trim());
+            return new AvailabilityRule(Integer.parseInt(row[0]), row[1], days, LocalTime.parse(row[3]),
+                    LocalTime.parse(row[4]), intervalMinutes, LocalDate.parse(row[6]), validUntil);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a day of the week from its three letter abbreviation (e.g., "MON").
+     *
+     * @param day the abbreviation of the day.
+     * @return the day of the week.
+     * @throws IllegalArgumentException if the abbreviation is unknown.
+     */
+    public static DayOfWeek parseDay(String day) {
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek.name().substring(0, 3).equalsIgnoreCase(day)) {
+                return dayOfWeek;
+            }
+        }
+        throw new IllegalArgumentException("Unknown day: " + day);
+    }
+}
@@ -0,0 +1,9 @@
+package HMS.Storage;
+
+import HMS.Models.AvailabilityRule;
+
+/**
+ * Repository of the doctors' recurring availability rules.
+ */
+public interface AvailabilityRuleRepository extends Repository<AvailabilityRule> {
+}
@@ -0,0 +1,163 @@
+package HMS.Storage;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage engine keeping every table in a compact binary file named after the table.
+ * Rows are stored as length-prefixed UTF-8 fields, which avoids CSV parsing on load and
+ * supports any character in a field.
+ * Tables are read and written under the locks of {@link TableLocks}, and a table is rewritten into a temporary file
+ * renamed over the old one, so a reader never sees a partly written table.
+ */
+public class BinaryStorageEngine implements StorageEngine {
+    private static final int MAGIC = 0x484D5331; // "HMS1"
+
+    private final File directory;
+    private final TableLocks locks;
+
+    /**
+     * Constructs a binary storage engine over a data directory.
+     *
+     * @param directory the directory holding the binary files.
+     */
+    public BinaryStorageEngine(File directory) {
+        this.directory = directory;
+        this.locks = new TableLocks(directory);
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    /**
+     * Gets the file holding a table.
+     *
+     * @param codec the codec describing the table.
+     * @return the binary file of the table.
+     */
+    private File fileOf(RowCodec<?> codec) {
+        return new File(directory, codec.getTable() + ".bin");
+    }
+
+    @Override
+    public List<String[]> readRows(RowCodec<?> codec) throws IOException {
+        File file = fileOf(codec);
+        if (!file.exists()) {
+            List<String[]> rows = new ArrayList<>();
+            writeRows(codec, rows);
+            return rows;
+        }
+
+        return locks.shared(codec, () -> {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not an HMS binary table: " + file.getPath());
+                }
+                int rowCount = in.readInt();
+                List<String[]> rows = new ArrayList<>(rowCount);
+                for (int r = 0; r < rowCount; r++) {
+                    String[] row = new String[in.readUnsignedShort()];
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = in.readBoolean() ? in.readUTF() : null;
+                    }
+                    rows.add(row);
+                }
+                return rows;
+            }
+        });
+    }
+
+    @Override
+    public long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException {
+        File file = fileOf(codec);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        return locks.exclusive(codec, () -> {
+            File temp = new File(file.getPath() + ".tmp");
+            long bytesWritten;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(rows.size());
+                for (String[] row : rows) {
+                    writeRow(out, row);
+                }
+                bytesWritten = out.size();
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return bytesWritten;
+        });
+    }
+
+    @Override
+    public long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        return locks.exclusive(codec, () -> StorageEngine.super.upsertRow(codec, row));
+    }
+
+    @Override
+    public long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        File file = fileOf(codec);
+        if (!file.exists()) {
+            writeRows(codec, new ArrayList<>());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeRow(new DataOutputStream(bytes), row);
+        return locks.exclusive(codec, () -> {
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                if (out.readInt() != MAGIC) {
+                    throw new IOException("Not an HMS binary table: " + file.getPath());
+                }
+                int rowCount = out.readInt();
+                out.seek(out.length());
+                out.write(bytes.toByteArray());
+                out.seek(Integer.BYTES);
+                out.writeInt(rowCount + 1); // Only counted once the row is fully written
+            }
+            return (long) bytes.size();
+        });
+    }
+
+    @Override
+    public void force(Collection<RowCodec<?>> codecs) throws IOException {
+        List<File> files = new ArrayList<>(codecs.size());
+        for (RowCodec<?> codec : codecs) {
+            files.add(fileOf(codec));
+        }
+        FileSync.force(directory, files);
+    }
+
+    @Override
+    public long getTableVersion(RowCodec<?> codec) throws IOException {
+        return locks.version(codec);
+    }
+
+    @Override
+    public void close() {
+        locks.close();
+    }
+
+    /**
+     * Writes a row as its field count followed by its length-prefixed fields.
+     *
+     * @param out the output of the table file.
+     * @param row the fields of the row.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeRow(DataOutputStream out, String[] row) throws IOException {
+        out.writeShort(row.length);
+        for (String field : row) {
+            out.writeBoolean(field != null);
+            if (field != null) {
+                out.writeUTF(field);
+            }
+        }
+    }
+}
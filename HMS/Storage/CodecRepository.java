@@ -0,0 +1,266 @@
+package HMS.Storage;
+
+import HMS.Models.*;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Repository storing aggregates as rows of a storage engine table, converted by a row codec.
+ * A row that cannot be decoded is left out of the loaded aggregates but kept as it was read, and written back unchanged
+ * by each save of the whole table unless an aggregate with its key is saved, so it can still be repaired by hand.
+ * The nested classes bind it to the repository interface of each aggregate.
+ *
+ * @param <T> the type of the aggregate.
+ */
+public class CodecRepository<T> implements Repository<T> {
+    protected final StorageEngine engine;
+    protected final RowCodec<T> codec;
+    private final Map<String, String[]> invalidRows = new LinkedHashMap<>(); // By key, as last loaded
+
+    /**
+     * Constructs a repository over a storage engine table.
+     *
+     * @param engine the storage engine holding the table.
+     * @param codec  the codec of the table.
+     */
+    public CodecRepository(StorageEngine engine, RowCodec<T> codec) {
+        this.engine = engine;
+        this.codec = codec;
+    }
+
+    @Override
+    public List<T> loadAll() throws IOException {
+        List<String[]> rows = engine.readRows(codec);
+        List<T> items = new ArrayList<>(rows.size());
+        Map<String, String[]> invalid = new LinkedHashMap<>();
+        for (String[] row : rows) {
+            T item = decode(row);
+            if (item != null) {
+                items.add(item);
+            } else {
+                invalid.put(keyOf(row), row);
+            }
+        }
+        synchronized (invalidRows) {
+            invalidRows.clear();
+            invalidRows.putAll(invalid);
+        }
+        return items;
+    }
+
+    @Override
+    public long saveAll(Collection<? extends T> items) throws IOException {
+        return engine.writeRows(codec, encodeAll(items));
+    }
+
+    @Override
+    public void saveAll(Collection<? extends T> items, UnitOfWork work) {
+        work.stage(codec, encodeAll(items));
+    }
+
+    /**
+     * Encodes aggregates into rows, followed by the rows that could not be decoded when the table was loaded and
+     * whose key no aggregate has.
+     *
+     * @param items the aggregates.
+     * @return the rows, in the order of the aggregates.
+     */
+    private List<String[]> encodeAll(Collection<? extends T> items) {
+        List<String[]> rows = new ArrayList<>(items.size());
+        for (T item : items) {
+            rows.add(codec.encode(item));
+        }
+        synchronized (invalidRows) {
+            if (!invalidRows.isEmpty()) {
+                Set<String> keys = new HashSet<>();
+                for (String[] row : rows) {
+                    keys.add(keyOf(row));
+                }
+                for (Map.Entry<String, String[]> invalid : invalidRows.entrySet()) {
+                    if (!keys.contains(invalid.getKey())) {
+                        rows.add(invalid.getValue());
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Gets the key of a row, or the whole row if it is too short to have a key column.
+     *
+     * @param row the row.
+     * @return the key of the row.
+     */
+    private String keyOf(String[] row) {
+        int column = codec.getKeyColumn();
+        return column < row.length ? row[column] : String.join(",", row);
+    }
+
+    /**
+     * Finds the aggregate with the given key.
+     *
+     * @param key the value of the key column.
+     * @return the aggregate, or {@code null} if there is none.
+     * @throws IOException if the storage cannot be read.
+     */
+    public T find(String key) throws IOException {
+        String[] row = engine.findRow(codec, key);
+        return row == null ? null : decode(row);
+    }
+
+    /**
+     * Saves one aggregate, replacing the aggregate with the same key if there is one.
+     *
+     * @param item the aggregate to save.
+     * @return the number of bytes written.
+     * @throws IOException if the storage cannot be written.
+     */
+    public long save(T item) throws IOException {
+        return engine.upsertRow(codec, codec.encode(item));
+    }
+
+    /**
+     * Decodes a row, reporting it if it is invalid.
+     *
+     * @param row the row to decode.
+     * @return the aggregate, or {@code null} if the row is invalid.
+     */
+    protected T decode(String[] row) {
+        T item;
+        try {
+            item = codec.decode(row);
+        } catch (RuntimeException e) {
+            item = null;
+        }
+        if (item == null) {
+            System.err.println("Invalid " + codec.getTable() + " record: " + String.join(",", row));
+        }
+        return item;
+    }
+
+    /**
+     * Repository of the users.
+     */
+    static class Users extends CodecRepository<User> implements UserRepository {
+        Users(StorageEngine engine) {
+            super(engine, new UserCodec());
+        }
+    }
+
+    /**
+     * Repository of the appointments.
+     */
+    static class Appointments extends CodecRepository<Appointment> implements AppointmentRepository {
+        Appointments(StorageEngine engine) {
+            super(engine, new AppointmentCodec());
+        }
+    }
+
+    /**
+     * Repository of the medical records.
+     */
+    static class MedicalRecords extends CodecRepository<MedicalRecord> implements MedicalRecordRepository {
+        MedicalRecords(StorageEngine engine) {
+            super(engine, new MedicalRecordCodec());
+        }
+    }
+
+    /**
+     * Repository of the versions of the medical records.
+     */
+    static class MedicalRecordHistory extends CodecRepository<MedicalRecordVersion> implements MedicalRecordHistoryRepository {
+        MedicalRecordHistory(StorageEngine engine) {
+            super(engine, new MedicalRecordHistoryCodec());
+        }
+
+        @Override
+        public List<MedicalRecordVersion> findByPatient(String patientID) throws IOException {
+            List<MedicalRecordVersion> versions = new ArrayList<>();
+            for (String[] row : engine.findRowsBy(codec, MedicalRecordHistoryCodec.PATIENT_ID_COLUMN, patientID)) {
+                MedicalRecordVersion version = decode(row);
+                if (version != null) {
+                    versions.add(version);
+                }
+            }
+            versions.sort(Comparator.comparingInt(MedicalRecordVersion::getVersion));
+            return versions;
+        }
+
+        @Override
+        public long append(MedicalRecordVersion version) throws IOException {
+            return engine.appendRow(codec, codec.encode(version));
+        }
+    }
+
+    /**
+     * Repository of the appointment outcome records.
+     */
+    static class Outcomes extends CodecRepository<AppointmentOutcomeRecord> implements OutcomeRepository {
+        Outcomes(StorageEngine engine) {
+            super(engine, new OutcomeCodec());
+        }
+    }
+
+    /**
+     * Repository of the medicine stocks.
+     */
+    static class Stocks extends CodecRepository<Stock> implements StockRepository {
+        Stocks(StorageEngine engine) {
+            super(engine, new StockCodec());
+        }
+    }
+
+    /**
+     * Repository of the stock replenish requests.
+     */
+    static class ReplenishRequests extends CodecRepository<StockReplenishRequest> implements ReplenishRequestRepository {
+        ReplenishRequests(StorageEngine engine) {
+            super(engine, new ReplenishRequestCodec());
+        }
+    }
+
+    /**
+     * Repository of the waitlist entries.
+     */
+    static class Waitlist extends CodecRepository<WaitlistEntry> implements WaitlistRepository {
+        Waitlist(StorageEngine engine) {
+            super(engine, new WaitlistCodec());
+        }
+    }
+
+    /**
+     * Repository of the recurring availability rules.
+     */
+    static class AvailabilityRules extends CodecRepository<AvailabilityRule> implements AvailabilityRuleRepository {
+        AvailabilityRules(StorageEngine engine) {
+            super(engine, new AvailabilityRuleCodec());
+        }
+    }
+
+    /**
+     * Repository of slots per doctor, such as the doctors' availability, stored as one row per doctor.
+     */
+    static class Availability implements AvailabilityRepository {
+        private final CodecRepository<Map.Entry<String, List<String>>> rows;
+
+        Availability(StorageEngine engine, AvailabilityCodec codec) {
+            this.rows = new CodecRepository<>(engine, codec);
+        }
+
+        @Override
+        public Map<String, List<String>> loadAll() throws IOException {
+            Map<String, List<String>> availability = new HashMap<>();
+            for (Map.Entry<String, List<String>> entry : rows.loadAll()) {
+                availability.put(entry.getKey(), entry.getValue());
+            }
+            return availability;
+        }
+
+        @Override
+        public long saveAll(Map<String, List<String>> availability) throws IOException {
+            return rows.saveAll(availability.entrySet());
+        }
+    }
+}
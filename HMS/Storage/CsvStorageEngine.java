@@ -0,0 +1,149 @@
+package HMS.Storage;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage engine keeping every table in a CSV file with a header row, named after the table.
+ * This is the original HMS data format.
+ * Tables are read and written under the locks of {@link TableLocks}, and a table is rewritten into a temporary file
+ * renamed over the old one, so a reader never sees a partly written table.
+ */
+public class CsvStorageEngine implements StorageEngine {
+    private final File directory;
+    private final TableLocks locks;
+
+    /**
+     * Constructs a CSV storage engine over a data directory.
+     *
+     * @param directory the directory holding the CSV files.
+     */
+    public CsvStorageEngine(File directory) {
+        this.directory = directory;
+        this.locks = new TableLocks(directory);
+    }
+
+    @Override
+    public String getName() {
+        return "csv";
+    }
+
+    /**
+     * Gets the file holding a table.
+     *
+     * @param codec the codec describing the table.
+     * @return the CSV file of the table.
+     */
+    private File fileOf(RowCodec<?> codec) {
+        return new File(directory, codec.getTable() + ".csv");
+    }
+
+    @Override
+    public List<String[]> readRows(RowCodec<?> codec) throws IOException {
+        File file = fileOf(codec);
+        List<String[]> rows = new ArrayList<>();
+        if (!file.exists()) {
+            writeRows(codec, rows);
+            System.out.println(file.getPath() + " created with headers.");
+            return rows;
+        }
+
+        int columnCount = codec.getColumns().length;
+        return locks.shared(codec, () -> {
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                br.readLine(); // Skip header
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        rows.add(line.split(",", columnCount)); // The last column keeps any extra commas
+                    }
+                }
+            }
+            return rows;
+        });
+    }
+
+    @Override
+    public long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException {
+        File file = fileOf(codec);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        return locks.exclusive(codec, () -> {
+            File temp = new File(file.getPath() + ".tmp");
+            try (BufferedWriter bw = new BufferedWriter(new FileWriter(temp))) {
+                bw.write(String.join(",", codec.getColumns()));
+                bw.newLine();
+                for (String[] row : rows) {
+                    writeRow(bw, row);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return file.length();
+        });
+    }
+
+    @Override
+    public long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        return locks.exclusive(codec, () -> StorageEngine.super.upsertRow(codec, row));
+    }
+
+    @Override
+    public long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        File file = fileOf(codec);
+        if (!file.exists()) {
+            writeRows(codec, new ArrayList<>());
+        }
+
+        return locks.exclusive(codec, () -> {
+            long lengthBefore = file.length();
+            try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, true))) {
+                writeRow(bw, row);
+            }
+            return file.length() - lengthBefore;
+        });
+    }
+
+    @Override
+    public void force(Collection<RowCodec<?>> codecs) throws IOException {
+        List<File> files = new ArrayList<>(codecs.size());
+        for (RowCodec<?> codec : codecs) {
+            files.add(fileOf(codec));
+        }
+        FileSync.force(directory, files);
+    }
+
+    @Override
+    public long getTableVersion(RowCodec<?> codec) throws IOException {
+        return locks.version(codec);
+    }
+
+    @Override
+    public void close() {
+        locks.close();
+    }
+
+    /**
+     * Writes the fields of a row as one CSV line.
+     *
+     * @param bw  the writer of the CSV file.
+     * @param row the fields of the row.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeRow(BufferedWriter bw, String[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                bw.write(',');
+            }
+            if (row[i] != null) {
+                bw.write(row[i]);
+            }
+        }
+        bw.newLine();
+    }
+}
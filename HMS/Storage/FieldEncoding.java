@@ -0,0 +1,66 @@
+package HMS.Storage;
+
+/**
+ * Percent-encoding of the values packed into a single field, such as the diagnoses of a medical record.
+ * Only the characters a codec uses as separators, and '%' itself, are encoded, so most values are stored as they are.
+ */
+final class FieldEncoding {
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private FieldEncoding() {
+    }
+
+    /**
+     * Percent-encodes the separator characters of a value.
+     *
+     * @param value      the value, may be null.
+     * @param separators the characters to encode, besides '%'.
+     * @return the encoded value, empty for null.
+     */
+    static String escape(String value, String separators) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || separators.indexOf(c) >= 0) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+                }
+                escaped.append('%').append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    /**
+     * Decodes a percent-encoded value. A '%' not followed by two hexadecimal digits is kept as it is.
+     *
+     * @param value the encoded value.
+     * @return the decoded value.
+     */
+    static String unescape(String value) {
+        int percent = value.indexOf('%');
+        if (percent < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length()).append(value, 0, percent);
+        for (int i = percent; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int high = c == '%' && i + 2 < value.length() ? Character.digit(value.charAt(i + 1), 16) : -1;
+            int low = high < 0 ? -1 : Character.digit(value.charAt(i + 2), 16);
+            if (low >= 0) {
+                unescaped.append((char) (high << 4 | low));
+                i += 2;
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package HMS.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Forcing of the table files of the file backends to disk. A table is replaced by renaming a temporary file over it,
+ * so both the new file and the directory entry naming it must be forced for the table to survive a crash.
+ */
+final class FileSync {
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private FileSync() {
+    }
+
+    /**
+     * Forces files to disk, then the directory holding them.
+     *
+     * @param directory the directory holding the files.
+     * @param files     the files; those that do not exist are skipped.
+     * @throws IOException if a file cannot be forced.
+     */
+    static void force(File directory, Collection<File> files) throws IOException {
+        for (File file : files) {
+            if (file.exists()) {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    channel.force(true);
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms, such as Windows, cannot open a directory; their renames are durable once they return
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package HMS.Storage;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The append-only journal of the mutations made by a storage engine, kept in the data directory of the primary HMS.
+ * A standby replays it to keep a copy of the data (see {@link HMS.Replication.Standby}).
+ * A journal left with a partly written entry by a crash is truncated to its last complete entry when it is reopened.
+ *
+ * <p>Once the journal passes {@value #TRUNCATE_BYTES} bytes it is emptied as soon as the standby following it has
+ * applied every entry, as it acknowledges in {@value #ACK_FILE} next to the journal, or at once if no standby follows
+ * it. Sequence numbers continue across an emptied journal, so the standby can tell that it starts over.</p>
+ */
+public class Journal {
+
+    /**
+     * The name of the journal file in the data directory.
+     */
+    public static final String FILE_NAME = "journal.log";
+
+    /**
+     * The name of the file in which the standby acknowledges the last entry it applied, next to the journal.
+     */
+    public static final String ACK_FILE = "journal.ack";
+
+    private static final long TRUNCATE_BYTES = 4L * 1024 * 1024;
+
+    private final File file;
+    private final File ackFile;
+    private FileOutputStream out; // Null until the first append
+    private long lastSequence;
+    private long length;
+
+    /**
+     * Constructs the journal of a file. The file is opened on the first append.
+     *
+     * @param file the journal file.
+     */
+    public Journal(File file) {
+        this.file = file;
+        this.ackFile = new File(file.getAbsoluteFile().getParentFile(), ACK_FILE);
+    }
+
+    /**
+     * Records a mutation of a table.
+     *
+     * @param operation the storage engine call.
+     * @param codec     the codec of the table.
+     * @param rows      the rows written.
+     * @throws IOException if the journal cannot be written.
+     */
+    public synchronized void append(JournalEntry.Operation operation, RowCodec<?> codec, List<String[]> rows) throws IOException {
+        if (out == null) {
+            open();
+        }
+        write(new JournalEntry(lastSequence + 1, System.currentTimeMillis(), operation, codec.getTable(), rows));
+    }
+
+    /**
+     * Records a unit of work replacing several tables, as one entry so that a standby applies it as one.
+     *
+     * @param tables the new rows of each table.
+     * @throws IOException if the journal cannot be written.
+     */
+    public synchronized void append(Map<RowCodec<?>, List<String[]>> tables) throws IOException {
+        if (out == null) {
+            open();
+        }
+        write(new JournalEntry(lastSequence + 1, System.currentTimeMillis(), tables));
+    }
+
+    /**
+     * Records a mutation of one row of a table.
+     *
+     * @param operation the storage engine call.
+     * @param codec     the codec of the table.
+     * @param row       the row written.
+     * @throws IOException if the journal cannot be written.
+     */
+    public void append(JournalEntry.Operation operation, RowCodec<?> codec, String[] row) throws IOException {
+        append(operation, codec, Collections.singletonList(row));
+    }
+
+    /**
+     * Writes the next entry, first emptying the journal if it is large and every entry was applied.
+     *
+     * @param entry the entry, numbered after the last one.
+     * @throws IOException if the journal cannot be written.
+     */
+    private void write(JournalEntry entry) throws IOException {
+        if (length >= TRUNCATE_BYTES) {
+            long acknowledged = readAcknowledgedSequence();
+            if (acknowledged < 0 || acknowledged >= lastSequence) {
+                out.getChannel().truncate(0);
+                length = 0;
+            }
+        }
+        byte[] bytes = entry.toBytes();
+        out.write(bytes); // One write, so a reader never sees an entry without its length
+        lastSequence++;
+        length += bytes.length;
+    }
+
+    /**
+     * Reads the sequence number of the last entry the standby applied.
+     *
+     * @return the sequence number, or -1 if no standby follows the journal.
+     */
+    private long readAcknowledgedSequence() {
+        if (!ackFile.exists()) {
+            return -1;
+        }
+        try (BufferedReader br = new BufferedReader(new FileReader(ackFile))) {
+            String line = br.readLine();
+            return line == null ? 0 : Long.parseLong(line.trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0; // Being replaced, or unreadable: keep the entries
+        }
+    }
+
+    /**
+     * Closes the journal file.
+     */
+    public synchronized void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                System.err.println("Error closing journal: " + e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Finds the last sequence number of the journal, or of the journal before it was emptied, drops a partly written
+     * last entry and opens the file for appending.
+     *
+     * @throws IOException if the journal cannot be read or opened.
+     */
+    private void open() throws IOException {
+        if (file.exists()) {
+            try (RandomAccessFile in = new RandomAccessFile(file, "rw")) {
+                JournalEntry entry;
+                while ((entry = JournalEntry.read(in)) != null) {
+                    lastSequence = entry.getSequence();
+                }
+                if (in.getFilePointer() < in.length()) {
+                    in.setLength(in.getFilePointer());
+                }
+                length = in.length();
+            }
+        }
+        lastSequence = Math.max(lastSequence, readAcknowledgedSequence()); // Emptied once the standby applied all
+        out = new FileOutputStream(file, true);
+    }
+}
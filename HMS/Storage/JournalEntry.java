@@ -0,0 +1,245 @@
+package HMS.Storage;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * One mutation recorded in a {@link Journal}: the rows written by a storage engine call, with the sequence number and
+ * time of the call. A call writing several tables as one unit of work is recorded as one entry holding every table.
+ * Entries are stored as a length prefix followed by the encoded entry, so a reader tailing the journal can tell a
+ * complete entry from one still being written.
+ */
+public class JournalEntry {
+
+    /**
+     * The storage engine call recorded by an entry.
+     */
+    public enum Operation {
+        WRITE_ROWS, UPSERT_ROW, APPEND_ROW, WRITE_TABLES
+    }
+
+    private final long sequence;
+    private final long timestamp;
+    private final Operation operation;
+    private final Map<String, List<String[]>> tables; // Table -> rows written, in write order
+
+    /**
+     * Constructs a journal entry.
+     *
+     * @param sequence  the sequence number of the entry, starting from 1.
+     * @param timestamp the time of the mutation, in milliseconds since the epoch.
+     * @param operation the storage engine call.
+     * @param table     the name of the table.
+     * @param rows      the rows written; a single row for an upsert or an append.
+     */
+    public JournalEntry(long sequence, long timestamp, Operation operation, String table, List<String[]> rows) {
+        this(sequence, timestamp, operation, Collections.singletonMap(table, rows));
+    }
+
+    /**
+     * Constructs the journal entry of a unit of work replacing several tables.
+     *
+     * @param sequence  the sequence number of the entry, starting from 1.
+     * @param timestamp the time of the mutation, in milliseconds since the epoch.
+     * @param tables    the new rows of each table, in write order.
+     */
+    public JournalEntry(long sequence, long timestamp, Map<RowCodec<?>, List<String[]>> tables) {
+        this(sequence, timestamp, Operation.WRITE_TABLES, new LinkedHashMap<>());
+        tables.forEach((codec, rows) -> this.tables.put(codec.getTable(), rows));
+    }
+
+    /**
+     * Constructs a journal entry of any operation.
+     *
+     * @param sequence  the sequence number of the entry.
+     * @param timestamp the time of the mutation.
+     * @param operation the storage engine call.
+     * @param tables    the rows written to each table.
+     */
+    private JournalEntry(long sequence, long timestamp, Operation operation, Map<String, List<String[]>> tables) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.operation = operation;
+        this.tables = tables;
+    }
+
+    /**
+     * Gets the sequence number of the entry.
+     *
+     * @return the sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the time of the mutation.
+     *
+     * @return the time in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the names of the tables written.
+     *
+     * @return the table names, a single one unless the entry is a unit of work.
+     */
+    public Set<String> getTables() {
+        return tables.keySet();
+    }
+
+    /**
+     * Applies the mutation to a storage engine. Applying an entry twice leaves the tables as applying it once:
+     * an appended row is upserted, as the rows of append-only tables have unique keys.
+     * A unit of work is applied with one {@link StorageEngine#writeTables} call.
+     *
+     * @param engine the storage engine.
+     * @param codecs the codec of each table by table name; tables without a codec are skipped.
+     * @throws IOException if a table cannot be written.
+     */
+    public void applyTo(StorageEngine engine, Map<String, RowCodec<?>> codecs) throws IOException {
+        Map<RowCodec<?>, List<String[]>> writes = new LinkedHashMap<>();
+        tables.forEach((table, rows) -> {
+            RowCodec<?> codec = codecs.get(table);
+            if (codec != null) {
+                writes.put(codec, rows);
+            }
+        });
+        if (writes.isEmpty()) {
+            return;
+        }
+        RowCodec<?> codec = writes.keySet().iterator().next();
+        switch (operation) {
+            case WRITE_ROWS -> engine.writeRows(codec, writes.get(codec));
+            case UPSERT_ROW, APPEND_ROW -> engine.upsertRow(codec, writes.get(codec).get(0));
+            case WRITE_TABLES -> engine.writeTables(writes);
+        }
+    }
+
+    /**
+     * Encodes the entry with its length prefix.
+     *
+     * @return the bytes of the entry.
+     * @throws IOException if a field is too long to encode.
+     */
+    byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // Length, filled in below
+        out.writeLong(sequence);
+        out.writeLong(timestamp);
+        out.writeByte(operation.ordinal());
+        if (operation == Operation.WRITE_TABLES) {
+            out.writeInt(tables.size());
+        }
+        for (Map.Entry<String, List<String[]>> table : tables.entrySet()) {
+            out.writeUTF(table.getKey());
+            writeRows(out, table.getValue());
+        }
+
+        byte[] entry = bytes.toByteArray();
+        int length = entry.length - Integer.BYTES;
+        entry[0] = (byte) (length >>> 24);
+        entry[1] = (byte) (length >>> 16);
+        entry[2] = (byte) (length >>> 8);
+        entry[3] = (byte) length;
+        return entry;
+    }
+
+    /**
+     * Reads the sequence number of the first entry of a journal file, without reading the entry.
+     *
+     * @param in the journal file.
+     * @return the sequence number, or -1 if the file holds no entry yet.
+     * @throws IOException if the file cannot be read.
+     */
+    public static long readFirstSequence(RandomAccessFile in) throws IOException {
+        if (in.length() < Integer.BYTES + Long.BYTES) {
+            return -1;
+        }
+        in.seek(Integer.BYTES);
+        return in.readLong();
+    }
+
+    /**
+     * Reads the entry at the position of a journal file. If the entry is not completely written yet,
+     * the position is left at its start so that it can be read again later.
+     *
+     * @param in the journal file.
+     * @return the entry, or null if there is no complete entry at the position.
+     * @throws IOException if the file cannot be read or holds a corrupt entry.
+     */
+    public static JournalEntry read(RandomAccessFile in) throws IOException {
+        long start = in.getFilePointer();
+        if (in.length() - start < Integer.BYTES) {
+            return null;
+        }
+        int length = in.readInt();
+        if (length <= 0) {
+            throw new IOException("Corrupt journal entry at offset " + start);
+        }
+        if (in.length() - start - Integer.BYTES < length) {
+            in.seek(start);
+            return null;
+        }
+        byte[] entry = new byte[length];
+        in.readFully(entry);
+
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(entry));
+        long sequence = data.readLong();
+        long timestamp = data.readLong();
+        int operation = data.readUnsignedByte();
+        if (operation >= Operation.values().length) {
+            throw new IOException("Corrupt journal entry at offset " + start);
+        }
+        int tableCount = operation == Operation.WRITE_TABLES.ordinal() ? data.readInt() : 1;
+        Map<String, List<String[]>> tables = new LinkedHashMap<>();
+        for (int t = 0; t < tableCount; t++) {
+            String table = data.readUTF();
+            tables.put(table, readRows(data));
+        }
+        return new JournalEntry(sequence, timestamp, Operation.values()[operation], tables);
+    }
+
+    /**
+     * Writes the rows of a table as their count followed by the fields of each row.
+     *
+     * @param out  the output of the entry.
+     * @param rows the rows.
+     * @throws IOException if a field is too long to encode.
+     */
+    private static void writeRows(DataOutputStream out, List<String[]> rows) throws IOException {
+        out.writeInt(rows.size());
+        for (String[] row : rows) {
+            out.writeShort(row.length);
+            for (String field : row) {
+                out.writeBoolean(field != null);
+                if (field != null) {
+                    out.writeUTF(field);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the rows of a table written by {@link #writeRows(DataOutputStream, List)}.
+     *
+     * @param data the input of the entry.
+     * @return the rows.
+     * @throws IOException if the entry is truncated.
+     */
+    private static List<String[]> readRows(DataInputStream data) throws IOException {
+        int rowCount = data.readInt();
+        List<String[]> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            String[] row = new String[data.readUnsignedShort()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = data.readBoolean() ? data.readUTF() : null;
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
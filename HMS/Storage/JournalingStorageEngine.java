@@ -0,0 +1,161 @@
+package HMS.Storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Storage engine recording every mutation of another engine in a {@link Journal}, so that a standby can replay them.
+ * A mutation is journaled before the other engine makes it, while holding a lock of its table, so the journal
+ * holds the mutations of each table in the order they were made and a crash in between cannot hide a change from the
+ * standby. If the other engine fails to make it, the rows the table holds are journaled again, so the standby ends up
+ * with the table as the primary has it. A unit of work holds the locks of all its tables, taken in table name order,
+ * and is journaled as one entry.
+ */
+public class JournalingStorageEngine implements StorageEngine {
+    private final StorageEngine delegate;
+    private final Journal journal;
+    private final Map<String, ReentrantLock> tableLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a journaling storage engine.
+     *
+     * @param delegate the engine making the mutations.
+     * @param journal  the journal recording them.
+     */
+    public JournalingStorageEngine(StorageEngine delegate, Journal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public List<String[]> readRows(RowCodec<?> codec) throws IOException {
+        return delegate.readRows(codec);
+    }
+
+    @Override
+    public long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException {
+        ReentrantLock lock = lockOf(codec);
+        lock.lock();
+        try {
+            journal.append(JournalEntry.Operation.WRITE_ROWS, codec, rows);
+            return apply(Collections.singletonList(codec), () -> delegate.writeRows(codec, rows));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long writeTables(Map<RowCodec<?>, List<String[]>> tables) throws IOException {
+        List<RowCodec<?>> codecs = new ArrayList<>(tables.keySet());
+        codecs.sort(Comparator.comparing(RowCodec::getTable));
+        List<ReentrantLock> locks = new ArrayList<>(codecs.size());
+        try {
+            for (RowCodec<?> codec : codecs) {
+                ReentrantLock lock = lockOf(codec);
+                lock.lock();
+                locks.add(lock);
+            }
+            journal.append(tables);
+            return apply(codecs, () -> delegate.writeTables(tables));
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    @Override
+    public String[] findRow(RowCodec<?> codec, String key) throws IOException {
+        return delegate.findRow(codec, key);
+    }
+
+    @Override
+    public long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        ReentrantLock lock = lockOf(codec);
+        lock.lock();
+        try {
+            journal.append(JournalEntry.Operation.UPSERT_ROW, codec, row);
+            return apply(Collections.singletonList(codec), () -> delegate.upsertRow(codec, row));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        ReentrantLock lock = lockOf(codec);
+        lock.lock();
+        try {
+            journal.append(JournalEntry.Operation.APPEND_ROW, codec, row);
+            return apply(Collections.singletonList(codec), () -> delegate.appendRow(codec, row));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<String[]> findRowsBy(RowCodec<?> codec, int column, String value) throws IOException {
+        return delegate.findRowsBy(codec, column, value);
+    }
+
+    @Override
+    public void force(Collection<RowCodec<?>> codecs) throws IOException {
+        delegate.force(codecs);
+    }
+
+    @Override
+    public long getTableVersion(RowCodec<?> codec) throws IOException {
+        return delegate.getTableVersion(codec);
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+        delegate.close();
+    }
+
+    /**
+     * Makes a journaled mutation. If it fails, the rows of its tables are read back and journaled again.
+     * Must be called while holding the locks of the tables.
+     *
+     * @param codecs   the codecs of the tables the mutation writes.
+     * @param mutation the mutation.
+     * @return the number of bytes written.
+     * @throws IOException if the mutation fails.
+     */
+    private long apply(List<RowCodec<?>> codecs, TableLocks.Action<Long> mutation) throws IOException {
+        try {
+            return mutation.run();
+        } catch (IOException | RuntimeException e) {
+            for (RowCodec<?> codec : codecs) {
+                try {
+                    journal.append(JournalEntry.Operation.WRITE_ROWS, codec, delegate.readRows(codec));
+                } catch (IOException journalError) {
+                    System.err.println("Error journaling " + codec.getTable() + " after a failed write: "
+                            + journalError.getMessage());
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the lock ordering the mutations of a table.
+     *
+     * @param codec the codec of the table.
+     * @return the lock of the table.
+     */
+    private ReentrantLock lockOf(RowCodec<?> codec) {
+        return tableLocks.computeIfAbsent(codec.getTable(), k -> new ReentrantLock());
+    }
+}
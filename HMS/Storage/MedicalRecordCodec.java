@@ -0,0 +1,111 @@
+package HMS.Storage;
+
+import HMS.Models.Diagnosis;
+import HMS.Models.MedicalRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row codec of the medical records table. Diagnoses are stored in the last column as
+ * "condition|date|prescription" entries separated by semicolons, one entry per condition.
+ * Separators inside the values are percent-encoded. The version of the record follows the diagnoses; rows saved before
+ * versions were stored have none, and their diagnoses may hold unencoded commas.
+ */
+public class MedicalRecordCodec implements RowCodec<MedicalRecord> {
+    private static final String[] COLUMNS = {"PatientID", "DateOfBirth", "PhoneNumber", "EmailAddress", "BloodType", "Diagnoses", "Version"};
+    private static final String SEPARATORS = ";|,\r\n";
+
+    @Override
+    public String getTable() {
+        return "medical_records";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public int getShardColumn() {
+        return 0;
+    }
+
+    @Override
+    public String[] encode(MedicalRecord medicalRecord) {
+        return new String[]{
+                medicalRecord.getPatientID(),
+                medicalRecord.getDateOfBirth(),
+                medicalRecord.getPhoneNumber(),
+                medicalRecord.getEmailAddress(),
+                medicalRecord.getBloodType(),
+                serializeDiagnoses(medicalRecord.getDiagnoses()),
+                String.valueOf(medicalRecord.getVersion())
+        };
+    }
+
+    @Override
+    public MedicalRecord decode(String[] row) {
+        if (row.length < 5) { // Ensure all required fields are present
+            return null;
+        }
+        MedicalRecord medicalRecord = new MedicalRecord(row[0]);
+        medicalRecord.setDateOfBirth(row[1]);
+        medicalRecord.setPhoneNumber(row[2]);
+        medicalRecord.setEmailAddress(row[3]);
+        medicalRecord.setBloodType(row[4]);
+
+        // Parse diagnoses if present
+        if (row.length > 6 && row[6] != null && row[6].matches("\\d+")) {
+            medicalRecord.addDiagnoses(deserializeDiagnoses(row[5]));
+            medicalRecord.setVersion(Long.parseLong(row[6]));
+        } else if (row.length > 6 && row[6] != null) {
+            // Serialized diagnoses end with a semicolon, so a last field that is not a number is the rest of them
+            medicalRecord.addDiagnoses(deserializeDiagnoses(row[5] + "," + row[6]));
+        } else if (row.length > 5) {
+            medicalRecord.addDiagnoses(deserializeDiagnoses(row[5]));
+        }
+        return medicalRecord;
+    }
+
+    /**
+     * Serializes a list of diagnoses into a CSV-compatible string.
+     *
+     * @param diagnoses the list of diagnoses to serialize.
+     * @return a string representing the serialized diagnoses.
+     */
+    private static String serializeDiagnoses(List<Diagnosis> diagnoses) {
+        StringBuilder serialized = new StringBuilder();
+        for (Diagnosis diagnosis : diagnoses) {
+            serialized.append(FieldEncoding.escape(diagnosis.getCondition(), SEPARATORS)).append("|")
+                    .append(FieldEncoding.escape(diagnosis.getDiagnosisDate(), SEPARATORS)).append("|")
+                    .append(FieldEncoding.escape(diagnosis.getPrescription(), SEPARATORS)).append(";");
+        }
+        return serialized.toString();
+    }
+
+    /**
+     * Deserializes a string of diagnoses into a list of Diagnosis objects.
+     *
+     * @param diagnosesData the serialized diagnoses HMS.data.
+     * @return a list of Diagnosis objects.
+     */
+    private static List<Diagnosis> deserializeDiagnoses(String diagnosesData) {
+        List<Diagnosis> diagnoses = new ArrayList<>();
+        if (diagnosesData == null || diagnosesData.equalsIgnoreCase("None") || diagnosesData.isEmpty()) {
+            return diagnoses; // Return empty list if no diagnoses
+        }
+
+        String[] diagnosisEntries = diagnosesData.split(";");
+        for (String entry : diagnosisEntries) {
+            String[] parts = entry.split("\\|");
+            if (parts.length == 3) {
+                diagnoses.add(new Diagnosis(FieldEncoding.unescape(parts[0]), FieldEncoding.unescape(parts[1]),
+                        FieldEncoding.unescape(parts[2])));
+            } else {
+                System.err.println("Invalid diagnosis entry: " + entry);
+            }
+        }
+        return diagnoses;
+    }
+}
@@ -0,0 +1,64 @@
+package HMS.Storage;
+
+import HMS.Models.MedicalRecord;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Command-line tool compacting the medical records table once, so that each record keeps a single diagnosis per
+ * condition. Records saved before diagnoses were keyed by condition may repeat a condition; decoding a record keeps
+ * the last diagnosis of each condition, and the records are then written back.
+ *
+ * <p>Usage: {@code java HMS.Storage.MedicalRecordCompactionTool}.
+ * The backend, data directory and SQL URL are taken from the same system properties as the HMS.
+ */
+public class MedicalRecordCompactionTool {
+
+    /**
+     * The entry point of the compaction tool.
+     *
+     * @param args unused.
+     * @throws IOException if the medical records cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        try {
+            MedicalRecordCodec codec = new MedicalRecordCodec();
+            List<String[]> rows = Storage.getEngine().readRows(codec);
+            int entriesBefore = 0;
+            for (String[] row : rows) {
+                entriesBefore += countDiagnoses(row);
+            }
+
+            List<MedicalRecord> records = Storage.medicalRecords().loadAll();
+            int entriesAfter = 0;
+            for (MedicalRecord record : records) {
+                entriesAfter += record.getDiagnoses().size();
+            }
+            long bytes = Storage.medicalRecords().saveAll(records);
+            System.out.printf("Compacted %d medical records: removed %d duplicate diagnoses (%d bytes written).%n",
+                    records.size(), entriesBefore - entriesAfter, bytes);
+        } finally {
+            Storage.getEngine().close();
+        }
+    }
+
+    /**
+     * Counts the diagnosis entries stored in a row.
+     *
+     * @param row the row of a medical record.
+     * @return the number of entries in the diagnoses column.
+     */
+    private static int countDiagnoses(String[] row) {
+        if (row.length < 6 || row[5] == null || row[5].isEmpty() || row[5].equalsIgnoreCase("None")) {
+            return 0;
+        }
+        int count = 0;
+        for (String entry : row[5].split(";")) {
+            if (!entry.isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package HMS.Storage;
+
+import HMS.Models.Diagnosis;
+import HMS.Models.MedicalRecordVersion;
+
+import java.util.Map;
+
+/**
+ * Row codec of the medical record history table. Each row is one version of a patient's record, keyed by
+ * "patientID:version". The changes of the version are stored in the last column as entries separated by semicolons:
+ * <ul>
+ *   <li>{@code Fname=value} - a field set to a value, or {@code Fname} for a field cleared</li>
+ *   <li>{@code Dkey=condition|date|prescription} - a diagnosis added or changed</li>
+ *   <li>{@code Rkey} - the diagnosis of a condition removed</li>
+ * </ul>
+ * Characters used as separators are percent-encoded inside names and values.
+ */
+public class MedicalRecordHistoryCodec implements RowCodec<MedicalRecordVersion> {
+    private static final String[] COLUMNS = {"VersionID", "PatientID", "Version", "Timestamp", "Type", "Changes"};
+    private static final String SEPARATORS = ";=|,\r\n";
+
+    /**
+     * The index of the patient ID column.
+     */
+    public static final int PATIENT_ID_COLUMN = 1;
+
+    @Override
+    public String getTable() {
+        return "medical_record_history";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public String[] getIndexedColumns() {
+        return new String[]{"PatientID"};
+    }
+
+    @Override
+    public int getShardColumn() {
+        return PATIENT_ID_COLUMN;
+    }
+
+    @Override
+    public String[] encode(MedicalRecordVersion version) {
+        StringBuilder changes = new StringBuilder();
+        for (Map.Entry<String, String> field : version.getFields().entrySet()) {
+            changes.append('F').append(escape(field.getKey()));
+            if (field.getValue() != null) {
+                changes.append('=').append(escape(field.getValue()));
+            }
+            changes.append(';');
+        }
+        for (Map.Entry<String, Diagnosis> entry : version.getDiagnoses().entrySet()) {
+            Diagnosis diagnosis = entry.getValue();
+            if (diagnosis == null) {
+                changes.append('R').append(escape(entry.getKey()));
+            } else {
+                changes.append('D').append(escape(entry.getKey())).append('=')
+                        .append(escape(diagnosis.getCondition())).append('|')
+                        .append(escape(diagnosis.getDiagnosisDate())).append('|')
+                        .append(escape(diagnosis.getPrescription()));
+            }
+            changes.append(';');
+        }
+
+        return new String[]{
+                version.getPatientID() + ":" + version.getVersion(),
+                version.getPatientID(),
+                String.valueOf(version.getVersion()),
+                String.valueOf(version.getTimestamp()),
+                version.isCheckpoint() ? "FULL" : "DELTA",
+                changes.toString()
+        };
+    }
+
+    @Override
+    public MedicalRecordVersion decode(String[] row) {
+        if (row.length < COLUMNS.length - 1) {
+            return null;
+        }
+        MedicalRecordVersion version = new MedicalRecordVersion(row[1], Integer.parseInt(row[2]),
+                Long.parseLong(row[3]), row[4].equals("FULL"));
+
+        String changes = row.length > 5 && row[5] != null ? row[5] : "";
+        for (String entry : changes.split(";")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String body = entry.substring(1);
+            int equals = body.indexOf('=');
+            switch (entry.charAt(0)) {
+                case 'F' -> version.setField(unescape(equals < 0 ? body : body.substring(0, equals)),
+                        equals < 0 ? null : unescape(body.substring(equals + 1)));
+                case 'D' -> {
+                    String[] parts = body.substring(equals + 1).split("\\|", -1);
+                    if (equals < 0 || parts.length != 3) {
+                        return null;
+                    }
+                    version.putDiagnosis(new Diagnosis(unescape(parts[0]), unescape(parts[1]), unescape(parts[2])));
+                }
+                case 'R' -> version.removeDiagnosis(unescape(body));
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Percent-encodes the separator characters of a value.
+     *
+     * @param value the value, may be null.
+     * @return the encoded value, empty for null.
+     */
+    private static String escape(String value) {
+        return FieldEncoding.escape(value, SEPARATORS);
+    }
+
+    /**
+     * Decodes a percent-encoded value.
+     *
+     * @param value the encoded value.
+     * @return the decoded value.
+     */
+    private static String unescape(String value) {
+        return FieldEncoding.unescape(value);
+    }
+}
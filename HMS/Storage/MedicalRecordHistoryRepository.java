@@ -0,0 +1,30 @@
+package HMS.Storage;
+
+import HMS.Models.MedicalRecordVersion;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Repository of the versions of the patients' medical records. Versions are only ever appended.
+ */
+public interface MedicalRecordHistoryRepository extends Repository<MedicalRecordVersion> {
+
+    /**
+     * Finds the versions of a patient's medical record.
+     *
+     * @param patientID the ID of the patient.
+     * @return the versions in ascending order of version number.
+     * @throws IOException if the storage cannot be read.
+     */
+    List<MedicalRecordVersion> findByPatient(String patientID) throws IOException;
+
+    /**
+     * Appends a version to the history.
+     *
+     * @param version the version to append.
+     * @return the number of bytes written.
+     * @throws IOException if the storage cannot be written.
+     */
+    long append(MedicalRecordVersion version) throws IOException;
+}
@@ -0,0 +1,29 @@
+package HMS.Storage;
+
+import HMS.Models.MedicalRecord;
+
+import java.io.IOException;
+
+/**
+ * Repository of the patients' medical records. Records are read and written one patient at a time.
+ */
+public interface MedicalRecordRepository extends Repository<MedicalRecord> {
+
+    /**
+     * Finds the medical record of a patient.
+     *
+     * @param patientID the ID of the patient.
+     * @return the medical record, or {@code null} if the patient has none.
+     * @throws IOException if the storage cannot be read.
+     */
+    MedicalRecord find(String patientID) throws IOException;
+
+    /**
+     * Saves a medical record, replacing the patient's previous record if there is one.
+     *
+     * @param medicalRecord the medical record to save.
+     * @return the number of bytes written.
+     * @throws IOException if the storage cannot be written.
+     */
+    long save(MedicalRecord medicalRecord) throws IOException;
+}
@@ -0,0 +1,186 @@
+package HMS.Storage;
+
+import HMS.Enums.Dispensed;
+import HMS.Models.AppointmentOutcomeRecord;
+import HMS.Models.Medication;
+
+import java.util.List;
+
+/**
+ * Row codec of the appointment outcomes table. Prescribed medications are stored in one column as
+ * "name|quantity|status" entries separated by semicolons. Separators inside the medication values, and commas and line
+ * breaks inside the free text columns, are percent-encoded, so any notes round-trip.
+ * Rows saved before the encoding may list medications as "Name (quantity);" entries and may hold consultation notes
+ * with raw commas, which spilled into the following columns; both are still read.
+ */
+public class OutcomeCodec implements RowCodec<AppointmentOutcomeRecord> {
+    private static final String[] COLUMNS = {"AppointmentID", "Date", "ServiceType", "Medications", "ConsultationNotes", "Dispensed", "DoctorID", "PatientID"};
+    private static final String TEXT_SEPARATORS = ",\r\n";
+    private static final String MEDICATION_SEPARATORS = ";|,\r\n";
+
+    @Override
+    public String getTable() {
+        return "appointment_outcomes";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public String[] getIndexedColumns() {
+        return new String[]{"Dispensed", "DoctorID", "PatientID"};
+    }
+
+    @Override
+    public int getShardColumn() {
+        return 7;
+    }
+
+    @Override
+    public String[] encode(AppointmentOutcomeRecord outcome) {
+        return new String[]{
+                String.valueOf(outcome.getAppointmentID()),
+                FieldEncoding.escape(outcome.getAppointmentDate(), TEXT_SEPARATORS),
+                FieldEncoding.escape(outcome.getServiceType(), TEXT_SEPARATORS),
+                encodeMedications(outcome.getPrescribedMedications()),
+                FieldEncoding.escape(outcome.getConsultationNotes(), TEXT_SEPARATORS),
+                String.valueOf(outcome.isDispensed()), // Save the dispensed field
+                outcome.getDoctorID() == null ? "" : outcome.getDoctorID(),
+                outcome.getPatientID() == null ? "" : outcome.getPatientID()
+        };
+    }
+
+    @Override
+    public AppointmentOutcomeRecord decode(String[] row) {
+        if (row.length < 6) {
+            return null;
+        }
+        if (!isDispensedFlag(row[5])) {
+            row = splitSpilledNotes(row);
+            if (row == null) {
+                return null;
+            }
+        }
+
+        int appointmentID = Integer.parseInt(row[0]);
+        String dispensedStr = row[5].trim(); // Saved as "true"/"false", older rows may use "yes"/"no"
+        Dispensed dispensed = dispensedStr.equalsIgnoreCase("true") || dispensedStr.equalsIgnoreCase("yes") ? Dispensed.YES : Dispensed.NO;
+        String doctorID = row.length > 6 ? row[6] : null; // Rows saved before the IDs were stored
+        String patientID = row.length > 7 ? row[7] : null;
+
+        AppointmentOutcomeRecord outcome = new AppointmentOutcomeRecord(appointmentID, FieldEncoding.unescape(row[1]),
+                FieldEncoding.unescape(row[2]), FieldEncoding.unescape(row[4]), dispensed, doctorID, patientID);
+        decodeMedications(row[3], outcome);
+        return outcome;
+    }
+
+    /**
+     * Encodes medications as "name|quantity|status;" entries.
+     *
+     * @param medications the medications.
+     * @return the encoded medications, empty if there are none.
+     */
+    private static String encodeMedications(List<Medication> medications) {
+        StringBuilder field = new StringBuilder();
+        for (Medication medication : medications) {
+            field.append(FieldEncoding.escape(medication.getMedicationName(), MEDICATION_SEPARATORS)).append('|')
+                    .append(medication.getQuantity()).append('|')
+                    .append(FieldEncoding.escape(medication.getStatus(), MEDICATION_SEPARATORS)).append(';');
+        }
+        return field.toString();
+    }
+
+    /**
+     * Decodes the medications column into an outcome, scanning the field in place rather than splitting it.
+     *
+     * @param field   the medications column.
+     * @param outcome the outcome to add the medications to.
+     * @throws IllegalArgumentException if an entry is invalid.
+     */
+    private static void decodeMedications(String field, AppointmentOutcomeRecord outcome) {
+        if (field.isEmpty()) {
+            return;
+        }
+        if (field.indexOf('|') < 0) {
+            decodeLegacyMedications(field, outcome);
+            return;
+        }
+
+        int start = 0;
+        while (start < field.length()) {
+            int end = field.indexOf(';', start);
+            if (end < 0) {
+                end = field.length();
+            }
+            int nameEnd = field.indexOf('|', start);
+            int quantityEnd = nameEnd < 0 ? -1 : field.indexOf('|', nameEnd + 1);
+            if (quantityEnd < 0 || quantityEnd >= end) {
+                throw new IllegalArgumentException("Invalid medication entry: " + field.substring(start, end));
+            }
+            String name = FieldEncoding.unescape(field.substring(start, nameEnd));
+            int quantity = Integer.parseInt(field, nameEnd + 1, quantityEnd, 10);
+            String status = quantityEnd + 1 == end ? "pending" : FieldEncoding.unescape(field.substring(quantityEnd + 1, end));
+            outcome.addMedication(new Medication(name, status, quantity));
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Decodes medications saved as "Name (quantity);" entries, before their status was stored.
+     *
+     * @param field   the medications column.
+     * @param outcome the outcome to add the medications to.
+     */
+    private static void decodeLegacyMedications(String field, AppointmentOutcomeRecord outcome) {
+        for (String med : field.split(";")) {
+            if (med.trim().isEmpty()) {
+                continue;
+            }
+            String[] medParts = med.split(" \\("); // Name and quantity
+            String name = medParts[0].trim();
+            int quantity = Integer.parseInt(medParts[1].replace(")", "").trim());
+            outcome.addMedication(new Medication(name, "pending", quantity));
+        }
+    }
+
+    /**
+     * Checks whether a field is a dispensed flag, which tells where the consultation notes end.
+     *
+     * @param field the field.
+     * @return true for "true", "false", "yes" or "no".
+     */
+    private static boolean isDispensedFlag(String field) {
+        String flag = field == null ? "" : field.trim();
+        return flag.equalsIgnoreCase("true") || flag.equalsIgnoreCase("false")
+                || flag.equalsIgnoreCase("yes") || flag.equalsIgnoreCase("no");
+    }
+
+    /**
+     * Splits again a row saved before the notes were encoded, whose consultation notes held commas and so spilled
+     * into the following columns. The notes end before the dispensed flag, which is followed by at most the doctor
+     * and patient IDs.
+     *
+     * @param row the row as read.
+     * @return the row with the notes in one column, or null if no dispensed flag was found.
+     */
+    private static String[] splitSpilledNotes(String[] row) {
+        for (String field : row) {
+            if (field == null) {
+                return null;
+            }
+        }
+        String[] parts = String.join(",", row).split(",", -1);
+        for (int flag = parts.length - 1; flag > 4 && flag >= parts.length - 3; flag--) {
+            if (isDispensedFlag(parts[flag])) {
+                String[] repaired = new String[parts.length - flag + 5];
+                System.arraycopy(parts, 0, repaired, 0, 4);
+                repaired[4] = String.join(",", List.of(parts).subList(4, flag));
+                System.arraycopy(parts, flag, repaired, 5, parts.length - flag);
+                return repaired;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,9 @@
+package HMS.Storage;
+
+import HMS.Models.AppointmentOutcomeRecord;
+
+/**
+ * Repository of the appointment outcome records.
+ */
+public interface OutcomeRepository extends Repository<AppointmentOutcomeRecord> {
+}
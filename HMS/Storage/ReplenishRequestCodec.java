@@ -0,0 +1,57 @@
+package HMS.Storage;
+
+import HMS.Enums.ReplenishStatus;
+import HMS.Models.StockReplenishRequest;
+
+/**
+ * Row codec of the replenish requests table.
+ */
+public class ReplenishRequestCodec implements RowCodec<StockReplenishRequest> {
+    private static final String[] COLUMNS = {"ID", "StockID", "IncomingStockLevel", "Status", "Version"};
+
+    @Override
+    public String getTable() {
+        return "replenish_requests";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public String[] getIndexedColumns() {
+        return new String[]{"StockID", "Status"};
+    }
+
+    @Override
+    public String[] encode(StockReplenishRequest request) {
+        return new String[]{
+                String.valueOf(request.getID()),
+                String.valueOf(request.getStockId()),
+                String.valueOf(request.getIncomingStockLevel()),
+                request.getStatus().toString(),
+                String.valueOf(request.getVersion())
+        };
+    }
+
+    @Override
+    public StockReplenishRequest decode(String[] row) {
+        if (row.length < COLUMNS.length - 1) {
+            return null;
+        }
+        try {
+            int stockId = Integer.parseInt(row[1]);
+            int incomingStockLevel = Integer.parseInt(row[2]);
+            ReplenishStatus status = ReplenishStatus.valueOf(row[3].toUpperCase());
+            StockReplenishRequest request = new StockReplenishRequest(stockId, incomingStockLevel, status);
+            request.setID(Integer.parseInt(row[0]));
+            if (row.length > 4 && row[4] != null && !row[4].isBlank()) { // Rows saved before versions were stored are at version 0
+                request.setVersion(Long.parseLong(row[4]));
+            }
+            return request;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
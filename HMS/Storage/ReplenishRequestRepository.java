@@ -0,0 +1,9 @@
+package HMS.Storage;
+
+import HMS.Models.StockReplenishRequest;
+
+/**
+ * Repository of the stock replenish requests.
+ */
+public interface ReplenishRequestRepository extends Repository<StockReplenishRequest> {
+}
@@ -0,0 +1,39 @@
+package HMS.Storage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A repository loading and saving all aggregates of one type.
+ *
+ * @param <T> the type of the aggregate.
+ */
+public interface Repository<T> {
+
+    /**
+     * Loads all aggregates. Invalid records are reported and skipped.
+     *
+     * @return the loaded aggregates.
+     * @throws IOException if the storage cannot be read.
+     */
+    List<T> loadAll() throws IOException;
+
+    /**
+     * Replaces all stored aggregates with the given ones.
+     *
+     * @param items the aggregates to save.
+     * @return the number of bytes written.
+     * @throws IOException if the storage cannot be written.
+     */
+    long saveAll(Collection<? extends T> items) throws IOException;
+
+    /**
+     * Stages the replacement of all stored aggregates with the given ones in a unit of work, to be written when it commits.
+     * The aggregates are encoded right away, so changes made to them afterwards are not staged.
+     *
+     * @param items the aggregates to save.
+     * @param work  the unit of work.
+     */
+    void saveAll(Collection<? extends T> items, UnitOfWork work);
+}
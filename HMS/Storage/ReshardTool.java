@@ -0,0 +1,76 @@
+package HMS.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Command-line tool moving the patients' data of a file backend to another number of shards.
+ * The tables are read from the current layout, given by {@code hms.shards}, and written to the new one.
+ * The tables left behind in the data directory or in shard directories the new layout does not use are emptied,
+ * so that stale rows cannot be read by mistake.
+ *
+ * <p>Usage: {@code java -Dhms.shards=<current> HMS.Storage.ReshardTool <shards>}, then run the HMS with
+ * {@code -Dhms.shards=<shards>}. The backend and data directory are taken from the same system properties as the HMS.
+ */
+public class ReshardTool {
+
+    /**
+     * The entry point of the resharding tool.
+     *
+     * @param args the new number of shards.
+     * @throws IOException if a table cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 || !args[0].matches("\\d+") || Integer.parseInt(args[0]) < 1) {
+            System.out.println("Usage: java -Dhms.shards=<current> HMS.Storage.ReshardTool <shards>");
+            return;
+        }
+        String backend = System.getProperty("hms.storage", "csv");
+        Function<File, StorageEngine> factory = Storage.fileEngineFactory(backend);
+        if (factory == null) {
+            System.out.println("The SQL backend is not sharded.");
+            return;
+        }
+
+        int from = Storage.getShardCount();
+        int to = Integer.parseInt(args[0]);
+        if (from == to) {
+            System.out.println("The data already has " + to + " shard(s).");
+            return;
+        }
+
+        StorageEngine source = Storage.open(backend, from);
+        StorageEngine target = Storage.open(backend, to);
+        File directory = Storage.getDataDirectory();
+        List<StorageEngine> stale = new ArrayList<>(); // The engines of the locations the new layout does not use
+        if (from == 1) {
+            stale.add(factory.apply(directory));
+        }
+        for (int shard = to > 1 ? to : 0; shard < from; shard++) {
+            stale.add(factory.apply(ShardedStorageEngine.getShardDirectory(directory, shard)));
+        }
+
+        try {
+            for (RowCodec<?> codec : Storage.getCodecs()) {
+                if (codec.getShardColumn() < 0) {
+                    continue;
+                }
+                List<String[]> rows = source.readRows(codec);
+                long bytes = target.writeRows(codec, rows);
+                for (StorageEngine engine : stale) {
+                    engine.writeRows(codec, new ArrayList<>());
+                }
+                System.out.printf("Moved %d %s rows from %d to %d shard(s) (%d bytes).%n",
+                        rows.size(), codec.getTable(), from, to, bytes);
+            }
+        } finally {
+            source.close();
+            target.close();
+            stale.forEach(StorageEngine::close);
+        }
+        System.out.println("Run the HMS with -Dhms.shards=" + to + ".");
+    }
+}
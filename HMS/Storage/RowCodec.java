@@ -0,0 +1,68 @@
+package HMS.Storage;
+
+/**
+ * Converts an aggregate to and from a row of string fields, and describes the table that holds the rows.
+ * Storage engines only deal with rows, so one codec per aggregate is enough for every backend.
+ *
+ * @param <T> the type of the aggregate stored in the table.
+ */
+public interface RowCodec<T> {
+
+    /**
+     * Gets the name of the table holding the rows (e.g., "appointments").
+     *
+     * @return the table name.
+     */
+    String getTable();
+
+    /**
+     * Gets the names of the columns of the table, in row order.
+     *
+     * @return the column names.
+     */
+    String[] getColumns();
+
+    /**
+     * Gets the index of the column that uniquely identifies a row.
+     *
+     * @return the index of the key column.
+     */
+    default int getKeyColumn() {
+        return 0;
+    }
+
+    /**
+     * Gets the index of the column holding the ID of the patient who owns a row.
+     * A sharded engine stores the rows of a patient in the shard picked by this column.
+     *
+     * @return the index of the patient ID column, or -1 if the rows are not owned by a patient.
+     */
+    default int getShardColumn() {
+        return -1;
+    }
+
+    /**
+     * Gets the names of the columns that backends able to index should index.
+     *
+     * @return the indexed column names.
+     */
+    default String[] getIndexedColumns() {
+        return new String[0];
+    }
+
+    /**
+     * Encodes an aggregate into a row.
+     *
+     * @param item the aggregate to encode.
+     * @return the fields of the row, in column order.
+     */
+    String[] encode(T item);
+
+    /**
+     * Decodes a row into an aggregate.
+     *
+     * @param row the fields of the row, in column order. Trailing fields may be missing.
+     * @return the decoded aggregate, or {@code null} if the row is invalid.
+     */
+    T decode(String[] row);
+}
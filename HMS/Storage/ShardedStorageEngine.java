@@ -0,0 +1,432 @@
+package HMS.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Storage engine partitioning the tables owned by patients across shards, each a file engine over its own
+ * {@code shard-N} directory of the data directory. A row is stored in the shard picked by the hash of its patient ID
+ * (see {@link RowCodec#getShardColumn()}), so a patient's medical record, appointments and outcomes share a shard.
+ * The other tables stay in the data directory itself.
+ *
+ * <p>Reads and writes of a whole table run on every shard in parallel on the common fork-join pool. A write of a whole
+ * table only rewrites the shards whose rows differ from those last read or written by this engine, so saving a table
+ * after booking one appointment rewrites only the shard of its patient, like a write of one row.
+ * Lookups by patient ID go to a single shard; lookups by a key that is not the patient ID, such as an appointment ID,
+ * use an index of the shard of each key, built on first use and kept up to date by the writes of this engine.
+ * A key missing from the index, such as one written by another process, is looked up in every shard.</p>
+ */
+public class ShardedStorageEngine implements StorageEngine {
+    private final StorageEngine base;
+    private final StorageEngine[] shards;
+    private final Map<String, Map<String, Integer>> keyShards = new HashMap<>(); // Table -> key -> shard
+    private final Map<String, ShardRows[]> knownRows = new HashMap<>(); // Table -> rows last read or written per shard
+
+    /**
+     * Constructs a sharded storage engine over a data directory.
+     *
+     * @param directory  the data directory, holding the unsharded tables and the shard directories.
+     * @param shardCount the number of shards, at least 1.
+     * @param factory    opens the file engine of a directory.
+     */
+    public ShardedStorageEngine(File directory, int shardCount, Function<File, StorageEngine> factory) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Invalid shard count: " + shardCount);
+        }
+        base = factory.apply(directory);
+        shards = new StorageEngine[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = factory.apply(getShardDirectory(directory, i));
+        }
+    }
+
+    /**
+     * Gets the directory of a shard.
+     *
+     * @param directory the data directory.
+     * @param shard     the number of the shard.
+     * @return the directory holding the tables of the shard.
+     */
+    public static File getShardDirectory(File directory, int shard) {
+        return new File(directory, "shard-" + shard);
+    }
+
+    /**
+     * Picks the shard of a patient. The hash of a string is fixed by the Java specification,
+     * so a patient stays in the same shard across runs.
+     *
+     * @param patientID  the ID of the patient, may be null or empty for rows without a patient.
+     * @param shardCount the number of shards.
+     * @return the number of the shard.
+     */
+    public static int shardOf(String patientID, int shardCount) {
+        if (patientID == null || patientID.isEmpty()) {
+            return 0;
+        }
+        return Math.floorMod(patientID.toUpperCase(Locale.ROOT).hashCode(), shardCount);
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the number of shards.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public String getName() {
+        return base.getName();
+    }
+
+    @Override
+    public List<String[]> readRows(RowCodec<?> codec) throws IOException {
+        if (codec.getShardColumn() < 0) {
+            return base.readRows(codec);
+        }
+        List<Callable<List<String[]>>> tasks = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            tasks.add(() -> {
+                long version = shards[shard].getTableVersion(codec); // Read first, so a concurrent write is not missed
+                List<String[]> shardRows = shards[shard].readRows(codec);
+                remember(codec, shard, version, shardRows);
+                return shardRows;
+            });
+        }
+        List<String[]> rows = new ArrayList<>();
+        invokeAll(tasks).forEach(rows::addAll);
+        return rows;
+    }
+
+    @Override
+    public long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException {
+        if (codec.getShardColumn() < 0) {
+            return base.writeRows(codec, rows);
+        }
+        List<List<String[]>> partitions = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (String[] row : rows) {
+            partitions.get(shardOfRow(codec, row)).add(row);
+        }
+
+        List<Callable<Long>> tasks = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            List<String[]> partition = partitions.get(i);
+            if (isUnchanged(codec, shard, partition)) {
+                continue;
+            }
+            tasks.add(() -> {
+                long bytes = shards[shard].writeRows(codec, partition);
+                remember(codec, shard, shards[shard].getTableVersion(codec), partition);
+                return bytes;
+            });
+        }
+        long bytesWritten = 0;
+        for (long bytes : invokeAll(tasks)) {
+            bytesWritten += bytes;
+        }
+
+        synchronized (keyShards) {
+            keyShards.remove(codec.getTable()); // Rebuilt on the next lookup
+        }
+        return bytesWritten;
+    }
+
+    @Override
+    public void force(Collection<RowCodec<?>> codecs) throws IOException {
+        List<RowCodec<?>> sharded = new ArrayList<>();
+        List<RowCodec<?>> unsharded = new ArrayList<>();
+        for (RowCodec<?> codec : codecs) {
+            (codec.getShardColumn() < 0 ? unsharded : sharded).add(codec);
+        }
+        base.force(unsharded);
+        if (!sharded.isEmpty()) {
+            onEveryShard(shard -> {
+                shard.force(sharded);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public String[] findRow(RowCodec<?> codec, String key) throws IOException {
+        if (codec.getShardColumn() < 0) {
+            return base.findRow(codec, key);
+        }
+        if (codec.getShardColumn() == codec.getKeyColumn()) {
+            return shards[shardOf(key, shards.length)].findRow(codec, key);
+        }
+        Integer shard = getKeyShards(codec).get(key.toUpperCase(Locale.ROOT));
+        if (shard != null) {
+            return shards[shard].findRow(codec, key);
+        }
+        List<String[]> found = onEveryShard(each -> each.findRow(codec, key)); // Written by another process
+        for (int i = 0; i < found.size(); i++) {
+            if (found.get(i) != null) {
+                indexKey(codec, found.get(i), i);
+                return found.get(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        if (codec.getShardColumn() < 0) {
+            return base.upsertRow(codec, row);
+        }
+        int shard = shardOfRow(codec, row);
+        long bytesWritten = shards[shard].upsertRow(codec, row);
+        indexKey(codec, row, shard);
+        return bytesWritten;
+    }
+
+    @Override
+    public long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        if (codec.getShardColumn() < 0) {
+            return base.appendRow(codec, row);
+        }
+        int shard = shardOfRow(codec, row);
+        long bytesWritten = shards[shard].appendRow(codec, row);
+        indexKey(codec, row, shard);
+        return bytesWritten;
+    }
+
+    @Override
+    public List<String[]> findRowsBy(RowCodec<?> codec, int column, String value) throws IOException {
+        if (codec.getShardColumn() < 0) {
+            return base.findRowsBy(codec, column, value);
+        }
+        if (column == codec.getShardColumn()) {
+            return shards[shardOf(value, shards.length)].findRowsBy(codec, column, value);
+        }
+        List<List<String[]>> shardRows = onEveryShard(shard -> shard.findRowsBy(codec, column, value));
+        List<String[]> rows = new ArrayList<>();
+        shardRows.forEach(rows::addAll);
+        return rows;
+    }
+
+    @Override
+    public long getTableVersion(RowCodec<?> codec) throws IOException {
+        if (codec.getShardColumn() < 0) {
+            return base.getTableVersion(codec);
+        }
+        long version = 0;
+        for (StorageEngine shard : shards) {
+            version += shard.getTableVersion(codec); // Versions only grow, so the sum changes with any shard
+        }
+        return version;
+    }
+
+    @Override
+    public void close() {
+        base.close();
+        for (StorageEngine shard : shards) {
+            shard.close();
+        }
+    }
+
+    /**
+     * Picks the shard of a row from its patient ID column.
+     *
+     * @param codec the codec describing the table.
+     * @param row   the row.
+     * @return the number of the shard.
+     */
+    private int shardOfRow(RowCodec<?> codec, String[] row) {
+        int column = codec.getShardColumn();
+        return shardOf(row.length > column ? row[column] : null, shards.length);
+    }
+
+    /**
+     * Checks whether a shard of a table already holds the given rows: they equal the rows last read or written by this
+     * engine, and the shard has not been written since, also by another process.
+     *
+     * @param codec the codec describing the table.
+     * @param shard the number of the shard.
+     * @param rows  the rows of the shard.
+     * @return true if writing the rows to the shard can be skipped.
+     * @throws IOException if the version of the shard cannot be read.
+     */
+    private boolean isUnchanged(RowCodec<?> codec, int shard, List<String[]> rows) throws IOException {
+        ShardRows known;
+        synchronized (knownRows) {
+            ShardRows[] table = knownRows.get(codec.getTable());
+            known = table == null ? null : table[shard];
+        }
+        if (known == null || known.rows.size() != rows.size()
+                || known.version != shards[shard].getTableVersion(codec)) {
+            return false;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            if (!Arrays.equals(known.rows.get(i), rows.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the rows of a shard of a table, as read or written by this engine.
+     *
+     * @param codec   the codec describing the table.
+     * @param shard   the number of the shard.
+     * @param version the version of the shard holding the rows.
+     * @param rows    the rows of the shard.
+     */
+    private void remember(RowCodec<?> codec, int shard, long version, List<String[]> rows) {
+        synchronized (knownRows) {
+            knownRows.computeIfAbsent(codec.getTable(), k -> new ShardRows[shards.length])[shard] = new ShardRows(version, rows);
+        }
+    }
+
+    /**
+     * Gets the index of the shard of each key of a table, reading the keys of every shard on first use.
+     *
+     * @param codec the codec describing the table.
+     * @return the shard of each key, by upper-case key.
+     * @throws IOException if a shard cannot be read.
+     */
+    private Map<String, Integer> getKeyShards(RowCodec<?> codec) throws IOException {
+        synchronized (keyShards) {
+            Map<String, Integer> index = keyShards.get(codec.getTable());
+            if (index != null) {
+                return index;
+            }
+        }
+
+        List<List<String[]>> shardRows = onEveryShard(shard -> shard.readRows(codec));
+        Map<String, Integer> index = new HashMap<>();
+        int keyColumn = codec.getKeyColumn();
+        for (int shard = 0; shard < shardRows.size(); shard++) {
+            for (String[] row : shardRows.get(shard)) {
+                if (row.length > keyColumn && row[keyColumn] != null) {
+                    index.put(row[keyColumn].toUpperCase(Locale.ROOT), shard);
+                }
+            }
+        }
+        synchronized (keyShards) {
+            return keyShards.computeIfAbsent(codec.getTable(), k -> index);
+        }
+    }
+
+    /**
+     * Records the shard of a written row in the key index of its table, if the index has been built.
+     *
+     * @param codec the codec describing the table.
+     * @param row   the written row.
+     * @param shard the shard the row was written to.
+     */
+    private void indexKey(RowCodec<?> codec, String[] row, int shard) {
+        int keyColumn = codec.getKeyColumn();
+        if (keyColumn == codec.getShardColumn() || row.length <= keyColumn || row[keyColumn] == null) {
+            return;
+        }
+        synchronized (keyShards) {
+            Map<String, Integer> index = keyShards.get(codec.getTable());
+            if (index != null) {
+                index.put(row[keyColumn].toUpperCase(Locale.ROOT), shard);
+            }
+        }
+    }
+
+    /**
+     * Runs an operation on every shard in parallel.
+     *
+     * @param operation the operation.
+     * @param <R>       the type of the result of the operation.
+     * @return the result of each shard, in shard order.
+     * @throws IOException if the operation fails on a shard.
+     */
+    private <R> List<R> onEveryShard(ShardOperation<R> operation) throws IOException {
+        List<Callable<R>> tasks = new ArrayList<>(shards.length);
+        for (StorageEngine shard : shards) {
+            tasks.add(() -> operation.apply(shard));
+        }
+        return invokeAll(tasks);
+    }
+
+    /**
+     * Runs tasks in parallel on the common fork-join pool and waits for all of them.
+     *
+     * @param tasks the tasks.
+     * @param <R>   the type of the result of the tasks.
+     * @return the result of each task, in task order.
+     * @throws IOException if a task fails.
+     */
+    private static <R> List<R> invokeAll(List<Callable<R>> tasks) throws IOException {
+        if (tasks.size() == 1) {
+            try {
+                return Collections.singletonList(tasks.get(0).call());
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        List<R> results = new ArrayList<>(tasks.size());
+        for (Future<R> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while accessing the shards", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException cause) {
+                    throw cause;
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The rows of a shard of a table at a version of the shard.
+     */
+    private static final class ShardRows {
+        private final long version;
+        private final List<String[]> rows;
+
+        /**
+         * Constructs the rows of a shard.
+         *
+         * @param version the version of the shard.
+         * @param rows    the rows of the shard.
+         */
+        private ShardRows(long version, List<String[]> rows) {
+            this.version = version;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * An operation on the engine of one shard.
+     *
+     * @param <R> the type of the result.
+     */
+    @FunctionalInterface
+    private interface ShardOperation<R> {
+
+        /**
+         * Applies the operation to a shard.
+         *
+         * @param shard the engine of the shard.
+         * @return the result.
+         * @throws IOException if the shard cannot be read or written.
+         */
+        R apply(StorageEngine shard) throws IOException;
+    }
+}
@@ -0,0 +1,148 @@
+package HMS.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage engine letting several HMS processes share one data directory safely: one writer and any number of readers.
+ * The first process holds the writer lease, an exclusive lock on {@code writer.lock} in the data directory, and the
+ * other processes are read-only until they take over the lease, which the operating system frees when the writer exits.
+ * Readers find out what the writer changed from the table versions, see {@link StorageEngine#getTableVersion}.
+ */
+public class SingleWriterStorageEngine implements StorageEngine {
+
+    /**
+     * The name of the writer lease file in the data directory.
+     */
+    public static final String LEASE_FILE = "writer.lock";
+
+    private final StorageEngine delegate;
+    private final File leaseFile;
+    private FileChannel channel;
+    private FileLock lease; // Null while this process is a reader
+
+    /**
+     * Constructs the engine of a process sharing a data directory, and tries to take the writer lease.
+     *
+     * @param delegate  the engine over the data directory.
+     * @param directory the data directory.
+     */
+    public SingleWriterStorageEngine(StorageEngine delegate, File directory) {
+        this.delegate = delegate;
+        this.leaseFile = new File(directory, LEASE_FILE);
+        tryAcquireWriterLease();
+    }
+
+    /**
+     * Takes the writer lease if no other process holds it.
+     *
+     * @return true if this process holds the writer lease.
+     */
+    public synchronized boolean tryAcquireWriterLease() {
+        if (lease != null) {
+            return true;
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(leaseFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            lease = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lease = null; // Held by another engine of this process
+        } catch (IOException e) {
+            System.err.println("Error taking the writer lease: " + e.getMessage());
+        }
+        return lease != null;
+    }
+
+    @Override
+    public synchronized boolean isReadOnly() {
+        return lease == null;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public List<String[]> readRows(RowCodec<?> codec) throws IOException {
+        return delegate.readRows(codec);
+    }
+
+    @Override
+    public long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException {
+        checkWriter();
+        return delegate.writeRows(codec, rows);
+    }
+
+    @Override
+    public long writeTables(Map<RowCodec<?>, List<String[]>> tables) throws IOException {
+        checkWriter();
+        return delegate.writeTables(tables);
+    }
+
+    @Override
+    public void force(Collection<RowCodec<?>> codecs) throws IOException {
+        delegate.force(codecs);
+    }
+
+    @Override
+    public String[] findRow(RowCodec<?> codec, String key) throws IOException {
+        return delegate.findRow(codec, key);
+    }
+
+    @Override
+    public long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        checkWriter();
+        return delegate.upsertRow(codec, row);
+    }
+
+    @Override
+    public long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        checkWriter();
+        return delegate.appendRow(codec, row);
+    }
+
+    @Override
+    public List<String[]> findRowsBy(RowCodec<?> codec, int column, String value) throws IOException {
+        return delegate.findRowsBy(codec, column, value);
+    }
+
+    @Override
+    public long getTableVersion(RowCodec<?> codec) throws IOException {
+        return delegate.getTableVersion(codec);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (channel != null) {
+                channel.close(); // Also releases the lease
+            }
+        } catch (IOException e) {
+            System.err.println("Error releasing the writer lease: " + e.getMessage());
+        }
+        channel = null;
+        lease = null;
+        delegate.close();
+    }
+
+    /**
+     * Rejects a write by a process that does not hold the writer lease.
+     *
+     * @throws IOException if this process is a reader.
+     */
+    private void checkWriter() throws IOException {
+        if (isReadOnly()) {
+            throw new IOException("Another HMS is writing to this data directory; changes are not saved");
+        }
+    }
+}
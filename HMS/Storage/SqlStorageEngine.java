@@ -0,0 +1,281 @@
+package HMS.Storage;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage engine keeping every table in an embedded, in-process SQL database reached through JDBC,
+ * such as H2 ({@code jdbc:h2:./HMS/data/hms}) or SQLite ({@code jdbc:sqlite:HMS/data/hms.db}).
+ * The JDBC driver of the chosen database must be on the classpath.
+ * Every table has a primary key on its key column and an index on each of its indexed columns,
+ * so single-record lookups and upserts do not scan the table. A unit of work is written in one database transaction.
+ */
+public class SqlStorageEngine implements StorageEngine {
+    private final String url;
+    private final Set<String> createdTables = new HashSet<>();
+    private Connection connection;
+
+    /**
+     * Constructs an SQL storage engine for a JDBC URL. The connection is opened on first use.
+     *
+     * @param url the JDBC URL of the embedded database.
+     */
+    public SqlStorageEngine(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public String getName() {
+        return "sql";
+    }
+
+    /**
+     * Opens the connection if needed and creates the table described by the codec, with its indexes, if it does not exist.
+     *
+     * @param codec the codec describing the table.
+     * @return the open connection.
+     * @throws SQLException if the database cannot be reached or the table cannot be created.
+     */
+    private Connection connectionFor(RowCodec<?> codec) throws SQLException {
+        if (connection == null) {
+            connection = DriverManager.getConnection(url);
+        }
+        if (createdTables.add(codec.getTable())) {
+            String[] columns = codec.getColumns();
+            StringBuilder ddl = new StringBuilder("CREATE TABLE IF NOT EXISTS ").append(quote(codec.getTable())).append(" (");
+            for (String column : columns) {
+                ddl.append(quote(column)).append(" VARCHAR, ");
+            }
+            ddl.append("PRIMARY KEY (").append(quote(columns[codec.getKeyColumn()])).append("))");
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(ddl.toString());
+                for (String column : codec.getIndexedColumns()) {
+                    statement.execute("CREATE INDEX IF NOT EXISTS " + quote("idx_" + codec.getTable() + "_" + column)
+                            + " ON " + quote(codec.getTable()) + " (" + quote(column) + ")");
+                }
+            }
+        }
+        return connection;
+    }
+
+    @Override
+    public synchronized List<String[]> readRows(RowCodec<?> codec) throws IOException {
+        // Keys are stored as text, so they are ordered by length first for numeric IDs to come out in ascending order
+        String key = quote(codec.getColumns()[codec.getKeyColumn()]);
+        String sql = "SELECT * FROM " + quote(codec.getTable()) + " ORDER BY LENGTH(" + key + "), " + key;
+        try (Statement statement = connectionFor(codec).createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            List<String[]> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                rows.add(readRow(resultSet, codec.getColumns().length));
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException {
+        return writeTables(Collections.singletonMap(codec, rows));
+    }
+
+    @Override
+    public synchronized long writeTables(Map<RowCodec<?>, List<String[]>> tables) throws IOException {
+        if (tables.isEmpty()) {
+            return 0;
+        }
+        try {
+            Connection connection = null;
+            for (RowCodec<?> codec : tables.keySet()) {
+                connection = connectionFor(codec); // Creates the missing tables before the transaction
+            }
+            connection.setAutoCommit(false);
+            try {
+                long bytes = 0;
+                for (Map.Entry<RowCodec<?>, List<String[]>> table : tables.entrySet()) {
+                    bytes += replaceRows(connection, table.getKey(), table.getValue());
+                }
+                connection.commit();
+                return bytes;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replaces all rows of a table within the current transaction.
+     *
+     * @param connection the connection, with auto-commit disabled.
+     * @param codec      the codec describing the table.
+     * @param rows       the new rows of the table.
+     * @return the number of characters inserted, used as the number of bytes written.
+     * @throws SQLException if the table cannot be written.
+     */
+    private static long replaceRows(Connection connection, RowCodec<?> codec, List<String[]> rows) throws SQLException {
+        try (Statement delete = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(insertSql(codec))) {
+            delete.executeUpdate("DELETE FROM " + quote(codec.getTable()));
+            long bytes = 0;
+            for (String[] row : rows) {
+                bytes += bindRow(insert, row, codec.getColumns().length);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            return bytes;
+        }
+    }
+
+    @Override
+    public synchronized String[] findRow(RowCodec<?> codec, String key) throws IOException {
+        String sql = "SELECT * FROM " + quote(codec.getTable())
+                + " WHERE " + quote(codec.getColumns()[codec.getKeyColumn()]) + " = ?";
+        try (PreparedStatement statement = connectionFor(codec).prepareStatement(sql)) {
+            statement.setString(1, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? readRow(resultSet, codec.getColumns().length) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        String delete = "DELETE FROM " + quote(codec.getTable())
+                + " WHERE " + quote(codec.getColumns()[codec.getKeyColumn()]) + " = ?";
+        try {
+            Connection connection = connectionFor(codec);
+            connection.setAutoCommit(false);
+            try (PreparedStatement deleteStatement = connection.prepareStatement(delete);
+                 PreparedStatement insert = connection.prepareStatement(insertSql(codec))) {
+                deleteStatement.setString(1, row[codec.getKeyColumn()]);
+                deleteStatement.executeUpdate();
+                long bytes = bindRow(insert, row, codec.getColumns().length);
+                insert.executeUpdate();
+                connection.commit();
+                return bytes;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        try (PreparedStatement insert = connectionFor(codec).prepareStatement(insertSql(codec))) {
+            long bytes = bindRow(insert, row, codec.getColumns().length);
+            insert.executeUpdate();
+            return bytes;
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<String[]> findRowsBy(RowCodec<?> codec, int column, String value) throws IOException {
+        String sql = "SELECT * FROM " + quote(codec.getTable()) + " WHERE " + quote(codec.getColumns()[column]) + " = ?";
+        try (PreparedStatement statement = connectionFor(codec).prepareStatement(sql)) {
+            statement.setString(1, value);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<String[]> rows = new ArrayList<>();
+                while (resultSet.next()) {
+                    rows.add(readRow(resultSet, codec.getColumns().length));
+                }
+                return rows;
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing database: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * Builds the parameterized INSERT statement of a table.
+     *
+     * @param codec the codec describing the table.
+     * @return the INSERT statement.
+     */
+    private static String insertSql(RowCodec<?> codec) {
+        String[] columns = codec.getColumns();
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(quote(codec.getTable())).append(" VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(")").toString();
+    }
+
+    /**
+     * Binds the fields of a row to the parameters of an INSERT statement. Missing trailing fields are bound as NULL.
+     *
+     * @param statement   the INSERT statement.
+     * @param row         the fields of the row.
+     * @param columnCount the number of columns of the table.
+     * @return the number of characters bound, used as the number of bytes written.
+     * @throws SQLException if a parameter cannot be bound.
+     */
+    private static long bindRow(PreparedStatement statement, String[] row, int columnCount) throws SQLException {
+        long bytes = 0;
+        for (int i = 0; i < columnCount; i++) {
+            String field = i < row.length ? row[i] : null;
+            statement.setString(i + 1, field);
+            bytes += field == null ? 0 : field.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads the current row of a result set.
+     *
+     * @param resultSet   the result set positioned on a row.
+     * @param columnCount the number of columns of the table.
+     * @return the fields of the row.
+     * @throws SQLException if a field cannot be read.
+     */
+    private static String[] readRow(ResultSet resultSet, int columnCount) throws SQLException {
+        String[] row = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            row[i] = resultSet.getString(i + 1);
+        }
+        return row;
+    }
+
+    /**
+     * Quotes an SQL identifier.
+     *
+     * @param identifier the table, column or index name.
+     * @return the quoted identifier.
+     */
+    private static String quote(String identifier) {
+        return "\"" + identifier + "\"";
+    }
+}
@@ -0,0 +1,135 @@
+package HMS.Storage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage engine of a standby HMS. Its sessions may read the replicated data, but the only writes are the journal
+ * entries of the primary replayed by {@link #apply(JournalEntry, RowCodec)}, until the standby is promoted.
+ * Every call holds the engine's lock, so a session never reads a table while an entry rewrites it.
+ */
+public class StandbyStorageEngine implements StorageEngine {
+    private StorageEngine delegate;
+    private boolean promoted;
+
+    /**
+     * Constructs the engine of a standby.
+     *
+     * @param delegate the engine over the standby's own copy of the data.
+     */
+    public StandbyStorageEngine(StorageEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Applies a journal entry of the primary. The tables of a unit of work are all applied before a session reads again.
+     *
+     * @param entry  the journal entry.
+     * @param codecs the codec of each table by table name.
+     * @throws IOException if a table cannot be written.
+     * @throws IllegalStateException if the standby has been promoted.
+     */
+    public synchronized void apply(JournalEntry entry, Map<String, RowCodec<?>> codecs) throws IOException {
+        if (promoted) {
+            throw new IllegalStateException("The standby has been promoted");
+        }
+        entry.applyTo(delegate, codecs);
+    }
+
+    /**
+     * Promotes the standby, allowing its sessions to write.
+     *
+     * @param engine the engine the promoted standby writes with, over the same data as before,
+     *               such as a {@link JournalingStorageEngine} so that another standby can follow it.
+     */
+    public synchronized void promote(StorageEngine engine) {
+        delegate = engine;
+        promoted = true;
+    }
+
+    /**
+     * Checks whether the standby has been promoted.
+     *
+     * @return true once promoted.
+     */
+    public synchronized boolean isPromoted() {
+        return promoted;
+    }
+
+    @Override
+    public synchronized boolean isReadOnly() {
+        return !promoted;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public synchronized List<String[]> readRows(RowCodec<?> codec) throws IOException {
+        return delegate.readRows(codec);
+    }
+
+    @Override
+    public synchronized long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException {
+        checkWritable();
+        return delegate.writeRows(codec, rows);
+    }
+
+    @Override
+    public synchronized long writeTables(Map<RowCodec<?>, List<String[]>> tables) throws IOException {
+        checkWritable();
+        return delegate.writeTables(tables);
+    }
+
+    @Override
+    public synchronized void force(Collection<RowCodec<?>> codecs) throws IOException {
+        delegate.force(codecs);
+    }
+
+    @Override
+    public synchronized String[] findRow(RowCodec<?> codec, String key) throws IOException {
+        return delegate.findRow(codec, key);
+    }
+
+    @Override
+    public synchronized long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        checkWritable();
+        return delegate.upsertRow(codec, row);
+    }
+
+    @Override
+    public synchronized long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        checkWritable();
+        return delegate.appendRow(codec, row);
+    }
+
+    @Override
+    public synchronized List<String[]> findRowsBy(RowCodec<?> codec, int column, String value) throws IOException {
+        return delegate.findRowsBy(codec, column, value);
+    }
+
+    @Override
+    public synchronized long getTableVersion(RowCodec<?> codec) throws IOException {
+        return delegate.getTableVersion(codec);
+    }
+
+    @Override
+    public synchronized void close() {
+        delegate.close();
+    }
+
+    /**
+     * Rejects a write by a session of a standby that has not been promoted.
+     *
+     * @throws IOException if the standby has not been promoted.
+     */
+    private void checkWritable() throws IOException {
+        if (!promoted) {
+            throw new IOException("This HMS is a read-only standby; changes are not saved until it is promoted");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package HMS.Storage;
+
+import HMS.Models.Stock;
+
+/**
+ * Row codec of the stocks table.
+ */
+public class StockCodec implements RowCodec<Stock> {
+    private static final String[] COLUMNS = {"ID", "MedicineName", "StockLevel", "LowStockAlertThreshold", "Version"};
+
+    @Override
+    public String getTable() {
+        return "stocks";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public String[] getIndexedColumns() {
+        return new String[]{"MedicineName"};
+    }
+
+    @Override
+    public String[] encode(Stock stock) {
+        return new String[]{
+                String.valueOf(stock.getID()),
+                stock.getMedicineName(),
+                String.valueOf(stock.getStockLevel()),
+                String.valueOf(stock.getLowStockAlertThreshold()),
+                String.valueOf(stock.getVersion())
+        };
+    }
+
+    @Override
+    public Stock decode(String[] row) {
+        if (row.length < COLUMNS.length - 1) {
+            return null;
+        }
+        int id = Integer.parseInt(row[0]);
+        int stockLevel = Integer.parseInt(row[2]);
+        int lowStockAlertThreshold = Integer.parseInt(row[3]);
+        Stock stock = new Stock(id, row[1], stockLevel, lowStockAlertThreshold);
+        if (row.length > 4 && row[4] != null && !row[4].isBlank()) { // Rows saved before versions were stored are at version 0
+            stock.setVersion(Long.parseLong(row[4]));
+        }
+        return stock;
+    }
+}
@@ -0,0 +1,9 @@
+package HMS.Storage;
+
+import HMS.Models.Stock;
+
+/**
+ * Repository of the medicine stocks.
+ */
+public interface StockRepository extends Repository<Stock> {
+}
@@ -0,0 +1,334 @@
+package HMS.Storage;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Entry point to the storage of the HMS. The backend is selected at startup with system properties:
+ * <ul>
+ *   <li>{@code hms.storage} - "csv" (default), "binary" or "sql"</li>
+ *   <li>{@code hms.data.dir} - the data directory of the file backends, "HMS/data" by default</li>
+ *   <li>{@code hms.sql.url} - the JDBC URL of the SQL backend, an H2 database in the data directory by default</li>
+ *   <li>{@code hms.shards} - the number of shards of the patients' data with a file backend, 1 (unsharded) by default</li>
+ *   <li>{@code hms.journal} - "true" to record every mutation in the journal of the data directory for a standby</li>
+ *   <li>{@code hms.transactions} - "false" to write the units of work of a file backend table by table, without
+ *       the write-ahead log that otherwise makes them atomic</li>
+ *   <li>{@code hms.single.writer} - "false" to let a file backend write without holding the writer lease of the
+ *       data directory, which is otherwise required so that HMS processes sharing it do not overwrite each other</li>
+ * </ul>
+ */
+public class Storage {
+    private static StorageEngine engine;
+    private static UserRepository users;
+    private static AppointmentRepository appointments;
+    private static AvailabilityRepository availability;
+    private static MedicalRecordRepository medicalRecords;
+    private static MedicalRecordHistoryRepository medicalRecordHistory;
+    private static OutcomeRepository outcomes;
+    private static StockRepository stocks;
+    private static ReplenishRequestRepository replenishRequests;
+    private static WaitlistRepository waitlist;
+    private static AvailabilityRuleRepository availabilityRules;
+    private static AvailabilityRepository availabilityExceptions;
+
+    /**
+     * Gets the data directory of the file backends.
+     *
+     * @return the data directory.
+     */
+    public static File getDataDirectory() {
+        File directory = new File(System.getProperty("hms.data.dir", "HMS/data"));
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        return directory;
+    }
+
+    /**
+     * Gets the configured number of shards of the patients' data.
+     *
+     * @return the number of shards, 1 if the data is not sharded.
+     */
+    public static int getShardCount() {
+        return Math.max(1, Integer.getInteger("hms.shards", 1));
+    }
+
+    /**
+     * Opens a storage engine of the given backend over the configured data directory or database,
+     * sharded as configured.
+     *
+     * @param backend the backend name: "csv", "binary" or "sql".
+     * @return the opened storage engine.
+     * @throws IllegalArgumentException if the backend is unknown.
+     */
+    public static StorageEngine open(String backend) {
+        return open(backend, getShardCount());
+    }
+
+    /**
+     * Opens a storage engine of the given backend over the configured data directory or database.
+     * The file backends are wrapped in a {@link ShardedStorageEngine} when there is more than one shard;
+     * the SQL backend is never sharded, as the database manages its own storage.
+     *
+     * @param backend    the backend name: "csv", "binary" or "sql".
+     * @param shardCount the number of shards of the patients' data.
+     * @return the opened storage engine.
+     * @throws IllegalArgumentException if the backend is unknown.
+     */
+    public static StorageEngine open(String backend, int shardCount) {
+        File directory = getDataDirectory();
+        if (fileEngineFactory(backend) == null) {
+            return new SqlStorageEngine(System.getProperty("hms.sql.url",
+                    "jdbc:h2:" + new File(directory, "hms").getAbsolutePath()));
+        }
+        return open(backend, directory, shardCount);
+    }
+
+    /**
+     * Opens a storage engine of a file backend over a data directory, such as the data directory of another HMS.
+     *
+     * @param backend    the backend name: "csv" or "binary".
+     * @param directory  the data directory.
+     * @param shardCount the number of shards of the patients' data.
+     * @return the opened storage engine.
+     * @throws IllegalArgumentException if the backend is not a file backend.
+     */
+    public static StorageEngine open(String backend, File directory, int shardCount) {
+        Function<File, StorageEngine> factory = fileEngineFactory(backend);
+        if (factory == null) {
+            throw new IllegalArgumentException("Not a file backend: " + backend);
+        }
+        return shardCount > 1 ? new ShardedStorageEngine(directory, shardCount, factory) : factory.apply(directory);
+    }
+
+    /**
+     * Wraps the engine of a file backend in a {@link SingleWriterStorageEngine} over the data directory,
+     * unless {@code hms.single.writer} is disabled.
+     *
+     * @param storageEngine the engine.
+     * @return the single-writer engine, or the engine itself for the SQL backend or if the lease is disabled.
+     */
+    public static StorageEngine singleWriter(StorageEngine storageEngine) {
+        if (storageEngine.getName().equals("sql") || !Boolean.parseBoolean(System.getProperty("hms.single.writer", "true"))) {
+            return storageEngine;
+        }
+        return new SingleWriterStorageEngine(storageEngine, getDataDirectory());
+    }
+
+    /**
+     * Wraps an engine in a {@link JournalingStorageEngine} over the journal of the data directory,
+     * if {@code hms.journal} is enabled.
+     *
+     * @param storageEngine the engine.
+     * @return the journaling engine, or the engine itself if journaling is disabled.
+     */
+    public static StorageEngine journaled(StorageEngine storageEngine) {
+        if (!Boolean.getBoolean("hms.journal")) {
+            return storageEngine;
+        }
+        return new JournalingStorageEngine(storageEngine, new Journal(new File(getDataDirectory(), Journal.FILE_NAME)));
+    }
+
+    /**
+     * Wraps the engine of a file backend in a {@link TransactionalStorageEngine} over the write-ahead log of the data
+     * directory, unless {@code hms.transactions} is disabled. The SQL backend commits units of work in the database.
+     *
+     * @param storageEngine the engine.
+     * @return the transactional engine, or the engine itself for the SQL backend or if transactions are disabled.
+     */
+    public static StorageEngine transactional(StorageEngine storageEngine) {
+        if (storageEngine.getName().equals("sql") || !Boolean.parseBoolean(System.getProperty("hms.transactions", "true"))) {
+            return storageEngine;
+        }
+        return new TransactionalStorageEngine(storageEngine, getDataDirectory());
+    }
+
+    /**
+     * Gets the factory of the engines of a file backend, each over one directory.
+     *
+     * @param backend the backend name: "csv", "binary" or "sql".
+     * @return the factory, or null for the SQL backend.
+     * @throws IllegalArgumentException if the backend is unknown.
+     */
+    static Function<File, StorageEngine> fileEngineFactory(String backend) {
+        return switch (backend.toLowerCase()) {
+            case "csv" -> CsvStorageEngine::new;
+            case "binary" -> BinaryStorageEngine::new;
+            case "sql" -> null;
+            default -> throw new IllegalArgumentException("Unknown storage backend: " + backend);
+        };
+    }
+
+    /**
+     * Gets the storage engine selected at startup, opening it on first use.
+     *
+     * @return the storage engine.
+     */
+    public static synchronized StorageEngine getEngine() {
+        if (engine == null) {
+            setEngine(singleWriter(transactional(journaled(open(System.getProperty("hms.storage", "csv"))))));
+        }
+        return engine;
+    }
+
+    /**
+     * Replaces the storage engine used by the repositories. Must be called before any System is used.
+     *
+     * @param storageEngine the storage engine to use.
+     */
+    public static synchronized void setEngine(StorageEngine storageEngine) {
+        engine = storageEngine;
+        users = new CodecRepository.Users(engine);
+        appointments = new CodecRepository.Appointments(engine);
+        availability = new CodecRepository.Availability(engine, new AvailabilityCodec());
+        medicalRecords = new CodecRepository.MedicalRecords(engine);
+        medicalRecordHistory = new CodecRepository.MedicalRecordHistory(engine);
+        outcomes = new CodecRepository.Outcomes(engine);
+        stocks = new CodecRepository.Stocks(engine);
+        replenishRequests = new CodecRepository.ReplenishRequests(engine);
+        waitlist = new CodecRepository.Waitlist(engine);
+        availabilityRules = new CodecRepository.AvailabilityRules(engine);
+        availabilityExceptions = new CodecRepository.Availability(engine, exceptionsCodec());
+    }
+
+    /**
+     * Begins a unit of work writing several tables as one.
+     *
+     * @return an empty unit of work over the storage engine.
+     */
+    public static UnitOfWork beginWork() {
+        return new UnitOfWork(getEngine());
+    }
+
+    /**
+     * Gets the codecs of all HMS tables.
+     *
+     * @return the codec of every table.
+     */
+    public static List<RowCodec<?>> getCodecs() {
+        return Arrays.asList(new UserCodec(), new AppointmentCodec(), new AvailabilityCodec(), new MedicalRecordCodec(),
+                new MedicalRecordHistoryCodec(), new OutcomeCodec(), new StockCodec(), new ReplenishRequestCodec(),
+                new WaitlistCodec(), new AvailabilityRuleCodec(), exceptionsCodec());
+    }
+
+    /**
+     * Gets the codec of the slots excepted from the doctors' recurring availability rules.
+     *
+     * @return the codec of the availability exceptions table.
+     */
+    private static AvailabilityCodec exceptionsCodec() {
+        return new AvailabilityCodec("availability_exceptions", "ExceptedSlots");
+    }
+
+    /**
+     * Gets the repository of the users.
+     *
+     * @return the user repository.
+     */
+    public static UserRepository users() {
+        getEngine();
+        return users;
+    }
+
+    /**
+     * Gets the repository of the appointments.
+     *
+     * @return the appointment repository.
+     */
+    public static AppointmentRepository appointments() {
+        getEngine();
+        return appointments;
+    }
+
+    /**
+     * Gets the repository of the doctors' availability.
+     *
+     * @return the availability repository.
+     */
+    public static AvailabilityRepository availability() {
+        getEngine();
+        return availability;
+    }
+
+    /**
+     * Gets the repository of the medical records.
+     *
+     * @return the medical record repository.
+     */
+    public static MedicalRecordRepository medicalRecords() {
+        getEngine();
+        return medicalRecords;
+    }
+
+    /**
+     * Gets the repository of the versions of the medical records.
+     *
+     * @return the medical record history repository.
+     */
+    public static MedicalRecordHistoryRepository medicalRecordHistory() {
+        getEngine();
+        return medicalRecordHistory;
+    }
+
+    /**
+     * Gets the repository of the appointment outcome records.
+     *
+     * @return the outcome repository.
+     */
+    public static OutcomeRepository outcomes() {
+        getEngine();
+        return outcomes;
+    }
+
+    /**
+     * Gets the repository of the medicine stocks.
+     *
+     * @return the stock repository.
+     */
+    public static StockRepository stocks() {
+        getEngine();
+        return stocks;
+    }
+
+    /**
+     * Gets the repository of the stock replenish requests.
+     *
+     * @return the replenish request repository.
+     */
+    public static ReplenishRequestRepository replenishRequests() {
+        getEngine();
+        return replenishRequests;
+    }
+
+    /**
+     * Gets the repository of the waitlist entries.
+     *
+     * @return the waitlist repository.
+     */
+    public static WaitlistRepository waitlist() {
+        getEngine();
+        return waitlist;
+    }
+
+    /**
+     * Gets the repository of the recurring availability rules.
+     *
+     * @return the availability rule repository.
+     */
+    public static AvailabilityRuleRepository availabilityRules() {
+        getEngine();
+        return availabilityRules;
+    }
+
+    /**
+     * Gets the repository of the slots excepted from the recurring availability rules, such as booked slots.
+     *
+     * @return the availability exception repository.
+     */
+    public static AvailabilityRepository availabilityExceptions() {
+        getEngine();
+        return availabilityExceptions;
+    }
+}
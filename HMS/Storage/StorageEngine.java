@@ -0,0 +1,175 @@
+package HMS.Storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A storage backend able to read and write the rows of the HMS tables.
+ * Every engine stores the tables described by the {@link RowCodec}s; the repositories turn rows into aggregates.
+ */
+public interface StorageEngine {
+
+    /**
+     * Gets the name of the backend (e.g., "csv").
+     *
+     * @return the backend name.
+     */
+    String getName();
+
+    /**
+     * Reads all rows of a table. A missing table is created empty.
+     *
+     * @param codec the codec describing the table.
+     * @return the rows of the table.
+     * @throws IOException if the table cannot be read.
+     */
+    List<String[]> readRows(RowCodec<?> codec) throws IOException;
+
+    /**
+     * Replaces all rows of a table.
+     *
+     * @param codec the codec describing the table.
+     * @param rows  the new rows of the table.
+     * @return the number of bytes written.
+     * @throws IOException if the table cannot be written.
+     */
+    long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException;
+
+    /**
+     * Replaces all rows of several tables as one unit of work, such as an outcome with the stocks it was dispensed from.
+     * The default implementation writes the tables one after another; engines able to replace them atomically,
+     * so that a crash leaves either every table replaced or none, override it.
+     *
+     * @param tables the new rows of each table, written in map order.
+     * @return the number of bytes written.
+     * @throws IOException if a table cannot be written.
+     */
+    default long writeTables(Map<RowCodec<?>, List<String[]>> tables) throws IOException {
+        long bytesWritten = 0;
+        for (Map.Entry<RowCodec<?>, List<String[]>> table : tables.entrySet()) {
+            bytesWritten += writeRows(table.getKey(), table.getValue());
+        }
+        return bytesWritten;
+    }
+
+    /**
+     * Forces the tables last written to disk, so that they survive a crash of the machine and not only of the process.
+     * The default implementation does nothing; the file backends, whose writes may still be in the page cache when
+     * they return, override it.
+     *
+     * @param codecs the codecs describing the tables.
+     * @throws IOException if a table cannot be forced.
+     */
+    default void force(Collection<RowCodec<?>> codecs) throws IOException {
+    }
+
+    /**
+     * Finds the row of a table with the given key.
+     * The default implementation scans the table; backends with indexes should override it.
+     *
+     * @param codec the codec describing the table.
+     * @param key   the value of the key column.
+     * @return the matching row, or {@code null} if there is none.
+     * @throws IOException if the table cannot be read.
+     */
+    default String[] findRow(RowCodec<?> codec, String key) throws IOException {
+        for (String[] row : readRows(codec)) {
+            if (row.length > codec.getKeyColumn() && row[codec.getKeyColumn()].equalsIgnoreCase(key)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Inserts a row in a table, replacing the row with the same key if there is one.
+     * The default implementation rewrites the table; backends with indexes should override it.
+     *
+     * @param codec the codec describing the table.
+     * @param row   the row to insert or replace.
+     * @return the number of bytes written.
+     * @throws IOException if the table cannot be read or written.
+     */
+    default long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        int keyColumn = codec.getKeyColumn();
+        List<String[]> rows = new ArrayList<>();
+        boolean replaced = false;
+        for (String[] existing : readRows(codec)) {
+            if (!replaced && existing.length > keyColumn && existing[keyColumn].equals(row[keyColumn])) {
+                rows.add(row);
+                replaced = true;
+            } else {
+                rows.add(existing);
+            }
+        }
+        if (!replaced) {
+            rows.add(row);
+        }
+        return writeRows(codec, rows);
+    }
+
+    /**
+     * Appends a row to a table whose rows are never replaced, such as a history.
+     * The default implementation rewrites the table; backends able to append should override it.
+     *
+     * @param codec the codec describing the table.
+     * @param row   the row to append.
+     * @return the number of bytes written.
+     * @throws IOException if the table cannot be read or written.
+     */
+    default long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        List<String[]> rows = new ArrayList<>(readRows(codec));
+        rows.add(row);
+        return writeRows(codec, rows);
+    }
+
+    /**
+     * Finds the rows of a table with the given value in a column. The rows are not returned in any particular order.
+     * The default implementation scans the table; backends with indexes should override it.
+     *
+     * @param codec  the codec describing the table.
+     * @param column the index of the column, one of the indexed columns of the codec.
+     * @param value  the value of the column.
+     * @return the matching rows.
+     * @throws IOException if the table cannot be read.
+     */
+    default List<String[]> findRowsBy(RowCodec<?> codec, int column, String value) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        for (String[] row : readRows(codec)) {
+            if (row.length > column && value.equals(row[column])) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Gets the version of a table, which changes whenever the table is written, also by another process.
+     * The default implementation cannot tell and always returns 0; the file backends override it.
+     *
+     * @param codec the codec describing the table.
+     * @return the version of the table.
+     * @throws IOException if the version cannot be read.
+     */
+    default long getTableVersion(RowCodec<?> codec) throws IOException {
+        return 0;
+    }
+
+    /**
+     * Checks whether the engine rejects writes, as the engine of a standby does until it is promoted.
+     *
+     * @return true if writes fail.
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Releases the resources held by the engine.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,271 @@
+package HMS.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The locks of the tables of a file backend, shared by every HMS process using the same data directory.
+ * Each table has a {@code .lock} file next to it: reads hold a shared advisory lock on it and writes an exclusive one,
+ * so a process never reads a table while another rewrites it. The lock file also holds the version of the table,
+ * a counter incremented by every write, which lets a process tell whether the table changed since it read it.
+ *
+ * <p>File locks are held by the process rather than by a thread, so the threads of one process are ordered by a
+ * read-write lock per table first, and only the first reader and the writer take the file lock.
+ * A thread writing a table may read it, as an upsert does.</p>
+ */
+final class TableLocks {
+    private final File directory;
+    private final Map<String, TableLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the locks of the tables of a data directory.
+     *
+     * @param directory the data directory.
+     */
+    TableLocks(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Runs an action reading a table while holding its shared lock.
+     *
+     * @param codec  the codec of the table.
+     * @param action the action.
+     * @param <R>    the type of the result of the action.
+     * @return the result of the action.
+     * @throws IOException if the lock cannot be taken or the action fails.
+     */
+    <R> R shared(RowCodec<?> codec, Action<R> action) throws IOException {
+        TableLock lock = lockOf(codec);
+        lock.lockShared();
+        try {
+            return action.run();
+        } finally {
+            lock.unlockShared();
+        }
+    }
+
+    /**
+     * Runs an action writing a table while holding its exclusive lock, then increments the version of the table.
+     *
+     * @param codec  the codec of the table.
+     * @param action the action.
+     * @param <R>    the type of the result of the action.
+     * @return the result of the action.
+     * @throws IOException if the lock cannot be taken or the action fails.
+     */
+    <R> R exclusive(RowCodec<?> codec, Action<R> action) throws IOException {
+        TableLock lock = lockOf(codec);
+        lock.lockExclusive();
+        try {
+            R result = action.run();
+            lock.writeVersion(lock.readVersion() + 1);
+            return result;
+        } finally {
+            lock.unlockExclusive();
+        }
+    }
+
+    /**
+     * Gets the version of a table.
+     *
+     * @param codec the codec of the table.
+     * @return the number of writes made to the table since its lock file was created.
+     * @throws IOException if the lock file cannot be read.
+     */
+    long version(RowCodec<?> codec) throws IOException {
+        TableLock lock = lockOf(codec);
+        lock.lockShared();
+        try {
+            return lock.readVersion();
+        } finally {
+            lock.unlockShared();
+        }
+    }
+
+    /**
+     * Closes the lock files.
+     */
+    void close() {
+        for (TableLock lock : locks.values()) {
+            try {
+                lock.channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing table lock: " + e.getMessage());
+            }
+        }
+        locks.clear();
+    }
+
+    /**
+     * Gets the lock of a table, opening its lock file on first use.
+     *
+     * @param codec the codec of the table.
+     * @return the lock of the table.
+     * @throws IOException if the lock file cannot be opened.
+     */
+    private TableLock lockOf(RowCodec<?> codec) throws IOException {
+        TableLock lock = locks.get(codec.getTable());
+        if (lock != null) {
+            return lock;
+        }
+        synchronized (locks) {
+            lock = locks.get(codec.getTable());
+            if (lock == null) {
+                if (!directory.exists()) {
+                    directory.mkdirs();
+                }
+                lock = new TableLock(FileChannel.open(new File(directory, codec.getTable() + ".lock").toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+                locks.put(codec.getTable(), lock);
+            }
+            return lock;
+        }
+    }
+
+    /**
+     * An action on a table run while holding its lock.
+     *
+     * @param <R> the type of the result.
+     */
+    @FunctionalInterface
+    interface Action<R> {
+
+        /**
+         * Runs the action.
+         *
+         * @return the result.
+         * @throws IOException if the table cannot be read or written.
+         */
+        R run() throws IOException;
+    }
+
+    /**
+     * The lock of one table: a read-write lock for the threads of this process and a file lock for other processes.
+     */
+    private static class TableLock {
+        private final FileChannel channel;
+        private final ReentrantReadWriteLock threads = new ReentrantReadWriteLock();
+        private FileLock fileLock; // Held by the writer, or by the readers while there is one
+        private int readers; // Threads holding the shared file lock
+
+        /**
+         * Constructs the lock of a table.
+         *
+         * @param channel the channel of the lock file.
+         */
+        TableLock(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Takes the shared lock. The first reader of this process takes the shared file lock.
+         *
+         * @throws IOException if the file lock cannot be taken.
+         */
+        void lockShared() throws IOException {
+            threads.readLock().lock();
+            if (threads.isWriteLockedByCurrentThread()) {
+                return; // The exclusive file lock is already held
+            }
+            synchronized (this) {
+                try {
+                    if (readers == 0) {
+                        fileLock = channel.lock(0, Long.MAX_VALUE, true);
+                    }
+                    readers++;
+                } catch (IOException | RuntimeException e) {
+                    threads.readLock().unlock();
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Releases the shared lock. The last reader of this process releases the shared file lock.
+         *
+         * @throws IOException if the file lock cannot be released.
+         */
+        void unlockShared() throws IOException {
+            try {
+                if (!threads.isWriteLockedByCurrentThread()) {
+                    synchronized (this) {
+                        if (--readers == 0) {
+                            fileLock.release();
+                            fileLock = null;
+                        }
+                    }
+                }
+            } finally {
+                threads.readLock().unlock();
+            }
+        }
+
+        /**
+         * Takes the exclusive lock, and the exclusive file lock unless this thread already holds it.
+         *
+         * @throws IOException if the file lock cannot be taken.
+         */
+        void lockExclusive() throws IOException {
+            threads.writeLock().lock();
+            if (threads.getWriteHoldCount() == 1) {
+                try {
+                    fileLock = channel.lock();
+                } catch (IOException | RuntimeException e) {
+                    threads.writeLock().unlock();
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Releases the exclusive lock, and the exclusive file lock when this thread no longer holds the lock.
+         *
+         * @throws IOException if the file lock cannot be released.
+         */
+        void unlockExclusive() throws IOException {
+            try {
+                if (threads.getWriteHoldCount() == 1) {
+                    fileLock.release();
+                    fileLock = null;
+                }
+            } finally {
+                threads.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Reads the version of the table from the lock file.
+         *
+         * @return the version, 0 if the table was never written with a lock.
+         * @throws IOException if the lock file cannot be read.
+         */
+        long readVersion() throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // Read until the version is complete or the file ends
+            }
+            return buffer.hasRemaining() ? 0 : buffer.getLong(0);
+        }
+
+        /**
+         * Writes the version of the table to the lock file.
+         *
+         * @param version the new version.
+         * @throws IOException if the lock file cannot be written.
+         */
+        void writeVersion(long version) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, version);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package HMS.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Storage engine making the units of work of a file backend atomic with a write-ahead log, {@code transactions.log}
+ * in the data directory. A unit of work is appended to the log as one record and only the log is forced to disk; the
+ * tables are then replaced without forcing them. The tables written since the log was last emptied are forced and the
+ * log emptied in a checkpoint, taken in the background shortly after a commit, once the log grows large, before a
+ * table in the log is written outside a unit of work, and when the engine is closed.
+ * A record found in the log by another process, on opening the engine or after a table failed to be written belongs to
+ * units of work whose tables may not all be on disk, and the log is replayed in order: replacing a table again with the
+ * same rows is harmless, and no table of the log was written since, so every unit is completed exactly.
+ * A record torn by a crash fails its checksum and is dropped with the records after it, leaving those units undone.
+ *
+ * <p>The log is held under a file lock while a record is appended or the log is checkpointed, so the HMS processes
+ * sharing the data directory never replay a unit of work that is being written.
+ * The other writes go to the delegate engine unchanged.</p>
+ */
+public class TransactionalStorageEngine implements StorageEngine {
+
+    /**
+     * The name of the write-ahead log in the data directory.
+     */
+    public static final String LOG_FILE = "transactions.log";
+
+    private static final long CHECKPOINT_MILLIS = Long.getLong("hms.checkpoint.ms", 1000);
+    private static final long CHECKPOINT_BYTES = 4L * 1024 * 1024;
+
+    private final StorageEngine delegate;
+    private final File logFile;
+    private final Map<String, RowCodec<?>> codecs = new HashMap<>();
+    private final Map<String, RowCodec<?>> unforcedTables = new LinkedHashMap<>(); // Replaced by the logged units
+    private RandomAccessFile log; // Null until the first commit or recovery
+    private long logLength; // As appended by this engine, or -1 if the log must be replayed
+    private Thread checkpointer;
+
+    /**
+     * Constructs a transactional engine over a data directory, completing the units of work left in its log.
+     *
+     * @param delegate  the engine over the data directory.
+     * @param directory the data directory holding the log.
+     */
+    public TransactionalStorageEngine(StorageEngine delegate, File directory) {
+        this.delegate = delegate;
+        this.logFile = new File(directory, LOG_FILE);
+        for (RowCodec<?> codec : Storage.getCodecs()) {
+            codecs.put(codec.getTable(), codec);
+        }
+        if (logFile.length() > 0) {
+            try {
+                FileLock lock = log().getChannel().lock();
+                try {
+                    recover();
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                System.err.println("Error completing the unfinished unit of work: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public List<String[]> readRows(RowCodec<?> codec) throws IOException {
+        return delegate.readRows(codec);
+    }
+
+    @Override
+    public synchronized long writeRows(RowCodec<?> codec, List<String[]> rows) throws IOException {
+        checkpointBefore(codec);
+        return delegate.writeRows(codec, rows);
+    }
+
+    @Override
+    public synchronized long writeTables(Map<RowCodec<?>, List<String[]>> tables) throws IOException {
+        RandomAccessFile file = log();
+        FileLock lock = file.getChannel().lock();
+        try {
+            if (file.length() != logLength || logLength >= CHECKPOINT_BYTES) {
+                checkpoint();
+            }
+
+            byte[] entry = new JournalEntry(0, System.currentTimeMillis(), tables).toBytes();
+            CRC32 checksum = new CRC32();
+            checksum.update(entry);
+            file.seek(logLength);
+            file.write(entry);
+            file.writeInt((int) checksum.getValue());
+            file.getChannel().force(false); // Committed from here on
+            logLength = file.getFilePointer();
+            for (RowCodec<?> codec : tables.keySet()) {
+                unforcedTables.put(codec.getTable(), codec);
+            }
+            startCheckpointer();
+
+            try {
+                return delegate.writeTables(tables);
+            } catch (IOException e) {
+                logLength = -1; // The unit is completed by replaying the log on the next checkpoint
+                throw e;
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    @Override
+    public String[] findRow(RowCodec<?> codec, String key) throws IOException {
+        return delegate.findRow(codec, key);
+    }
+
+    @Override
+    public synchronized long upsertRow(RowCodec<?> codec, String[] row) throws IOException {
+        checkpointBefore(codec);
+        return delegate.upsertRow(codec, row);
+    }
+
+    @Override
+    public synchronized long appendRow(RowCodec<?> codec, String[] row) throws IOException {
+        checkpointBefore(codec);
+        return delegate.appendRow(codec, row);
+    }
+
+    @Override
+    public List<String[]> findRowsBy(RowCodec<?> codec, int column, String value) throws IOException {
+        return delegate.findRowsBy(codec, column, value);
+    }
+
+    @Override
+    public long getTableVersion(RowCodec<?> codec) throws IOException {
+        return delegate.getTableVersion(codec);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return delegate.isReadOnly();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (log != null) {
+            try {
+                checkpointLocked();
+            } catch (IOException e) {
+                System.err.println("Error checkpointing the transaction log: " + e.getMessage());
+            }
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Error closing the transaction log: " + e.getMessage());
+            }
+            log = null;
+        }
+        if (checkpointer != null) {
+            checkpointer.interrupt();
+            checkpointer = null;
+        }
+        delegate.close();
+    }
+
+    /**
+     * Checkpoints the log before a table is written outside a unit of work, if the table is in the log or the log
+     * holds units of another process, so that replaying the log can never overwrite the newer rows of the table.
+     *
+     * @param codec the codec of the table about to be written.
+     * @throws IOException if the log cannot be checkpointed.
+     */
+    private void checkpointBefore(RowCodec<?> codec) throws IOException {
+        if (unforcedTables.containsKey(codec.getTable()) || logFile.length() != logLength) {
+            checkpointLocked();
+        }
+    }
+
+    /**
+     * Checkpoints the log while holding its lock.
+     *
+     * @throws IOException if the log cannot be checkpointed.
+     */
+    private void checkpointLocked() throws IOException {
+        FileLock lock = log().getChannel().lock();
+        try {
+            checkpoint();
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Forces the tables replaced by the logged units of work to disk and empties the log, or replays the log if it
+     * holds units this engine did not complete. Must be called while holding the lock of the log.
+     *
+     * @throws IOException if the log cannot be read or a table cannot be written.
+     */
+    private void checkpoint() throws IOException {
+        RandomAccessFile file = log();
+        if (file.length() != logLength) {
+            recover();
+        } else if (logLength > 0) {
+            delegate.force(unforcedTables.values());
+            truncate(file);
+        }
+    }
+
+    /**
+     * Replays the units of work in the log in order, up to the first record that is not complete, forces their tables
+     * to disk and empties the log. Must be called while holding the lock of the log.
+     *
+     * @throws IOException if the log cannot be read or a table cannot be written.
+     */
+    private void recover() throws IOException {
+        RandomAccessFile file = log();
+        if (file.length() == 0) {
+            truncate(file); // Emptied by another process, which forced the tables
+            return;
+        }
+
+        Set<String> tables = new LinkedHashSet<>();
+        int units = 0;
+        long position = 0;
+        while (position + Integer.BYTES <= file.length()) {
+            file.seek(position);
+            int length = file.readInt();
+            if (length <= 0 || file.length() < position + (long) Integer.BYTES * 2 + length) {
+                break;
+            }
+            byte[] bytes = new byte[Integer.BYTES + length];
+            file.seek(position);
+            file.readFully(bytes);
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes);
+            if (file.readInt() != (int) checksum.getValue()) {
+                break;
+            }
+            file.seek(position);
+            JournalEntry entry = JournalEntry.read(file);
+            entry.applyTo(delegate, codecs);
+            tables.addAll(entry.getTables());
+            units++;
+            position += (long) Integer.BYTES * 2 + length;
+        }
+
+        if (position < file.length()) {
+            System.out.println("Dropped a unit of work that was not completely logged before the HMS stopped.");
+        }
+        if (units > 0) {
+            for (String table : tables) {
+                if (codecs.containsKey(table)) {
+                    unforcedTables.put(table, codecs.get(table));
+                }
+            }
+            System.out.println("Completed " + units + " unit(s) of work on " + String.join(", ", tables)
+                    + " whose tables may not all have been written.");
+        }
+        delegate.force(unforcedTables.values());
+        truncate(file);
+    }
+
+    /**
+     * Empties the log and forces it to disk, once the tables of its units are on disk.
+     *
+     * @param file the log file.
+     * @throws IOException if the log cannot be emptied.
+     */
+    private void truncate(RandomAccessFile file) throws IOException {
+        file.setLength(0);
+        file.getChannel().force(false); // A log reappearing after a crash would undo the later writes to its tables
+        logLength = 0;
+        unforcedTables.clear();
+    }
+
+    /**
+     * Starts the background thread checkpointing the log shortly after each commit, if it is not started yet.
+     */
+    private void startCheckpointer() {
+        if (checkpointer == null) {
+            checkpointer = new Thread(this::runCheckpoints, "hms-checkpoint");
+            checkpointer.setDaemon(true);
+            checkpointer.start();
+        }
+    }
+
+    /**
+     * Checkpoints the log every {@code hms.checkpoint.ms} milliseconds while units of work are waiting for it,
+     * until the engine is closed.
+     */
+    private void runCheckpoints() {
+        while (true) {
+            try {
+                Thread.sleep(CHECKPOINT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            synchronized (this) {
+                if (log == null) {
+                    return;
+                }
+                if (logLength != 0) {
+                    try {
+                        checkpointLocked();
+                    } catch (IOException e) {
+                        System.err.println("Error checkpointing the transaction log: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the log on first use.
+     *
+     * @return the log file.
+     * @throws IOException if the log cannot be opened.
+     */
+    private RandomAccessFile log() throws IOException {
+        if (log == null) {
+            File directory = logFile.getParentFile();
+            if (directory != null && !directory.exists()) {
+                directory.mkdirs();
+            }
+            log = new RandomAccessFile(logFile, "rw");
+        }
+        return log;
+    }
+}
@@ -0,0 +1,74 @@
+package HMS.Storage;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Writes to several tables committed as one: with the file backends, either every staged table is replaced or none is,
+ * also if the HMS crashes in between, and with the SQL backend they are written in one database transaction.
+ * Tables are staged with {@link Repository#saveAll(java.util.Collection, UnitOfWork)}; staging a table again replaces
+ * the rows staged before. Obtained from {@link Storage#beginWork()}.
+ */
+public class UnitOfWork {
+    private final StorageEngine engine;
+    private final Map<RowCodec<?>, List<String[]>> tables = new LinkedHashMap<>();
+
+    /**
+     * Constructs an empty unit of work.
+     *
+     * @param engine the storage engine the unit of work is committed to.
+     */
+    UnitOfWork(StorageEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Stages the new rows of a table.
+     *
+     * @param codec the codec of the table.
+     * @param rows  the new rows of the table.
+     */
+    void stage(RowCodec<?> codec, List<String[]> rows) {
+        tables.put(codec, rows);
+    }
+
+    /**
+     * Gets the names of the staged tables, such as for naming the unit of work in a profiling event.
+     *
+     * @return the table names joined with "+", in staging order.
+     */
+    public String getTableNames() {
+        StringJoiner names = new StringJoiner("+");
+        tables.keySet().forEach(codec -> names.add(codec.getTable()));
+        return names.toString();
+    }
+
+    /**
+     * Gets the number of staged rows.
+     *
+     * @return the number of rows of all staged tables.
+     */
+    public int getRowCount() {
+        return tables.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Writes the staged tables as one unit and clears them.
+     *
+     * @return the number of bytes written.
+     * @throws IOException if the tables cannot be written.
+     */
+    public long commit() throws IOException {
+        if (tables.isEmpty()) {
+            return 0;
+        }
+        try {
+            return engine.writeTables(tables);
+        } finally {
+            tables.clear();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package HMS.Storage;
+
+import HMS.Models.User;
+import HMS.Users.Administrator;
+import HMS.Users.Doctor;
+import HMS.Users.Patient;
+import HMS.Users.Pharmacist;
+
+/**
+ * Row codec of the users table.
+ */
+public class UserCodec implements RowCodec<User> {
+    private static final String[] COLUMNS = {"UserID", "Password", "Name", "Gender", "Age", "Role"};
+
+    @Override
+    public String getTable() {
+        return "users";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public String[] getIndexedColumns() {
+        return new String[]{"Role"};
+    }
+
+    @Override
+    public String[] encode(User user) {
+        return new String[]{
+                user.getUserId(),
+                user.getPassword(),
+                user.getName(),
+                user.getGender(),
+                String.valueOf(user.getAge()),
+                user.getRole().toString()
+        };
+    }
+
+    @Override
+    public User decode(String[] row) {
+        if (row.length < COLUMNS.length) {
+            return null;
+        }
+        String userId = row[0];
+        String password = row[1];
+        String name = row[2];
+        String gender = row[3];
+        int age = Integer.parseInt(row[4]);
+
+        return switch (row[5].toLowerCase()) {
+            case "patient" -> new Patient(userId, password, name, gender, age);
+            case "doctor" -> new Doctor(userId, password, name, gender, age);
+            case "pharmacist" -> new Pharmacist(userId, password, name, gender, age);
+            case "administrator" -> new Administrator(userId, password, name, gender, age);
+            default -> null;
+        };
+    }
+}
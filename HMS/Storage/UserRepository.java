@@ -0,0 +1,9 @@
+package HMS.Storage;
+
+import HMS.Models.User;
+
+/**
+ * Repository of the users.
+ */
+public interface UserRepository extends Repository<User> {
+}
@@ -0,0 +1,58 @@
+package HMS.Storage;
+
+import HMS.Enums.TimeWindow;
+import HMS.Models.WaitlistEntry;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Row codec of the waitlist table.
+ */
+public class WaitlistCodec implements RowCodec<WaitlistEntry> {
+    private static final String[] COLUMNS = {"ID", "PatientID", "DoctorID", "TimeWindow", "RequestedAt"};
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
+
+    @Override
+    public String getTable() {
+        return "waitlist";
+    }
+
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    public String[] getIndexedColumns() {
+        return new String[]{"PatientID", "DoctorID"};
+    }
+
+    @Override
+    public String[] encode(WaitlistEntry entry) {
+        return new String[]{
+                String.valueOf(entry.getID()),
+                entry.getPatientID(),
+                entry.getDoctorID(),
+                entry.getTimeWindow().toString(),
+                DATE_FORMAT.get().format(entry.getRequestedAt())
+        };
+    }
+
+    @Override
+    public WaitlistEntry decode(String[] row) {
+        if (row.length < COLUMNS.length) {
+            return null;
+        }
+        try {
+            int id = Integer.parseInt(row[0]);
+            TimeWindow timeWindow = TimeWindow.valueOf(row[3].toUpperCase());
+            Date requestedAt = DATE_FORMAT.get().parse(row[4]);
+            return new WaitlistEntry(id, row[1], row[2], timeWindow, requestedAt);
+        } catch (ParseException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package HMS.Storage;
+
+import HMS.Models.WaitlistEntry;
+
+/**
+ * Repository of the entries of the doctors' waitlists.
+ */
+public interface WaitlistRepository extends Repository<WaitlistEntry> {
+}
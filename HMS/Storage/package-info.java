@@ -0,0 +1,6 @@
+/**
+ * This package contains the storage engine SPI used by the Systems to load and save HMS data,
+ * the repository interface of every aggregate, the row codecs, the CSV, binary and SQL backends,
+ * and the sharded engine partitioning the patients' data of a file backend.
+ */
+package HMS.Storage;
@@ -0,0 +1,368 @@
+package HMS.Systems;
+
+import HMS.Enums.AppointmentStatus;
+import HMS.Models.*;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Computes hospital reports for administrators: doctor utilization, cancellation and no-show rates,
+ * appointments per day and status, medication consumption and stock-out frequency.
+ * The appointments and outcomes are aggregated in parallel on the common fork-join pool:
+ * each task counts a slice of the rows on its own and the partial results are merged pairwise.
+ */
+public class AnalyticsSystem {
+    private static final int SEQUENTIAL_THRESHOLD = 16384; // Rows counted by one task without splitting further
+    private static final EnumSet<AppointmentStatus> BOOKED_STATUSES = EnumSet.of(
+            AppointmentStatus.PENDING, AppointmentStatus.APPROVED, AppointmentStatus.COMPLETED, AppointmentStatus.NO_SHOW);
+    private static final TableRenderer SUMMARY_TABLE = TableRenderer.boxed(24, 14);
+    private static final TableRenderer UTILIZATION_TABLE = TableRenderer.boxed(10, 8, 8, 11, 11, 9);
+    private static final TableRenderer DAY_TABLE = TableRenderer.boxed(10, 7, 7, 9, 8, 9, 8, 7, 7);
+    private static final TableRenderer MEDICATION_TABLE = TableRenderer.boxed(24, 13, 10, 10);
+    private static final TableRenderer STOCK_OUT_TABLE = TableRenderer.boxed(24, 11, 9, 11, 12);
+
+    /**
+     * Computes the reports and lets the administrator view them one at a time.
+     */
+    public static void analyticsMenu() {
+        System.out.println("\nComputing hospital analytics...");
+        long start = System.nanoTime();
+        AppointmentStatistics appointmentStatistics = computeAppointmentStatistics(AppointmentSystem.getAppointmentsSnapshot());
+        MedicationStatistics medicationStatistics = computeMedicationStatistics(AppointmentOutcomeSystem.getOutcomesSnapshot());
+        Map<String, Integer> freeSlots = AppointmentSystem.getAvailableSlotCounts();
+        List<Stock> stocks = StockSystem.getStocksSnapshot();
+        Map<Integer, Long> replenishRequestCounts = countReplenishRequests(StockSystem.getAllReplenishRequests());
+        System.out.printf("Computed in %.1f ms.%n", (System.nanoTime() - start) / 1e6);
+
+        while (true) {
+            System.out.println("\n--- Hospital Analytics ---");
+            System.out.println("1. Summary");
+            System.out.println("2. Doctor Utilization");
+            System.out.println("3. Appointments per Day");
+            System.out.println("4. Medication Consumption");
+            System.out.println("5. Stock-out Frequency");
+            System.out.println("6. Verify Dashboard Counters");
+            System.out.println("7. Exit");
+
+            String choice = InputHandler.getValidatedInput(
+                    "Select an option: ",
+                    "Invalid input. Please enter a number between 1 and 7.",
+                    input -> input.matches("[1-7]")
+            );
+
+            switch (choice) {
+                case "1":
+                    displaySummary(appointmentStatistics);
+                    break;
+                case "2":
+                    displayDoctorUtilization(appointmentStatistics, freeSlots);
+                    break;
+                case "3":
+                    displayAppointmentsPerDay(appointmentStatistics);
+                    break;
+                case "4":
+                    displayMedicationConsumption(medicationStatistics);
+                    break;
+                case "5":
+                    displayStockOuts(stocks, replenishRequestCounts);
+                    break;
+                case "6":
+                    DashboardCounters.verifyMenu();
+                    break;
+                case "7":
+                    return;
+                default:
+                    System.out.println("Invalid option. Please try again.");
+            }
+        }
+    }
+
+    /**
+     * Counts appointments by status, in total, per doctor and per day, in parallel.
+     *
+     * @param appointments the appointments to count.
+     * @return the appointment statistics.
+     */
+    public static AppointmentStatistics computeAppointmentStatistics(List<Appointment> appointments) {
+        return aggregate(appointments, AppointmentStatistics::new, AppointmentStatistics::add, AppointmentStatistics::merge);
+    }
+
+    /**
+     * Sums the quantities of each medication prescribed and dispensed in appointment outcomes, in parallel.
+     *
+     * @param outcomes the appointment outcomes.
+     * @return the medication statistics.
+     */
+    public static MedicationStatistics computeMedicationStatistics(List<AppointmentOutcomeRecord> outcomes) {
+        return aggregate(outcomes, MedicationStatistics::new, MedicationStatistics::add, MedicationStatistics::merge);
+    }
+
+    /**
+     * Aggregates rows in parallel on the common fork-join pool.
+     * Each task accumulates a slice of the rows into its own result, and the results of sibling tasks are combined.
+     *
+     * @param rows        the rows to aggregate. The list must support fast random access and must not change meanwhile.
+     * @param supplier    creates an empty result.
+     * @param accumulator adds a row to a result.
+     * @param combiner    merges two results, returning the merged result.
+     * @param <T>         the type of the rows.
+     * @param <A>         the type of the result.
+     * @return the result over all rows.
+     */
+    public static <T, A> A aggregate(List<T> rows, Supplier<A> supplier, BiConsumer<A, T> accumulator, BinaryOperator<A> combiner) {
+        return ForkJoinPool.commonPool().invoke(new AggregateTask<>(rows, 0, rows.size(), supplier, accumulator, combiner));
+    }
+
+    /**
+     * Counts the replenish requests raised for each stock. A request is raised when a stock runs low.
+     *
+     * @param requests all replenish requests.
+     * @return the number of requests per stock ID.
+     */
+    private static Map<Integer, Long> countReplenishRequests(List<StockReplenishRequest> requests) {
+        Map<Integer, Long> counts = new HashMap<>();
+        for (StockReplenishRequest request : requests) {
+            counts.merge(request.getStockId(), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Displays the number of appointments per status and the cancellation and no-show rates.
+     *
+     * @param statistics the appointment statistics.
+     */
+    private static void displaySummary(AppointmentStatistics statistics) {
+        long total = statistics.getTotal();
+        long attended = statistics.getCount(AppointmentStatus.COMPLETED) + statistics.getCount(AppointmentStatus.NO_SHOW);
+
+        StringBuilder out = TableRenderer.buffer();
+        SUMMARY_TABLE.header(out, "Measure", "Value");
+        SUMMARY_TABLE.row(out).cell("Appointments").cell(total).end();
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            SUMMARY_TABLE.row(out).cell("  " + status).cell(statistics.getCount(status)).end();
+        }
+        SUMMARY_TABLE.row(out).cell("Cancellation rate").cell(percentage(statistics.getCount(AppointmentStatus.CANCELLED), total)).end();
+        SUMMARY_TABLE.row(out).cell("No-show rate").cell(percentage(statistics.getCount(AppointmentStatus.NO_SHOW), attended)).end();
+        SUMMARY_TABLE.border(out);
+        TableRenderer.flush(out);
+    }
+
+    /**
+     * Displays the utilization of each doctor, one page at a time.
+     * Booked slots are the appointments that hold a slot (pending, approved, completed or no-show),
+     * and offered slots are the booked slots plus the slots still available.
+     *
+     * @param statistics the appointment statistics.
+     * @param freeSlots  the number of available slots per doctor.
+     */
+    private static void displayDoctorUtilization(AppointmentStatistics statistics, Map<String, Integer> freeSlots) {
+        Set<String> doctorIDSet = new TreeSet<>(statistics.getDoctorIDs());
+        doctorIDSet.addAll(freeSlots.keySet());
+        List<String> doctorIDs = new ArrayList<>(doctorIDSet);
+
+        boolean hasRows = PageNavigator.browse("\n--- Doctor Utilization ---", UTILIZATION_TABLE,
+                new String[]{"Doctor ID", "Booked", "Offered", "Utilization", "Cancelled", "No-show"},
+                (cursor, limit) -> pageOf(doctorIDs, cursor, limit),
+                (out, doctorID, previousRow, rowNumber) -> {
+                    long booked = 0;
+                    for (AppointmentStatus status : BOOKED_STATUSES) {
+                        booked += statistics.getDoctorCount(doctorID, status);
+                    }
+                    long offered = booked + freeSlots.getOrDefault(doctorID, 0);
+                    long total = statistics.getDoctorCount(doctorID, null);
+                    long attended = statistics.getDoctorCount(doctorID, AppointmentStatus.COMPLETED)
+                            + statistics.getDoctorCount(doctorID, AppointmentStatus.NO_SHOW);
+                    UTILIZATION_TABLE.row(out)
+                            .cell(doctorID)
+                            .cell(booked)
+                            .cell(offered)
+                            .cell(percentage(booked, offered))
+                            .cell(percentage(statistics.getDoctorCount(doctorID, AppointmentStatus.CANCELLED), total))
+                            .cell(percentage(statistics.getDoctorCount(doctorID, AppointmentStatus.NO_SHOW), attended))
+                            .end();
+                });
+        if (!hasRows) {
+            System.out.println("No doctors with appointments or availability.");
+        }
+    }
+
+    /**
+     * Displays the number of appointments per day and status, one page at a time.
+     *
+     * @param statistics the appointment statistics.
+     */
+    private static void displayAppointmentsPerDay(AppointmentStatistics statistics) {
+        List<LocalDate> days = statistics.getDays();
+        String[] columns = new String[AppointmentStatus.values().length + 2];
+        columns[0] = "Day";
+        columns[1] = "Total";
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            columns[status.ordinal() + 2] = status.toString();
+        }
+
+        boolean hasRows = PageNavigator.browse("\n--- Appointments per Day ---", DAY_TABLE, columns,
+                (cursor, limit) -> pageOf(days, cursor, limit),
+                (out, day, previousRow, rowNumber) -> {
+                    TableRenderer.Row row = DAY_TABLE.row(out).cell(day).cell(statistics.getDayCount(day, null));
+                    for (AppointmentStatus status : AppointmentStatus.values()) {
+                        row.cell(statistics.getDayCount(day, status));
+                    }
+                    row.end();
+                });
+        if (!hasRows) {
+            System.out.println("No appointments found.");
+        }
+    }
+
+    /**
+     * Displays the quantity of each medication prescribed and dispensed.
+     *
+     * @param statistics the medication statistics.
+     */
+    private static void displayMedicationConsumption(MedicationStatistics statistics) {
+        List<String> names = statistics.getMedicationNames();
+        if (names.isEmpty()) {
+            System.out.println("No medications prescribed.");
+            return;
+        }
+
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Medication Consumption ---\n");
+        MEDICATION_TABLE.header(out, "Medicine Name", "Prescriptions", "Prescribed", "Dispensed");
+        for (String name : names) {
+            MEDICATION_TABLE.row(out)
+                    .cell(name)
+                    .cell(statistics.getPrescriptionCount(name))
+                    .cell(statistics.getPrescribedQuantity(name))
+                    .cell(statistics.getDispensedQuantity(name))
+                    .end();
+        }
+        MEDICATION_TABLE.border(out);
+        TableRenderer.flush(out);
+    }
+
+    /**
+     * Displays how often each stock ran low, counted by the replenish requests raised for it, and its current state.
+     *
+     * @param stocks                 all stocks.
+     * @param replenishRequestCounts the number of replenish requests per stock ID.
+     */
+    private static void displayStockOuts(List<Stock> stocks, Map<Integer, Long> replenishRequestCounts) {
+        if (stocks.isEmpty()) {
+            System.out.println("No stocks available.");
+            return;
+        }
+
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Stock-out Frequency ---\n");
+        STOCK_OUT_TABLE.header(out, "Medicine Name", "Stock Level", "Threshold", "Ran Low", "State");
+        for (Stock stock : stocks) {
+            String state = stock.getStockLevel() == 0 ? "Out of stock"
+                    : stock.getStockLevel() <= stock.getLowStockAlertThreshold() ? "Low" : "OK";
+            STOCK_OUT_TABLE.row(out)
+                    .cell(stock.getMedicineName())
+                    .cell(stock.getStockLevel())
+                    .cell(stock.getLowStockAlertThreshold())
+                    .cell(replenishRequestCounts.getOrDefault(stock.getID(), 0L))
+                    .cell(state)
+                    .end();
+        }
+        STOCK_OUT_TABLE.border(out);
+        TableRenderer.flush(out);
+    }
+
+    /**
+     * Returns a page of an in-memory report, using the position after the previous page as the cursor.
+     *
+     * @param rows   the rows of the report.
+     * @param cursor the cursor returned with the previous page, or null for the first page.
+     * @param limit  the maximum number of rows on the page.
+     * @param <T>    the type of the rows.
+     * @return the page of rows.
+     */
+    private static <T> Page<T> pageOf(List<T> rows, String cursor, int limit) {
+        int from = cursor == null ? 0 : Integer.parseInt(cursor);
+        int to = Math.min(from + limit, rows.size());
+        return new Page<>(rows.subList(from, to), to < rows.size() ? String.valueOf(to) : null);
+    }
+
+    /**
+     * Formats a ratio as a percentage.
+     *
+     * @param count the numerator.
+     * @param total the denominator.
+     * @return the percentage with one decimal, or "-" if the denominator is zero.
+     */
+    private static String percentage(long count, long total) {
+        if (total == 0) {
+            return "-";
+        }
+        long tenths = Math.round(count * 1000.0 / total);
+        return tenths / 10 + "." + tenths % 10 + "%";
+    }
+
+    /**
+     * Aggregates a slice of rows, splitting it in half and aggregating the halves in parallel while it is large.
+     *
+     * @param <T> the type of the rows.
+     * @param <A> the type of the result.
+     */
+    private static class AggregateTask<T, A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> rows;
+        private final int from;
+        private final int to;
+        private final Supplier<A> supplier;
+        private final BiConsumer<A, T> accumulator;
+        private final BinaryOperator<A> combiner;
+
+        /**
+         * Constructs a task aggregating a slice of rows.
+         *
+         * @param rows        all rows.
+         * @param from        the first row of the slice, inclusive.
+         * @param to          the last row of the slice, exclusive.
+         * @param supplier    creates an empty result.
+         * @param accumulator adds a row to a result.
+         * @param combiner    merges two results.
+         */
+        AggregateTask(List<T> rows, int from, int to, Supplier<A> supplier, BiConsumer<A, T> accumulator, BinaryOperator<A> combiner) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        /**
+         * Aggregates the slice, forking the first half and computing the second half on the current thread if it is large.
+         *
+         * @return the result of the slice.
+         */
+        @Override
+        protected A compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                A result = supplier.get();
+                for (int i = from; i < to; i++) {
+                    accumulator.accept(result, rows.get(i));
+                }
+                return result;
+            }
+
+            int middle = (from + to) >>> 1;
+            AggregateTask<T, A> left = new AggregateTask<>(rows, from, middle, supplier, accumulator, combiner);
+            left.fork();
+            A right = new AggregateTask<>(rows, middle, to, supplier, accumulator, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package HMS.Systems;
+
+import HMS.Enums.AppointmentStatus;
+import HMS.Models.Appointment;
+import HMS.Scheduling.TimerWheel;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schedules the time-based transitions of appointments on a timer wheel:
+ * <ul>
+ *   <li>a pending appointment not approved before its deadline expires and its slot is returned to availability,</li>
+ *   <li>an approved appointment is completed once its grace period has passed if it has an outcome, or marked as a no-show otherwise.</li>
+ * </ul>
+ * The windows are configured with the {@code hms.pending.expiry.hours} (48 by default) and
+ * {@code hms.noshow.grace.hours} (24 by default) system properties.
+ * Timers are rebuilt from the persisted appointment deadlines when the system starts.
+ */
+public class AppointmentExpirySystem {
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final long PENDING_EXPIRY_MILLIS = Long.getLong("hms.pending.expiry.hours", 48) * HOUR_MILLIS;
+    private static final long NO_SHOW_GRACE_MILLIS = Long.getLong("hms.noshow.grace.hours", 24) * HOUR_MILLIS;
+    private static final long TICK_MILLIS = 1000;
+
+    private static final TimerWheel<Integer> wheel = new TimerWheel<>(TICK_MILLIS, 4096, System.currentTimeMillis());
+    private static final Map<Integer, TimerWheel.Timer<Integer>> timers = new HashMap<>();
+    private static Thread worker;
+
+    /**
+     * Rebuilds the timers of all pending and approved appointments and starts the background thread
+     * that advances the timer wheel. Does nothing if the system is already started.
+     */
+    public static void start() {
+        synchronized (AppointmentExpirySystem.class) {
+            if (worker != null) {
+                return;
+            }
+            worker = new Thread(AppointmentExpirySystem::run, "hms-appointment-expiry");
+            worker.setDaemon(true);
+        }
+
+        AppointmentSystem.trackAllAppointments();
+        worker.start();
+    }
+
+    /**
+     * Computes the approval deadline of a newly requested appointment:
+     * the end of the pending window, but no later than the appointment itself.
+     *
+     * @param appointmentDate the date and time of the appointment.
+     * @return the approval deadline.
+     */
+    public static Date getPendingDeadline(Date appointmentDate) {
+        long deadline = System.currentTimeMillis() + PENDING_EXPIRY_MILLIS;
+        return new Date(Math.min(deadline, appointmentDate.getTime()));
+    }
+
+    /**
+     * Schedules the next transition of an appointment, replacing its previous timer.
+     * Pending appointments expire at their approval deadline and approved appointments are settled
+     * after their grace period. Appointments in any other status have no timer.
+     *
+     * @param appointment the appointment to track.
+     */
+    public static synchronized void track(Appointment appointment) {
+        TimerWheel.Timer<Integer> previous = timers.remove(appointment.getID());
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+
+        long deadline;
+        if (appointment.getAppointmentStatus() == AppointmentStatus.PENDING) {
+            if (appointment.getExpiresAt() == null) {
+                appointment.update(() -> appointment.setExpiresAt(getPendingDeadline(appointment.getAppointmentDate())));
+            }
+            deadline = appointment.getExpiresAt().getTime();
+        } else if (appointment.getAppointmentStatus() == AppointmentStatus.APPROVED) {
+            deadline = appointment.getAppointmentDate().getTime() + NO_SHOW_GRACE_MILLIS;
+        } else {
+            return;
+        }
+        timers.put(appointment.getID(), wheel.schedule(appointment.getID(), deadline));
+    }
+
+    /**
+     * Gets the number of appointments waiting for a transition.
+     *
+     * @return the number of pending timers.
+     */
+    public static int getTimerCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Advances the timer wheel once per tick and applies the transitions of the expired timers.
+     */
+    private static void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(TICK_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            advance(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Applies the transitions of the appointments whose timers have expired by the given time.
+     * Each appointment is checked again under the appointment lock, as it may have changed since it was tracked.
+     * Only the expired timer itself is forgotten, as the appointment may have been tracked again since it expired.
+     *
+     * @param now the current time in milliseconds.
+     */
+    static void advance(long now) {
+        List<TimerWheel.Timer<Integer>> expired = wheel.advance(now);
+        for (TimerWheel.Timer<Integer> timer : expired) {
+            int appointmentID = timer.getPayload();
+            synchronized (AppointmentExpirySystem.class) {
+                timers.remove(appointmentID, timer);
+            }
+            try {
+                Appointment appointment = AppointmentSystem.getAppointmentByID(appointmentID);
+                if (appointment == null) {
+                    continue;
+                }
+                if (appointment.getAppointmentStatus() == AppointmentStatus.PENDING) {
+                    AppointmentSystem.expirePendingAppointment(appointmentID);
+                } else if (appointment.getAppointmentStatus() == AppointmentStatus.APPROVED) {
+                    // Looked up before taking the appointment lock, as outcomes may look up appointments
+                    boolean hasOutcome = AppointmentOutcomeSystem.getOutcomeByAppointmentID(appointmentID) != null;
+                    AppointmentSystem.settleApprovedAppointment(appointmentID, hasOutcome, NO_SHOW_GRACE_MILLIS);
+                }
+            } catch (Exception e) {
+                System.err.println("Error applying appointment transition: " + e.getMessage());
+            }
+        }
+    }
+}
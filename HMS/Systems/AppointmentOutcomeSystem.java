@@ -2,12 +2,17 @@ package HMS.Systems;
 
 import HMS.Enums.AppointmentStatus;
 import HMS.Enums.Dispensed;
-import HMS.Enums.ReplenishStatus;
 import HMS.Models.*;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Profiling.WorkflowEvent;
+import HMS.Storage.Storage;
+import HMS.Storage.UnitOfWork;
 
-import java.io.*;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -16,8 +21,12 @@ import java.util.stream.Collectors;
  * This class is responsible for loading, storing, and accessing appointment outcome HMS.data.
  */
 public class AppointmentOutcomeSystem {
-    private static final String OUTCOMES_FILE = "HMS/data/appointment_outcomes.csv";
     private static final List<AppointmentOutcomeRecord> outcomes = new ArrayList<>();
+    private static final SnapshotList<AppointmentOutcomeRecord> snapshot = new SnapshotList<>(AppointmentOutcomeRecord::copy); // Published by saveOutcomes
+    private static final TableRenderer OUTCOME_TABLE = TableRenderer.boxed(13, 17, 17, 31, 21, 17);
+    private static final TableRenderer DISPENSING_TABLE = TableRenderer.boxed(17, 17, 17, 21, 17);
+    private static final TableRenderer MEDICINE_TABLE = TableRenderer.boxed(3, 24, 13);
+    private static final String[] OUTCOME_COLUMNS = {"AppointmentID", "Date", "Service Type", "Medications", "Consultation Notes", "Dispensed"};
 
     /**
      * Static initializer block to load appointment outcomes when the class is first accessed.
@@ -28,40 +37,66 @@ public class AppointmentOutcomeSystem {
     }
 
     /**
-     * Retrieves all appointment outcomes that are not yet dispensed.
+     * Retrieves all appointment outcomes that are not yet dispensed, as of their last save.
      *
      * @return a list of AppointmentOutcomeRecord objects that have not been dispensed.
      */
     public static List<AppointmentOutcomeRecord> getOutcomes() {
-        return outcomes.stream()
+        return snapshot.get().stream()
                 .filter(outcome -> outcome.isDispensed() == Dispensed.NO) // Filter out outcomes that are already dispensed
                 .collect(Collectors.toList());
     }
 
 
 
+    /**
+     * Retrieves all appointment outcomes, dispensed or not.
+     *
+     * @return a copy of the list of all outcomes.
+     */
+    public static synchronized List<AppointmentOutcomeRecord> getAllOutcomes() {
+        return new ArrayList<>(outcomes);
+    }
+
+    /**
+     * Returns the outcomes as of their last save, for reports and listings. Taking the snapshot does not wait for
+     * the sessions recording or dispensing outcomes, and the snapshot does not change while it is read.
+     *
+     * @return copies of all outcomes in the order they were recorded, which must not be changed.
+     */
+    public static List<AppointmentOutcomeRecord> getOutcomesSnapshot() {
+        return snapshot.get();
+    }
+
     /**
      * Adds a new appointment outcome to the list and saves it to the file.
      *
      * @param outcome the AppointmentOutcomeRecord to add.
      */
     public static void addOutcome(AppointmentOutcomeRecord outcome) {
-        outcomes.add(outcome);
-        saveOutcomes();
+        try {
+            synchronized (AppointmentOutcomeSystem.class) {
+                outcomes.add(outcome);
+                DashboardCounters.outcomeDispensedChanged(null, outcome.isDispensed());
+                saveOutcomes();
+                DomainEvents.outcomeRecorded(outcome);
+            }
+        } finally {
+            DomainEvents.publishDeferred();
+        }
     }
 
     /**
-     * Retrieves an appointment by its ID.
+     * Maps the appointments by ID, as of their last save.
      *
-     * @param appointmentID the ID of the appointment.
-     * @return the Appointment object if found, otherwise null.
+     * @return the appointments by ID.
      */
-    private static Appointment getAppointmentByID(int appointmentID) {
-        List<Appointment> appointments = AppointmentSystem.getAppointments(); // Get all appointments
-        return appointments.stream()
-                .filter(appointment -> appointment.getID() == appointmentID)
-                .findFirst()
-                .orElse(null);
+    private static Map<Integer, Appointment> getAppointmentsByID() {
+        Map<Integer, Appointment> appointmentsByID = new HashMap<>();
+        for (Appointment appointment : AppointmentSystem.getAppointmentsSnapshot()) {
+            appointmentsByID.put(appointment.getID(), appointment);
+        }
+        return appointmentsByID;
     }
 
     /**
@@ -70,7 +105,7 @@ public class AppointmentOutcomeSystem {
      * @param appointmentID the ID of the appointment.
      * @return the corresponding outcome, or null if not found.
      */
-    public static AppointmentOutcomeRecord getOutcomeByAppointmentID(int appointmentID) {
+    public static synchronized AppointmentOutcomeRecord getOutcomeByAppointmentID(int appointmentID) {
         return outcomes.stream()
                 .filter(outcome -> outcome.getAppointmentID() == appointmentID)
                 .findFirst()
@@ -78,94 +113,59 @@ public class AppointmentOutcomeSystem {
     }
 
     /**
-     * Loads all outcomes from the CSV file.
+     * Loads all outcomes from storage.
      */
     private static void loadOutcomes() {
-        File file = new File(OUTCOMES_FILE);
-        if (!file.exists()) {
-            createOutcomesFile(file);
-        }
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.readLine(); // Skip header
-            String line;
-            while ((line = br.readLine()) != null) {
-                parseAndAddOutcome(line);
-            }
-        } catch (Exception e) {
+        try {
+            outcomes.addAll(Storage.outcomes().loadAll());
+            DashboardCounters.resetOutcomes(outcomes);
+        } catch (IOException e) {
             System.err.println("Error loading outcomes: " + e.getMessage());
         }
+        snapshot.publish(outcomes);
     }
 
     /**
-     * Creates an empty outcomes file with headers.
-     *
-     * @param file the file to create.
+     * Replaces the outcomes in memory with the outcomes in storage, after another process changed them.
+     * The clinical search index, which holds the notes of the outcomes, is rebuilt on the next search.
      */
-    private static void createOutcomesFile(File file) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
-            bw.write("AppointmentID,Date,ServiceType,Medications,ConsultationNotes,Dispensed");
-            bw.newLine();
-        } catch (IOException e) {
-            System.err.println("Error creating outcomes file: " + e.getMessage());
-        }
+    static synchronized void reload() {
+        outcomes.clear();
+        loadOutcomes();
+        ClinicalSearchSystem.reset();
     }
 
     /**
-     * Parses a CSV line and adds it to the outcomes list.
+     * Saves all outcomes to storage and publishes them to the readers of the snapshot.
      */
-    private static void parseAndAddOutcome(String line) {
-        String[] parts = line.split(",", 7);
-        if (parts.length < 7) return;
-
-        int appointmentID = Integer.parseInt(parts[0]);
-        String appointmentDate = parts[1];
-        String serviceType = parts[2];
-        String medicationsStr = parts[3];
-        String consultationNotes = parts[4];
-        Dispensed dispensed = Dispensed.valueOf(parts[5].toUpperCase());
-        String doctorID = parts[6];
-        String patientID = parts[7];
-
-        AppointmentOutcomeRecord outcome = new AppointmentOutcomeRecord(
-                appointmentID, appointmentDate, serviceType, consultationNotes, dispensed, doctorID, patientID
-        );
-
-        if (!medicationsStr.isEmpty()) {
-            String[] medications = medicationsStr.split(";");
-            for (String med : medications) {
-                String[] medParts = med.split(" \\("); // Name and quantity
-                String name = medParts[0].trim();
-                int quantity = Integer.parseInt(medParts[1].replace(")", "").trim());
-                outcome.addMedication(new Medication(name, "pending", quantity));
-            }
+    private static void saveOutcomes() {
+        snapshot.publish(outcomes);
+        PersistenceEvent event = PersistenceEvent.start("appointment_outcomes");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.outcomes().saveAll(outcomes);
+        } catch (IOException e) {
+            System.err.println("Error saving outcomes: " + e.getMessage());
         }
-
-        outcomes.add(outcome);
+        event.end(outcomes.size(), bytesWritten);
     }
 
     /**
-     * Saves all outcomes to the CSV file.
+     * Saves all outcomes and stocks as one unit of work, so that a dispensed outcome is never saved without the
+     * stock it was dispensed from, and publishes the outcomes to the readers of the snapshot.
      */
-    private static void saveOutcomes() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(OUTCOMES_FILE))) {
-            bw.write("AppointmentID,Date,ServiceType,Medications,ConsultationNotes,Dispensed");
-            bw.newLine();
-
-            for (AppointmentOutcomeRecord outcome : outcomes) {
-                bw.write(String.join(",",
-                        String.valueOf(outcome.getAppointmentID()),
-                        outcome.getAppointmentDate(),
-                        outcome.getServiceType(),
-                        outcome.getMedicationsAsString(),
-                        outcome.getConsultationNotes(),
-                        String.valueOf(outcome.isDispensed()) // Save the dispensed field
-                ));
-                bw.newLine();
-            }
+    private static void saveOutcomesWithStocks() {
+        snapshot.publish(outcomes);
+        UnitOfWork work = Storage.beginWork();
+        Storage.outcomes().saveAll(outcomes, work);
+        PersistenceEvent event = PersistenceEvent.start("appointment_outcomes+stocks");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = StockSystem.commitWithStocks(work);
         } catch (IOException e) {
-            System.err.println("Error saving outcomes: " + e.getMessage());
+            System.err.println("Error saving outcomes and stocks: " + e.getMessage());
         }
+        event.end(outcomes.size() + StockSystem.getStocks().size(), bytesWritten);
     }
 
     /**
@@ -175,9 +175,10 @@ public class AppointmentOutcomeSystem {
      */
     public static void displayOutcomesForDoctor(String doctorID) {
         List<AppointmentOutcomeRecord> doctorOutcomes = new ArrayList<>();
+        Map<Integer, Appointment> appointmentsByID = getAppointmentsByID();
 
-        for (AppointmentOutcomeRecord outcome : outcomes) {
-            Appointment appointment = getAppointmentByID(outcome.getAppointmentID());
+        for (AppointmentOutcomeRecord outcome : snapshot.get()) {
+            Appointment appointment = appointmentsByID.get(outcome.getAppointmentID());
             if (appointment != null && appointment.getDoctorID().equalsIgnoreCase(doctorID)) {
                 doctorOutcomes.add(outcome);
             }
@@ -198,9 +199,10 @@ public class AppointmentOutcomeSystem {
      */
     public static void displayOutcomesForPatient(String patientID) {
         List<AppointmentOutcomeRecord> patientOutcomes = new ArrayList<>();
+        Map<Integer, Appointment> appointmentsByID = getAppointmentsByID();
 
-        for (AppointmentOutcomeRecord outcome : outcomes) {
-            Appointment appointment = getAppointmentByID(outcome.getAppointmentID());
+        for (AppointmentOutcomeRecord outcome : snapshot.get()) {
+            Appointment appointment = appointmentsByID.get(outcome.getAppointmentID());
             if (appointment != null && appointment.getPatientID().equalsIgnoreCase(patientID)) {
                 patientOutcomes.add(outcome);
             }
@@ -215,15 +217,40 @@ public class AppointmentOutcomeSystem {
     }
 
     /**
-     * Displays all appointment outcomes.
+     * Displays all appointment outcomes, one page at a time.
      */
     public static void displayAllOutcomes() {
-        if (outcomes.isEmpty()) {
+        boolean hasRows = PageNavigator.browse(null, OUTCOME_TABLE, OUTCOME_COLUMNS,
+                (cursor, limit) -> getOutcomesPage(cursor, limit, null),
+                (out, outcome, previousRow, rowNumber) -> appendOutcomeRow(out, outcome));
+        if (!hasRows) {
             System.out.println("No outcomes recorded.");
-            return;
         }
+    }
 
-        displayOutcomeTable(outcomes);
+    /**
+     * Returns a page of appointment outcomes in the order they were recorded, as of their last save.
+     * Outcomes are only ever appended, so the cursor is the position after the last outcome of the previous page.
+     *
+     * @param cursor    the cursor returned with the previous page, or null for the first page.
+     * @param limit     the maximum number of outcomes on the page.
+     * @param dispensed the dispensed state to filter by, or null for all outcomes.
+     * @return the page of outcomes.
+     */
+    public static Page<AppointmentOutcomeRecord> getOutcomesPage(String cursor, int limit, Dispensed dispensed) {
+        List<AppointmentOutcomeRecord> outcomes = snapshot.get();
+        List<AppointmentOutcomeRecord> page = new ArrayList<>(limit);
+        for (int index = cursor == null ? 0 : Integer.parseInt(cursor); index < outcomes.size(); index++) {
+            AppointmentOutcomeRecord outcome = outcomes.get(index);
+            if (dispensed != null && outcome.isDispensed() != dispensed) {
+                continue;
+            }
+            if (page.size() == limit) {
+                return new Page<>(page, String.valueOf(index));
+            }
+            page.add(outcome);
+        }
+        return new Page<>(page, null);
     }
 
     /**
@@ -232,21 +259,30 @@ public class AppointmentOutcomeSystem {
      * @param outcomesList the list of outcomes to display.
      */
     private static void displayOutcomeTable(List<AppointmentOutcomeRecord> outcomesList) {
-        System.out.println("+---------------+-------------------+-------------------+---------------------------------+-----------------------+-------------------+");
-        System.out.println("| AppointmentID | Date              | Service Type      | Medications                     | Consultation Notes    | Dispensed          |");
-        System.out.println("+---------------+-------------------+-------------------+---------------------------------+-----------------------+-------------------+");
-
+        StringBuilder out = TableRenderer.buffer();
+        OUTCOME_TABLE.header(out, OUTCOME_COLUMNS);
         for (AppointmentOutcomeRecord outcome : outcomesList) {
-            System.out.printf("| %-13d | %-17s | %-17s | %-31s | %-21s | %-17s |\n",
-                    outcome.getAppointmentID(),
-                    outcome.getAppointmentDate(),
-                    outcome.getServiceType(),
-                    outcome.getMedicationsAsString(),
-                    outcome.getConsultationNotes(),
-                    outcome.isDispensed() == Dispensed.YES ? "Yes" : "No");
+            appendOutcomeRow(out, outcome);
         }
+        OUTCOME_TABLE.border(out);
+        TableRenderer.flush(out);
+    }
 
-        System.out.println("+---------------+-------------------+-------------------+---------------------------------+-----------------------+-------------------+");
+    /**
+     * Appends the row of an outcome to a table buffer.
+     *
+     * @param out     the table buffer.
+     * @param outcome the outcome to append.
+     */
+    private static void appendOutcomeRow(StringBuilder out, AppointmentOutcomeRecord outcome) {
+        OUTCOME_TABLE.row(out)
+                .cell(outcome.getAppointmentID())
+                .cell(outcome.getAppointmentDate())
+                .cell(outcome.getServiceType())
+                .cell(outcome.getMedicationsAsString())
+                .cell(outcome.getConsultationNotes())
+                .cell(outcome.isDispensed() == Dispensed.YES ? "Yes" : "No")
+                .end();
     }
 
     /**
@@ -258,7 +294,7 @@ public class AppointmentOutcomeSystem {
     public static boolean isValidOutcomeSelection(String input) {
         try {
             int outcomeID = Integer.parseInt(input);
-            return outcomes.stream().anyMatch(outcome -> outcome.getAppointmentID() == outcomeID);
+            return snapshot.get().stream().anyMatch(outcome -> outcome.getAppointmentID() == outcomeID);
         } catch (NumberFormatException e) {
             return false;
         }
@@ -363,19 +399,14 @@ public class AppointmentOutcomeSystem {
                 return;
             }
 
-            System.out.println("+-----+--------------------------+---------------+");
-            System.out.println("| No. | Medicine Name            | Stock Level   |");
-            System.out.println("+-----+--------------------------+---------------+");
-
+            StringBuilder out = TableRenderer.buffer();
+            MEDICINE_TABLE.header(out, "No.", "Medicine Name", "Stock Level");
             for (int i = 0; i < availableStocks.size(); i++) {
                 Stock stock = availableStocks.get(i);
-                System.out.printf("| %-3d | %-24s | %-13d |\n",
-                        i + 1,
-                        stock.getMedicineName(),
-                        stock.getStockLevel());
+                MEDICINE_TABLE.row(out).cell(i + 1).cell(stock.getMedicineName()).cell(stock.getStockLevel()).end();
             }
-
-            System.out.println("+-----+--------------------------+---------------+");
+            MEDICINE_TABLE.border(out);
+            TableRenderer.flush(out);
 
             // Prompt the user to select a stock by its number
             String selectedStockIndex = InputHandler.getValidatedInput(
@@ -453,82 +484,93 @@ public class AppointmentOutcomeSystem {
         }
 
         // Displaying the table header
-        System.out.println("+-------------------+-------------------+-------------------+-----------------------+-------------------+");
-        System.out.println("| Appointment ID    | Date              | Service Type      | Medications           | Dispensed          |");
-        System.out.println("+-------------------+-------------------+-------------------+-----------------------+-------------------+");
+        StringBuilder out = TableRenderer.buffer();
+        DISPENSING_TABLE.header(out, "Appointment ID", "Date", "Service Type", "Medications", "Dispensed");
 
         // Displaying each outcome in the table
-        for (AppointmentOutcomeRecord outcome : outcomes) {
-            System.out.printf("| %-17d | %-17s | %-17s | %-21s | %-17s |\n",
-                    outcome.getAppointmentID(),
-                    outcome.getAppointmentDate(),
-                    outcome.getServiceType(),
-                    outcome.getMedicationsAsString(),
-                    outcome.isDispensed() == Dispensed.YES ? "Yes" : "No");
+        for (AppointmentOutcomeRecord outcome : snapshot.get()) {
+            DISPENSING_TABLE.row(out)
+                    .cell(outcome.getAppointmentID())
+                    .cell(outcome.getAppointmentDate())
+                    .cell(outcome.getServiceType())
+                    .cell(outcome.getMedicationsAsString())
+                    .cell(outcome.isDispensed() == Dispensed.YES ? "Yes" : "No")
+                    .end();
         }
 
-        System.out.println("+-------------------+-------------------+-------------------+-----------------------+-------------------+");
+        DISPENSING_TABLE.border(out);
+        TableRenderer.flush(out);
     }
 
     /**
      * Dispenses medication for a specified appointment outcome. This method checks if stock is available
-     * and deducts the stock level accordingly. If stock is low, it creates a replenish request.
+     * and deducts the stock level accordingly. If stock is low, a replenish request is raised in the background.
      *
      * @param outcomeID The ID of the appointment outcome for which medication will be dispensed.
+     * @return true if every medication of the outcome was dispensed, false otherwise.
      */
-    public static void dispenseMedication(int outcomeID) {
-        AppointmentOutcomeRecord outcome = getOutcomeByAppointmentID(outcomeID);
+    public static boolean dispenseMedication(int outcomeID) {
+        try {
+            synchronized (AppointmentOutcomeSystem.class) {
+                WorkflowEvent event = WorkflowEvent.start("dispense", outcomeID);
+                AppointmentOutcomeRecord outcome = getOutcomeByAppointmentID(outcomeID);
+
+                if (outcome == null) {
+                    System.out.println("Outcome record not found.");
+                    event.end(0, false);
+                    return false;
+                }
 
-        if (outcome == null) {
-            System.out.println("Outcome record not found.");
-            return;
-        }
+                if (outcome.isDispensed() == Dispensed.YES) {
+                    System.out.println("Medications for this outcome have already been dispensed.");
+                    event.end(0, false);
+                    return false;
+                }
 
-        boolean allMedicationsDispensed = true; // To track if all medications were dispensed
+                boolean allMedicationsDispensed = true; // To track if all medications were dispensed
+                int dispensedCount = 0;
 
-        // Step 1: Loop through each medication in the outcome and attempt to dispense
-        for (Medication medication : outcome.getPrescribedMedications()) {
-            Stock stock = findStockByMedicineName(medication.getMedicationName());
+                // Step 1: Loop through each medication in the outcome and attempt to dispense
+                for (Medication medication : outcome.getPrescribedMedications()) {
+                    Stock stock = findStockByMedicineName(medication.getMedicationName());
 
-            if (stock == null) {
-                System.out.println("Stock for medication " + medication.getMedicationName() + " not found.");
-                continue;
-            }
+                    if (stock == null) {
+                        System.out.println("Stock for medication " + medication.getMedicationName() + " not found.");
+                        continue;
+                    }
 
-            if (stock.getStockLevel() < medication.getQuantity()) {
-                System.out.println("Insufficient stock for " + medication.getMedicationName() + ". Available: "
-                        + stock.getStockLevel() + ", Requested: " + medication.getQuantity());
-                System.out.println("Dispensing stopped due to insufficient stock.");
-                allMedicationsDispensed = false;
-                break; // Stop dispensing if not enough stock
-            }
+                    // Step 2: Deduct the stock balance
+                    if (!StockSystem.deductStock(stock, medication.getQuantity())) {
+                        System.out.println("Insufficient stock for " + medication.getMedicationName() + ". Available: "
+                                + stock.getStockLevel() + ", Requested: " + medication.getQuantity());
+                        System.out.println("Dispensing stopped due to insufficient stock.");
+                        allMedicationsDispensed = false;
+                        break; // Stop dispensing if not enough stock
+                    }
+
+                    // Step 3: If stock is low, a replenish request is raised by the event bus
+                    if (StockSystem.isLowStock(stock)) {
+                        System.out.println("Stock for " + medication.getMedicationName()
+                                + " is low; a replenish request will be raised if none is pending.");
+                    }
 
-            // Step 2: Deduct the stock balance
-            stock.setStockLevel(stock.getStockLevel() - medication.getQuantity());
-
-            // Step 3: If stock is low, create a replenish request
-            if (stock.getStockLevel() <= stock.getLowStockAlertThreshold()) {
-                String replenishChoice = InputHandler.getValidatedInput(
-                        "Stock for " + medication.getMedicationName() + " is low. Do you want to create a replenish request? (yes/no): ",
-                        "Please enter 'yes' or 'no'.",
-                        input -> input.equalsIgnoreCase("yes") || input.equalsIgnoreCase("no")
-                );
-
-                if (replenishChoice.equalsIgnoreCase("yes")) {
-                    StockReplenishRequest replenishRequest = new StockReplenishRequest(
-                            stock.getID(), 100, ReplenishStatus.PENDING // Replenish with 100 units
-                    );
-                    StockSystem.createReplenishRequest(replenishRequest);
-                    System.out.println("Replenish request created for " + medication.getMedicationName() + ".");
+                    medication.setStatus("dispensed");
+                    dispensedCount++;
+                    System.out.println("Dispensed " + medication.getQuantity() + " units of " + medication.getMedicationName());
                 }
-            }
 
-            medication.setStatus("dispensed");
-            System.out.println("Dispensed " + medication.getQuantity() + " units of " + medication.getMedicationName());
+                DashboardCounters.outcomeDispensedChanged(outcome.isDispensed(), Dispensed.YES);
+                outcome.update(() -> outcome.setDispensed(Dispensed.YES));
+                saveOutcomesWithStocks();
+                if (dispensedCount > 0) {
+                    DomainEvents.medicationDispensed(outcome);
+                }
+                event.end(dispensedCount, allMedicationsDispensed);
+                return allMedicationsDispensed;
+            }
+        } finally {
+            DomainEvents.publishDeferred();
         }
-
-        outcome.setDispensed(Dispensed.YES);
-        saveOutcomes();
     }
     /**
      * Finds the stock object for a given medication name.
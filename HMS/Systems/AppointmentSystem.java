@@ -1,10 +1,21 @@
 package HMS.Systems;
 
 import HMS.Enums.AppointmentStatus;
+import HMS.Enums.TimeWindow;
+import HMS.Events.DomainEvent;
 import HMS.Models.Appointment;
-
-import java.io.*;
+import HMS.Models.AvailableSlot;
+import HMS.Models.ConcurrentUpdateException;
+import HMS.Models.DecisionResult;
+import HMS.Models.Page;
+import HMS.Models.WaitlistEntry;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Profiling.WorkflowEvent;
+import HMS.Storage.Storage;
+
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.*;
 
 /**
@@ -13,55 +24,31 @@ import java.util.*;
  */
 public class AppointmentSystem {
 
-    private static final String DOCTOR_AVAILABILITY_FILE = "HMS/data/doctor_availability.csv";
-    private static final String APPOINTMENTS_FILE = "HMS/data/appointments.csv";
     private static final List<Appointment> appointments = new ArrayList<>();
+    private static final SnapshotList<Appointment> snapshot = new SnapshotList<>(Appointment::copy); // Published by saveAppointments
     private static final Map<String, List<String>> doctorAvailability = new HashMap<>();
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = // Also used by the expiry thread and lock-free listings
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd HH:mm"));
+    private static final int EARLIEST_SLOTS_SHOWN = 10;
+    private static final int AVAILABILITY_HORIZON_DAYS = 14; // Days of recurring availability shown for selection
+    private static final int EARLIEST_SLOTS_SEARCH_DAYS = 365; // Days of recurring availability searched for the earliest slots
+    private static final TableRenderer AVAILABILITY_TABLE = TableRenderer.boxed(10, 44);
+    private static final TableRenderer APPOINTMENT_TABLE = TableRenderer.plain(15, 15, 25, 15);
+    private static final TableRenderer PATIENT_APPOINTMENT_TABLE = TableRenderer.boxed(15, 15, 23, 15);
+    private static final TableRenderer DOCTOR_SLOTS_TABLE = TableRenderer.plain(15, 17, 20);
+    private static final TableRenderer EARLIEST_SLOT_TABLE = TableRenderer.boxed(3, 10, 21);
+    private static final TableRenderer DECISION_TABLE = TableRenderer.plain(15, 25);
+    private static final TableRenderer SLOT_TABLE = TableRenderer.boxed(3, 21);
 
     /**
      * Static initializer block to load appointment and doctor availabilities when the class is first accessed.
      * Ensures that the DoctorAvailability and Appointments are loaded into memory at runtime.
      */
     static {
-        initializeFiles();
         loadDoctorAvailability();
         loadAppointments();
     }
 
-    /**
-     * Initializes the required files by checking if they exist.
-     * If they don't, the files are created with the appropriate header information.
-     * This method ensures that the following files are initialized:
-     * - Doctor Availability file with the header: "DoctorID,AvailableSlots"
-     * - Appointments file with the header: "ID,PatientID,DoctorID,Status,Date"
-     */
-    private static void initializeFiles() {
-        ensureFileExists(DOCTOR_AVAILABILITY_FILE, "DoctorID,AvailableSlots");
-        ensureFileExists(APPOINTMENTS_FILE, "ID,PatientID,DoctorID,Status,Date");
-    }
-
-    /**
-     * Ensures that a file exists at the specified file path. If the file does not exist, it is created
-     * along with the provided header information. If necessary, the parent directories of the file are also created.
-     *
-     * @param filePath The path of the file to be checked and created if it doesn't exist.
-     * @param header The header content to be written into the file if it is created.
-     */
-    private static void ensureFileExists(String filePath, String header) {
-        File file = new File(filePath);
-        if (!file.exists()) {
-            try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
-                file.getParentFile().mkdirs();
-                bw.write(header);
-                bw.newLine();
-                System.out.println(filePath + " created with headers.");
-            } catch (IOException e) {
-                System.err.println("Error creating file: " + filePath + " - " + e.getMessage());
-            }
-        }
-    }
-
     // -- Doctor Availability Management
     /**
      * Prompts the user to input an available time slot for a given doctor and adds it to the doctor's availability list.
@@ -79,22 +66,18 @@ public class AppointmentSystem {
         );
 
         try {
-            Date date = DATE_FORMAT.parse(slot);
-            String formattedSlot = DATE_FORMAT.format(date);
+            Date date = DATE_FORMAT.get().parse(slot);
 
             if (!isValidHour(date)) {
                 System.out.println("Time must be between 09:00 and 17:00.");
                 return;
             }
 
-            List<String> availableSlots = doctorAvailability.getOrDefault(doctorID, new ArrayList<>());
-
-            if (availableSlots.contains(formattedSlot)) {
+            if (!addDoctorAvailability(doctorID, date)) {
                 System.out.println("This slot is already in your availability list.");
                 return;
             }
 
-            addSlot(doctorID, formattedSlot);
             System.out.println("Availability added for Doctor ID: " + doctorID);
         } catch (Exception e) {
             System.out.println("Invalid slot. Please try again.");
@@ -102,33 +85,192 @@ public class AppointmentSystem {
     }
 
     /**
-     * Displays all doctors with their available slots in a table format.
+     * Prompts the doctor for a recurring availability rule and adds it.
+     * The slots of the new rule are then offered to the patients on the doctor's waitlist, earliest first.
+     *
+     * @param doctorID The ID of the doctor for whom the availability is being set.
+     */
+    public static void addRecurringAvailabilityMenu(String doctorID) {
+        if (RecurringAvailabilitySystem.addRuleMenu(doctorID) == null) {
+            return;
+        }
+
+        synchronized (AppointmentSystem.class) {
+            for (String slot : getAvailableSlots(doctorID)) {
+                if (WaitlistSystem.getWaitlistSize(doctorID) == 0) {
+                    break;
+                }
+                offerSlotToWaitlist(doctorID, slot);
+            }
+        }
+        DomainEvents.publishDeferred();
+    }
+
+    /**
+     * Adds an available time slot for a given doctor and saves the updated availability.
+     * If the slot is already in the availability list, it is not added again.
+     *
+     * @param doctorID The ID of the doctor for whom the availability is being set.
+     * @param date     The date and time of the available slot.
+     * @return true if the slot was added, false if it was already available.
+     */
+    public static boolean addDoctorAvailability(String doctorID, Date date) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                String formattedSlot = DATE_FORMAT.get().format(date);
+
+                if (isSlotAvailable(doctorID, formattedSlot)) {
+                    return false;
+                }
+
+                addSlot(doctorID, formattedSlot);
+                offerSlotToWaitlist(doctorID, formattedSlot);
+                return true;
+            }
+        } finally {
+            DomainEvents.publishDeferred();
+        }
+    }
+
+    /**
+     * Returns a copy of the available slots of a given doctor, including the slots of the doctor's
+     * recurring availability rules for the coming days.
+     *
+     * @param doctorID The ID of the doctor.
+     * @return the available slots in the format "yyyy-MM-dd HH:mm", empty if the doctor has none.
+     */
+    public static synchronized List<String> getAvailableSlots(String doctorID) {
+        List<String> slots = new ArrayList<>(doctorAvailability.getOrDefault(doctorID, new ArrayList<>()));
+        if (RecurringAvailabilitySystem.getRules(doctorID).isEmpty()) {
+            return slots;
+        }
+
+        List<String> ruleSlots = RecurringAvailabilitySystem.getSlots(doctorID, DATE_FORMAT.get().format(new Date()),
+                LocalDate.now().plusDays(AVAILABILITY_HORIZON_DAYS));
+        for (String slot : ruleSlots) {
+            insertSlot(slots, slot);
+        }
+        return slots;
+    }
+
+    /**
+     * Counts the available slots of each doctor with explicit slots or recurring availability rules.
+     * Slots of recurring availability rules are counted up to the availability horizon.
+     *
+     * @return the number of available slots per doctor ID.
+     */
+    public static synchronized Map<String, Integer> getAvailableSlotCounts() {
+        Map<String, Integer> slotCounts = new HashMap<>();
+        for (String doctorID : getDoctorIDsWithAvailability()) {
+            slotCounts.put(doctorID, getAvailableSlots(doctorID).size());
+        }
+        return slotCounts;
+    }
+
+    /**
+     * Returns the IDs of all doctors with explicit slots or recurring availability rules.
+     *
+     * @return the doctor IDs in ascending order.
+     */
+    private static synchronized NavigableSet<String> getDoctorIDsWithAvailability() {
+        NavigableSet<String> doctorIDs = new TreeSet<>(doctorAvailability.keySet());
+        doctorIDs.addAll(RecurringAvailabilitySystem.getDoctorIDs());
+        return doctorIDs;
+    }
+
+    /**
+     * Displays all doctors with their available slots in a table format, one page at a time.
      * Each doctor ID is displayed alongside their available time slots.
      * If a doctor has no available slots, a message stating "No slots available" is shown.
      */
     public static void displayAllDoctorsAvailability() {
-        if (doctorAvailability.isEmpty()) {
+        boolean hasRows = PageNavigator.browse(null, AVAILABILITY_TABLE, new String[]{"Doctor ID", "Available Slots"},
+                AppointmentSystem::getAvailabilityPage,
+                (out, row, previousRow, rowNumber) -> {
+                    boolean sameDoctor = previousRow != null && previousRow.getKey().equals(row.getKey());
+                    if (previousRow != null && !sameDoctor) {
+                        AVAILABILITY_TABLE.border(out);
+                    }
+                    AVAILABILITY_TABLE.row(out)
+                            .cell(sameDoctor ? "" : row.getKey())
+                            .cell(row.getValue().isEmpty() ? "No slots available" : row.getValue())
+                            .end();
+                });
+        if (!hasRows) {
             System.out.println("No availability set for any doctor.");
-            return;
         }
+    }
 
-        System.out.println("+------------+----------------------------------------------+");
-        System.out.println("| Doctor ID  | Available Slots                              |");
-        System.out.println("+------------+----------------------------------------------+");
+    /**
+     * Returns a page of the available slots of all doctors, ordered by doctor ID and then by slot.
+     * Slots of recurring availability rules are included up to the availability horizon.
+     * A doctor with no available slots has one row with an empty slot.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page.
+     * @param limit  the maximum number of rows on the page.
+     * @return the page of (doctor ID, slot) rows.
+     */
+    public static synchronized Page<Map.Entry<String, String>> getAvailabilityPage(String cursor, int limit) {
+        String afterDoctorID = null;
+        String afterSlot = null;
+        if (cursor != null) {
+            int separator = cursor.lastIndexOf('|');
+            afterDoctorID = cursor.substring(0, separator);
+            afterSlot = cursor.substring(separator + 1);
+        }
 
-        for (Map.Entry<String, List<String>> entry : doctorAvailability.entrySet()) {
-            String doctorID = entry.getKey();
-            List<String> slots = entry.getValue();
-            if (slots.isEmpty()) {
-                System.out.printf("| %-10s | %-44s |\n", doctorID, "No slots available");
-            } else {
-                System.out.printf("| %-10s | %-44s |\n", doctorID, slots.get(0));
-                for (int i = 1; i < slots.size(); i++) {
-                    System.out.printf("| %-10s | %-44s |\n", "", slots.get(i));
+        String now = DATE_FORMAT.get().format(new Date());
+        LocalDate lastDate = LocalDate.now().plusDays(AVAILABILITY_HORIZON_DAYS);
+        NavigableSet<String> doctorIDs = getDoctorIDsWithAvailability();
+        List<Map.Entry<String, String>> rows = new ArrayList<>(limit);
+
+        for (String doctorID : afterDoctorID == null ? doctorIDs : doctorIDs.tailSet(afterDoctorID, true)) {
+            boolean resuming = doctorID.equals(afterDoctorID);
+            if (resuming && afterSlot.isEmpty()) {
+                continue; // The previous page ended with this doctor's "No slots available" row
+            }
+
+            List<String> slots = doctorAvailability.getOrDefault(doctorID, List.of());
+            int index = 0;
+            String ruleSlotsFrom = now;
+            if (resuming) {
+                int found = Collections.binarySearch(slots, afterSlot);
+                index = found < 0 ? -found - 1 : found + 1;
+                ruleSlotsFrom = afterSlot.compareTo(now) > 0 ? afterSlot : now;
+            }
+            Iterator<String> ruleSlots = RecurringAvailabilitySystem.getRules(doctorID).isEmpty()
+                    ? Collections.emptyIterator()
+                    : RecurringAvailabilitySystem.slotIterator(doctorID, ruleSlotsFrom, lastDate, null);
+            SlotCursor slotCursor = new SlotCursor(doctorID, slots, index, ruleSlots, null);
+            while (resuming && slotCursor.hasCurrent() && slotCursor.current().compareTo(afterSlot) <= 0) {
+                slotCursor.advance();
+            }
+
+            if (!resuming && !slotCursor.hasCurrent()) {
+                if (rows.size() == limit) {
+                    return new Page<>(rows, availabilityCursor(rows.get(limit - 1)));
+                }
+                rows.add(Map.entry(doctorID, ""));
+            }
+            while (slotCursor.hasCurrent()) {
+                if (rows.size() == limit) {
+                    return new Page<>(rows, availabilityCursor(rows.get(limit - 1)));
                 }
+                rows.add(Map.entry(doctorID, slotCursor.current()));
+                slotCursor.advance();
             }
-            System.out.println("+------------+----------------------------------------------+");
         }
+        return new Page<>(rows, null);
+    }
+
+    /**
+     * Builds the cursor that resumes the availability listing after a row.
+     *
+     * @param row the last (doctor ID, slot) row of a page.
+     * @return the cursor of the next page.
+     */
+    private static String availabilityCursor(Map.Entry<String, String> row) {
+        return row.getKey() + "|" + row.getValue();
     }
 
     /**
@@ -138,7 +280,7 @@ public class AppointmentSystem {
      * @param doctorID The ID of the doctor whose availability is being displayed.
      */
     public static void displayDoctorAvailability(String doctorID) {
-        List<String> slots = doctorAvailability.getOrDefault(doctorID, new ArrayList<>());
+        List<String> slots = getAvailableSlots(doctorID);
         if (slots.isEmpty()) {
             System.out.println("No availability set for Doctor ID: " + doctorID);
         } else {
@@ -151,12 +293,13 @@ public class AppointmentSystem {
      * Prompts the user to select a slot to remove from a given doctor's availability list.
      * If no availability is set for the doctor, a message is shown.
      * Once a valid slot is selected, it is removed from the list, and the changes are saved.
+     * A slot of a recurring availability rule is removed by recording an exception against the rule.
      *
      * @param doctorID The ID of the doctor whose availability is being modified.
      */
     public static void removeDoctorAvailability(String doctorID) {
-        List<String> slots = doctorAvailability.get(doctorID);
-        if (slots == null || slots.isEmpty()) {
+        List<String> slots = getAvailableSlots(doctorID);
+        if (slots.isEmpty()) {
             System.out.println("No availability set for Doctor ID: " + doctorID);
             return;
         }
@@ -171,9 +314,10 @@ public class AppointmentSystem {
         );
 
         if (input != null) {
-            int slotIndex = Integer.parseInt(input) - 1;
-            String removedSlot = slots.remove(slotIndex);
-            saveDoctorAvailability();
+            String removedSlot = slots.get(Integer.parseInt(input) - 1);
+            synchronized (AppointmentSystem.class) {
+                bookSlot(doctorID, removedSlot);
+            }
             System.out.println("Removed availability: " + removedSlot);
         }
     }
@@ -185,12 +329,37 @@ public class AppointmentSystem {
      *
      * @return List of appointments.
      */
-    public static List<Appointment> getAppointments() {
+    public static synchronized List<Appointment> getAppointments() {
         return new ArrayList<>(appointments);
     }
 
     /**
-     * Retrieves appointments for a specific patient filtered by status.
+     * Returns the appointments as of their last save, for reports and listings. Taking the snapshot does not wait for
+     * the sessions changing appointments, and the snapshot does not change while it is read.
+     *
+     * @return copies of all appointments in ascending order of ID, which must not be changed.
+     */
+    public static List<Appointment> getAppointmentsSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Retrieves an appointment by its ID.
+     *
+     * @param appointmentID the ID of the appointment.
+     * @return the appointment, or null if not found.
+     */
+    public static synchronized Appointment getAppointmentByID(int appointmentID) {
+        for (Appointment appointment : appointments) {
+            if (appointment.getID() == appointmentID) {
+                return appointment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves appointments for a specific patient filtered by status, as of their last save.
      *
      * @param patientID the ID of the patient.
      * @param statuses  the list of statuses to filter by (nullable for all statuses).
@@ -199,7 +368,7 @@ public class AppointmentSystem {
     public static List<Appointment> getAppointmentsByPatient(String patientID, List<AppointmentStatus> statuses) {
         List<Appointment> result = new ArrayList<>();
 
-        for (Appointment appointment : appointments) {
+        for (Appointment appointment : snapshot.get()) {
             boolean matchesPatient = appointment.getPatientID().equalsIgnoreCase(patientID);
             boolean matchesStatus = statuses == null || statuses.contains(appointment.getAppointmentStatus());
 
@@ -212,28 +381,83 @@ public class AppointmentSystem {
     }
 
     /**
-     * Displays all appointments regardless of status or person.
+     * Displays all appointments regardless of person, one page at a time.
+     * The user may filter the appointments by status.
      */
     public static void displayAllAppointments() {
-        List<Appointment> allAppointments = getAppointments();  // Assuming getAppointments() returns all appointments
-
-        if (allAppointments.isEmpty()) {
+        String statusInput = InputHandler.getValidatedInput(
+                "Enter a status to filter by (pending, approved, completed, cancelled, declined, expired, no-show) or leave blank for all: ",
+                "Invalid status.",
+                input -> input.isBlank() || parseStatus(input) != null
+        );
+        AppointmentStatus status = statusInput.isBlank() ? null : parseStatus(statusInput);
+
+        boolean hasRows = PageNavigator.browse("\n--- All Appointments ---", APPOINTMENT_TABLE,
+                new String[]{"Appointment ID", "Doctor ID", "Date", "Status"},
+                (cursor, limit) -> getAppointmentsPage(cursor, limit, status),
+                (out, appointment, previousRow, rowNumber) -> APPOINTMENT_TABLE.row(out)
+                        .cell(appointment.getID())
+                        .cell(appointment.getDoctorID())
+                        .cell(formatDate(appointment.getAppointmentDate()))
+                        .cell(appointment.getAppointmentStatus())
+                        .end());
+        if (!hasRows) {
             System.out.println("No appointments found.");
-            return;
         }
+    }
 
-        System.out.println("\n--- All Appointments ---");
-        System.out.printf("%-15s %-15s %-25s %-15s%n", "Appointment ID", "Doctor ID", "Date", "Status");
-        System.out.println("------------------------------------------------------------");
+    /**
+     * Returns a page of appointments in ascending order of appointment ID, as of their last save.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page.
+     * @param limit  the maximum number of appointments on the page.
+     * @param status the status to filter by, or null for all statuses.
+     * @return the page of appointments.
+     */
+    public static Page<Appointment> getAppointmentsPage(String cursor, int limit, AppointmentStatus status) {
+        // Appointments are kept in ascending order of ID, so the page starts right after the last ID of the previous page
+        List<Appointment> appointments = snapshot.get();
+        int index = 0;
+        if (cursor != null) {
+            int afterID = Integer.parseInt(cursor);
+            int high = appointments.size();
+            while (index < high) {
+                int middle = (index + high) >>> 1;
+                if (appointments.get(middle).getID() <= afterID) {
+                    index = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+        }
 
-        for (Appointment appointment : allAppointments) {
-            System.out.printf("%-15d %-15s %-25s %-15s%n",
-                    appointment.getID(),
-                    appointment.getDoctorID(),
-                    formatDate(appointment.getAppointmentDate()),
-                    appointment.getAppointmentStatus());
+        List<Appointment> page = new ArrayList<>(limit);
+        for (; index < appointments.size(); index++) {
+            Appointment appointment = appointments.get(index);
+            if (status != null && appointment.getAppointmentStatus() != status) {
+                continue;
+            }
+            if (page.size() == limit) {
+                return new Page<>(page, String.valueOf(page.get(limit - 1).getID()));
+            }
+            page.add(appointment);
         }
-        System.out.println("------------------------------------------------------------");
+        return new Page<>(page, null);
+    }
+
+    /**
+     * Parses an appointment status entered by the user.
+     *
+     * @param input the status, such as "pending" or "no-show".
+     * @return the status, or null if the input is not a status.
+     */
+    private static AppointmentStatus parseStatus(String input) {
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            if (status.toString().equalsIgnoreCase(input.trim())) {
+                return status;
+            }
+        }
+        return null;
     }
 
     /**
@@ -250,21 +474,19 @@ public class AppointmentSystem {
             return;
         }
 
-        System.out.println("\n--- Appointments for Patient ID: " + patientID + " ---");
-
-        System.out.println("+-----------------+-----------------+-------------------------+-----------------+");
-        System.out.printf("| %-15s | %-15s | %-23s | %-15s |%n", "Appointment ID", "Doctor ID", "Date", "Status");
-        System.out.println("+-----------------+-----------------+-------------------------+-----------------+");
-
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Appointments for Patient ID: ").append(patientID).append(" ---\n");
+        PATIENT_APPOINTMENT_TABLE.header(out, "Appointment ID", "Doctor ID", "Date", "Status");
         for (Appointment appointment : appointmentsForPatient) {
-            System.out.printf("| %-15d | %-15s | %-23s | %-15s |%n",
-                    appointment.getID(),
-                    appointment.getDoctorID(),
-                    formatDate(appointment.getAppointmentDate()),
-                    appointment.getAppointmentStatus());
+            PATIENT_APPOINTMENT_TABLE.row(out)
+                    .cell(appointment.getID())
+                    .cell(appointment.getDoctorID())
+                    .cell(formatDate(appointment.getAppointmentDate()))
+                    .cell(appointment.getAppointmentStatus())
+                    .end();
         }
-
-        System.out.println("+-----------------+-----------------+-------------------------+-----------------+");
+        PATIENT_APPOINTMENT_TABLE.border(out);
+        TableRenderer.flush(out);
     }
 
     /**
@@ -276,17 +498,19 @@ public class AppointmentSystem {
      */
     public static String selectDoctorWithAvailableSlots() {
         List<String> selectableDoctors = new ArrayList<>();
-        System.out.printf("%-15s %-30s%n", "Doctor ID", "Available Slots");
-        System.out.println("------------------------------------------------");
-
-        for (Map.Entry<String, List<String>> entry : doctorAvailability.entrySet()) {
-            String doctorID = entry.getKey();
-            List<String> slots = entry.getValue();
-            if (!slots.isEmpty()) {
-                System.out.printf("%-15s %-30s%n", doctorID, String.join(", ", slots));
-                selectableDoctors.add(doctorID);
+        StringBuilder out = TableRenderer.buffer();
+        DOCTOR_SLOTS_TABLE.header(out, "Doctor ID", "Available Slots", "Earliest Slot");
+
+        synchronized (AppointmentSystem.class) {
+            for (String doctorID : getDoctorIDsWithAvailability()) {
+                List<String> slots = getAvailableSlots(doctorID);
+                if (!slots.isEmpty()) {
+                    DOCTOR_SLOTS_TABLE.row(out).cell(doctorID).cell(slots.size()).cell(slots.get(0)).end();
+                    selectableDoctors.add(doctorID);
+                }
             }
         }
+        TableRenderer.flush(out);
 
         if (selectableDoctors.isEmpty()) {
             System.out.println("No doctors with available slots.");
@@ -309,7 +533,7 @@ public class AppointmentSystem {
      * @return The selected appointment date, or null if the selection is invalid or if no available slots are found.
      */
     public static Date selectSlotForDoctor(String doctorID) {
-        List<String> availableSlots = doctorAvailability.getOrDefault(doctorID, new ArrayList<>());
+        List<String> availableSlots = getAvailableSlots(doctorID);
 
         if (availableSlots.isEmpty()) {
             System.out.println("No available slots for Doctor ID: " + doctorID);
@@ -328,13 +552,99 @@ public class AppointmentSystem {
         if (selectedSlot == null) return null;
 
         try {
-            return DATE_FORMAT.parse(availableSlots.get(Integer.parseInt(selectedSlot) - 1));
+            return DATE_FORMAT.get().parse(availableSlots.get(Integer.parseInt(selectedSlot) - 1));
         } catch (Exception e) {
             System.out.println("Error parsing the selected slot.");
             return null;
         }
     }
 
+    /**
+     * Finds the earliest free slots across all doctors, from now on, optionally restricted to a time window.
+     * Every doctor's slot list is kept in time order and recurring availability is generated in time order, so the lists are merged with a priority queue holding
+     * one cursor per doctor: each step takes the earliest cursor and advances it, costing O(log d) for d doctors.
+     *
+     * @param k          The maximum number of slots to return.
+     * @param timeWindow The time window the slots must fall within, or null for any time.
+     * @return Up to k free slots in time order.
+     */
+    public static synchronized List<AvailableSlot> findEarliestSlots(int k, TimeWindow timeWindow) {
+        String now = DATE_FORMAT.get().format(new Date());
+        LocalDate lastDate = LocalDate.now().plusDays(EARLIEST_SLOTS_SEARCH_DAYS);
+        List<SlotCursor> cursors = new ArrayList<>();
+        for (String doctorID : getDoctorIDsWithAvailability()) {
+            List<String> slots = doctorAvailability.getOrDefault(doctorID, List.of());
+            int index = Collections.binarySearch(slots, now);
+            Iterator<String> ruleSlots = RecurringAvailabilitySystem.getRules(doctorID).isEmpty()
+                    ? Collections.emptyIterator()
+                    : RecurringAvailabilitySystem.slotIterator(doctorID, now, lastDate, timeWindow);
+            SlotCursor cursor = new SlotCursor(doctorID, slots, index < 0 ? -index - 1 : index, ruleSlots, timeWindow);
+            if (cursor.hasCurrent()) {
+                cursors.add(cursor);
+            }
+        }
+
+        PriorityQueue<SlotCursor> merge = new PriorityQueue<>(Math.max(cursors.size(), 1),
+                Comparator.comparing(SlotCursor::current));
+        merge.addAll(cursors);
+
+        List<AvailableSlot> earliestSlots = new ArrayList<>();
+        while (earliestSlots.size() < k && !merge.isEmpty()) {
+            SlotCursor cursor = merge.poll();
+            try {
+                earliestSlots.add(new AvailableSlot(cursor.doctorID, DATE_FORMAT.get().parse(cursor.current())));
+            } catch (Exception e) {
+                System.err.println("Invalid slot for Doctor ID " + cursor.doctorID + ": " + cursor.current());
+            }
+            cursor.advance();
+            if (cursor.hasCurrent()) {
+                merge.add(cursor);
+            }
+        }
+        return earliestSlots;
+    }
+
+    /**
+     * Displays the earliest free slots across all doctors within a chosen time window
+     * and books the slot the patient selects.
+     * If no slot is free, the patient is offered to join a doctor's waitlist.
+     *
+     * @param patientID The ID of the patient booking the appointment.
+     */
+    public static void bookEarliestSlotMenu(String patientID) {
+        TimeWindow timeWindow = TimeWindow.valueOf(InputHandler.getValidatedInput(
+                "Enter your preferred time window (morning/afternoon/any): ",
+                "Invalid input. Please enter 'morning', 'afternoon' or 'any'.",
+                input -> input.equalsIgnoreCase("morning") || input.equalsIgnoreCase("afternoon") || input.equalsIgnoreCase("any")
+        ).toUpperCase());
+
+        List<AvailableSlot> earliestSlots = findEarliestSlots(EARLIEST_SLOTS_SHOWN, timeWindow);
+        if (earliestSlots.isEmpty()) {
+            System.out.println("No available slots in the " + timeWindow + " window.");
+            WaitlistSystem.joinWaitlistMenu(patientID);
+            return;
+        }
+
+        StringBuilder out = TableRenderer.buffer();
+        EARLIEST_SLOT_TABLE.header(out, "No.", "Doctor ID", "Available Slot");
+        for (int i = 0; i < earliestSlots.size(); i++) {
+            AvailableSlot slot = earliestSlots.get(i);
+            EARLIEST_SLOT_TABLE.row(out).cell(i + 1).cell(slot.getDoctorID()).cell(formatDate(slot.getSlot())).end();
+        }
+        EARLIEST_SLOT_TABLE.border(out);
+        TableRenderer.flush(out);
+
+        String selectedSlot = InputHandler.getValidatedInputWithExit(
+                "Enter the slot number from the available options: ",
+                "Invalid input. Please select a valid slot number.",
+                input -> isValidSlotSelection(input, earliestSlots.size())
+        );
+        if (selectedSlot == null) return;
+
+        AvailableSlot slot = earliestSlots.get(Integer.parseInt(selectedSlot) - 1);
+        scheduleAppointment(patientID, slot.getDoctorID(), slot.getSlot());
+    }
+
     /**
      * Schedules an appointment for a patient with the specified doctor at the selected date and time.
      * If the selected slot is unavailable, an error message is displayed.
@@ -343,25 +653,40 @@ public class AppointmentSystem {
      * @param patientID The ID of the patient scheduling the appointment.
      * @param doctorID The ID of the doctor with whom the appointment is being scheduled.
      * @param appointmentDate The date and time of the appointment.
+     * @return the scheduled appointment, or null if the slot is not available.
      */
-    public static void scheduleAppointment(String patientID, String doctorID, Date appointmentDate) {
-        String slot = DATE_FORMAT.format(appointmentDate);
-        if (!isSlotAvailable(doctorID, slot)) {
-            System.out.println("The selected slot is not available.");
-            return;
-        }
+    public static Appointment scheduleAppointment(String patientID, String doctorID, Date appointmentDate) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                WorkflowEvent event = WorkflowEvent.start("booking", 0);
+                String slot = DATE_FORMAT.get().format(appointmentDate);
+                if (!isSlotAvailable(doctorID, slot)) {
+                    System.out.println("The selected slot is not available.");
+                    event.end(0, false);
+                    return null;
+                }
 
-        Appointment appointment = new Appointment(
-                appointments.size() + 1,
-                patientID,
-                doctorID,
-                AppointmentStatus.PENDING,
-                appointmentDate
-        );
-        appointments.add(appointment);
-        bookSlot(doctorID, slot);
-        saveAppointments();
-        System.out.println("Appointment scheduled successfully.");
+                Appointment appointment = new Appointment(
+                        appointments.size() + 1,
+                        patientID,
+                        doctorID,
+                        AppointmentStatus.PENDING,
+                        appointmentDate
+                );
+                event.setAppointmentID(appointment.getID());
+                appointment.update(() -> appointment.setExpiresAt(AppointmentExpirySystem.getPendingDeadline(appointmentDate)));
+                appointments.add(appointment);
+                DashboardCounters.appointmentAdded(appointment);
+                bookSlot(doctorID, slot);
+                saveAppointments();
+                trackAppointment(appointment, DomainEvent.Type.APPOINTMENT_BOOKED);
+                System.out.println("Appointment scheduled successfully.");
+                event.end(1, true);
+                return appointment;
+            }
+        } finally {
+            DomainEvents.publishDeferred();
+        }
     }
 
     /**
@@ -412,6 +737,7 @@ public class AppointmentSystem {
         }
 
         // Step 3: Display current appointment details
+        long version = appointmentToReschedule.getVersion(); // The doctor may still decide on it while the patient chooses
         System.out.println("\n--- Rescheduling Appointment ---");
         System.out.println("Current Appointment Details:");
         System.out.printf("Doctor: %s | Date: %s | Status: %s%n",
@@ -443,7 +769,11 @@ public class AppointmentSystem {
         }
 
         // Step 5: Update the appointment
-        rescheduleAppointment(appointmentID, newDoctorID, newSlot);
+        try {
+            rescheduleAppointment(appointmentID, version, newDoctorID, newSlot);
+        } catch (ConcurrentUpdateException e) {
+            System.out.println(e.getMessage() + ". Please review your appointments and try again.");
+        }
     }
 
     /**
@@ -452,94 +782,280 @@ public class AppointmentSystem {
      * @param appointmentID the ID of the appointment to reschedule.
      * @param newDoctorID   the new doctor's ID.
      * @param newDate       the new appointment date.
+     * @return true if the appointment was rescheduled, false otherwise.
      */
-    public static void rescheduleAppointment(int appointmentID, String newDoctorID, Date newDate) {
-        String newSlot = DATE_FORMAT.format(newDate);
-
-        for (Appointment appointment : appointments) {
-            if (appointment.getID() == appointmentID) {
-                if (!isSlotAvailable(newDoctorID, newSlot)) {
-                    System.out.println("The new slot is not available. Please choose another.");
-                    return;
-                }
+    public static boolean rescheduleAppointment(int appointmentID, String newDoctorID, Date newDate) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                Appointment appointment = getAppointmentByID(appointmentID);
+                return rescheduleAppointment(appointmentID, appointment == null ? 0 : appointment.getVersion(), newDoctorID, newDate);
+            }
+        } finally {
+            DomainEvents.publishDeferred();
+        }
+    }
 
-                // Free the old slot if the doctor changes
-                if (!appointment.getDoctorID().equalsIgnoreCase(newDoctorID)) {
-                    addSlot(appointment.getDoctorID(), formatDate(appointment.getAppointmentDate()));
+    /**
+     * Updates the details of an appointment (reschedules it) if it has not changed since the patient chose the new slot.
+     *
+     * @param appointmentID   the ID of the appointment to reschedule.
+     * @param expectedVersion the version of the appointment the patient saw.
+     * @param newDoctorID     the new doctor's ID.
+     * @param newDate         the new appointment date.
+     * @return true if the appointment was rescheduled, false otherwise.
+     * @throws ConcurrentUpdateException if the appointment was changed since the patient saw it.
+     */
+    public static boolean rescheduleAppointment(int appointmentID, long expectedVersion, String newDoctorID, Date newDate) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                WorkflowEvent event = WorkflowEvent.start("reschedule", appointmentID);
+                String newSlot = DATE_FORMAT.get().format(newDate);
+
+                for (Appointment appointment : appointments) {
+                    if (appointment.getID() == appointmentID) {
+                        if (!isSlotAvailable(newDoctorID, newSlot)) {
+                            System.out.println("The new slot is not available. Please choose another.");
+                            event.end(0, false);
+                            return false;
+                        }
+
+                        // Update the appointment details, unless it changed since the patient saw it
+                        String oldDoctorID = appointment.getDoctorID();
+                        Date oldDate = appointment.getAppointmentDate();
+                        try {
+                            appointment.compareAndSet(expectedVersion, () -> {
+                                appointment.setDoctorID(newDoctorID);
+                                appointment.setAppointmentDate(newDate);
+                                if (appointment.getExpiresAt() != null && appointment.getExpiresAt().after(newDate)) {
+                                    appointment.setExpiresAt(newDate); // Must still be approved before it takes place
+                                }
+                            });
+                        } catch (ConcurrentUpdateException e) {
+                            event.end(0, false);
+                            throw e;
+                        }
+                        DashboardCounters.appointmentDoctorChanged(oldDoctorID, newDoctorID, appointment.getAppointmentStatus());
+
+                        // Free the old slot if the doctor changes
+                        if (!oldDoctorID.equalsIgnoreCase(newDoctorID)) {
+                            releaseSlot(oldDoctorID, formatDate(oldDate));
+                        }
+
+                        // Book the new slot
+                        bookSlot(newDoctorID, newSlot);
+                        saveAppointments();
+                        trackAppointment(appointment, DomainEvent.Type.APPOINTMENT_CHANGED);
+
+                        System.out.println("Appointment rescheduled successfully.");
+                        event.end(1, true);
+                        return true;
+                    }
                 }
-
-                // Book the new slot
-                bookSlot(newDoctorID, newSlot);
-
-                // Update the appointment details
-                appointment.setDoctorID(newDoctorID);
-                appointment.setAppointmentDate(newDate);
-                saveAppointments();
-
-                System.out.println("Appointment rescheduled successfully.");
-                return;
+                System.out.println("Appointment not found.");
+                event.end(0, false);
+                return false;
             }
+        } finally {
+            DomainEvents.publishDeferred();
         }
-        System.out.println("Appointment not found.");
     }
 
     /**
-     * Approves pending appointments for a specific doctor.
+     * Lets a doctor approve or decline pending appointments in bulk.
+     * The doctor selects a list of appointment IDs, all pending appointments, or the pending appointments within a date range,
+     * and the decision is applied to all of them at once. The result of each appointment is then displayed.
      *
      * @param doctorID the ID of the doctor.
      */
     public static void approvePendingAppointments(String doctorID) {
-        boolean foundPending = false;
-
-        System.out.println("\n--- Pending Appointments for Approval ---");
-        System.out.printf("%-15s %-15s %-25s %-15s%n", "Appointment ID", "Patient ID", "Date", "Status");
-        System.out.println("-------------------------------------------------------------------");
+        List<Appointment> pendingAppointments = getAppointmentsByDoctor(doctorID, AppointmentStatus.PENDING);
 
-        for (Appointment appointment : appointments) {
-            if (appointment.getDoctorID().equalsIgnoreCase(doctorID) && appointment.getAppointmentStatus() == AppointmentStatus.PENDING) {
-                System.out.printf("%-15d %-15s %-25s %-15s%n",
-                        appointment.getID(),
-                        appointment.getPatientID(),
-                        DATE_FORMAT.format(appointment.getAppointmentDate()),
-                        appointment.getAppointmentStatus());
-                foundPending = true;
-            }
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Pending Appointments for Approval ---\n");
+        APPOINTMENT_TABLE.header(out, "Appointment ID", "Patient ID", "Date", "Status");
+        for (Appointment appointment : pendingAppointments) {
+            appendPatientAppointmentRow(out, appointment);
         }
+        TableRenderer.flush(out);
 
-        if (!foundPending) {
+        if (pendingAppointments.isEmpty()) {
             System.out.println("No pending appointments to approve.");
             return;
         }
 
-        String inputID = InputHandler.getValidatedInputWithExit(
-                "Enter the Appointment ID to approve or type 'exit' to go back: ",
-                "Invalid input. Please enter a valid Appointment ID.",
-                input -> {
-                    try {
-                        int appointmentID = Integer.parseInt(input);
-                        return appointments.stream().anyMatch(app ->
-                                app.getID() == appointmentID &&
-                                        app.getDoctorID().equalsIgnoreCase(doctorID) &&
-                                        app.getAppointmentStatus() == AppointmentStatus.PENDING);
-                    } catch (NumberFormatException e) {
-                        return false;
-                    }
-                }
+        String action = InputHandler.getValidatedInputWithExit(
+                "Enter 'approve' or 'decline', or type 'exit' to go back: ",
+                "Invalid input. Please enter 'approve' or 'decline'.",
+                input -> input.equalsIgnoreCase("approve") || input.equalsIgnoreCase("decline")
         );
-
-        if (inputID == null) {
+        if (action == null) {
+            System.out.println("Approval process canceled.");
+            return;
+        }
+        boolean approve = action.equalsIgnoreCase("approve");
+
+        String selection = InputHandler.getValidatedInputWithExit(
+                "Enter Appointment IDs separated by commas, 'all', or a date range (YYYY-MM-DD to YYYY-MM-DD): ",
+                "Invalid input. Enter IDs such as 3,5,8, 'all', or a range such as 2024-11-01 to 2024-11-30.",
+                input -> input.equalsIgnoreCase("all")
+                        || input.matches("\\s*\\d+(\\s*,\\s*\\d+)*\\s*")
+                        || input.matches("\\s*\\d{4}-\\d{2}-\\d{2}\\s+to\\s+\\d{4}-\\d{2}-\\d{2}\\s*")
+        );
+        if (selection == null) {
             System.out.println("Approval process canceled.");
             return;
         }
 
-        int appointmentID = Integer.parseInt(inputID);
-        for (Appointment appointment : appointments) {
-            if (appointment.getID() == appointmentID) {
-                appointment.setAppointmentStatus(AppointmentStatus.APPROVED);
-                saveAppointments();
-                System.out.println("Appointment ID " + appointmentID + " has been approved successfully.");
-                break;
+        List<DecisionResult> results;
+        if (selection.equalsIgnoreCase("all")) {
+            results = decidePendingAppointments(doctorID, null, null, approve);
+        } else if (selection.contains("to")) {
+            String[] range = selection.trim().split("\\s+to\\s+");
+            try {
+                Date from = DATE_FORMAT.get().parse(range[0] + " 00:00");
+                Date to = new Date(DATE_FORMAT.get().parse(range[1] + " 00:00").getTime() + 24 * 60 * 60 * 1000L); // Inclusive end date
+                results = decidePendingAppointments(doctorID, from, to, approve);
+            } catch (Exception e) {
+                System.out.println("Invalid date range.");
+                return;
+            }
+        } else {
+            List<Integer> appointmentIDs = new ArrayList<>();
+            for (String id : selection.split(",")) {
+                appointmentIDs.add(Integer.parseInt(id.trim()));
+            }
+            results = decideAppointments(doctorID, appointmentIDs, approve);
+        }
+
+        out = TableRenderer.buffer();
+        DECISION_TABLE.header(out, "Appointment ID", "Result");
+        for (DecisionResult result : results) {
+            DECISION_TABLE.row(out).cell(result.getAppointmentID()).cell(result.getMessage()).end();
+        }
+        TableRenderer.flush(out);
+        long applied = results.stream().filter(DecisionResult::isApplied).count();
+        System.out.println(applied + " of " + results.size() + " appointment(s) " + (approve ? "approved." : "declined."));
+    }
+
+    /**
+     * Approves or declines a set of appointments of a doctor under one lock acquisition and one save.
+     * Appointments that are not pending appointments of the doctor are skipped and reported in the results.
+     * Declined appointments return their slots to availability, and the freed slots are offered to the doctor's waitlist.
+     *
+     * @param doctorID       the ID of the doctor deciding.
+     * @param appointmentIDs the IDs of the appointments to decide on.
+     * @param approve        true to approve the appointments, false to decline them.
+     * @return the result of each appointment, in the order of the given IDs.
+     */
+    public static List<DecisionResult> decideAppointments(String doctorID, Collection<Integer> appointmentIDs, boolean approve) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                WorkflowEvent event = WorkflowEvent.start(approve ? "bulk_approve" : "bulk_decline", 0);
+                Map<Integer, Appointment> appointmentsByID = new HashMap<>();
+                for (Appointment appointment : appointments) {
+                    appointmentsByID.put(appointment.getID(), appointment);
+                }
+
+                List<DecisionResult> results = new ArrayList<>(appointmentIDs.size());
+                List<Appointment> decided = new ArrayList<>();
+                List<String> freedSlots = new ArrayList<>();
+                for (int appointmentID : appointmentIDs) {
+                    Appointment appointment = appointmentsByID.get(appointmentID);
+                    if (appointment == null) {
+                        results.add(new DecisionResult(appointmentID, false, "not found"));
+                    } else if (!appointment.getDoctorID().equalsIgnoreCase(doctorID)) {
+                        results.add(new DecisionResult(appointmentID, false, "not your appointment"));
+                    } else if (appointment.getAppointmentStatus() != AppointmentStatus.PENDING) {
+                        results.add(new DecisionResult(appointmentID, false, "not pending (" + appointment.getAppointmentStatus() + ")"));
+                    } else {
+                        updateAppointmentStatus(appointment, approve ? AppointmentStatus.APPROVED : AppointmentStatus.DECLINED);
+                        decided.add(appointment);
+                        if (!approve) {
+                            freedSlots.add(DATE_FORMAT.get().format(appointment.getAppointmentDate()));
+                        }
+                        results.add(new DecisionResult(appointmentID, true, approve ? "approved" : "declined"));
+                    }
+                }
+
+                if (!decided.isEmpty()) {
+                    saveAppointments();
+                    releaseSlots(doctorID, freedSlots);
+                    for (Appointment appointment : decided) {
+                        trackAppointment(appointment, appointment.getAppointmentStatus() == AppointmentStatus.APPROVED
+                                ? DomainEvent.Type.APPOINTMENT_APPROVED : DomainEvent.Type.APPOINTMENT_CHANGED);
+                    }
+                    String now = DATE_FORMAT.get().format(new Date());
+                    for (String slot : freedSlots) {
+                        if (WaitlistSystem.getWaitlistSize(doctorID) == 0) {
+                            break;
+                        }
+                        if (slot.compareTo(now) > 0) {
+                            offerSlotToWaitlist(doctorID, slot);
+                        }
+                    }
+                }
+                event.end(decided.size(), !decided.isEmpty());
+                return results;
             }
+        } finally {
+            DomainEvents.publishDeferred();
+        }
+    }
+
+    /**
+     * Approves or declines all pending appointments of a doctor, optionally within a date range,
+     * under one lock acquisition and one save.
+     *
+     * @param doctorID the ID of the doctor deciding.
+     * @param from     the start of the date range, inclusive, or null for no lower bound.
+     * @param to       the end of the date range, exclusive, or null for no upper bound.
+     * @param approve  true to approve the appointments, false to decline them.
+     * @return the result of each pending appointment in the range.
+     */
+    public static List<DecisionResult> decidePendingAppointments(String doctorID, Date from, Date to, boolean approve) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                List<Integer> appointmentIDs = new ArrayList<>();
+                for (Appointment appointment : appointments) {
+                    Date date = appointment.getAppointmentDate();
+                    if (appointment.getDoctorID().equalsIgnoreCase(doctorID)
+                            && appointment.getAppointmentStatus() == AppointmentStatus.PENDING
+                            && (from == null || !date.before(from))
+                            && (to == null || date.before(to))) {
+                        appointmentIDs.add(appointment.getID());
+                    }
+                }
+                return decideAppointments(doctorID, appointmentIDs, approve);
+            }
+        } finally {
+            DomainEvents.publishDeferred();
+        }
+    }
+
+    /**
+     * Approves a pending appointment of a specific doctor and saves the change.
+     *
+     * @param appointmentID the ID of the appointment to approve.
+     * @param doctorID      the ID of the doctor the appointment belongs to.
+     * @return true if the appointment was approved, false if it is not a pending appointment of the doctor.
+     */
+    public static boolean approveAppointment(int appointmentID, String doctorID) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                for (Appointment appointment : appointments) {
+                    if (appointment.getID() == appointmentID &&
+                            appointment.getDoctorID().equalsIgnoreCase(doctorID) &&
+                            appointment.getAppointmentStatus() == AppointmentStatus.PENDING) {
+                        updateAppointmentStatus(appointment, AppointmentStatus.APPROVED);
+                        saveAppointments();
+                        trackAppointment(appointment, DomainEvent.Type.APPOINTMENT_APPROVED);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        } finally {
+            DomainEvents.publishDeferred();
         }
     }
 
@@ -548,38 +1064,159 @@ public class AppointmentSystem {
      *
      * @param patientID     the ID of the patient.
      * @param appointmentID the ID of the appointment to be canceled.
+     * @return true if the appointment was canceled, false if no matching pending or approved appointment was found.
      */
-    public static void cancelAppointment(String patientID, int appointmentID) {
-        // Find the appointment to cancel
-        Appointment appointmentToCancel = null;
+    public static boolean cancelAppointment(String patientID, int appointmentID) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                // Find the appointment to cancel
+                Appointment appointmentToCancel = null;
+
+                for (Appointment appointment : appointments) {
+                    if (appointment.getID() == appointmentID && appointment.getPatientID().equalsIgnoreCase(patientID)) {
+                        appointmentToCancel = appointment;
+                        break;
+                    }
+                }
 
-        for (Appointment appointment : appointments) {
-            if (appointment.getID() == appointmentID && appointment.getPatientID().equalsIgnoreCase(patientID)) {
-                appointmentToCancel = appointment;
-                break;
+                if (appointmentToCancel == null) {
+                    System.out.println("No matching appointment found for the provided ID.");
+                    return false;
+                }
+
+                // Only a booked appointment holds its slot, an expired, declined or settled one gave it back already
+                AppointmentStatus status = appointmentToCancel.getAppointmentStatus();
+                if (status != AppointmentStatus.PENDING && status != AppointmentStatus.APPROVED) {
+                    System.out.println("Appointment ID " + appointmentID + " is " + status + " and can no longer be canceled.");
+                    return false;
+                }
+
+                // Mark the appointment as canceled
+                updateAppointmentStatus(appointmentToCancel, AppointmentStatus.CANCELLED);
+                saveAppointments(); // Save the updated appointments to the file
+                trackAppointment(appointmentToCancel, DomainEvent.Type.APPOINTMENT_CHANGED);
+
+                // Return the slot to the doctor's availability once the cancellation is saved
+                String doctorID = appointmentToCancel.getDoctorID();
+                String slot = DATE_FORMAT.get().format(appointmentToCancel.getAppointmentDate());
+
+                if (!isSlotAvailable(doctorID, slot)) {
+                    releaseSlot(doctorID, slot);
+                    System.out.println("Slot " + slot + " has been returned to availability for Doctor ID: " + doctorID);
+                    offerSlotToWaitlist(doctorID, slot);
+                }
+
+                System.out.println("Appointment ID " + appointmentID + " has been canceled successfully.");
+                return true;
             }
+        } finally {
+            DomainEvents.publishDeferred();
         }
+    }
 
-        if (appointmentToCancel == null) {
-            System.out.println("No matching appointment found for the provided ID.");
-            return;
+    /**
+     * Expires a pending appointment whose approval deadline has passed and returns its slot to availability
+     * if the slot is still in the future. The freed slot is offered to the doctor's waitlist.
+     * If the deadline has moved since the timer was set, the appointment is tracked again instead.
+     *
+     * @param appointmentID the ID of the appointment.
+     * @return true if the appointment expired, false otherwise.
+     */
+    public static boolean expirePendingAppointment(int appointmentID) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                Appointment appointment = getAppointmentByID(appointmentID);
+                if (appointment == null || appointment.getAppointmentStatus() != AppointmentStatus.PENDING) {
+                    return false;
+                }
+
+                Date now = new Date();
+                if (appointment.getExpiresAt() != null && appointment.getExpiresAt().after(now)) {
+                    AppointmentExpirySystem.track(appointment);
+                    return false;
+                }
+
+                updateAppointmentStatus(appointment, AppointmentStatus.EXPIRED);
+                saveAppointments();
+
+                String doctorID = appointment.getDoctorID();
+                String slot = DATE_FORMAT.get().format(appointment.getAppointmentDate());
+                if (appointment.getAppointmentDate().after(now) && !isSlotAvailable(doctorID, slot)) {
+                    releaseSlot(doctorID, slot);
+                    offerSlotToWaitlist(doctorID, slot);
+                }
+                return true;
+            }
+        } finally {
+            DomainEvents.publishDeferred();
         }
+    }
+
+    /**
+     * Settles an approved appointment once its grace period has passed: it is completed if an outcome was recorded,
+     * or marked as a no-show otherwise. If the grace period has not passed, the appointment is tracked again instead.
+     *
+     * @param appointmentID the ID of the appointment.
+     * @param hasOutcome    whether an outcome was recorded for the appointment.
+     * @param graceMillis   the grace period after the appointment, in milliseconds.
+     * @return true if the appointment was settled, false otherwise.
+     */
+    public static boolean settleApprovedAppointment(int appointmentID, boolean hasOutcome, long graceMillis) {
+        try {
+            synchronized (AppointmentSystem.class) {
+                Appointment appointment = getAppointmentByID(appointmentID);
+                if (appointment == null || appointment.getAppointmentStatus() != AppointmentStatus.APPROVED) {
+                    return false;
+                }
 
-        // Return the slot to the doctor's availability
-        String doctorID = appointmentToCancel.getDoctorID();
-        String slot = DATE_FORMAT.format(appointmentToCancel.getAppointmentDate());
+                if (appointment.getAppointmentDate().getTime() + graceMillis > System.currentTimeMillis()) {
+                    AppointmentExpirySystem.track(appointment);
+                    return false;
+                }
 
-        if (!isSlotAvailable(doctorID, slot)) {
-            doctorAvailability.computeIfAbsent(doctorID, any -> new ArrayList<>()).add(slot);
-            saveDoctorAvailability();
-            System.out.println("Slot " + slot + " has been returned to availability for Doctor ID: " + doctorID);
+                updateAppointmentStatus(appointment, hasOutcome ? AppointmentStatus.COMPLETED : AppointmentStatus.NO_SHOW);
+                saveAppointments();
+                trackAppointment(appointment, DomainEvent.Type.APPOINTMENT_CHANGED);
+                return true;
+            }
+        } finally {
+            DomainEvents.publishDeferred();
         }
+    }
 
-        // Mark the appointment as canceled
-        appointmentToCancel.setAppointmentStatus(AppointmentStatus.CANCELLED);
-        saveAppointments(); // Save the updated appointments to the file
+    /**
+     * Tracks every appointment in the expiry scheduler and the reminder pipeline,
+     * rebuilding the timers and reminders from the persisted appointments.
+     */
+    static synchronized void trackAllAppointments() {
+        for (Appointment appointment : appointments) {
+            AppointmentExpirySystem.track(appointment);
+            ReminderSystem.track(appointment);
+        }
+    }
+
+    /**
+     * Updates the expiry timer of an appointment after its status, doctor or date changed, and publishes the change,
+     * to which the reminder pipeline reacts. The change is published once the lock of this System is released.
+     *
+     * @param appointment the changed appointment.
+     * @param type        the type of the change.
+     */
+    private static void trackAppointment(Appointment appointment, DomainEvent.Type type) {
+        AppointmentExpirySystem.track(appointment);
+        DomainEvents.appointmentChanged(type, appointment);
+    }
 
-        System.out.println("Appointment ID " + appointmentID + " has been canceled successfully.");
+    /**
+     * Changes the status of an appointment and updates the dashboard counters.
+     *
+     * @param appointment the appointment.
+     * @param status      the new status.
+     */
+    private static void updateAppointmentStatus(Appointment appointment, AppointmentStatus status) {
+        AppointmentStatus previousStatus = appointment.getAppointmentStatus();
+        appointment.update(() -> appointment.setAppointmentStatus(status));
+        DashboardCounters.appointmentStatusChanged(appointment.getDoctorID(), previousStatus, status);
     }
 
     /**
@@ -592,21 +1229,18 @@ public class AppointmentSystem {
 
         Date today = new Date();
 
-        System.out.println("\n--- Upcoming Appointments ---");
-        System.out.printf("%-15s %-15s %-25s %-15s%n", "Appointment ID", "Patient ID", "Date", "Status");
-        System.out.println("-------------------------------------------------------------------");
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Upcoming Appointments ---\n");
+        APPOINTMENT_TABLE.header(out, "Appointment ID", "Patient ID", "Date", "Status");
 
-        for (Appointment appointment : appointments) {
+        for (Appointment appointment : snapshot.get()) {
             if (appointment.getDoctorID().equalsIgnoreCase(doctorID) &&
                     appointment.getAppointmentDate().compareTo(today) >= 0) {
-                System.out.printf("%-15d %-15s %-25s %-15s%n",
-                        appointment.getID(),
-                        appointment.getPatientID(),
-                        DATE_FORMAT.format(appointment.getAppointmentDate()),
-                        appointment.getAppointmentStatus());
+                appendPatientAppointmentRow(out, appointment);
                 foundUpcoming = true;
             }
         }
+        TableRenderer.flush(out);
 
         if (!foundUpcoming) {
             System.out.println("No upcoming appointments found.");
@@ -614,7 +1248,7 @@ public class AppointmentSystem {
     }
 
     /**
-     * Retrieves all appointments for a specific doctor.
+     * Retrieves all appointments for a specific doctor, as of their last save.
      *
      * @param doctorID the ID of the doctor whose appointments need to be retrieved.
      * @param status   (optional) the status of the appointments to filter by. Pass `null` to retrieve all statuses.
@@ -623,7 +1257,7 @@ public class AppointmentSystem {
     public static List<Appointment> getAppointmentsByDoctor(String doctorID, AppointmentStatus status) {
         List<Appointment> result = new ArrayList<>();
 
-        for (Appointment appointment : appointments) {
+        for (Appointment appointment : snapshot.get()) {
             boolean matchesDoctor = appointment.getDoctorID().equalsIgnoreCase(doctorID);
             boolean matchesStatus = (status == null) || appointment.getAppointmentStatus() == status;
 
@@ -648,18 +1282,29 @@ public class AppointmentSystem {
             return;
         }
 
-        System.out.println("\n--- Appointments for Doctor ID: " + doctorID + " ---");
-        System.out.printf("%-15s %-15s %-25s %-15s%n", "Appointment ID", "Patient ID", "Date", "Status");
-        System.out.println("-------------------------------------------------------------------");
-
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Appointments for Doctor ID: ").append(doctorID).append(" ---\n");
+        APPOINTMENT_TABLE.header(out, "Appointment ID", "Patient ID", "Date", "Status");
         for (Appointment appointment : doctorAppointments) {
-            System.out.printf("%-15d %-15s %-25s %-15s%n",
-                    appointment.getID(),
-                    appointment.getPatientID(),
-                    DATE_FORMAT.format(appointment.getAppointmentDate()),
-                    appointment.getAppointmentStatus());
+            appendPatientAppointmentRow(out, appointment);
         }
-        System.out.println("-------------------------------------------------------------------");
+        APPOINTMENT_TABLE.border(out);
+        TableRenderer.flush(out);
+    }
+
+    /**
+     * Appends the row of a doctor's appointment, showing the patient of the appointment, to a table buffer.
+     *
+     * @param out         the table buffer.
+     * @param appointment the appointment to append.
+     */
+    private static void appendPatientAppointmentRow(StringBuilder out, Appointment appointment) {
+        APPOINTMENT_TABLE.row(out)
+                .cell(appointment.getID())
+                .cell(appointment.getPatientID())
+                .cell(formatDate(appointment.getAppointmentDate()))
+                .cell(appointment.getAppointmentStatus())
+                .end();
     }
 
     // -- Utility Methods
@@ -700,10 +1345,43 @@ public class AppointmentSystem {
      * @param slot The new available slot to be added in the format "yyyy-MM-dd HH:mm".
      */
     private static void addSlot(String doctorID, String slot) {
-        doctorAvailability.computeIfAbsent(doctorID, k -> new ArrayList<>()).add(slot);
+        insertSlot(doctorAvailability.computeIfAbsent(doctorID, k -> new ArrayList<>()), slot);
         saveDoctorAvailability();
     }
 
+    /**
+     * Inserts a slot into a doctor's slot list, keeping the list in time order.
+     * Slots in the format "yyyy-MM-dd HH:mm" sort chronologically as strings.
+     *
+     * @param slots The time-ordered slots of a doctor.
+     * @param slot The slot to insert in the format "yyyy-MM-dd HH:mm".
+     */
+    private static void insertSlot(List<String> slots, String slot) {
+        int index = Collections.binarySearch(slots, slot);
+        if (index < 0) {
+            slots.add(-index - 1, slot);
+        }
+    }
+
+    /**
+     * Offers a freed slot of a doctor to the best matching patient on the doctor's waitlist.
+     * If there is one, a pending appointment is booked for that patient in the slot.
+     *
+     * @param doctorID The ID of the doctor whose slot was freed.
+     * @param slot The freed slot in the format "yyyy-MM-dd HH:mm".
+     */
+    private static void offerSlotToWaitlist(String doctorID, String slot) {
+        try {
+            Date date = DATE_FORMAT.get().parse(slot);
+            WaitlistEntry entry = WaitlistSystem.pollBestMatch(doctorID, date);
+            if (entry != null && scheduleAppointment(entry.getPatientID(), doctorID, date) != null) {
+                System.out.println("Slot " + slot + " has been booked for waitlisted Patient ID: " + entry.getPatientID());
+            }
+        } catch (Exception e) {
+            System.err.println("Error offering slot to waitlist: " + e.getMessage());
+        }
+    }
+
     /**
      * Displays the available slots in a tabular format.
      * If no slots are available, a message will be displayed instead.
@@ -716,19 +1394,18 @@ public class AppointmentSystem {
             return;
         }
 
-        System.out.println("+-----+-----------------------+");
-        System.out.println("| No. | Available Slot        |");
-        System.out.println("+-----+-----------------------+");
-
+        StringBuilder out = TableRenderer.buffer();
+        SLOT_TABLE.header(out, "No.", "Available Slot");
         for (int i = 0; i < slots.size(); i++) {
-            System.out.printf("| %-3d | %-21s |\n", i + 1, slots.get(i));
+            SLOT_TABLE.row(out).cell(i + 1).cell(slots.get(i)).end();
         }
-
-        System.out.println("+-----+-----------------------+");
+        SLOT_TABLE.border(out);
+        TableRenderer.flush(out);
     }
 
     /**
-     * Checks whether the given slot is available for the specified doctor.
+     * Checks whether the given slot is available for the specified doctor,
+     * either as an explicit slot or as a slot of one of the doctor's recurring availability rules.
      *
      * @param doctorID The ID of the doctor to check availability for.
      * @param slot The slot to check availability for.
@@ -736,11 +1413,13 @@ public class AppointmentSystem {
      */
     private static boolean isSlotAvailable(String doctorID, String slot) {
         List<String> slots = doctorAvailability.get(doctorID);
-        return slots != null && slots.contains(slot);
+        return (slots != null && Collections.binarySearch(slots, slot) >= 0)
+                || RecurringAvailabilitySystem.isAvailable(doctorID, slot);
     }
 
     /**
      * Formats a given Date object into a readable string in the format "yyyy-MM-dd HH:mm".
+     * Safe to call without the lock of any System, as the listings served from snapshots do.
      *
      * @param date the Date object to format.
      * @return the formatted date string.
@@ -749,11 +1428,12 @@ public class AppointmentSystem {
         if (date == null) {
             return "N/A"; // Handle null dates
         }
-        return DATE_FORMAT.format(date);
+        return DATE_FORMAT.get().format(date);
     }
 
     /**
      * Books a slot for the specified doctor by removing it from their available slots.
+     * A slot of a recurring availability rule is booked by recording an exception against the rule.
      * After booking, the updated availability is saved.
      *
      * @param doctorID The ID of the doctor whose slot is being booked.
@@ -761,25 +1441,61 @@ public class AppointmentSystem {
      */
     private static void bookSlot(String doctorID, String slot) {
         List<String> slots = doctorAvailability.get(doctorID);
-        if (slots != null) {
-            slots.remove(slot);
+        int index = slots == null ? -1 : Collections.binarySearch(slots, slot);
+        if (index >= 0) {
+            slots.remove(index);
+            saveDoctorAvailability();
+        } else {
+            RecurringAvailabilitySystem.addException(doctorID, slot);
+        }
+    }
+
+    /**
+     * Returns a booked slot to the specified doctor's availability.
+     * A slot of a recurring availability rule is returned by removing the exception recorded against the rule,
+     * any other slot is added back to the doctor's explicit slots.
+     *
+     * @param doctorID The ID of the doctor whose slot is being freed.
+     * @param slot The slot to be freed in the format "yyyy-MM-dd HH:mm".
+     */
+    private static void releaseSlot(String doctorID, String slot) {
+        if (!RecurringAvailabilitySystem.removeException(doctorID, slot)) {
+            addSlot(doctorID, slot);
+        }
+    }
+
+    /**
+     * Returns several booked slots to the specified doctor's availability, saving the availability once.
+     *
+     * @param doctorID The ID of the doctor whose slots are being freed.
+     * @param slots The slots to be freed in the format "yyyy-MM-dd HH:mm".
+     */
+    private static void releaseSlots(String doctorID, List<String> slots) {
+        if (slots.isEmpty()) {
+            return;
+        }
+        Set<String> ruleSlots = RecurringAvailabilitySystem.removeExceptions(doctorID, slots);
+        boolean availabilityChanged = false;
+        for (String slot : slots) {
+            if (!ruleSlots.contains(slot)) {
+                insertSlot(doctorAvailability.computeIfAbsent(doctorID, k -> new ArrayList<>()), slot);
+                availabilityChanged = true;
+            }
+        }
+        if (availabilityChanged) {
             saveDoctorAvailability();
         }
     }
 
     /**
-     * Loads the doctor availability HMS.data from a file and populates the `doctorAvailability` map.
-     * The HMS.data is expected to be in CSV format, with doctor IDs and their available slots.
+     * Loads the doctor availability from storage and populates the `doctorAvailability` map.
      */
     private static void loadDoctorAvailability() {
-        try (BufferedReader br = new BufferedReader(new FileReader(DOCTOR_AVAILABILITY_FILE))) {
-            br.readLine(); // Skip header
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",", 2);
-                if (parts.length == 2) {
-                    doctorAvailability.put(parts[0], new ArrayList<>(Arrays.asList(parts[1].split(";"))));
-                }
+        try {
+            for (Map.Entry<String, List<String>> entry : Storage.availability().loadAll().entrySet()) {
+                List<String> slots = new ArrayList<>(entry.getValue());
+                Collections.sort(slots); // Kept in time order for binary search and the earliest slot search
+                doctorAvailability.put(entry.getKey(), slots);
             }
         } catch (IOException e) {
             System.err.println("Error loading doctor availability: " + e.getMessage());
@@ -787,68 +1503,133 @@ public class AppointmentSystem {
     }
 
     /**
-     * Saves doctor availability to a file, ensuring no empty slots are saved.
+     * Saves doctor availability to storage, ensuring no empty slots are saved.
      */
     private static void saveDoctorAvailability() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(DOCTOR_AVAILABILITY_FILE))) {
-            bw.write("DoctorID,AvailableSlots");
-            bw.newLine();
-
-            for (Map.Entry<String, List<String>> entry : doctorAvailability.entrySet()) {
-                // Filter out empty or null slots
-                List<String> validSlots = entry.getValue().stream()
-                        .filter(slot -> slot != null && !slot.trim().isEmpty())
-                        .toList();
-
-                bw.write(entry.getKey() + "," + String.join(";", validSlots));
-                bw.newLine();
-            }
+        PersistenceEvent event = PersistenceEvent.start("doctor_availability");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.availability().saveAll(doctorAvailability);
         } catch (IOException e) {
             System.err.println("Error saving doctor availability: " + e.getMessage());
         }
+        event.end(doctorAvailability.size(), bytesWritten);
     }
 
     /**
-     * Loads the appointments from a file and populates the `appointments` list.
-     * The HMS.data is expected to be in CSV format with appointment details.
+     * Loads the appointments from storage and populates the `appointments` list.
      */
     private static void loadAppointments() {
-        try (BufferedReader br = new BufferedReader(new FileReader(APPOINTMENTS_FILE))) {
-            br.readLine(); // Skip header
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                int id = Integer.parseInt(parts[0]);
-                String patientID = parts[1];
-                String doctorID = parts[2];
-                AppointmentStatus status = AppointmentStatus.valueOf(parts[3].toUpperCase());
-                Date date = DATE_FORMAT.parse(parts[4]);
-                appointments.add(new Appointment(id, patientID, doctorID, status, date));
-            }
-        } catch (Exception e) {
+        try {
+            appointments.addAll(Storage.appointments().loadAll());
+            appointments.sort(Comparator.comparingInt(Appointment::getID)); // Pages are looked up by ID
+            DashboardCounters.resetAppointments(appointments);
+        } catch (IOException e) {
             System.err.println("Error loading appointments: " + e.getMessage());
         }
+        snapshot.publish(appointments);
     }
 
     /**
-     * Saves the current list of appointments to a file.
-     * The HMS.data is saved in CSV format with appointment details, including the status and date.
+     * Replaces the appointments and doctor availability in memory with those in storage, after another process changed them.
      */
-    public static void saveAppointments() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(APPOINTMENTS_FILE))) {
-            bw.write("ID,PatientID,DoctorID,Status,Date");
-            bw.newLine();
-            for (Appointment appointment : appointments) {
-                bw.write(String.join(",",
-                        String.valueOf(appointment.getID()),
-                        appointment.getPatientID(),
-                        appointment.getDoctorID(),
-                        appointment.getAppointmentStatus().toString(),
-                        DATE_FORMAT.format(appointment.getAppointmentDate())));
-                bw.newLine();
-            }
+    static synchronized void reload() {
+        doctorAvailability.clear();
+        appointments.clear();
+        loadDoctorAvailability();
+        loadAppointments();
+    }
+
+    /**
+     * Saves the current list of appointments to storage and publishes them to the readers of the snapshot.
+     */
+    public static synchronized void saveAppointments() {
+        snapshot.publish(appointments);
+        PersistenceEvent event = PersistenceEvent.start("appointments");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.appointments().saveAll(appointments);
         } catch (IOException e) {
             System.err.println("Error saving appointments: " + e.getMessage());
         }
+        event.end(appointments.size(), bytesWritten);
+    }
+
+    /**
+     * Position in the time-ordered availability of one doctor, used by the earliest slot search.
+     * The cursor merges the doctor's explicit slots with the slots generated by the doctor's recurring availability rules.
+     */
+    private static class SlotCursor {
+        private final String doctorID;
+        private final List<String> slots;
+        private final Iterator<String> ruleSlots;
+        private final TimeWindow timeWindow;
+        private int index;
+        private String nextRuleSlot;
+
+        /**
+         * Constructs a cursor over a doctor's slots, positioned at the first slot within the time window.
+         *
+         * @param doctorID The ID of the doctor.
+         * @param slots The time-ordered explicit slots of the doctor.
+         * @param index The position of the first explicit slot to consider.
+         * @param ruleSlots The time-ordered rule slots of the doctor within the time window.
+         * @param timeWindow The time window, or null for any time.
+         */
+        SlotCursor(String doctorID, List<String> slots, int index, Iterator<String> ruleSlots, TimeWindow timeWindow) {
+            this.doctorID = doctorID;
+            this.slots = slots;
+            this.index = index;
+            this.ruleSlots = ruleSlots;
+            this.timeWindow = timeWindow;
+            this.nextRuleSlot = ruleSlots.hasNext() ? ruleSlots.next() : null;
+            skipOutsideWindow();
+        }
+
+        /**
+         * Checks whether the cursor still has a slot.
+         *
+         * @return True if there is a current slot, false if the cursor is exhausted.
+         */
+        boolean hasCurrent() {
+            return index < slots.size() || nextRuleSlot != null;
+        }
+
+        /**
+         * Gets the earliest slot at the cursor position.
+         *
+         * @return The current slot in the format "yyyy-MM-dd HH:mm".
+         */
+        String current() {
+            String explicitSlot = index < slots.size() ? slots.get(index) : null;
+            if (explicitSlot == null || (nextRuleSlot != null && nextRuleSlot.compareTo(explicitSlot) < 0)) {
+                return nextRuleSlot;
+            }
+            return explicitSlot;
+        }
+
+        /**
+         * Moves the cursor past the current slot to the next slot within the time window.
+         */
+        void advance() {
+            String currentSlot = current();
+            if (index < slots.size() && slots.get(index).equals(currentSlot)) {
+                index++;
+            }
+            if (currentSlot.equals(nextRuleSlot)) {
+                nextRuleSlot = ruleSlots.hasNext() ? ruleSlots.next() : null;
+            }
+            skipOutsideWindow();
+        }
+
+        /**
+         * Moves past the explicit slots outside the time window. Rule slots are already generated within the window.
+         */
+        private void skipOutsideWindow() {
+            while (index < slots.size() && timeWindow != null
+                    && !timeWindow.matches(Integer.parseInt(slots.get(index).substring(11, 13)))) {
+                index++;
+            }
+        }
     }
-}
\ No newline at end of file
+}
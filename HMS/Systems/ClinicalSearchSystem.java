@@ -0,0 +1,210 @@
+package HMS.Systems;
+
+import HMS.Models.*;
+import HMS.Search.InvertedIndex;
+import HMS.Storage.Storage;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Searches the clinical text of the hospital: the service type and consultation notes of appointment outcomes,
+ * and the condition and prescription of diagnoses.
+ * The text is kept in an inverted index built on the first search, so a query only decodes the posting lists of
+ * its words instead of reading every record. New outcomes and saved diagnoses are added to the index as they happen.
+ *
+ * <p>To keep the lock order of the Systems, the index is built while holding the lock of
+ * {@link AppointmentOutcomeSystem} and then this System's lock, which is the order in which new outcomes are reported.</p>
+ */
+public class ClinicalSearchSystem {
+    private static final TableRenderer RESULT_TABLE = TableRenderer.boxed(9, 10, 16, 22, 60);
+    private static final String[] RESULT_COLUMNS = {"Source", "Patient ID", "Date", "Reference", "Text"};
+
+    private static volatile InvertedIndex index; // Null until the first search
+    private static final List<ClinicalSearchHit> documents = new ArrayList<>(); // Indexed by document ID
+    private static final Map<String, Integer> diagnosisDocIDs = new HashMap<>(); // Patient ID + condition -> document ID
+    private static final Set<Integer> indexedOutcomeIDs = new HashSet<>(); // Appointment IDs of the indexed outcomes
+
+    /**
+     * Finds the clinical text matching a query, building the index first if needed.
+     * Words must all appear, "quoted phrases" must appear as written, OR matches either side and a leading '-' excludes.
+     *
+     * @param query the query.
+     * @return the matching outcomes and diagnoses, most recently indexed first.
+     * @throws IllegalArgumentException if the query has no word or phrase to match.
+     */
+    public static List<ClinicalSearchHit> search(String query) {
+        ensureIndexed();
+        synchronized (ClinicalSearchSystem.class) {
+            int[] docIDs = index.search(query);
+            List<ClinicalSearchHit> hits = new ArrayList<>(docIDs.length);
+            for (int i = docIDs.length - 1; i >= 0; i--) {
+                hits.add(documents.get(docIDs[i]));
+            }
+            return hits;
+        }
+    }
+
+    /**
+     * Prompts a doctor for queries and displays the matching clinical text of the patients they have appointments with,
+     * and of the outcomes they recorded.
+     *
+     * @param doctorID the ID of the doctor.
+     */
+    public static void searchMenu(String doctorID) {
+        if (index == null) {
+            System.out.println("Indexing clinical notes...");
+            long start = System.nanoTime();
+            ensureIndexed();
+            System.out.printf("Indexed %d records (%d words, %d KB) in %.1f ms.%n", index.size(), index.getTermCount(),
+                    index.getByteSize() / 1024, (System.nanoTime() - start) / 1e6);
+        }
+
+        Set<String> patientIDs = AppointmentSystem.getAppointmentsSnapshot().stream()
+                .filter(appointment -> appointment.getDoctorID().equals(doctorID))
+                .map(Appointment::getPatientID)
+                .collect(Collectors.toSet());
+
+        System.out.println("\nWords must all appear. Use \"quotes\" for a phrase, OR for either word and -word to exclude.");
+        while (true) {
+            String query = InputHandler.getValidatedInputWithExit(
+                    "Enter a search query ('exit' to exit): ",
+                    "Query cannot be empty.",
+                    input -> !input.trim().isEmpty()
+            );
+            if (query == null) {
+                return;
+            }
+
+            List<ClinicalSearchHit> hits;
+            long start = System.nanoTime();
+            try {
+                hits = search(query);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid query: " + e.getMessage());
+                continue;
+            }
+            hits.removeIf(hit -> !patientIDs.contains(hit.getPatientID())
+                    && (hit.getOutcome() == null || !doctorID.equals(hit.getOutcome().getDoctorID())));
+            System.out.printf("%d match(es) in %.1f ms.%n", hits.size(), (System.nanoTime() - start) / 1e6);
+
+            List<ClinicalSearchHit> results = hits;
+            PageNavigator.browse(null, RESULT_TABLE, RESULT_COLUMNS,
+                    (cursor, limit) -> pageOf(results, cursor, limit),
+                    (out, hit, previousRow, rowNumber) -> RESULT_TABLE.row(out)
+                            .cell(hit.getSource())
+                            .cell(Objects.toString(hit.getPatientID(), "-"))
+                            .cell(hit.getDate())
+                            .cell(hit.getReference())
+                            .cell(hit.getText())
+                            .end());
+        }
+    }
+
+    /**
+     * Adds a new appointment outcome to the index, if the index has been built.
+     * Called on the event bus after the outcome was recorded, so the outcome may already be indexed.
+     *
+     * @param outcome the new outcome.
+     */
+    static synchronized void outcomeAdded(AppointmentOutcomeRecord outcome) {
+        if (index != null) {
+            indexOutcome(outcome);
+        }
+    }
+
+    /**
+     * Indexes a diagnosis that was saved, replacing the diagnosis of the same condition, if the index has been built.
+     *
+     * @param patientID the ID of the patient.
+     * @param diagnosis the saved diagnosis.
+     */
+    static synchronized void diagnosisSaved(String patientID, Diagnosis diagnosis) {
+        if (index != null) {
+            indexDiagnosis(patientID, diagnosis);
+        }
+    }
+
+    /**
+     * Drops the index, so that it is rebuilt from the outcomes and medical records on the next search.
+     */
+    static synchronized void reset() {
+        index = null;
+        documents.clear();
+        diagnosisDocIDs.clear();
+        indexedOutcomeIDs.clear();
+    }
+
+    /**
+     * Builds the index from all outcomes and medical records if it has not been built yet.
+     */
+    private static void ensureIndexed() {
+        if (index != null) {
+            return;
+        }
+        synchronized (AppointmentOutcomeSystem.class) {
+            synchronized (ClinicalSearchSystem.class) {
+                if (index != null) {
+                    return;
+                }
+                index = new InvertedIndex();
+                for (AppointmentOutcomeRecord outcome : AppointmentOutcomeSystem.getAllOutcomes()) {
+                    indexOutcome(outcome);
+                }
+                try {
+                    for (MedicalRecord record : Storage.medicalRecords().loadAll()) {
+                        for (Diagnosis diagnosis : record.getDiagnoses()) {
+                            indexDiagnosis(record.getPatientID(), diagnosis);
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error indexing medical records: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds an outcome to the index, unless it is already indexed.
+     *
+     * @param outcome the outcome.
+     */
+    private static void indexOutcome(AppointmentOutcomeRecord outcome) {
+        if (!indexedOutcomeIDs.add(outcome.getAppointmentID())) {
+            return;
+        }
+        index.add(outcome.getServiceType(), outcome.getConsultationNotes());
+        documents.add(new ClinicalSearchHit(outcome));
+    }
+
+    /**
+     * Adds a diagnosis to the index, deleting the previous diagnosis of the same condition of the patient.
+     *
+     * @param patientID the ID of the patient.
+     * @param diagnosis the diagnosis.
+     */
+    private static void indexDiagnosis(String patientID, Diagnosis diagnosis) {
+        int docID = index.add(diagnosis.getCondition(), diagnosis.getPrescription());
+        documents.add(new ClinicalSearchHit(patientID, diagnosis));
+        Integer previousDocID = diagnosisDocIDs.put(patientID + "|" + diagnosis.getConditionKey(), docID);
+        if (previousDocID != null) {
+            index.delete(previousDocID);
+            documents.set(previousDocID, null);
+        }
+    }
+
+    /**
+     * Returns a page of search results. The cursor is the position after the last result of the previous page.
+     *
+     * @param hits   the search results.
+     * @param cursor the cursor returned with the previous page, or null for the first page.
+     * @param limit  the maximum number of results on the page.
+     * @return the page of results.
+     */
+    private static Page<ClinicalSearchHit> pageOf(List<ClinicalSearchHit> hits, String cursor, int limit) {
+        int from = cursor == null ? 0 : Integer.parseInt(cursor);
+        int to = Math.min(from + limit, hits.size());
+        return new Page<>(hits.subList(Math.min(from, to), to), to < hits.size() ? String.valueOf(to) : null);
+    }
+}
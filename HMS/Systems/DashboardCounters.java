@@ -0,0 +1,341 @@
+package HMS.Systems;
+
+import HMS.Enums.AppointmentStatus;
+import HMS.Enums.Dispensed;
+import HMS.Enums.ReplenishStatus;
+import HMS.Models.Appointment;
+import HMS.Models.AppointmentOutcomeRecord;
+import HMS.Models.Stock;
+import HMS.Models.StockReplenishRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps live totals for the menu headers, such as the pending appointments of a doctor, the undispensed outcomes
+ * and the low-stock items, so that they are read in O(1) instead of scanning the data.
+ * The Systems report every state transition here while holding their own lock, and set the counters from scratch
+ * when their data is loaded. {@link #verify()} recounts the data to check that the counters have not drifted.
+ */
+public class DashboardCounters {
+    private static final int STATUS_COUNT = AppointmentStatus.values().length;
+
+    private static final AtomicLongArray appointmentCounts = new AtomicLongArray(STATUS_COUNT);
+    private static final Map<String, AtomicLongArray> doctorAppointmentCounts = new ConcurrentHashMap<>();
+    private static final AtomicLong undispensedOutcomes = new AtomicLong();
+    private static final AtomicLong lowStockItems = new AtomicLong();
+    private static final AtomicLong pendingReplenishRequests = new AtomicLong();
+
+    // Reads --
+
+    /**
+     * Gets the number of appointments with a status.
+     *
+     * @param status the status.
+     * @return the number of appointments.
+     */
+    public static long getAppointmentCount(AppointmentStatus status) {
+        return appointmentCounts.get(status.ordinal());
+    }
+
+    /**
+     * Gets the number of appointments of a doctor with a status.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param status   the status.
+     * @return the number of appointments.
+     */
+    public static long getDoctorAppointmentCount(String doctorID, AppointmentStatus status) {
+        AtomicLongArray counts = doctorAppointmentCounts.get(doctorID);
+        return counts == null ? 0 : counts.get(status.ordinal());
+    }
+
+    /**
+     * Gets the number of appointment outcomes whose medications have not been dispensed.
+     *
+     * @return the number of undispensed outcomes.
+     */
+    public static long getUndispensedOutcomeCount() {
+        return undispensedOutcomes.get();
+    }
+
+    /**
+     * Gets the number of stocks at or below their low stock alert threshold.
+     *
+     * @return the number of low-stock items.
+     */
+    public static long getLowStockItemCount() {
+        return lowStockItems.get();
+    }
+
+    /**
+     * Gets the number of replenish requests waiting for approval.
+     *
+     * @return the number of pending replenish requests.
+     */
+    public static long getPendingReplenishRequestCount() {
+        return pendingReplenishRequests.get();
+    }
+
+    // Transitions --
+
+    /**
+     * Counts a new appointment.
+     *
+     * @param appointment the appointment added.
+     */
+    static void appointmentAdded(Appointment appointment) {
+        adjustAppointment(appointment.getDoctorID(), appointment.getAppointmentStatus(), 1);
+    }
+
+    /**
+     * Moves an appointment from one status to another.
+     *
+     * @param doctorID       the ID of the doctor of the appointment.
+     * @param previousStatus the status before the transition.
+     * @param status         the status after the transition.
+     */
+    static void appointmentStatusChanged(String doctorID, AppointmentStatus previousStatus, AppointmentStatus status) {
+        if (previousStatus != status) {
+            adjustAppointment(doctorID, previousStatus, -1);
+            adjustAppointment(doctorID, status, 1);
+        }
+    }
+
+    /**
+     * Moves an appointment from one doctor to another.
+     *
+     * @param previousDoctorID the ID of the doctor before the change.
+     * @param doctorID         the ID of the doctor after the change.
+     * @param status           the status of the appointment.
+     */
+    static void appointmentDoctorChanged(String previousDoctorID, String doctorID, AppointmentStatus status) {
+        if (!previousDoctorID.equals(doctorID)) {
+            adjustDoctorAppointment(previousDoctorID, status, -1);
+            adjustDoctorAppointment(doctorID, status, 1);
+        }
+    }
+
+    /**
+     * Counts a change in whether an outcome is dispensed. A new outcome changes from nothing to its dispensed state.
+     *
+     * @param previousDispensed the dispensed state before the change, or null for a new outcome.
+     * @param dispensed         the dispensed state after the change.
+     */
+    static void outcomeDispensedChanged(Dispensed previousDispensed, Dispensed dispensed) {
+        undispensedOutcomes.addAndGet((dispensed == Dispensed.NO ? 1 : 0) - (previousDispensed == Dispensed.NO ? 1 : 0));
+    }
+
+    /**
+     * Counts a change in whether a stock is low. A new stock changes from not low to its state.
+     *
+     * @param wasLow whether the stock was at or below its threshold before the change.
+     * @param isLow  whether the stock is at or below its threshold after the change.
+     */
+    static void stockLowChanged(boolean wasLow, boolean isLow) {
+        lowStockItems.addAndGet((isLow ? 1 : 0) - (wasLow ? 1 : 0));
+    }
+
+    /**
+     * Counts a change in the status of a replenish request. A new request changes from nothing to its status.
+     *
+     * @param previousStatus the status before the change, or null for a new request.
+     * @param status         the status after the change.
+     */
+    static void replenishRequestStatusChanged(ReplenishStatus previousStatus, ReplenishStatus status) {
+        pendingReplenishRequests.addAndGet((status == ReplenishStatus.PENDING ? 1 : 0) - (previousStatus == ReplenishStatus.PENDING ? 1 : 0));
+    }
+
+    // Rebuilding --
+
+    /**
+     * Sets the appointment counters from scratch.
+     *
+     * @param appointments all appointments.
+     */
+    static void resetAppointments(List<Appointment> appointments) {
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            appointmentCounts.set(i, 0);
+        }
+        doctorAppointmentCounts.clear();
+        for (Appointment appointment : appointments) {
+            appointmentAdded(appointment);
+        }
+    }
+
+    /**
+     * Sets the outcome counter from scratch.
+     *
+     * @param outcomes all appointment outcomes.
+     */
+    static void resetOutcomes(List<AppointmentOutcomeRecord> outcomes) {
+        undispensedOutcomes.set(countUndispensed(outcomes));
+    }
+
+    /**
+     * Sets the low-stock counter from scratch.
+     *
+     * @param stocks all stocks.
+     */
+    static void resetStocks(List<Stock> stocks) {
+        lowStockItems.set(countLowStocks(stocks));
+    }
+
+    /**
+     * Sets the replenish request counter from scratch.
+     *
+     * @param requests all replenish requests.
+     */
+    static void resetReplenishRequests(List<StockReplenishRequest> requests) {
+        pendingReplenishRequests.set(countPendingRequests(requests));
+    }
+
+    /**
+     * Recounts the data of each System, while holding that System's lock, and compares it with the counters.
+     *
+     * @return a description of each counter that differs from the recount; empty if all counters are correct.
+     */
+    public static List<String> verify() {
+        List<String> mismatches = new ArrayList<>();
+
+        synchronized (AppointmentSystem.class) {
+            List<Appointment> appointments = AppointmentSystem.getAppointments();
+            long[] expectedCounts = new long[STATUS_COUNT];
+            Map<String, long[]> expectedDoctorCounts = new HashMap<>();
+            for (Appointment appointment : appointments) {
+                int status = appointment.getAppointmentStatus().ordinal();
+                expectedCounts[status]++;
+                expectedDoctorCounts.computeIfAbsent(appointment.getDoctorID(), k -> new long[STATUS_COUNT])[status]++;
+            }
+
+            for (AppointmentStatus status : AppointmentStatus.values()) {
+                compare(mismatches, status + " appointments", expectedCounts[status.ordinal()], getAppointmentCount(status));
+            }
+            for (String doctorID : doctorAppointmentCounts.keySet()) {
+                expectedDoctorCounts.putIfAbsent(doctorID, new long[STATUS_COUNT]);
+            }
+            expectedDoctorCounts.forEach((doctorID, counts) -> {
+                for (AppointmentStatus status : AppointmentStatus.values()) {
+                    compare(mismatches, status + " appointments of Doctor ID " + doctorID,
+                            counts[status.ordinal()], getDoctorAppointmentCount(doctorID, status));
+                }
+            });
+        }
+
+        synchronized (AppointmentOutcomeSystem.class) {
+            compare(mismatches, "undispensed outcomes", countUndispensed(AppointmentOutcomeSystem.getAllOutcomes()), getUndispensedOutcomeCount());
+        }
+
+        synchronized (StockSystem.class) {
+            compare(mismatches, "low-stock items", countLowStocks(StockSystem.getStocksSnapshot()), getLowStockItemCount());
+            compare(mismatches, "pending replenish requests", countPendingRequests(StockSystem.getAllReplenishRequests()), getPendingReplenishRequestCount());
+        }
+        return mismatches;
+    }
+
+    /**
+     * Recounts the data of every System and replaces all counters.
+     */
+    public static void rebuild() {
+        synchronized (AppointmentSystem.class) {
+            resetAppointments(AppointmentSystem.getAppointments());
+        }
+        synchronized (AppointmentOutcomeSystem.class) {
+            resetOutcomes(AppointmentOutcomeSystem.getAllOutcomes());
+        }
+        synchronized (StockSystem.class) {
+            resetStocks(StockSystem.getStocksSnapshot());
+            resetReplenishRequests(StockSystem.getAllReplenishRequests());
+        }
+    }
+
+    /**
+     * Verifies the counters and displays the result. Counters that drifted are rebuilt.
+     */
+    public static void verifyMenu() {
+        List<String> mismatches = verify();
+        if (mismatches.isEmpty()) {
+            System.out.println("All dashboard counters match the data.");
+            return;
+        }
+
+        System.out.println(mismatches.size() + " dashboard counter(s) differ from the data:");
+        for (String mismatch : mismatches) {
+            System.out.println("  " + mismatch);
+        }
+        rebuild();
+        System.out.println("Dashboard counters have been rebuilt.");
+    }
+
+    /**
+     * Adds to the count of appointments with a status, in total and for a doctor.
+     *
+     * @param doctorID the ID of the doctor of the appointment.
+     * @param status   the status of the appointment.
+     * @param delta    the amount to add.
+     */
+    private static void adjustAppointment(String doctorID, AppointmentStatus status, int delta) {
+        appointmentCounts.addAndGet(status.ordinal(), delta);
+        adjustDoctorAppointment(doctorID, status, delta);
+    }
+
+    /**
+     * Adds to the count of appointments of a doctor with a status.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param status   the status of the appointment.
+     * @param delta    the amount to add.
+     */
+    private static void adjustDoctorAppointment(String doctorID, AppointmentStatus status, int delta) {
+        doctorAppointmentCounts.computeIfAbsent(doctorID, k -> new AtomicLongArray(STATUS_COUNT)).addAndGet(status.ordinal(), delta);
+    }
+
+    /**
+     * Adds a mismatch if a counter differs from its recount.
+     *
+     * @param mismatches the mismatches found so far.
+     * @param counter    the description of the counter.
+     * @param expected   the recounted value.
+     * @param actual     the value of the counter.
+     */
+    private static void compare(List<String> mismatches, String counter, long expected, long actual) {
+        if (expected != actual) {
+            mismatches.add(counter + ": counter " + actual + ", recount " + expected);
+        }
+    }
+
+    /**
+     * Counts the undispensed outcomes.
+     *
+     * @param outcomes the outcomes.
+     * @return the number of undispensed outcomes.
+     */
+    private static long countUndispensed(List<AppointmentOutcomeRecord> outcomes) {
+        return outcomes.stream().filter(outcome -> outcome.isDispensed() == Dispensed.NO).count();
+    }
+
+    /**
+     * Counts the stocks at or below their low stock alert threshold.
+     *
+     * @param stocks the stocks.
+     * @return the number of low-stock items.
+     */
+    private static long countLowStocks(List<Stock> stocks) {
+        return stocks.stream().filter(StockSystem::isLowStock).count();
+    }
+
+    /**
+     * Counts the pending replenish requests.
+     *
+     * @param requests the replenish requests.
+     * @return the number of pending requests.
+     */
+    private static long countPendingRequests(List<StockReplenishRequest> requests) {
+        return requests.stream().filter(request -> request.getStatus() == ReplenishStatus.PENDING).count();
+    }
+}
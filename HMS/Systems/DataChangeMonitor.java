@@ -0,0 +1,93 @@
+package HMS.Systems;
+
+import HMS.Storage.RowCodec;
+import HMS.Storage.SingleWriterStorageEngine;
+import HMS.Storage.Storage;
+import HMS.Storage.StorageEngine;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Keeps the data held in memory by the Systems of a read-only HMS up to date with the data written by another process,
+ * such as the writer sharing the data directory or the primary followed by a standby.
+ * Before each menu, the version of every table is compared with the version seen last, and the Systems holding a
+ * changed table reload it. A reader sharing the data directory also tries to take over the writer lease, which
+ * frees up when the writer exits; once it holds the lease it reloads every table one last time, dropping anything
+ * changed in memory while it could not save, and starts the background Systems.
+ * A writer never reloads, since no other process writes its tables. Menu actions changing the data are refused while
+ * the HMS is read-only (see {@link #checkWritable()}).
+ */
+public class DataChangeMonitor {
+    private static final Runnable RELOAD_APPOINTMENTS = AppointmentSystem::reload;
+    private static final Runnable RELOAD_STOCKS = StockSystem::reload;
+    private static final Runnable RELOAD_AVAILABILITY_RULES = RecurringAvailabilitySystem::reload;
+    private static final Map<String, Runnable> RELOADERS = Map.ofEntries(
+            Map.entry("users", UserManagementSystem::reloadUsers),
+            Map.entry("appointments", RELOAD_APPOINTMENTS),
+            Map.entry("doctor_availability", RELOAD_APPOINTMENTS),
+            Map.entry("appointment_outcomes", AppointmentOutcomeSystem::reload),
+            Map.entry("medical_records", ClinicalSearchSystem::reset),
+            Map.entry("medical_record_history", MedicalRecordHistorySystem::reset),
+            Map.entry("stocks", RELOAD_STOCKS),
+            Map.entry("replenish_requests", RELOAD_STOCKS),
+            Map.entry("waitlist", WaitlistSystem::reload),
+            Map.entry("availability_rules", RELOAD_AVAILABILITY_RULES),
+            Map.entry("availability_exceptions", RELOAD_AVAILABILITY_RULES)
+    );
+
+    private static final Map<String, Long> versions = new HashMap<>(); // Table -> version seen last
+    private static boolean following; // True while this process reads data written by another
+
+    /**
+     * Reloads the data changed by another process since the last call, if this HMS is read-only.
+     */
+    public static synchronized void refresh() {
+        StorageEngine engine = Storage.getEngine();
+        boolean readOnly = engine.isReadOnly();
+        boolean tookOver = readOnly && engine instanceof SingleWriterStorageEngine shared && shared.tryAcquireWriterLease();
+        if (tookOver) {
+            readOnly = false;
+        }
+        if (!readOnly && !following) {
+            return;
+        }
+
+        Set<Runnable> reloads = new LinkedHashSet<>();
+        for (RowCodec<?> codec : Storage.getCodecs()) {
+            String table = codec.getTable();
+            try {
+                long version = engine.getTableVersion(codec);
+                Long previous = versions.put(table, version);
+                Runnable reload = RELOADERS.get(table);
+                if (reload != null && (tookOver || previous != null && previous != version)) {
+                    reloads.add(reload);
+                }
+            } catch (IOException e) {
+                System.err.println("Error checking " + table + " for changes: " + e.getMessage());
+            }
+        }
+        reloads.forEach(Runnable::run);
+
+        following = readOnly;
+        if (tookOver) {
+            versions.clear();
+            System.out.println("The HMS that was writing the data has exited; this HMS now saves changes.");
+            AppointmentExpirySystem.start();
+            ReminderSystem.start();
+        }
+    }
+
+    /**
+     * Checks that this HMS may change the data, telling the user otherwise. A read-only HMS could not save the change.
+     *
+     * @return true if the HMS is not read-only.
+     */
+    public static boolean checkWritable() {
+        if (!Storage.getEngine().isReadOnly()) {
+            return true;
+        }
+        System.out.println("This HMS is read-only while another HMS writes the data: changes cannot be made.");
+        return false;
+    }
+}
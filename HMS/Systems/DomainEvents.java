@@ -0,0 +1,161 @@
+package HMS.Systems;
+
+import HMS.Events.DomainEvent;
+import HMS.Events.EventBus;
+import HMS.Models.Appointment;
+import HMS.Models.AppointmentOutcomeRecord;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The event bus the Systems publish their domain events on, and the reactions of the other Systems to them.
+ * Each reaction runs on its own consumer thread, off the path of the session that made the change:
+ * <ul>
+ *   <li>reminders - the reminder of an appointment is scheduled, replaced or retracted when the appointment changes;</li>
+ *   <li>search - a recorded outcome is added to the clinical search index, if it has been built;</li>
+ *   <li>replenishment - a replenish request is raised for each stock that fell below its alert threshold, once per
+ *   batch of events and only if the stock has no pending request.</li>
+ * </ul>
+ * Dispensed medications are published too, though no System reacts to them yet; the stocks they bring to their alert
+ * threshold are published as their own events. The capacity of the bus is set with the {@code hms.events.capacity} system property (4096 by default).
+ *
+ * <p>Publishing waits while the bus is full, until the slowest reaction catches up, and the reactions take the locks
+ * of the Systems they update. An event raised while holding the lock of a System is therefore deferred, and published
+ * by {@link #publishDeferred()} once the System releases its lock, so that a full bus never blocks a lock holder.</p>
+ */
+public class DomainEvents {
+    private static final EventBus<DomainEvent> bus =
+            new EventBus<>(Integer.getInteger("hms.events.capacity", 4096), DomainEvent::new);
+    private static final Class<?>[] LOCKED_SYSTEMS = {AppointmentSystem.class, AppointmentOutcomeSystem.class,
+            StockSystem.class, ClinicalSearchSystem.class, WaitlistSystem.class};
+    private static final ThreadLocal<List<Consumer<DomainEvent>>> deferred = ThreadLocal.withInitial(ArrayList::new);
+
+    static {
+        bus.addHandler("reminders", (event, sequence, endOfBatch) -> {
+            if (event.getAppointment() != null) {
+                ReminderSystem.track(event.getAppointment());
+            }
+        });
+        bus.addHandler("search", (event, sequence, endOfBatch) -> {
+            if (event.getType() == DomainEvent.Type.OUTCOME_RECORDED) {
+                ClinicalSearchSystem.outcomeAdded(event.getOutcome());
+            }
+        });
+        Set<Integer> lowStockIDs = new LinkedHashSet<>(); // Only used by the replenishment consumer
+        bus.addHandler("replenishment", (event, sequence, endOfBatch) -> {
+            if (event.getType() == DomainEvent.Type.STOCK_BELOW_THRESHOLD) {
+                lowStockIDs.add(event.getStockID());
+            }
+            if (endOfBatch && !lowStockIDs.isEmpty()) {
+                StockSystem.requestReplenishment(lowStockIDs);
+                lowStockIDs.clear();
+            }
+        });
+        bus.start();
+    }
+
+    /**
+     * Publishes the change of an appointment.
+     *
+     * @param type        the type of the change.
+     * @param appointment the appointment after the change.
+     */
+    static void appointmentChanged(DomainEvent.Type type, Appointment appointment) {
+        Appointment copy = appointment.copy();
+        publish(event -> event.setAppointment(type, copy));
+    }
+
+    /**
+     * Publishes a recorded outcome.
+     *
+     * @param outcome the outcome.
+     */
+    static void outcomeRecorded(AppointmentOutcomeRecord outcome) {
+        AppointmentOutcomeRecord copy = outcome.copy();
+        publish(event -> event.setOutcome(copy));
+    }
+
+    /**
+     * Publishes the medications dispensed for an outcome.
+     *
+     * @param outcome the outcome after dispensing.
+     */
+    static void medicationDispensed(AppointmentOutcomeRecord outcome) {
+        AppointmentOutcomeRecord copy = outcome.copy();
+        publish(event -> event.setMedicationDispensed(copy));
+    }
+
+    /**
+     * Publishes that a stock fell to or below its alert threshold.
+     *
+     * @param stockID the ID of the stock.
+     */
+    static void stockBelowThreshold(int stockID) {
+        publish(event -> event.setStockBelowThreshold(stockID));
+    }
+
+    /**
+     * Publishes the events the current thread raised while holding the lock of a System, in the order they were
+     * raised, once it holds no such lock. The Systems call it after releasing their lock.
+     */
+    static void publishDeferred() {
+        List<Consumer<DomainEvent>> events = deferred.get();
+        if (events.isEmpty() || holdsSystemLock()) {
+            return;
+        }
+        List<Consumer<DomainEvent>> pending = new ArrayList<>(events);
+        events.clear();
+        pending.forEach(bus::publish);
+    }
+
+    /**
+     * Publishes an event, or defers it if the current thread holds the lock of a System.
+     *
+     * @param translator fills the event in.
+     */
+    private static void publish(Consumer<DomainEvent> translator) {
+        if (holdsSystemLock()) {
+            deferred.get().add(translator);
+            return;
+        }
+        publishDeferred(); // Keeps the events in the order they were raised
+        bus.publish(translator);
+    }
+
+    /**
+     * Checks whether the current thread holds the lock of a System that publishes events or reacts to them.
+     *
+     * @return true if a System lock is held.
+     */
+    private static boolean holdsSystemLock() {
+        for (Class<?> system : LOCKED_SYSTEMS) {
+            if (Thread.holdsLock(system)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits until the reactions to every event published so far have run, such as before the HMS exits.
+     *
+     * @param timeoutMillis the maximum time to wait in milliseconds.
+     * @return true if every reaction ran, false if the time ran out.
+     */
+    public static boolean awaitHandled(long timeoutMillis) {
+        return bus.awaitHandled(timeoutMillis);
+    }
+
+    /**
+     * Gets the number of events the slowest reaction has not handled yet.
+     *
+     * @return the backlog of the bus.
+     */
+    public static long getBacklog() {
+        return bus.getBacklog();
+    }
+}
@@ -0,0 +1,305 @@
+package HMS.Systems;
+
+import HMS.Models.Diagnosis;
+import HMS.Models.MedicalRecord;
+import HMS.Models.MedicalRecordVersion;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Storage.Storage;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Keeps the history of the patients' medical records.
+ * Every save of a record appends a version holding only what changed, and every
+ * {@code hms.history.checkpoint.interval} versions (16 by default) a checkpoint holding the whole record.
+ * A past record is rebuilt from the last checkpoint before it, so at most one interval of deltas is replayed.
+ * The current record is still read from the medical records table, at no extra cost.
+ */
+public class MedicalRecordHistorySystem {
+    private static final int CHECKPOINT_INTERVAL = Math.max(1, Integer.getInteger("hms.history.checkpoint.interval", 16));
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final TableRenderer VERSION_TABLE = TableRenderer.boxed(7, 16, 10, 50);
+
+    private static Map<String, int[]> chainHeads; // Patient ID -> {last version, last checkpoint version}
+
+    /**
+     * Appends the version of a medical record that was just saved, unless nothing changed.
+     *
+     * @param previous the record before the save, or null if the patient had none.
+     * @param record   the record that was saved.
+     */
+    static synchronized void recordChange(MedicalRecord previous, MedicalRecord record) {
+        int[] head = getChainHeads().get(record.getPatientID());
+        long now = System.currentTimeMillis();
+        int versionNumber = head == null ? 1 : head[0] + 1;
+
+        MedicalRecordVersion version = diff(previous, record, versionNumber, now);
+        if (head != null && version.isEmpty()) {
+            return;
+        }
+        boolean checkpoint = head == null || versionNumber - head[1] >= CHECKPOINT_INTERVAL;
+        if (checkpoint) {
+            version = diff(null, record, versionNumber, now);
+        }
+
+        PersistenceEvent event = PersistenceEvent.start("medical_record_history");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.medicalRecordHistory().append(version);
+            getChainHeads().put(record.getPatientID(), new int[]{versionNumber, checkpoint ? versionNumber : head[1]});
+        } catch (IOException e) {
+            System.err.println("Error saving medical record history: " + e.getMessage());
+        }
+        event.end(1, bytesWritten);
+    }
+
+    /**
+     * Retrieves the versions of a patient's medical record.
+     *
+     * @param patientID the ID of the patient.
+     * @return the versions in ascending order, empty if none were recorded.
+     */
+    public static List<MedicalRecordVersion> getHistory(String patientID) {
+        try {
+            return Storage.medicalRecordHistory().findByPatient(patientID);
+        } catch (IOException e) {
+            System.err.println("Error reading medical record history: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Rebuilds a patient's medical record as it was at a point in time.
+     *
+     * @param patientID the ID of the patient.
+     * @param time      the point in time, in milliseconds since the epoch.
+     * @return the record as of that time, or null if it had no version yet.
+     */
+    public static MedicalRecord getRecordAsOf(String patientID, long time) {
+        return rebuild(patientID, getHistory(patientID), time);
+    }
+
+    /**
+     * Displays the versions of a patient's medical record and lets the user view the record as of a past date.
+     *
+     * @param patientID the ID of the patient.
+     */
+    public static void historyMenu(String patientID) {
+        List<MedicalRecordVersion> versions = getHistory(patientID);
+        if (versions.isEmpty()) {
+            System.out.println("No history recorded for patient ID: " + patientID);
+            return;
+        }
+
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Medical Record History for patient ID: ").append(patientID).append(" ---\n");
+        VERSION_TABLE.header(out, "Version", "Saved", "Type", "Changes");
+        for (MedicalRecordVersion version : versions) {
+            VERSION_TABLE.row(out)
+                    .cell(version.getVersion())
+                    .cell(formatTime(version.getTimestamp()))
+                    .cell(version.isCheckpoint() ? "Full" : "Changes")
+                    .cell(describeChanges(version))
+                    .end();
+        }
+        VERSION_TABLE.border(out);
+        TableRenderer.flush(out);
+
+        while (true) {
+            String date = InputHandler.getValidatedInputWithExit(
+                    "Enter a date (YYYY-MM-DD) to view the record as of the end of that day, or 'exit' to exit: ",
+                    "Invalid date format. Please use YYYY-MM-DD.",
+                    input -> input.matches("\\d{4}-\\d{2}-\\d{2}")
+            );
+            if (date == null) {
+                return;
+            }
+
+            long endOfDay;
+            try {
+                endOfDay = LocalDate.parse(date).plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() - 1;
+            } catch (RuntimeException e) {
+                System.out.println("Invalid date: " + date);
+                continue;
+            }
+
+            MedicalRecord record = rebuild(patientID, versions, endOfDay);
+            if (record == null) {
+                System.out.println("The record had no recorded version on " + date + ".");
+            } else {
+                System.out.println("\nRecord as of " + date + ":");
+                MedicalRecordSystem.displayMedicalRecord(record);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds a record from its versions, replaying the deltas after the last checkpoint before a point in time.
+     *
+     * @param patientID the ID of the patient.
+     * @param versions  the versions in ascending order.
+     * @param time      the point in time, in milliseconds since the epoch.
+     * @return the record as of that time, or null if it had no version yet.
+     */
+    private static MedicalRecord rebuild(String patientID, List<MedicalRecordVersion> versions, long time) {
+        int last = -1;
+        for (int i = 0; i < versions.size() && versions.get(i).getTimestamp() <= time; i++) {
+            last = i;
+        }
+        if (last < 0) {
+            return null;
+        }
+        int start = last;
+        while (start > 0 && !versions.get(start).isCheckpoint()) {
+            start--;
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        Map<String, Diagnosis> diagnoses = new LinkedHashMap<>();
+        for (int i = start; i <= last; i++) {
+            MedicalRecordVersion version = versions.get(i);
+            if (version.isCheckpoint()) {
+                fields.clear();
+                diagnoses.clear();
+            }
+            fields.putAll(version.getFields());
+            version.getDiagnoses().forEach((key, diagnosis) -> {
+                if (diagnosis == null) {
+                    diagnoses.remove(key);
+                } else {
+                    diagnoses.put(key, diagnosis);
+                }
+            });
+        }
+
+        MedicalRecord record = new MedicalRecord(patientID);
+        record.setDateOfBirth(fields.get(MedicalRecordVersion.DATE_OF_BIRTH));
+        record.setPhoneNumber(fields.get(MedicalRecordVersion.PHONE_NUMBER));
+        record.setEmailAddress(fields.get(MedicalRecordVersion.EMAIL_ADDRESS));
+        record.setBloodType(fields.get(MedicalRecordVersion.BLOOD_TYPE));
+        record.addDiagnoses(new ArrayList<>(diagnoses.values()));
+        return record;
+    }
+
+    /**
+     * Computes the changes from one record to another.
+     *
+     * @param previous      the record before the change, or null to record every field of the new record.
+     * @param record        the record after the change.
+     * @param versionNumber the number of the new version.
+     * @param time          the time of the change, in milliseconds since the epoch.
+     * @return the new version; a checkpoint if there is no previous record.
+     */
+    private static MedicalRecordVersion diff(MedicalRecord previous, MedicalRecord record, int versionNumber, long time) {
+        MedicalRecordVersion version = new MedicalRecordVersion(record.getPatientID(), versionNumber, time, previous == null);
+        diffField(version, MedicalRecordVersion.DATE_OF_BIRTH, previous == null ? null : previous.getDateOfBirth(), record.getDateOfBirth(), previous == null);
+        diffField(version, MedicalRecordVersion.PHONE_NUMBER, previous == null ? null : previous.getPhoneNumber(), record.getPhoneNumber(), previous == null);
+        diffField(version, MedicalRecordVersion.EMAIL_ADDRESS, previous == null ? null : previous.getEmailAddress(), record.getEmailAddress(), previous == null);
+        diffField(version, MedicalRecordVersion.BLOOD_TYPE, previous == null ? null : previous.getBloodType(), record.getBloodType(), previous == null);
+
+        Map<String, Diagnosis> before = previous == null ? Collections.emptyMap() : byConditionKey(previous.getDiagnoses());
+        Map<String, Diagnosis> after = byConditionKey(record.getDiagnoses());
+        after.forEach((key, diagnosis) -> {
+            Diagnosis old = before.get(key);
+            if (old == null || !Objects.equals(old.getCondition(), diagnosis.getCondition())
+                    || !Objects.equals(old.getDiagnosisDate(), diagnosis.getDiagnosisDate())
+                    || !Objects.equals(old.getPrescription(), diagnosis.getPrescription())) {
+                version.putDiagnosis(diagnosis);
+            }
+        });
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                version.removeDiagnosis(key);
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Records a field in a version if it changed, or always for a checkpoint.
+     *
+     * @param version the version being built.
+     * @param name    the name of the field.
+     * @param before  the value before the change.
+     * @param after   the value after the change.
+     * @param always  true to record the field even if it did not change.
+     */
+    private static void diffField(MedicalRecordVersion version, String name, String before, String after, boolean always) {
+        if (always || !Objects.equals(before, after)) {
+            version.setField(name, after);
+        }
+    }
+
+    /**
+     * Maps diagnoses by condition key. A later diagnosis of the same condition replaces an earlier one.
+     *
+     * @param diagnoses the diagnoses.
+     * @return the diagnoses by condition key, in order of first appearance.
+     */
+    private static Map<String, Diagnosis> byConditionKey(List<Diagnosis> diagnoses) {
+        Map<String, Diagnosis> map = new LinkedHashMap<>();
+        for (Diagnosis diagnosis : diagnoses) {
+            map.put(diagnosis.getConditionKey(), diagnosis);
+        }
+        return map;
+    }
+
+    /**
+     * Forgets the heads of the chains of versions, so that they are loaded again on next use.
+     */
+    static synchronized void reset() {
+        chainHeads = null;
+    }
+
+    /**
+     * Loads the last version number of every patient's history, on first use.
+     *
+     * @return the head of each patient's chain of versions.
+     */
+    private static Map<String, int[]> getChainHeads() {
+        if (chainHeads == null) {
+            chainHeads = new HashMap<>();
+            try {
+                for (MedicalRecordVersion version : Storage.medicalRecordHistory().loadAll()) {
+                    int[] head = chainHeads.computeIfAbsent(version.getPatientID(), k -> new int[2]);
+                    head[0] = Math.max(head[0], version.getVersion());
+                    if (version.isCheckpoint()) {
+                        head[1] = Math.max(head[1], version.getVersion());
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error loading medical record history: " + e.getMessage());
+            }
+        }
+        return chainHeads;
+    }
+
+    /**
+     * Describes the changes of a version in one line.
+     *
+     * @param version the version.
+     * @return the changed fields and diagnoses.
+     */
+    private static String describeChanges(MedicalRecordVersion version) {
+        StringJoiner changes = new StringJoiner(", ");
+        version.getFields().forEach((name, value) -> changes.add(name + "=" + (value == null ? "" : value)));
+        version.getDiagnoses().forEach((key, diagnosis) ->
+                changes.add(diagnosis == null ? "-" + key : "+" + diagnosis.getCondition()));
+        return changes.toString();
+    }
+
+    /**
+     * Formats a point in time for display.
+     *
+     * @param time the time in milliseconds since the epoch.
+     * @return the formatted date and time.
+     */
+    private static String formatTime(long time) {
+        return TIME_FORMAT.format(Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()));
+    }
+}
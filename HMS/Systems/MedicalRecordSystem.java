@@ -1,18 +1,19 @@
 package HMS.Systems;
 
+import HMS.Models.ConcurrentUpdateException;
 import HMS.Models.Diagnosis;
 import HMS.Models.MedicalRecord;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Storage.Storage;
 
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.function.Consumer;
 
 /**
  * System to manage medical records, including saving, updating, and loading records.
  */
 public class MedicalRecordSystem {
-
-    private static final String MEDICAL_RECORDS_FILE = "HMS/data/medical_records.csv";
+    private static final int MAX_SAVE_ATTEMPTS = 3;
 
     // Display / Modifiers --
 
@@ -23,7 +24,6 @@ public class MedicalRecordSystem {
      * @param patientID ID of the patient whose medical record is to be displayed.
      */
     public static void showOrCreateMedicalRecord(String patientID) {
-        ensureFileExistsWithHeader();
 
         if(patientID == null){
             return;
@@ -44,6 +44,15 @@ public class MedicalRecordSystem {
         assert medicalRecord != null; // To fix warnings, should not happen
 
         System.out.println("\n--- Medical Record for patient ID: " + patientID + " ---");
+        displayMedicalRecord(medicalRecord);
+    }
+
+    /**
+     * Displays the fields and diagnoses of a medical record.
+     *
+     * @param medicalRecord the medical record to display.
+     */
+    public static void displayMedicalRecord(MedicalRecord medicalRecord) {
         System.out.println("+--------------------+--------------------------+");
         System.out.printf("| %-18s | %-24s |\n", "Date of Birth", medicalRecord.getDateOfBirth());
         System.out.printf("| %-18s | %-24s |\n", "Phone Number", medicalRecord.getPhoneNumber());
@@ -77,7 +86,6 @@ public class MedicalRecordSystem {
      * @param patientID the ID of the patient whose medical record needs to be created or updated.
      */
     public static void upsertMedicalRecord(String patientID) {
-        ensureFileExistsWithHeader();
 
         MedicalRecord medicalRecord = loadMedicalRecord(patientID);
         boolean isNewRecord = (medicalRecord == null);
@@ -100,9 +108,6 @@ public class MedicalRecordSystem {
                 "Invalid date format. Please use YYYY-MM-DD.",
                 input -> input.isEmpty() || input.matches("\\d{4}-\\d{2}-\\d{2}")
         );
-        if (!newDateOfBirth.trim().isEmpty()) {
-            medicalRecord.setDateOfBirth(newDateOfBirth);
-        }
 
         String currentPhoneNumber = medicalRecord.getPhoneNumber();
         if (currentPhoneNumber != null && !currentPhoneNumber.isEmpty()) {
@@ -113,9 +118,6 @@ public class MedicalRecordSystem {
                 "Invalid phone number. Must contain 8-10 digits.",
                 input -> input.isEmpty() || input.matches("\\d{8,10}")
         );
-        if (!newPhoneNumber.trim().isEmpty()) {
-            medicalRecord.setPhoneNumber(newPhoneNumber);
-        }
 
         String currentEmailAddress = medicalRecord.getEmailAddress();
         if (currentEmailAddress != null && !currentEmailAddress.isEmpty()) {
@@ -126,9 +128,6 @@ public class MedicalRecordSystem {
                 "Invalid email address format.",
                 input -> input.isEmpty() || input.matches("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$")
         );
-        if (!newEmailAddress.trim().isEmpty()) {
-            medicalRecord.setEmailAddress(newEmailAddress);
-        }
 
         String currentBloodType = medicalRecord.getBloodType();
         if (currentBloodType != null && !currentBloodType.isEmpty()) {
@@ -139,11 +138,24 @@ public class MedicalRecordSystem {
                 "Invalid blood type. Must be A+, A-, B+, B-, AB+, AB-, O+, O-.",
                 input -> input.isEmpty() || input.matches("^(A|B|AB|O)[+-]$")
         );
-        if (!newBloodType.trim().isEmpty()) {
-            medicalRecord.setBloodType(newBloodType);
-        }
 
-        saveMedicalRecord(medicalRecord);
+        boolean saved = updateMedicalRecord(patientID, medicalRecord, record -> {
+            if (!newDateOfBirth.trim().isEmpty()) {
+                record.setDateOfBirth(newDateOfBirth);
+            }
+            if (!newPhoneNumber.trim().isEmpty()) {
+                record.setPhoneNumber(newPhoneNumber);
+            }
+            if (!newEmailAddress.trim().isEmpty()) {
+                record.setEmailAddress(newEmailAddress);
+            }
+            if (!newBloodType.trim().isEmpty()) {
+                record.setBloodType(newBloodType);
+            }
+        });
+        if (!saved) {
+            return;
+        }
 
         if (isNewRecord) {
             System.out.println("New medical record created successfully for patient ID: " + patientID);
@@ -159,7 +171,6 @@ public class MedicalRecordSystem {
      * @param patientID the ID of the patient whose blood type needs to be updated.
      */
     public static void upsertBloodType(String patientID) {
-        ensureFileExistsWithHeader();
 
         MedicalRecord medicalRecord = loadMedicalRecord(patientID);
         if (medicalRecord == null) {
@@ -175,30 +186,21 @@ public class MedicalRecordSystem {
         );
 
         try {
-            medicalRecord.setBloodType(newBloodType);
-            saveMedicalRecord(medicalRecord);
-            System.out.println("Blood type updated successfully for patient ID: " + patientID);
+            if (updateMedicalRecord(patientID, medicalRecord, record -> record.setBloodType(newBloodType))) {
+                System.out.println("Blood type updated successfully for patient ID: " + patientID);
+            }
         } catch (IllegalArgumentException e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
 
     /**
-     * Updates or adds a diagnosis in the medical record and saves the changes to the CSV file.
-     * If the medical record does not exist, it creates a new one.
+     * Prompts for a diagnosis and adds it to the patient's medical record, replacing the diagnosis of the same
+     * condition if there is one. If the medical record does not exist, it creates a new one.
      *
      * @param patientID the ID of the patient whose diagnosis needs to be updated.
      */
     public static void upsertDiagnosis(String patientID) {
-        ensureFileExistsWithHeader();
-
-        MedicalRecord medicalRecord = loadMedicalRecord(patientID);
-        if (medicalRecord == null) {
-            System.out.println("Medical record not found for patient ID: " + patientID);
-            System.out.println("Creating a new medical record...");
-            medicalRecord = new MedicalRecord(patientID);
-        }
-
         String condition = InputHandler.getValidatedInput(
                 "Enter Diagnosis Condition: ",
                 "Condition cannot be empty.",
@@ -217,196 +219,93 @@ public class MedicalRecordSystem {
                 input -> !input.trim().isEmpty()
         );
 
-        Diagnosis newDiagnosis = new Diagnosis(condition, diagnosisDate, prescription);
-
-        List<Diagnosis> diagnoses = new ArrayList<>(medicalRecord.getDiagnoses());
-
-        boolean updated = false;
-        for (int i = 0; i < diagnoses.size(); i++) {
-            if (diagnoses.get(i).getCondition().equalsIgnoreCase(newDiagnosis.getCondition())) {
-                diagnoses.set(i, newDiagnosis);
-                updated = true;
-                break;
-            }
-        }
-
-        if (!updated) {
-            diagnoses.add(newDiagnosis);
-        }
-
-        medicalRecord.addDiagnoses(diagnoses);
-        saveMedicalRecord(medicalRecord);
-        System.out.println("Diagnosis " + (updated ? "updated" : "added") + " successfully for patient ID: " + patientID);
+        upsertDiagnosis(patientID, new Diagnosis(condition, diagnosisDate, prescription));
     }
 
     /**
      * Adds or updates a diagnosis in the medical record for the given patient ID.
      * If a diagnosis already exists for the condition, it is updated; otherwise, a new one is added.
      *
-     * @param patientID the ID of the patient whose diagnosis needs to be updated.
+     * @param patientID    the ID of the patient whose diagnosis needs to be updated.
+     * @param newDiagnosis the diagnosis to add or update.
      */
     public static void upsertDiagnosis(String patientID, Diagnosis newDiagnosis) {
-        ensureFileExistsWithHeader();  // Ensures that the file with the correct headers exists
 
         // Load the medical record for the given patient ID
         MedicalRecord medicalRecord = loadMedicalRecord(patientID);
         if (medicalRecord == null) {
             System.out.println("Medical record not found for patient ID: " + patientID);
             System.out.println("Creating a new medical record...");
-            medicalRecord = new MedicalRecord(patientID);  // Create a new medical record if none exists
-        }
-
-        // Get the list of existing diagnoses from the medical record
-        List<Diagnosis> diagnoses = new ArrayList<>(medicalRecord.getDiagnoses());
-
-        // Flag to track if the diagnosis was updated
-        boolean updated = false;
-
-        // Check if the diagnosis already exists, and update it if necessary
-        for (int i = 0; i < diagnoses.size(); i++) {
-            if (diagnoses.get(i).getCondition().equalsIgnoreCase(newDiagnosis.getCondition())) {
-                diagnoses.set(i, newDiagnosis);  // Update existing diagnosis with the new one
-                updated = true;
-                break;
-            }
-        }
-
-        if (!updated) {
-            diagnoses.add(newDiagnosis);
-        }
-
-        medicalRecord.addDiagnoses(diagnoses);
-        saveMedicalRecord(medicalRecord);
-        System.out.println("Diagnosis " + (updated ? "updated" : "added") + " successfully for patient ID: " + patientID);
-    }
-
-    // Helpers --
-
-    /**
-     * Ensures the medical records file exists and creates it with a header if it doesn't.
-     */
-    private static void ensureFileExistsWithHeader() {
-        File file = new File(MEDICAL_RECORDS_FILE);
-        if (!file.exists()) {
-            try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
-                bw.write("PatientID,DateOfBirth,PhoneNumber,EmailAddress,BloodType,Diagnoses");
-                bw.newLine();
-                System.out.println("Medical records file created with headers: " + MEDICAL_RECORDS_FILE);
-            } catch (IOException e) {
-                System.err.println("Error creating medical records file: " + e.getMessage());
-            }
         }
-    }
 
-    /**
-     * Serializes a list of diagnoses into a CSV-compatible string.
-     *
-     * @param diagnoses the list of diagnoses to serialize.
-     * @return a string representing the serialized diagnoses.
-     */
-    private static String serializeDiagnoses(List<Diagnosis> diagnoses) {
-        StringBuilder serialized = new StringBuilder();
-        for (Diagnosis diagnosis : diagnoses) {
-            serialized.append(diagnosis.getCondition()).append("|")
-                    .append(diagnosis.getDiagnosisDate()).append("|")
-                    .append(diagnosis.getPrescription()).append(";");
+        // Diagnoses are keyed by condition, so this replaces the diagnosis of the same condition
+        boolean[] updated = new boolean[1];
+        if (!updateMedicalRecord(patientID, medicalRecord, record -> updated[0] = record.upsertDiagnosis(newDiagnosis))) {
+            return;
         }
-        return serialized.toString();
-    }
-
-    /**
-     * Serializes a medical record into a CSV-compatible string.
-     *
-     * @param medicalRecord the medical record to serialize.
-     * @return a string representing the serialized medical record.
-     */
-    private static String serializeMedicalRecord(MedicalRecord medicalRecord) {
-        return String.join(",",
-                medicalRecord.getPatientID(),
-                medicalRecord.getDateOfBirth(),
-                medicalRecord.getPhoneNumber(),
-                medicalRecord.getEmailAddress(),
-                medicalRecord.getBloodType(),
-                serializeDiagnoses(medicalRecord.getDiagnoses())
-        );
+        ClinicalSearchSystem.diagnosisSaved(patientID, newDiagnosis);
+        System.out.println("Diagnosis " + (updated[0] ? "updated" : "added") + " successfully for patient ID: " + patientID);
     }
 
     /**
-     * Deserializes a string of diagnoses into a list of Diagnosis objects.
+     * Applies a change to a patient's medical record and saves it. If another session saved the record since it was
+     * loaded, the change is applied again to the record as that session saved it, so neither session's changes are lost.
      *
-     * @param diagnosesData the serialized diagnoses HMS.data.
-     * @return a list of Diagnosis objects.
+     * @param patientID     the ID of the patient.
+     * @param medicalRecord the record the change was prompted from, or null if the patient had none.
+     * @param change        the change to apply.
+     * @return true if the record was saved, false otherwise.
      */
-    private static List<Diagnosis> deserializeDiagnoses(String diagnosesData) {
-        List<Diagnosis> diagnoses = new ArrayList<>();
-        if (diagnosesData == null || diagnosesData.equalsIgnoreCase("None") || diagnosesData.isEmpty()) {
-            return diagnoses; // Return empty list if no diagnoses
-        }
-
-        String[] diagnosisEntries = diagnosesData.split(";");
-        for (String entry : diagnosisEntries) {
-            String[] parts = entry.split("\\|");
-            if (parts.length == 3) {
-                diagnoses.add(new Diagnosis(parts[0], parts[1], parts[2]));
-            } else {
-                System.err.println("Invalid diagnosis entry: " + entry);
+    private static boolean updateMedicalRecord(String patientID, MedicalRecord medicalRecord, Consumer<MedicalRecord> change) {
+        for (int attempt = 1; ; attempt++) {
+            MedicalRecord record = medicalRecord != null ? medicalRecord : new MedicalRecord(patientID);
+            change.accept(record);
+            try {
+                return saveMedicalRecord(record);
+            } catch (ConcurrentUpdateException e) {
+                if (attempt == MAX_SAVE_ATTEMPTS) {
+                    System.out.println(e.getMessage() + ". Please try again.");
+                    return false;
+                }
+                medicalRecord = loadMedicalRecord(patientID);
             }
         }
-        return diagnoses;
     }
 
     // Data  --
     /**
-     * Saves or updates a medical record in the CSV file.
+     * Saves or updates a medical record in storage, and appends the changes to the record's history.
+     * The record is saved only if the stored record is still at the version it was loaded at, and its version is then
+     * incremented; a record that was never saved is at version 0.
      *
      * @param medicalRecord the medical record to save or update.
+     * @return true if the record was saved, false if the storage could not be written.
+     * @throws ConcurrentUpdateException if another session saved the record since it was loaded.
      */
-    public static void saveMedicalRecord(MedicalRecord medicalRecord) {
-        ensureFileExistsWithHeader();
-
-        File file = new File(MEDICAL_RECORDS_FILE);
-        List<String> allRecords = new ArrayList<>();
-        boolean recordUpdated = false;
+    public static synchronized boolean saveMedicalRecord(MedicalRecord medicalRecord) {
+        MedicalRecord previous = loadMedicalRecord(medicalRecord.getPatientID());
+        long storedVersion = previous == null ? 0 : previous.getVersion();
+        long loadedVersion = medicalRecord.getVersion();
+        if (storedVersion != loadedVersion) {
+            throw new ConcurrentUpdateException("Medical record of patient " + medicalRecord.getPatientID(),
+                    loadedVersion, storedVersion);
+        }
 
+        PersistenceEvent event = PersistenceEvent.start("medical_records");
+        long bytesWritten = 0;
+        medicalRecord.setVersion(loadedVersion + 1);
         try {
-            // Read all existing records
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String header = reader.readLine(); // Read the header
-                if (header != null) {
-                    allRecords.add(header); // Keep the header intact
-                }
-
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] fields = line.split(",");
-                    if (fields.length > 0 && fields[0].equals(medicalRecord.getPatientID())) {
-                        // Update the existing record
-                        allRecords.add(serializeMedicalRecord(medicalRecord));
-                        recordUpdated = true;
-                    } else {
-                        // Keep other records unchanged
-                        allRecords.add(line);
-                    }
-                }
-            }
-
-            // If the record was not found, add it as a new record
-            if (!recordUpdated) {
-                allRecords.add(serializeMedicalRecord(medicalRecord));
-            }
-
-            // Write all records back to the file
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                for (String record : allRecords) {
-                    writer.write(record);
-                    writer.newLine();
-                }
-            }
-
+            bytesWritten = Storage.medicalRecords().save(medicalRecord);
             System.out.println("Medical record saved or updated successfully.");
         } catch (IOException e) {
+            medicalRecord.setVersion(loadedVersion);
             System.err.println("Error saving medical record: " + e.getMessage());
+            event.end(1, bytesWritten);
+            return false;
         }
+        event.end(1, bytesWritten);
+        MedicalRecordHistorySystem.recordChange(previous, medicalRecord);
+        return true;
     }
 
     /**
@@ -416,45 +315,13 @@ public class MedicalRecordSystem {
      * @return the medical record if found; null otherwise.
      */
     public static MedicalRecord loadMedicalRecord(String patientID) {
-        ensureFileExistsWithHeader();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(MEDICAL_RECORDS_FILE))) {
-            String line;
-
-            while ((line = br.readLine()) != null) {
-                // Skip the header row
-                if (line.startsWith("PatientID")) continue;
-
-                // Split on commas but handle embedded commas and missing fields
-                String[] recordDetails = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-
-                if (recordDetails.length < 5) { // Ensure all required fields are present
-                    System.err.println("Invalid record: " + line);
-                    continue;
-                }
-
-                // Match the patient ID
-                if (recordDetails[0].equalsIgnoreCase(patientID)) {
-                    MedicalRecord medicalRecord = new MedicalRecord(patientID);
-                    medicalRecord.setDateOfBirth(recordDetails[1]);
-                    medicalRecord.setPhoneNumber(recordDetails[2]);
-                    medicalRecord.setEmailAddress(recordDetails[3]);
-                    medicalRecord.setBloodType(recordDetails[4]);
-
-                    // Parse diagnoses if present
-                    if (recordDetails.length > 5) {
-                        List<Diagnosis> diagnoses = deserializeDiagnoses(recordDetails[5]);
-                        medicalRecord.addDiagnoses(diagnoses);
-                    }
-
-                    return medicalRecord; // Return the loaded record
-                }
-            }
+        try {
+            return Storage.medicalRecords().find(patientID);
         } catch (IOException e) {
-            System.err.println("Error reading file: " + e.getMessage());
+            System.err.println("Error reading medical records: " + e.getMessage());
         }
 
         // Return null if the record does not exist
         return null;
     }
-}
\ No newline at end of file
+}
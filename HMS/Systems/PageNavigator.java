@@ -0,0 +1,116 @@
+package HMS.Systems;
+
+import HMS.Models.Page;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Displays large listings one page at a time.
+ * Each page is fetched from the listing with a cursor, rendered as a table into the session's reused table buffer,
+ * and printed in a single write. The user moves between pages until they exit or reach the last page.
+ */
+public class PageNavigator {
+    private static final int PAGE_SIZE = Integer.getInteger("hms.page.size", 20);
+
+    /**
+     * Fetches a page of rows from a listing.
+     *
+     * @param <T> the type of the rows.
+     */
+    @FunctionalInterface
+    public interface PageSource<T> {
+        /**
+         * Fetches the page of rows after a cursor.
+         *
+         * @param cursor the cursor returned with the previous page, or null for the first page.
+         * @param limit  the maximum number of rows on the page.
+         * @return the page of rows.
+         */
+        Page<T> fetch(String cursor, int limit);
+    }
+
+    /**
+     * Renders a row of a listing into the page buffer.
+     *
+     * @param <T> the type of the rows.
+     */
+    @FunctionalInterface
+    public interface RowWriter<T> {
+        /**
+         * Renders a row into the page buffer.
+         *
+         * @param out         the page buffer.
+         * @param row         the row to render.
+         * @param previousRow the row rendered before it on the same page, or null for the first row of the page.
+         * @param rowNumber   the position of the row in the whole listing, starting from 1.
+         */
+        void write(StringBuilder out, T row, T previousRow, int rowNumber);
+    }
+
+    /**
+     * Displays a listing page by page as a table, repeating the title and column titles on every page.
+     * The user is only prompted to move between pages if the listing has more than one page.
+     *
+     * @param title     the line printed above the table, or null for none.
+     * @param table     the layout of the table.
+     * @param columns   the title of each column.
+     * @param source    the listing to fetch the pages from.
+     * @param rowWriter renders each row of a page.
+     * @param <T>       the type of the rows.
+     * @return false if the listing has no rows, true otherwise.
+     */
+    public static <T> boolean browse(String title, TableRenderer table, String[] columns, PageSource<T> source, RowWriter<T> rowWriter) {
+        Deque<String> previousCursors = new ArrayDeque<>();
+        String cursor = null;
+        int firstRowNumber = 1;
+
+        while (true) {
+            Page<T> page = source.fetch(cursor, PAGE_SIZE);
+            if (page.getItems().isEmpty() && cursor == null) {
+                return false;
+            }
+
+            StringBuilder out = TableRenderer.buffer();
+            if (title != null) {
+                out.append(title).append('\n');
+            }
+            table.header(out, columns);
+            int rowNumber = firstRowNumber;
+            T previousRow = null;
+            for (T row : page.getItems()) {
+                rowWriter.write(out, row, previousRow, rowNumber++);
+                previousRow = row;
+            }
+            table.border(out);
+            TableRenderer.flush(out);
+
+            if (!page.hasNext() && previousCursors.isEmpty()) {
+                return true;
+            }
+
+            boolean hasPrevious = !previousCursors.isEmpty();
+            int pageNumber = previousCursors.size() + 1;
+            String input = InputHandler.getValidatedInputWithExit(
+                    "Page " + pageNumber + (page.hasNext() ? "" : " (last page)") + ". Enter "
+                            + (page.hasNext() ? "'n' for the next page, " : "")
+                            + (hasPrevious ? "'p' for the previous page, " : "") + "or 'exit' to stop: ",
+                    "Invalid input.",
+                    value -> (page.hasNext() && value.equalsIgnoreCase("n")) || (hasPrevious && value.equalsIgnoreCase("p"))
+            );
+            if (input == null) {
+                return true;
+            }
+
+            if (input.equalsIgnoreCase("n")) {
+                previousCursors.push(cursor == null ? "" : cursor);
+                cursor = page.getNextCursor();
+                firstRowNumber += page.getItems().size();
+            } else {
+                cursor = previousCursors.pop();
+                cursor = cursor.isEmpty() ? null : cursor;
+                firstRowNumber -= PAGE_SIZE;
+            }
+        }
+    }
+}
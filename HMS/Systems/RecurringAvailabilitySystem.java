@@ -0,0 +1,505 @@
+package HMS.Systems;
+
+import HMS.Enums.TimeWindow;
+import HMS.Models.AvailabilityRule;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Storage.AvailabilityRuleCodec;
+import HMS.Storage.Storage;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Manages the recurring availability rules of doctors, such as "Mon-Fri 09:00-17:00 every 30 minutes".
+ * Only the rules and the slots excepted from them (booked or removed slots) are kept in memory and in storage.
+ * The slots of a rule are generated one day at a time for the dates being queried.
+ */
+public class RecurringAvailabilitySystem {
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final Map<String, List<AvailabilityRule>> rules = new HashMap<>();
+    private static final Map<String, NavigableSet<String>> exceptions = new HashMap<>();
+    private static int nextRuleID = 1;
+
+    /**
+     * Static initializer block to load the rules and exceptions when the class is first accessed.
+     */
+    static {
+        loadRules();
+        loadExceptions();
+    }
+
+    /**
+     * Adds a recurring availability rule for a doctor.
+     *
+     * @param doctorID        the ID of the doctor.
+     * @param days            the days of the week the rule applies to.
+     * @param startTime       the time of the first slot of each day.
+     * @param endTime         the time the last slot of each day must start before.
+     * @param intervalMinutes the number of minutes between two slots.
+     * @param validFrom       the first date the rule applies to.
+     * @param validUntil      the last date the rule applies to, or null if the rule does not end.
+     * @return the created rule.
+     */
+    public static synchronized AvailabilityRule addRule(String doctorID, Set<DayOfWeek> days, LocalTime startTime,
+                                                        LocalTime endTime, int intervalMinutes,
+                                                        LocalDate validFrom, LocalDate validUntil) {
+        AvailabilityRule rule = new AvailabilityRule(nextRuleID++, doctorID, days, startTime, endTime,
+                intervalMinutes, validFrom, validUntil);
+        // Rule lists are replaced rather than modified so that slot iterators keep a stable snapshot
+        List<AvailabilityRule> doctorRules = new ArrayList<>(rules.getOrDefault(doctorID, List.of()));
+        doctorRules.add(rule);
+        rules.put(doctorID, doctorRules);
+        saveRules();
+        return rule;
+    }
+
+    /**
+     * Removes a recurring availability rule of a doctor.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param ruleID   the ID of the rule to remove.
+     * @return true if the rule was removed, false if the doctor has no such rule.
+     */
+    public static synchronized boolean removeRule(String doctorID, int ruleID) {
+        List<AvailabilityRule> doctorRules = new ArrayList<>(rules.getOrDefault(doctorID, List.of()));
+        if (!doctorRules.removeIf(rule -> rule.getID() == ruleID)) {
+            return false;
+        }
+        rules.put(doctorID, doctorRules);
+        saveRules();
+        return true;
+    }
+
+    /**
+     * Retrieves the recurring availability rules of a doctor.
+     *
+     * @param doctorID the ID of the doctor.
+     * @return the rules of the doctor, empty if the doctor has none.
+     */
+    public static synchronized List<AvailabilityRule> getRules(String doctorID) {
+        return rules.getOrDefault(doctorID, List.of());
+    }
+
+    /**
+     * Retrieves the IDs of the doctors who have recurring availability rules.
+     *
+     * @return the doctor IDs.
+     */
+    public static synchronized Set<String> getDoctorIDs() {
+        Set<String> doctorIDs = new HashSet<>();
+        rules.forEach((doctorID, doctorRules) -> {
+            if (!doctorRules.isEmpty()) {
+                doctorIDs.add(doctorID);
+            }
+        });
+        return doctorIDs;
+    }
+
+    /**
+     * Checks whether a slot is generated by one of the doctor's rules and has not been excepted.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param slot     the slot in the format "yyyy-MM-dd HH:mm".
+     * @return true if the slot is available through a rule, false otherwise.
+     */
+    public static synchronized boolean isAvailable(String doctorID, String slot) {
+        return isRuleSlot(doctorID, slot) && !exceptions.getOrDefault(doctorID, Collections.emptyNavigableSet()).contains(slot);
+    }
+
+    /**
+     * Records an exception against the doctor's rules, so that a rule slot is no longer available.
+     * This is used when a rule slot is booked or removed by the doctor.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param slot     the slot in the format "yyyy-MM-dd HH:mm".
+     * @return true if the slot was available through a rule and is now excepted, false otherwise.
+     */
+    public static synchronized boolean addException(String doctorID, String slot) {
+        if (!isAvailable(doctorID, slot)) {
+            return false;
+        }
+        exceptions.computeIfAbsent(doctorID, k -> new TreeSet<>()).add(slot);
+        saveExceptions();
+        return true;
+    }
+
+    /**
+     * Removes the exception recorded against a rule slot, so that the slot is available again.
+     * This is used when an appointment in a rule slot is cancelled or rescheduled.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param slot     the slot in the format "yyyy-MM-dd HH:mm".
+     * @return true if the slot is a rule slot that was excepted, false otherwise.
+     */
+    public static synchronized boolean removeException(String doctorID, String slot) {
+        NavigableSet<String> doctorExceptions = exceptions.get(doctorID);
+        if (!isRuleSlot(doctorID, slot) || doctorExceptions == null || !doctorExceptions.remove(slot)) {
+            return false;
+        }
+        saveExceptions();
+        return true;
+    }
+
+    /**
+     * Removes the exceptions recorded against several rule slots of a doctor, saving them once.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param slots    the slots in the format "yyyy-MM-dd HH:mm".
+     * @return the slots that were excepted rule slots and are available again.
+     */
+    public static synchronized Set<String> removeExceptions(String doctorID, Collection<String> slots) {
+        Set<String> released = new HashSet<>();
+        NavigableSet<String> doctorExceptions = exceptions.get(doctorID);
+        if (doctorExceptions == null) {
+            return released;
+        }
+        for (String slot : slots) {
+            if (isRuleSlot(doctorID, slot) && doctorExceptions.remove(slot)) {
+                released.add(slot);
+            }
+        }
+        if (!released.isEmpty()) {
+            saveExceptions();
+        }
+        return released;
+    }
+
+    /**
+     * Returns an iterator over the available rule slots of a doctor in time order,
+     * generating the slots of one day at a time as the iterator advances.
+     *
+     * @param doctorID   the ID of the doctor.
+     * @param fromSlot   the earliest slot to return, in the format "yyyy-MM-dd HH:mm".
+     * @param lastDate   the last date to generate slots for.
+     * @param timeWindow the time window the slots must fall within, or null for any time.
+     * @return the iterator over the slots in the format "yyyy-MM-dd HH:mm".
+     */
+    public static Iterator<String> slotIterator(String doctorID, String fromSlot, LocalDate lastDate, TimeWindow timeWindow) {
+        List<AvailabilityRule> doctorRules = getRules(doctorID);
+        LocalDateTime from = LocalDateTime.parse(fromSlot, SLOT_FORMAT);
+
+        return new Iterator<>() {
+            private LocalDate date = from.toLocalDate();
+            private final Deque<String> daySlots = new ArrayDeque<>();
+
+            @Override
+            public boolean hasNext() {
+                while (daySlots.isEmpty() && !doctorRules.isEmpty() && !date.isAfter(lastDate)) {
+                    daySlots.addAll(generateDay(doctorID, doctorRules, date, fromSlot, timeWindow));
+                    date = date.plusDays(1);
+                }
+                return !daySlots.isEmpty();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return daySlots.poll();
+            }
+        };
+    }
+
+    /**
+     * Collects the available rule slots of a doctor within a range of dates.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param fromSlot the earliest slot to return, in the format "yyyy-MM-dd HH:mm".
+     * @param lastDate the last date to generate slots for.
+     * @return the slots in time order.
+     */
+    public static List<String> getSlots(String doctorID, String fromSlot, LocalDate lastDate) {
+        List<String> slots = new ArrayList<>();
+        slotIterator(doctorID, fromSlot, lastDate, null).forEachRemaining(slots::add);
+        return slots;
+    }
+
+    /**
+     * Prompts a doctor for a recurring availability rule and adds it.
+     * The days are entered as a range ("MON-FRI") or a list ("MON,WED,FRI"), and slots must be within 09:00 and 17:00.
+     *
+     * @param doctorID the ID of the doctor.
+     * @return the created rule, or null if the doctor cancelled.
+     */
+    public static AvailabilityRule addRuleMenu(String doctorID) {
+        String daysInput = InputHandler.getValidatedInputWithExit(
+                "Enter the days (e.g., MON-FRI or MON,WED,FRI) or 'exit' to cancel: ",
+                "Invalid days. Use three letter day names such as MON-FRI or MON,WED,FRI.",
+                input -> parseDays(input) != null
+        );
+        if (daysInput == null) return null;
+
+        String startInput = InputHandler.getValidatedInput(
+                "Enter the start time (HH:mm, from 09:00): ",
+                "Invalid time. Use HH:mm between 09:00 and 17:00.",
+                input -> isWorkingTime(input, false)
+        );
+        String endInput = InputHandler.getValidatedInput(
+                "Enter the end time (HH:mm, until 17:00): ",
+                "Invalid time. Use HH:mm after the start time and until 17:00.",
+                input -> isWorkingTime(input, true) && LocalTime.parse(input).isAfter(LocalTime.parse(startInput))
+        );
+        String intervalInput = InputHandler.getValidatedInput(
+                "Enter the slot interval in minutes (e.g., 30): ",
+                "Invalid interval. Enter a number of minutes between 5 and 480.",
+                input -> input.matches("\\d{1,3}") && Integer.parseInt(input) >= 5 && Integer.parseInt(input) <= 480
+        );
+        String untilInput = InputHandler.getValidatedInput(
+                "Enter the last date of the rule (YYYY-MM-DD) or 'none' if it does not end: ",
+                "Invalid date. Use YYYY-MM-DD, not in the past, or 'none'.",
+                input -> input.equalsIgnoreCase("none") || isFutureDate(input)
+        );
+
+        LocalDate validUntil = untilInput.equalsIgnoreCase("none") ? null : LocalDate.parse(untilInput);
+        AvailabilityRule rule = addRule(doctorID, parseDays(daysInput), LocalTime.parse(startInput),
+                LocalTime.parse(endInput), Integer.parseInt(intervalInput), LocalDate.now(), validUntil);
+        System.out.println("Recurring availability added for Doctor ID: " + doctorID + " (rule " + rule.getID() + ").");
+        return rule;
+    }
+
+    /**
+     * Displays the recurring availability rules of a doctor and prompts the doctor to remove one.
+     * Exceptions recorded against the removed rule are kept, as they may still apply to other rules.
+     *
+     * @param doctorID the ID of the doctor.
+     */
+    public static void removeRuleMenu(String doctorID) {
+        List<AvailabilityRule> doctorRules = getRules(doctorID);
+        if (doctorRules.isEmpty()) {
+            System.out.println("No recurring availability set for Doctor ID: " + doctorID);
+            return;
+        }
+
+        System.out.println("+-----+-----------------------------+-------------+----------+------------+------------+");
+        System.out.println("| ID  | Days                        | Hours       | Interval | From       | Until      |");
+        System.out.println("+-----+-----------------------------+-------------+----------+------------+------------+");
+        for (AvailabilityRule rule : doctorRules) {
+            System.out.printf("| %-3d | %-27s | %-11s | %-8s | %-10s | %-10s |\n",
+                    rule.getID(),
+                    String.join(",", rule.getDays().stream().map(day -> day.name().substring(0, 3)).toList()),
+                    rule.getStartTime() + "-" + rule.getEndTime(),
+                    rule.getIntervalMinutes() + " min",
+                    rule.getValidFrom(),
+                    rule.getValidUntil() == null ? "-" : rule.getValidUntil());
+        }
+        System.out.println("+-----+-----------------------------+-------------+----------+------------+------------+");
+
+        String input = InputHandler.getValidatedInputWithExit(
+                "Enter the ID of the rule to remove or 'exit' to cancel: ",
+                "Invalid rule ID.",
+                value -> value.matches("\\d+") && doctorRules.stream().anyMatch(rule -> rule.getID() == Integer.parseInt(value))
+        );
+        if (input != null && removeRule(doctorID, Integer.parseInt(input))) {
+            System.out.println("Recurring availability rule " + input + " removed.");
+        }
+    }
+
+    // Helpers --
+
+    /**
+     * Generates the available slots of one day from a doctor's rules, in time order.
+     *
+     * @param doctorID   the ID of the doctor.
+     * @param rules      the rules of the doctor.
+     * @param date       the date to generate slots for.
+     * @param fromSlot   the earliest slot to return, in the format "yyyy-MM-dd HH:mm".
+     * @param timeWindow the time window the slots must fall within, or null for any time.
+     * @return the slots of the day that are not excepted.
+     */
+    private static synchronized List<String> generateDay(String doctorID, List<AvailabilityRule> rules, LocalDate date,
+                                                         String fromSlot, TimeWindow timeWindow) {
+        NavigableSet<String> doctorExceptions = exceptions.getOrDefault(doctorID, Collections.emptyNavigableSet());
+        TreeSet<String> daySlots = new TreeSet<>();
+        for (AvailabilityRule rule : rules) {
+            if (!rule.appliesTo(date)) {
+                continue;
+            }
+            for (LocalTime time = rule.getStartTime(); time.isBefore(rule.getEndTime());
+                 time = time.plusMinutes(rule.getIntervalMinutes())) {
+                if (timeWindow == null || timeWindow.matches(time.getHour())) {
+                    String slot = SLOT_FORMAT.format(date.atTime(time));
+                    if (slot.compareTo(fromSlot) >= 0 && !doctorExceptions.contains(slot)) {
+                        daySlots.add(slot);
+                    }
+                }
+                if (time.plusMinutes(rule.getIntervalMinutes()).isBefore(time)) {
+                    break; // Wrapped past midnight
+                }
+            }
+        }
+        return new ArrayList<>(daySlots);
+    }
+
+    /**
+     * Checks whether a slot is generated by one of the doctor's rules, regardless of exceptions.
+     *
+     * @param doctorID the ID of the doctor.
+     * @param slot     the slot in the format "yyyy-MM-dd HH:mm".
+     * @return true if a rule generates the slot, false otherwise.
+     */
+    private static boolean isRuleSlot(String doctorID, String slot) {
+        List<AvailabilityRule> doctorRules = rules.get(doctorID);
+        if (doctorRules == null || doctorRules.isEmpty()) {
+            return false;
+        }
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(slot, SLOT_FORMAT);
+            for (AvailabilityRule rule : doctorRules) {
+                if (rule.generates(dateTime.toLocalDate(), dateTime.toLocalTime())) {
+                    return true;
+                }
+            }
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Parses the days of a rule, entered as a range ("MON-FRI") or a list ("MON,WED,FRI").
+     *
+     * @param input the days entered by the doctor.
+     * @return the days of the week, or null if the input is invalid.
+     */
+    private static Set<DayOfWeek> parseDays(String input) {
+        try {
+            Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            for (String part : input.split(",")) {
+                String[] range = part.trim().split("-");
+                if (range.length == 1) {
+                    days.add(AvailabilityRuleCodec.parseDay(range[0].trim()));
+                } else if (range.length == 2) {
+                    DayOfWeek day = AvailabilityRuleCodec.parseDay(range[0].trim());
+                    DayOfWeek last = AvailabilityRuleCodec.parseDay(range[1].trim());
+                    days.add(day);
+                    while (day != last) {
+                        day = day.plus(1);
+                        days.add(day);
+                    }
+                } else {
+                    return null;
+                }
+            }
+            return days.isEmpty() ? null : days;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Validates a time entered for a rule against the working hours (9:00 AM to 5:00 PM).
+     *
+     * @param input the time in the format "HH:mm".
+     * @param isEnd whether the time is the end of the rule, which may be 17:00 itself.
+     * @return true if the time is valid, false otherwise.
+     */
+    private static boolean isWorkingTime(String input, boolean isEnd) {
+        try {
+            LocalTime time = LocalTime.parse(input);
+            return !time.isBefore(LocalTime.of(9, 0))
+                    && (isEnd ? !time.isAfter(LocalTime.of(17, 0)) : time.isBefore(LocalTime.of(17, 0)));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Validates that a date is today or later.
+     *
+     * @param input the date in the format "YYYY-MM-DD".
+     * @return true if the date is valid and not in the past, false otherwise.
+     */
+    private static boolean isFutureDate(String input) {
+        try {
+            return !LocalDate.parse(input).isBefore(LocalDate.now());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // Data --
+
+    /**
+     * Loads the recurring availability rules from storage.
+     */
+    private static void loadRules() {
+        try {
+            for (AvailabilityRule rule : Storage.availabilityRules().loadAll()) {
+                rules.computeIfAbsent(rule.getDoctorID(), k -> new ArrayList<>()).add(rule);
+                nextRuleID = Math.max(nextRuleID, rule.getID() + 1);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading availability rules: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the rules and exceptions in memory with those in storage, after another process changed them.
+     */
+    static synchronized void reload() {
+        rules.clear();
+        exceptions.clear();
+        loadRules();
+        loadExceptions();
+    }
+
+    /**
+     * Saves the recurring availability rules to storage.
+     */
+    private static void saveRules() {
+        PersistenceEvent event = PersistenceEvent.start("availability_rules");
+        List<AvailabilityRule> allRules = new ArrayList<>();
+        rules.values().forEach(allRules::addAll);
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.availabilityRules().saveAll(allRules);
+        } catch (IOException e) {
+            System.err.println("Error saving availability rules: " + e.getMessage());
+        }
+        event.end(allRules.size(), bytesWritten);
+    }
+
+    /**
+     * Loads the exceptions recorded against the rules from storage, dropping exceptions of past dates.
+     */
+    private static void loadExceptions() {
+        String today = SLOT_FORMAT.format(LocalDate.now().atStartOfDay());
+        try {
+            for (Map.Entry<String, List<String>> entry : Storage.availabilityExceptions().loadAll().entrySet()) {
+                NavigableSet<String> doctorExceptions = new TreeSet<>(entry.getValue());
+                doctorExceptions.headSet(today).clear(); // Past slots are never generated again
+                exceptions.put(entry.getKey(), doctorExceptions);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading availability exceptions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the exceptions recorded against the rules to storage.
+     */
+    private static void saveExceptions() {
+        PersistenceEvent event = PersistenceEvent.start("availability_exceptions");
+        Map<String, List<String>> rows = new HashMap<>();
+        exceptions.forEach((doctorID, doctorExceptions) -> {
+            if (!doctorExceptions.isEmpty()) {
+                rows.put(doctorID, new ArrayList<>(doctorExceptions));
+            }
+        });
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.availabilityExceptions().saveAll(rows);
+        } catch (IOException e) {
+            System.err.println("Error saving availability exceptions: " + e.getMessage());
+        }
+        event.end(rows.size(), bytesWritten);
+    }
+}
@@ -0,0 +1,232 @@
+package HMS.Systems;
+
+import HMS.Enums.AppointmentStatus;
+import HMS.Models.Appointment;
+import HMS.Models.Reminder;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Storage.Storage;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sends reminders before approved appointments by writing them to a local outbox, where a separate sender picks them up.
+ * Upcoming reminders are kept in a concurrent index ordered by due time, so due reminders are taken from its head in batches
+ * without scanning the appointments. Rescheduling or cancelling an appointment replaces or retracts its pending reminder.
+ *
+ * <p>Reminders are appended as NDJSON lines to {@code outbox/reminders-yyyyMMdd.ndjson} in the data directory.
+ * The lead time is configured with the {@code hms.reminder.lead.hours} system property (24 by default).
+ * The due time of the last written reminder is kept in {@code outbox/reminders.watermark}, so reminders already
+ * written are not written again when the index is rebuilt at startup.
+ */
+public class ReminderSystem {
+    private static final long LEAD_MILLIS = Long.getLong("hms.reminder.lead.hours", 24) * 60 * 60 * 1000L;
+    private static final int BATCH_SIZE = 500;
+    private static final long POLL_MILLIS = 1000;
+    private static final File OUTBOX_DIRECTORY = new File(Storage.getDataDirectory(), "outbox");
+    private static final File WATERMARK_FILE = new File(OUTBOX_DIRECTORY, "reminders.watermark");
+    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+    private static final SimpleDateFormat FILE_DATE_FORMAT = new SimpleDateFormat("yyyyMMdd");
+
+    private static final ConcurrentSkipListSet<Reminder> dueIndex = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Reminder::getDueAt).thenComparingInt(Reminder::getAppointmentID));
+    private static final ConcurrentHashMap<Integer, Reminder> pendingReminders = new ConcurrentHashMap<>();
+    private static volatile long watermark = readWatermark();
+    private static Thread worker;
+
+    /**
+     * Rebuilds the reminders of the upcoming approved appointments and starts the background thread
+     * that writes due reminders to the outbox. Does nothing if the system is already started.
+     */
+    public static void start() {
+        synchronized (ReminderSystem.class) {
+            if (worker != null) {
+                return;
+            }
+            worker = new Thread(ReminderSystem::run, "hms-reminders");
+            worker.setDaemon(true);
+        }
+
+        AppointmentSystem.trackAllAppointments();
+        worker.start();
+    }
+
+    /**
+     * Schedules, replaces or retracts the reminder of an appointment according to its current state.
+     * Only approved appointments that have not taken place have a reminder; a reminder whose due time has already
+     * passed is written on the next batch. Reminders due before the watermark were already written and are skipped.
+     *
+     * @param appointment the appointment whose reminder to update.
+     */
+    public static void track(Appointment appointment) {
+        long now = System.currentTimeMillis();
+        pendingReminders.compute(appointment.getID(), (appointmentID, previous) -> {
+            if (previous != null) {
+                dueIndex.remove(previous);
+            }
+            if (appointment.getAppointmentStatus() != AppointmentStatus.APPROVED
+                    || appointment.getAppointmentDate().getTime() <= now) {
+                return null;
+            }
+
+            long dueAt = appointment.getAppointmentDate().getTime() - LEAD_MILLIS;
+            if (previous == null && dueAt <= watermark) {
+                return null; // Written before the last restart
+            }
+            Reminder reminder = new Reminder(appointmentID, appointment.getPatientID(), appointment.getDoctorID(),
+                    appointment.getAppointmentDate(), dueAt);
+            dueIndex.add(reminder);
+            return reminder;
+        });
+    }
+
+    /**
+     * Gets the number of reminders waiting to be written.
+     *
+     * @return the number of pending reminders.
+     */
+    public static int getPendingCount() {
+        return pendingReminders.size();
+    }
+
+    /**
+     * Takes the reminders due by the given time from the head of the index, in due order.
+     *
+     * @param now       the current time in milliseconds.
+     * @param batchSize the maximum number of reminders to take.
+     * @return the due reminders, empty if none are due.
+     */
+    static List<Reminder> pollDue(long now, int batchSize) {
+        List<Reminder> batch = new ArrayList<>();
+        while (batch.size() < batchSize) {
+            Reminder head = dueIndex.isEmpty() ? null : dueIndex.first();
+            if (head == null || head.getDueAt() > now) {
+                break;
+            }
+            // Only the thread that removes the reminder from the index sends it, a concurrent reschedule wins otherwise
+            if (dueIndex.remove(head)) {
+                pendingReminders.remove(head.getAppointmentID(), head);
+                batch.add(head);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Writes all reminders due by the given time to the outbox, one batch at a time.
+     *
+     * @param now the current time in milliseconds.
+     * @return the number of reminders written.
+     */
+    static synchronized int sendDueReminders(long now) {
+        int written = 0;
+        List<Reminder> batch;
+        while (!(batch = pollDue(now, BATCH_SIZE)).isEmpty()) {
+            try {
+                writeBatch(batch, now);
+                written += batch.size();
+            } catch (IOException e) {
+                System.err.println("Error writing reminders to outbox: " + e.getMessage());
+                batch.forEach(dueIndex::add); // Retried on the next poll
+                batch.forEach(reminder -> pendingReminders.putIfAbsent(reminder.getAppointmentID(), reminder));
+                break;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes due reminders to the outbox once per poll interval.
+     */
+    private static void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            sendDueReminders(System.currentTimeMillis());
+        }
+    }
+
+    // Data --
+
+    /**
+     * Appends a batch of reminders to the outbox file of the day and advances the watermark.
+     *
+     * @param batch the reminders to write, in due order.
+     * @param now   the current time in milliseconds.
+     * @throws IOException if the outbox cannot be written.
+     */
+    private static void writeBatch(List<Reminder> batch, long now) throws IOException {
+        PersistenceEvent event = PersistenceEvent.start("reminder_outbox");
+        OUTBOX_DIRECTORY.mkdirs();
+        File outboxFile = new File(OUTBOX_DIRECTORY, "reminders-" + FILE_DATE_FORMAT.format(new Date(now)) + ".ndjson");
+
+        StringBuilder lines = new StringBuilder(batch.size() * 160);
+        for (Reminder reminder : batch) {
+            lines.append("{\"type\":\"appointment_reminder\"")
+                    .append(",\"appointmentID\":").append(reminder.getAppointmentID())
+                    .append(",\"patientID\":\"").append(escapeJson(reminder.getPatientID())).append('"')
+                    .append(",\"doctorID\":\"").append(escapeJson(reminder.getDoctorID())).append('"')
+                    .append(",\"appointmentDate\":\"").append(DATE_FORMAT.format(reminder.getAppointmentDate())).append('"')
+                    .append(",\"dueAt\":").append(reminder.getDueAt())
+                    .append(",\"createdAt\":").append(now)
+                    .append("}\n");
+        }
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = new FileOutputStream(outboxFile, true)) {
+            out.write(bytes);
+        }
+
+        watermark = Math.max(watermark, batch.get(batch.size() - 1).getDueAt());
+        Files.writeString(WATERMARK_FILE.toPath(), String.valueOf(watermark));
+        event.end(batch.size(), bytes.length);
+    }
+
+    /**
+     * Reads the due time of the last written reminder.
+     *
+     * @return the watermark in milliseconds, or 0 if no reminder was written yet.
+     */
+    private static long readWatermark() {
+        try {
+            return WATERMARK_FILE.exists() ? Long.parseLong(Files.readString(WATERMARK_FILE.toPath()).trim()) : 0;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading reminder watermark: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Escapes a value for a JSON string.
+     *
+     * @param value the value to escape.
+     * @return the escaped value.
+     */
+    private static String escapeJson(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package HMS.Systems;
+
+import HMS.Enums.UserRole;
+import HMS.Models.User;
+
+/**
+ * Holds the user acting in the current session.
+ * The user is tracked per thread so that concurrent sessions do not see each other's user.
+ */
+public class SessionContext {
+    private static final ThreadLocal<User> currentUser = new ThreadLocal<>();
+
+    /**
+     * Sets the user acting in the current session.
+     *
+     * @param user the logged-in user, or {@code null} to clear the session.
+     */
+    public static void setCurrentUser(User user) {
+        if (user == null) {
+            currentUser.remove();
+        } else {
+            currentUser.set(user);
+        }
+    }
+
+    /**
+     * Gets the user acting in the current session.
+     *
+     * @return the logged-in user, or {@code null} if nobody is logged in.
+     */
+    public static User getCurrentUser() {
+        return currentUser.get();
+    }
+
+    /**
+     * Gets the role of the user acting in the current session.
+     *
+     * @return the lowercase role of the logged-in user, or "system" if nobody is logged in.
+     */
+    public static String getCurrentRole() {
+        User user = currentUser.get();
+        UserRole role = user == null ? null : user.getRole();
+        return role == null ? "system" : role.toString();
+    }
+
+    /**
+     * Clears the user acting in the current session.
+     */
+    public static void clear() {
+        currentUser.remove();
+    }
+}
@@ -0,0 +1,62 @@
+package HMS.Systems;
+
+import HMS.Models.VersionedModel;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Point-in-time snapshots of a list of aggregates kept by a System, for reports and listings.
+ * The System changes its list while holding its lock and publishes a snapshot after each change; readers take the
+ * latest snapshot without a lock. A long listing therefore neither blocks the writers nor sees a change half made,
+ * and the list it iterates never changes under it.
+ *
+ * <p>A snapshot holds a copy of each aggregate as of its version. The copy of an aggregate whose version did not
+ * change since the previous snapshot is reused, so publishing only copies the aggregates changed since and the
+ * snapshots share the copies of the others. The copies must not be changed.</p>
+ *
+ * @param <T> the type of the aggregates.
+ */
+final class SnapshotList<T extends VersionedModel> {
+    private final UnaryOperator<T> copier;
+    private Map<T, T> copies = new IdentityHashMap<>(); // Aggregate -> copy in the latest snapshot
+    private volatile List<T> snapshot = List.of();
+
+    /**
+     * Constructs an empty snapshot list.
+     *
+     * @param copier copies an aggregate as it is now, with its version.
+     */
+    SnapshotList(UnaryOperator<T> copier) {
+        this.copier = copier;
+    }
+
+    /**
+     * Publishes a snapshot of the list as it is now. Called while holding the lock that guards the list.
+     *
+     * @param items the aggregates of the list, in order.
+     */
+    void publish(List<T> items) {
+        Map<T, T> nextCopies = new IdentityHashMap<>(items.size() * 2);
+        List<T> next = new ArrayList<>(items.size());
+        for (T item : items) {
+            T copy = copies.get(item);
+            if (copy == null || copy.getVersion() != item.getVersion()) {
+                copy = copier.apply(item);
+            }
+            nextCopies.put(item, copy);
+            next.add(copy);
+        }
+        copies = nextCopies;
+        snapshot = Collections.unmodifiableList(next);
+    }
+
+    /**
+     * Gets the latest snapshot.
+     *
+     * @return the copies of the aggregates as of the last publication, which never change.
+     */
+    List<T> get() {
+        return snapshot;
+    }
+}
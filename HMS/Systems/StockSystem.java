@@ -1,11 +1,17 @@
 package HMS.Systems;
 
 import HMS.Enums.ReplenishStatus;
+import HMS.Models.ConcurrentUpdateException;
+import HMS.Models.Page;
 import HMS.Models.Stock;
 import HMS.Models.StockReplenishRequest;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Storage.Storage;
+import HMS.Storage.UnitOfWork;
 
-import java.io.*;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -14,12 +20,12 @@ import java.util.stream.Collectors;
  * It provides methods to load, save, and manipulate stock HMS.data, as well as create and update replenish requests.
  */
 public class StockSystem {
-    private static final String STOCKS_FILE = "HMS/data/stocks.csv";
-    private static final String REPLENISH_REQUESTS_FILE = "HMS/data/replenish_requests.csv";
-
     private static final List<Stock> stocks = new ArrayList<>();
     private static final List<StockReplenishRequest> replenishRequests = new ArrayList<>();
     private static int nextReplenishRequestID = 1; // Static ID tracker for replenish requests
+    private static final int REPLENISH_TARGET_MULTIPLE = Integer.getInteger("hms.replenish.target.multiple", 2);
+    private static final TableRenderer STOCK_TABLE = TableRenderer.boxed(3, 24, 13, 22);
+    private static final TableRenderer REPLENISH_REQUEST_TABLE = TableRenderer.boxed(17, 17, 17, 17);
 
     static {
         loadStocks();
@@ -35,14 +41,81 @@ public class StockSystem {
         return stocks;
     }
 
+    /**
+     * Adds a new medicine to the stock list and saves the stocks.
+     * The stock is given the next available stock ID.
+     *
+     * @param medicineName           the name of the medicine.
+     * @param stockLevel             the initial stock level.
+     * @param lowStockAlertThreshold the threshold below which a stock alert is triggered.
+     * @return the created stock
+     */
+    public static synchronized Stock addStock(String medicineName, int stockLevel, int lowStockAlertThreshold) {
+        int nextStockID = stocks.stream()
+                .mapToInt(Stock::getID)
+                .max()
+                .orElse(0) + 1;
+        Stock stock = new Stock(nextStockID, medicineName, stockLevel, lowStockAlertThreshold);
+        stocks.add(stock);
+        DashboardCounters.stockLowChanged(false, isLowStock(stock));
+        saveStocks();
+        return stock;
+    }
+
+    /**
+     * Deducts a quantity from a stock if enough of it is available.
+     * If the stock falls to its alert threshold, this is published for a replenish request to be raised.
+     * The event is published after the lock is released, as the replenishment consumer takes it.
+     *
+     * @param stock    the stock to deduct from
+     * @param quantity the quantity to deduct
+     * @return true if the quantity was deducted, false if the stock level is insufficient
+     */
+    public static boolean deductStock(Stock stock, int quantity) {
+        boolean low;
+        synchronized (StockSystem.class) {
+            if (stock.getStockLevel() < quantity) {
+                return false;
+            }
+            setStockLevel(stock, stock.getStockLevel() - quantity);
+            low = isLowStock(stock);
+        }
+        if (low) {
+            DomainEvents.stockBelowThreshold(stock.getID());
+        }
+        return true;
+    }
+
+    /**
+     * Changes the level of a stock and updates the low-stock dashboard counter.
+     *
+     * @param stock      the stock to change
+     * @param stockLevel the new stock level
+     */
+    private static void setStockLevel(Stock stock, int stockLevel) {
+        boolean wasLow = isLowStock(stock);
+        stock.update(() -> stock.setStockLevel(stockLevel));
+        DashboardCounters.stockLowChanged(wasLow, isLowStock(stock));
+    }
+
+    /**
+     * Checks whether a stock is at or below its low stock alert threshold.
+     *
+     * @param stock the stock to check
+     * @return true if the stock is low, false otherwise
+     */
+    public static boolean isLowStock(Stock stock) {
+        return stock.getStockLevel() <= stock.getLowStockAlertThreshold();
+    }
+
     /**
      * Returns the list of stocks with a stock level below or equal to their low stock alert threshold.
      *
      * @return a list of low-level stocks
      */
-    public static List<Stock> getLowLevelStocks() {
+    public static synchronized List<Stock> getLowLevelStocks() {
         return stocks.stream()
-                .filter(stock -> stock.getStockLevel() <= stock.getLowStockAlertThreshold())
+                .filter(StockSystem::isLowStock)
                 .collect(Collectors.toList());
     }
 
@@ -53,35 +126,58 @@ public class StockSystem {
      * @param stockRequest the replenish request to be created
      * @return the created or updated replenish request
      */
-    public static StockReplenishRequest createReplenishRequest(StockReplenishRequest stockRequest) {
+    public static synchronized StockReplenishRequest createReplenishRequest(StockReplenishRequest stockRequest) {
         stockRequest.setID(nextReplenishRequestID++);
 
         for (StockReplenishRequest existingRequest : replenishRequests) {
             if (existingRequest.getStockId() == stockRequest.getStockId() &&
                     existingRequest.getStatus() == ReplenishStatus.PENDING) {
-                existingRequest.setIncomingStockLevel(stockRequest.getIncomingStockLevel());
+                existingRequest.update(() -> existingRequest.setIncomingStockLevel(stockRequest.getIncomingStockLevel()));
                 saveReplenishRequests();
                 return existingRequest;
             }
         }
 
         replenishRequests.add(stockRequest);
+        DashboardCounters.replenishRequestStatusChanged(null, stockRequest.getStatus());
         saveReplenishRequests();
         return stockRequest;
     }
 
+    /**
+     * Raises a replenish request for each of the given stocks that is still low and has no pending request, so that a
+     * request under review is left unchanged. The request brings the stock back up to {@code hms.replenish.target.multiple}
+     * times its alert threshold (2 by default), and is for at least one unit.
+     *
+     * @param stockIDs the IDs of the stocks that fell to their alert threshold
+     */
+    static synchronized void requestReplenishment(Collection<Integer> stockIDs) {
+        for (int stockID : stockIDs) {
+            Stock stock = getStockById(stockID);
+            boolean pending = replenishRequests.stream()
+                    .anyMatch(request -> request.getStockId() == stockID && request.getStatus() == ReplenishStatus.PENDING);
+            if (stock != null && isLowStock(stock) && !pending) {
+                int quantity = Math.max(1, REPLENISH_TARGET_MULTIPLE * stock.getLowStockAlertThreshold() - stock.getStockLevel());
+                createReplenishRequest(new StockReplenishRequest(stockID, quantity, ReplenishStatus.PENDING));
+            }
+        }
+    }
+
     /**
      * Updates an existing replenish request.
      *
      * @param request the replenish request with updated details
      * @return the updated replenish request, or null if the request doesn't exist
      */
-    public static StockReplenishRequest updateReplenishRequest(StockReplenishRequest request) {
+    public static synchronized StockReplenishRequest updateReplenishRequest(StockReplenishRequest request) {
         for (StockReplenishRequest currentRequest : replenishRequests) {
             if (currentRequest.getID() == request.getID()) {
-                currentRequest.setStockId(request.getStockId());
-                currentRequest.setIncomingStockLevel(request.getIncomingStockLevel());
-                currentRequest.setStatus(request.getStatus());
+                DashboardCounters.replenishRequestStatusChanged(currentRequest.getStatus(), request.getStatus());
+                currentRequest.update(() -> {
+                    currentRequest.setStockId(request.getStockId());
+                    currentRequest.setIncomingStockLevel(request.getIncomingStockLevel());
+                    currentRequest.setStatus(request.getStatus());
+                });
                 saveReplenishRequests();
                 return currentRequest;
             }
@@ -89,12 +185,30 @@ public class StockSystem {
         return null;
     }
 
+    /**
+     * Returns all replenish requests, whatever their status.
+     *
+     * @return a copy of the list of all replenish requests
+     */
+    public static synchronized List<StockReplenishRequest> getAllReplenishRequests() {
+        return new ArrayList<>(replenishRequests);
+    }
+
+    /**
+     * Returns a copy of the list of all stocks, taken while no stock is being added.
+     *
+     * @return a copy of the list of all stocks
+     */
+    public static synchronized List<Stock> getStocksSnapshot() {
+        return new ArrayList<>(stocks);
+    }
+
     /**
      * Returns a list of all replenish requests that are currently pending.
      *
      * @return a list of pending replenish requests
      */
-    public static List<StockReplenishRequest> getReplenishRequests() {
+    public static synchronized List<StockReplenishRequest> getReplenishRequests() {
         return replenishRequests.stream()
                 .filter(x -> x.getStatus() == ReplenishStatus.PENDING)
                 .collect(Collectors.toList());
@@ -113,21 +227,14 @@ public class StockSystem {
         }
 
         // Display the low-level stocks
-        System.out.println("\n--- Low Stock Items ---");
-        System.out.println("+-----+--------------------------+---------------+--------------------+");
-        System.out.println("| No. | Medicine Name            | Stock Level   | Low Stock Threshold |");
-        System.out.println("+-----+--------------------------+---------------+--------------------+");
-
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Low Stock Items ---\n");
+        STOCK_TABLE.header(out, "No.", "Medicine Name", "Stock Level", "Low Stock Threshold");
         for (int i = 0; i < lowLevelStocks.size(); i++) {
-            Stock stock = lowLevelStocks.get(i);
-            System.out.printf("| %-3d | %-24s | %-13d | %-18d |\n",
-                    i + 1,
-                    stock.getMedicineName(),
-                    stock.getStockLevel(),
-                    stock.getLowStockAlertThreshold());
+            appendStockRow(out, lowLevelStocks.get(i), i + 1);
         }
-
-        System.out.println("+-----+--------------------------+---------------+--------------------+");
+        STOCK_TABLE.border(out);
+        TableRenderer.flush(out);
 
         // Ask the user to select a stock to replenish
         String stockId = InputHandler.getValidatedInput(
@@ -190,32 +297,48 @@ public class StockSystem {
     }
 
     /**
-     * Prints all the stocks in a table format.
+     * Prints all the stocks in a table format, one page at a time.
+     * Stocks are numbered by their position in the stock list.
      */
     public static void printStocks() {
-        // Check if there are any stocks
-        if (getStocks().isEmpty()) {
+        boolean hasRows = PageNavigator.browse(null, STOCK_TABLE,
+                new String[]{"No.", "Medicine Name", "Stock Level", "Low Stock Threshold"},
+                StockSystem::getStocksPage,
+                (out, stock, previousRow, rowNumber) -> appendStockRow(out, stock, rowNumber));
+        if (!hasRows) {
             System.out.println("No stocks available.");
-            return;
         }
+    }
 
-        // Printing the header row
-        System.out.println("+-----+--------------------------+---------------+------------------------+");
-        System.out.println("| No. | Medicine Name            | Stock Level   | Low Stock Threshold     |");
-        System.out.println("+-----+--------------------------+---------------+------------------------+");
-
-        // Printing each stock row
-        for (int i = 0; i < getStocks().size(); i++) {
-            Stock stock = getStocks().get(i);
-            System.out.printf("| %-3d | %-24s | %-13d | %-22d |\n",
-                    i + 1,
-                    stock.getMedicineName(),
-                    stock.getStockLevel(),
-                    stock.getLowStockAlertThreshold());
-        }
+    /**
+     * Appends the row of a stock to a table buffer.
+     *
+     * @param out    the table buffer.
+     * @param stock  the stock to append.
+     * @param number the number shown for the stock.
+     */
+    private static void appendStockRow(StringBuilder out, Stock stock, int number) {
+        STOCK_TABLE.row(out)
+                .cell(number)
+                .cell(stock.getMedicineName())
+                .cell(stock.getStockLevel())
+                .cell(stock.getLowStockAlertThreshold())
+                .end();
+    }
 
-        // Printing the footer row
-        System.out.println("+-----+--------------------------+---------------+------------------------+");
+    /**
+     * Returns a page of stocks in the order of the stock list.
+     * Stocks are only ever appended, so the cursor is the position after the last stock of the previous page.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page.
+     * @param limit  the maximum number of stocks on the page.
+     * @return the page of stocks.
+     */
+    public static synchronized Page<Stock> getStocksPage(String cursor, int limit) {
+        int from = cursor == null ? 0 : Integer.parseInt(cursor);
+        int to = Math.min(from + limit, stocks.size());
+        List<Stock> page = new ArrayList<>(stocks.subList(Math.min(from, to), to));
+        return new Page<>(page, to < stocks.size() ? String.valueOf(to) : null);
     }
 
     /**
@@ -228,20 +351,21 @@ public class StockSystem {
         }
 
         // Displaying the table header
-        System.out.println("+-------------------+-------------------+-------------------+-------------------+");
-        System.out.println("| Request ID        | Stock ID          | Incoming Stock    | Status            |");
-        System.out.println("+-------------------+-------------------+-------------------+-------------------+");
+        StringBuilder out = TableRenderer.buffer();
+        REPLENISH_REQUEST_TABLE.header(out, "Request ID", "Stock ID", "Incoming Stock", "Status");
 
         // Displaying each replenish request in the table
         for (StockReplenishRequest request : getReplenishRequests()) {
-            System.out.printf("| %-17d | %-17d | %-17d | %-17s |\n",
-                    request.getID(),
-                    request.getStockId(),
-                    request.getIncomingStockLevel(),
-                    request.getStatus());
+            REPLENISH_REQUEST_TABLE.row(out)
+                    .cell(request.getID())
+                    .cell(request.getStockId())
+                    .cell(request.getIncomingStockLevel())
+                    .cell(request.getStatus())
+                    .end();
         }
 
-        System.out.println("+-------------------+-------------------+-------------------+-------------------+");
+        REPLENISH_REQUEST_TABLE.border(out);
+        TableRenderer.flush(out);
     }
 
     /**
@@ -276,6 +400,7 @@ public class StockSystem {
             System.out.println("Replenish request not found.");
             return;
         }
+        long version = request.getVersion(); // A pharmacist may still change the request while the admin decides
 
         // Step 3: Ask admin to approve or reject the request
         String decision = InputHandler.getValidatedInput(
@@ -284,43 +409,70 @@ public class StockSystem {
                 input -> input.equalsIgnoreCase("A") || input.equalsIgnoreCase("R")
         );
 
-        if (decision.equalsIgnoreCase("A")) {
-            approveReplenishRequest(request);
-            System.out.println("Request approved and stock updated.");
-        } else if (decision.equalsIgnoreCase("R")) {
-            rejectReplenishRequest(request);
-            System.out.println("Request rejected.");
+        try {
+            if (decision.equalsIgnoreCase("A")) {
+                approveReplenishRequest(request, version);
+                System.out.println("Request approved and stock updated.");
+            } else if (decision.equalsIgnoreCase("R")) {
+                rejectReplenishRequest(request, version);
+                System.out.println("Request rejected.");
+            }
+        } catch (ConcurrentUpdateException e) {
+            System.out.println(e.getMessage() + ". Please review the request again.");
         }
     }
 
+    /**
+     * Approves a pending replenish request by its ID, updating the stock level.
+     *
+     * @param requestID the ID of the replenish request to approve
+     * @return true if the request was approved, false if no pending request has the given ID
+     */
+    public static synchronized boolean approveReplenishRequest(int requestID) {
+        StockReplenishRequest request = getReplenishRequestByID(requestID);
+        if (request == null) {
+            return false;
+        }
+        approveReplenishRequest(request, request.getVersion());
+        return true;
+    }
+
     /**
      * Approves the replenish request, updates stock levels, and changes the request status to approved.
+     * The request is approved only if it is still at the version the decision was based on, so that it is neither
+     * approved twice nor approved for a quantity changed after it was reviewed.
      *
-     * @param request the replenish request to approve
+     * @param request         the replenish request to approve
+     * @param expectedVersion the version of the request when it was reviewed
+     * @throws ConcurrentUpdateException if the request was changed since it was reviewed
      */
-    private static void approveReplenishRequest(StockReplenishRequest request) {
+    private static synchronized void approveReplenishRequest(StockReplenishRequest request, long expectedVersion) {
+        ReplenishStatus previousStatus = request.getStatus();
+        request.compareAndSet(expectedVersion, () -> request.setStatus(ReplenishStatus.APPROVED));
+
         Stock stock = getStockById(request.getStockId());
         if (stock != null) {
             // Increase the stock level by the incoming amount
-            stock.setStockLevel(stock.getStockLevel() + request.getIncomingStockLevel());
-            saveStocks(); // Save updated stock to the file
+            setStockLevel(stock, stock.getStockLevel() + request.getIncomingStockLevel());
         } else {
             System.out.println("Stock not found for Stock ID: " + request.getStockId());
         }
 
-        // Update the replenish request status to "approved"
-        request.setStatus(ReplenishStatus.APPROVED);
-        saveReplenishRequests(); // Save updated replenish requests to the file
+        DashboardCounters.replenishRequestStatusChanged(previousStatus, ReplenishStatus.APPROVED);
+        saveStocksAndReplenishRequests(); // The request is never saved approved without its stock
     }
 
     /**
      * Rejects the replenish request and sets the request status to rejected.
      *
-     * @param request the replenish request to reject
+     * @param request         the replenish request to reject
+     * @param expectedVersion the version of the request when it was reviewed
+     * @throws ConcurrentUpdateException if the request was changed since it was reviewed
      */
-    private static void rejectReplenishRequest(StockReplenishRequest request) {
-        // Update the replenish request status to "rejected"
-        request.setStatus(ReplenishStatus.REJECTED);
+    private static synchronized void rejectReplenishRequest(StockReplenishRequest request, long expectedVersion) {
+        ReplenishStatus previousStatus = request.getStatus();
+        request.compareAndSet(expectedVersion, () -> request.setStatus(ReplenishStatus.REJECTED));
+        DashboardCounters.replenishRequestStatusChanged(previousStatus, ReplenishStatus.REJECTED);
         saveReplenishRequests(); // Save updated replenish requests to the file
     }
 
@@ -353,126 +505,101 @@ public class StockSystem {
 
 
     /**
-     * Saves the list of replenish requests to the storage file.
+     * Saves the list of replenish requests to storage.
      */
-    public static void saveReplenishRequests() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(REPLENISH_REQUESTS_FILE))) {
-            bw.write("ID,StockID,IncomingStockLevel,Status");
-            bw.newLine();
-            for (StockReplenishRequest request : replenishRequests) {
-                bw.write(String.join(",",
-                        String.valueOf(request.getID()),
-                        String.valueOf(request.getStockId()),
-                        String.valueOf(request.getIncomingStockLevel()),
-                        request.getStatus().toString()));
-                bw.newLine();
-            }
+    public static synchronized void saveReplenishRequests() {
+        PersistenceEvent event = PersistenceEvent.start("replenish_requests");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.replenishRequests().saveAll(replenishRequests);
         } catch (IOException e) {
             System.err.println("Failed to save replenish requests: " + e.getMessage());
         }
+        event.end(replenishRequests.size(), bytesWritten);
     }
 
     /**
-     * Loads stock HMS.data from the storage file into memory.
+     * Loads stock HMS.data from storage into memory.
      */
     public static void loadStocks() {
-        File stockFile = new File(STOCKS_FILE);
-        if (!stockFile.exists()) {
-            try (BufferedWriter bw = new BufferedWriter(new FileWriter(stockFile))) {
-                bw.write("ID,MedicineName,StockLevel,LowStockAlertThreshold");
-                bw.newLine();
-            } catch (IOException e) {
-                System.err.println("Error creating stocks file: " + e.getMessage());
-                return;
-            }
-        }
-
-        try (BufferedReader br = new BufferedReader(new FileReader(stockFile))) {
-            String line;
-            br.readLine(); // Skip header
-            while ((line = br.readLine()) != null) {
-                String[] stockDetails = line.split(",");
-                if (stockDetails.length < 4) {
-                    continue;
-                }
-                int id = Integer.parseInt(stockDetails[0]);
-                String medicineName = stockDetails[1];
-                int stockLevel = Integer.parseInt(stockDetails[2]);
-                int lowStockAlertThreshold = Integer.parseInt(stockDetails[3]);
-                Stock stock = new Stock(id, medicineName, stockLevel, lowStockAlertThreshold);
-                stocks.add(stock);
-            }
+        try {
+            stocks.addAll(Storage.stocks().loadAll());
+            DashboardCounters.resetStocks(stocks);
         } catch (IOException e) {
-            System.err.println("Error reading stocks file: " + e.getMessage());
+            System.err.println("Error reading stocks: " + e.getMessage());
         }
     }
 
     /**
-     * Saves the list of stocks to the storage file.
+     * Saves the list of stocks to storage.
      */
-    public static void saveStocks() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(STOCKS_FILE))) {
-            bw.write("ID,MedicineName,StockLevel,LowStockAlertThreshold");
-            bw.newLine();
-
-            for (Stock stock : stocks) {
-                String stockLine = String.join(",",
-                        String.valueOf(stock.getID()),
-                        stock.getMedicineName(),
-                        String.valueOf(stock.getStockLevel()),
-                        String.valueOf(stock.getLowStockAlertThreshold())
-                );
-                bw.write(stockLine);
-                bw.newLine();
-            }
+    public static synchronized void saveStocks() {
+        PersistenceEvent event = PersistenceEvent.start("stocks");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.stocks().saveAll(stocks);
         } catch (IOException e) {
             System.err.println("Failed to save stocks: " + e.getMessage());
         }
+        event.end(stocks.size(), bytesWritten);
     }
 
     /**
-     *  Loads replenish requests from the storage file into memory.
+     * Saves the stocks and the replenish requests as one unit of work.
      */
-    public static void loadReplenishRequests() {
-        File replenishFile = new File(REPLENISH_REQUESTS_FILE);
-        if (!replenishFile.exists()) {
-            try (BufferedWriter bw = new BufferedWriter(new FileWriter(replenishFile))) {
-                bw.write("ID,StockID,IncomingStockLevel,Status");
-                bw.newLine();
-            } catch (IOException e) {
-                System.err.println("Error creating replenish requests file: " + e.getMessage());
-                return;
-            }
+    private static synchronized void saveStocksAndReplenishRequests() {
+        UnitOfWork work = Storage.beginWork();
+        Storage.stocks().saveAll(stocks, work);
+        Storage.replenishRequests().saveAll(replenishRequests, work);
+        PersistenceEvent event = PersistenceEvent.start(work.getTableNames());
+        int rowCount = work.getRowCount();
+        long bytesWritten = 0;
+        try {
+            bytesWritten = work.commit();
+        } catch (IOException e) {
+            System.err.println("Failed to save stocks and replenish requests: " + e.getMessage());
         }
+        event.end(rowCount, bytesWritten);
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(replenishFile))) {
-            String line;
-            br.readLine(); // Skip header
-            while ((line = br.readLine()) != null) {
-                String[] requestDetails = line.split(",");
-                if (requestDetails.length < 4) {
-                    continue;
-                }
-                try {
-                    int id = Integer.parseInt(requestDetails[0]);
-                    int stockId = Integer.parseInt(requestDetails[1]);
-                    int incomingStockLevel = Integer.parseInt(requestDetails[2]);
-                    ReplenishStatus status = ReplenishStatus.valueOf(requestDetails[3].toUpperCase());
-                    StockReplenishRequest request = new StockReplenishRequest(stockId, incomingStockLevel, status);
-                    request.setID(id);
-                    replenishRequests.add(request);
-                } catch (NumberFormatException e) {
-                    System.err.println("Invalid numeric value in replenish request entry: " + line);
-                }
-            }
+    /**
+     * Stages the stocks in a unit of work and commits it, holding the lock of the stocks so that no later save of
+     * the stocks is written before it.
+     *
+     * @param work the unit of work, such as the outcome the stocks were dispensed for.
+     * @return the number of bytes written.
+     * @throws IOException if the unit of work cannot be written.
+     */
+    static synchronized long commitWithStocks(UnitOfWork work) throws IOException {
+        Storage.stocks().saveAll(stocks, work);
+        return work.commit();
+    }
+
+    /**
+     * Replaces the stocks and replenish requests in memory with those in storage, after another process changed them.
+     */
+    static synchronized void reload() {
+        stocks.clear();
+        replenishRequests.clear();
+        loadStocks();
+        loadReplenishRequests();
+    }
+
+    /**
+     *  Loads replenish requests from storage into memory.
+     */
+    public static void loadReplenishRequests() {
+        try {
+            replenishRequests.addAll(Storage.replenishRequests().loadAll());
 
             // Set the next available ID based on the highest existing ID
             nextReplenishRequestID = replenishRequests.stream()
                     .mapToInt(StockReplenishRequest::getID)
                     .max()
                     .orElse(0) + 1; // Increment the max ID by 1
+            DashboardCounters.resetReplenishRequests(replenishRequests);
         } catch (IOException e) {
-            System.err.println("Error loading replenish requests file: " + e.getMessage());
+            System.err.println("Error loading replenish requests: " + e.getMessage());
         }
     }
 
@@ -0,0 +1,271 @@
+package HMS.Systems;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Renders the ASCII tables of the Systems.
+ * A table's column layout and border line are computed once when the table is defined.
+ * Rows are appended to a buffer that is reused for the whole session, without parsing format strings,
+ * and the finished table is written to the console in large chunks through a buffered per-session writer.
+ *
+ * <p>Boxed tables draw every cell between '|' and with '+---+' borders. Plain tables separate the columns with one space.
+ * Like {@code %-Ns}, every cell is left aligned and padded to its column width, and longer values are not cut.</p>
+ */
+public class TableRenderer {
+    private static final int CHUNK_SIZE = 8192;
+    private static final char[] SPACES = new char[256];
+    private static final ThreadLocal<StringBuilder> buffer = ThreadLocal.withInitial(() -> new StringBuilder(CHUNK_SIZE));
+    private static final ThreadLocal<SessionWriter> sessionWriter = new ThreadLocal<>();
+
+    static {
+        Arrays.fill(SPACES, ' ');
+    }
+
+    private final int[] widths;
+    private final boolean boxed;
+    private final String border;
+
+    /**
+     * Constructs a table layout.
+     *
+     * @param boxed  true to draw the cells in boxes, false to separate them with spaces.
+     * @param widths the width of each column.
+     */
+    private TableRenderer(boolean boxed, int... widths) {
+        this.widths = widths.clone();
+        this.boxed = boxed;
+
+        StringBuilder line = new StringBuilder();
+        if (boxed) {
+            line.append('+');
+            for (int width : widths) {
+                line.append("-".repeat(width + 2)).append('+');
+            }
+        } else {
+            int totalWidth = widths.length - 1;
+            for (int width : widths) {
+                totalWidth += width;
+            }
+            line.append("-".repeat(totalWidth));
+        }
+        this.border = line.append('\n').toString();
+    }
+
+    /**
+     * Defines a table that draws every cell in a box.
+     *
+     * @param widths the width of each column, not counting the padding around the cell.
+     * @return the table layout.
+     */
+    public static TableRenderer boxed(int... widths) {
+        return new TableRenderer(true, widths);
+    }
+
+    /**
+     * Defines a table whose cells are separated by a single space.
+     *
+     * @param widths the width of each column.
+     * @return the table layout.
+     */
+    public static TableRenderer plain(int... widths) {
+        return new TableRenderer(false, widths);
+    }
+
+    /**
+     * Appends the border line of the table.
+     *
+     * @param out the buffer to append to.
+     * @return the buffer.
+     */
+    public StringBuilder border(StringBuilder out) {
+        return out.append(border);
+    }
+
+    /**
+     * Appends the column titles of the table, framed by borders for a boxed table or underlined for a plain table.
+     *
+     * @param out    the buffer to append to.
+     * @param titles the title of each column.
+     * @return the buffer.
+     */
+    public StringBuilder header(StringBuilder out, String... titles) {
+        if (boxed) {
+            border(out);
+        }
+        Row row = row(out);
+        for (String title : titles) {
+            row.cell(title);
+        }
+        row.end();
+        return border(out);
+    }
+
+    /**
+     * Starts a row of the table. The cells are appended in column order and the row is finished with {@link Row#end()}.
+     *
+     * @param out the buffer to append to.
+     * @return the row being appended.
+     */
+    public Row row(StringBuilder out) {
+        if (boxed) {
+            out.append('|');
+        }
+        return new Row(out);
+    }
+
+    /**
+     * A row being appended to the buffer, one cell at a time.
+     */
+    public class Row {
+        private final StringBuilder out;
+        private int column;
+
+        /**
+         * Constructs a row appending to a buffer.
+         *
+         * @param out the buffer to append to.
+         */
+        private Row(StringBuilder out) {
+            this.out = out;
+        }
+
+        /**
+         * Appends a text cell.
+         *
+         * @param value the text of the cell.
+         * @return this row.
+         */
+        public Row cell(CharSequence value) {
+            int start = startCell();
+            out.append(value);
+            return endCell(start);
+        }
+
+        /**
+         * Appends a number cell without boxing the number.
+         *
+         * @param value the number of the cell.
+         * @return this row.
+         */
+        public Row cell(long value) {
+            int start = startCell();
+            out.append(value);
+            return endCell(start);
+        }
+
+        /**
+         * Appends a cell showing the text of a value, such as an enum.
+         *
+         * @param value the value of the cell.
+         * @return this row.
+         */
+        public Row cell(Object value) {
+            return cell(String.valueOf(value));
+        }
+
+        /**
+         * Finishes the row.
+         *
+         * @return the buffer.
+         */
+        public StringBuilder end() {
+            return out.append('\n');
+        }
+
+        /**
+         * Appends what precedes the value of a cell.
+         *
+         * @return the position of the value in the buffer.
+         */
+        private int startCell() {
+            if (boxed) {
+                out.append(' ');
+            }
+            return out.length();
+        }
+
+        /**
+         * Pads the value of a cell to its column width and appends what follows it.
+         *
+         * @param start the position of the value in the buffer.
+         * @return this row.
+         */
+        private Row endCell(int start) {
+            int padding = widths[column] - (out.length() - start);
+            while (padding > 0) {
+                int count = Math.min(padding, SPACES.length);
+                out.append(SPACES, 0, count);
+                padding -= count;
+            }
+            if (boxed) {
+                out.append(" |");
+            } else if (column < widths.length - 1) {
+                out.append(' ');
+            }
+            column++;
+            return this;
+        }
+    }
+
+    /**
+     * Gets the table buffer of the current session, emptied.
+     * The buffer is reused by every table rendered in the session.
+     *
+     * @return the empty buffer.
+     */
+    public static StringBuilder buffer() {
+        StringBuilder out = buffer.get();
+        out.setLength(0);
+        return out;
+    }
+
+    /**
+     * Writes a buffer to the console through the session writer and empties it.
+     *
+     * @param out the buffer to write.
+     */
+    public static void flush(StringBuilder out) {
+        SessionWriter session = sessionWriter.get();
+        if (session == null || session.target != System.out) {
+            // The console has been replaced (for example silenced by the load test), so write to the new one
+            session = new SessionWriter(System.out);
+            sessionWriter.set(session);
+        }
+
+        try {
+            for (int start = 0; start < out.length(); start += CHUNK_SIZE) {
+                int end = Math.min(start + CHUNK_SIZE, out.length());
+                out.getChars(start, end, session.chunk, 0);
+                session.writer.write(session.chunk, 0, end - start);
+            }
+            session.writer.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing table: " + e.getMessage());
+        }
+        out.setLength(0);
+    }
+
+    /**
+     * The buffered writer of a session, tied to the console it was created for.
+     */
+    private static class SessionWriter {
+        private final PrintStream target;
+        private final Writer writer;
+        private final char[] chunk = new char[CHUNK_SIZE];
+
+        /**
+         * Constructs a buffered writer to a console.
+         *
+         * @param target the console to write to.
+         */
+        SessionWriter(PrintStream target) {
+            this.target = target;
+            this.writer = new BufferedWriter(new OutputStreamWriter(target), CHUNK_SIZE * 2);
+        }
+    }
+}
@@ -2,12 +2,15 @@ package HMS.Systems;
 
 import HMS.Enums.UserRole;
 import HMS.Models.User;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Search.FuzzyIndex;
+import HMS.Storage.Storage;
 import HMS.Users.Administrator;
 import HMS.Users.Doctor;
 import HMS.Users.Patient;
 import HMS.Users.Pharmacist;
 
-import java.io.*;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -15,8 +18,6 @@ import java.util.*;
  * It includes methods to add, load, save users, and authenticate them.
  */
 public class UserManagementSystem {
-    private static final String USERS_FILE = "HMS/data/users.csv";
-
     public static Map<String, User> users = new HashMap<>();
 
     private static int patientCount = 0;
@@ -24,6 +25,12 @@ public class UserManagementSystem {
     private static int adminCount = 0;
     private static int pharmacistCount = 0;
 
+    private static final TableRenderer USER_TABLE = TableRenderer.boxed(10, 17, 13, 9);
+    private static final TableRenderer USER_SELECTION_TABLE = TableRenderer.boxed(3, 10, 17, 13);
+    private static final int SELECTION_LIST_LIMIT = 20;
+    private static final int SEARCH_RESULT_LIMIT = 10;
+    private static final FuzzyIndex userIndex = new FuzzyIndex(); // User ID -> user ID and name
+
     // Getters --
 
     /**
@@ -57,6 +64,42 @@ public class UserManagementSystem {
                 .toList();
     }
 
+    /**
+     * Retrieves the users with the given IDs, skipping IDs of users that no longer exist.
+     *
+     * @param userIDs the IDs of the users.
+     * @return the users, in the order of their IDs.
+     */
+    public static List<User> getUsersByIDs(Collection<String> userIDs) {
+        List<User> result = new ArrayList<>(userIDs.size());
+        for (String userID : userIDs) {
+            User user = users.get(userID);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the users best matching a search by user ID or name, allowing prefixes and typos.
+     *
+     * @param query   the search text.
+     * @param limit   the maximum number of users returned.
+     * @param userIDs the IDs of the users that may be returned.
+     * @return the best matching users, best first.
+     */
+    public static List<User> searchUsers(String query, int limit, Set<String> userIDs) {
+        List<User> matches = new ArrayList<>();
+        for (String userID : userIndex.search(query, limit, userIDs::contains)) {
+            User user = users.get(userID);
+            if (user != null) {
+                matches.add(user);
+            }
+        }
+        return matches;
+    }
+
     // Displays --
 
     /**
@@ -72,19 +115,18 @@ public class UserManagementSystem {
      * @param users the list of users to display.
      */
     private static void displayUserTable(List<User> users) {
-        System.out.println("+------------+-------------------+---------------+-----------+");
-        System.out.println("| User ID    | Name              | Role          | Gender    |");
-        System.out.println("+------------+-------------------+---------------+-----------+");
-
+        StringBuilder out = TableRenderer.buffer();
+        USER_TABLE.header(out, "User ID", "Name", "Role", "Gender");
         for (User user : users) {
-            System.out.printf("| %-10s | %-17s | %-13s | %-9s |\n",
-                    user.getUserId(),
-                    user.getName(),
-                    user.getRole(),
-                    user.getGender());
+            USER_TABLE.row(out)
+                    .cell(user.getUserId())
+                    .cell(user.getName())
+                    .cell(user.getRole())
+                    .cell(user.getGender())
+                    .end();
         }
-
-        System.out.println("+------------+-------------------+---------------+-----------+");
+        USER_TABLE.border(out);
+        TableRenderer.flush(out);
     }
 
     // Modifiers --
@@ -94,8 +136,9 @@ public class UserManagementSystem {
      *
      * @param user the user to add.
      */
-    public static void addUser(User user) {
+    public static synchronized void addUser(User user) {
         users.put(user.getUserId(), user);
+        userIndex.put(user.getUserId(), user.getUserId(), user.getName());
         switch (user.getRole()) {
             case PATIENT:
                 patientCount++;
@@ -123,7 +166,7 @@ public class UserManagementSystem {
      * @param age    the age of the user.
      * @return the created User object.
      */
-    public static User createUser(String role, String name, String gender, int age) {
+    public static synchronized User createUser(String role, String name, String gender, int age) {
         User user = switch (role.toLowerCase()) {
             case "patient" -> new Patient("PT" + (++patientCount), "password", name, gender, age);
             case "doctor" -> new Doctor("D" + (++doctorCount), "password", name, gender, age);
@@ -160,6 +203,7 @@ public class UserManagementSystem {
 
         if (!name.trim().isEmpty()) {
             user.setName(name.trim());
+            userIndex.put(user.getUserId(), user.getUserId(), user.getName());
         }
 
         // Update gender
@@ -204,6 +248,7 @@ public class UserManagementSystem {
                 input -> users.get(input) != null);
 
         User user = users.remove(userId);
+        userIndex.remove(userId);
 
         switch (user.getRole()) {
             case PATIENT:
@@ -282,6 +327,8 @@ public class UserManagementSystem {
 
     /**
      * Generates an input picker for selecting a user ID from a list of users.
+     * Short lists are displayed in full. The user can also search the list by user ID or name,
+     * which displays the best matches to pick from.
      *
      * @param userList the list of users to pick from.
      * @return the selected user ID, or {@code null} if the user cancels the selection.
@@ -292,39 +339,69 @@ public class UserManagementSystem {
             return null;
         }
 
-        System.out.println("\n--- Select a User ---");
-        System.out.println("+-----+------------+-------------------+---------------+");
-        System.out.println("| No. | User ID    | Name              | Role          |");
-        System.out.println("+-----+------------+-------------------+---------------+");
-
-        // Display the user list in a table format
-        for (int i = 0; i < userList.size(); i++) {
-            User user = userList.get(i);
-            System.out.printf("| %-3d | %-10s | %-17s | %-13s |\n",
-                    i + 1,
-                    user.getUserId(),
-                    user.getName(),
-                    user.getRole());
+        List<User> shown = userList;
+        if (userList.size() <= SELECTION_LIST_LIMIT) {
+            displaySelectionTable(userList);
+        } else {
+            shown = Collections.emptyList();
+            System.out.println("\n" + userList.size() + " users available. Search by user ID or name to list the best matches.");
+        }
+        Set<String> userIDs = new HashSet<>();
+        for (User user : userList) {
+            userIDs.add(user.getUserId());
         }
-        System.out.println("+-----+------------+-------------------+---------------+");
-        System.out.println("Enter the number corresponding to the user, or type 'exit' to cancel.");
-
-        // Prompt the user for input
-        String input = InputHandler.getValidatedInputWithExit(
-                "Select a user by number: ",
-                "Invalid input. Please enter a valid number or 'exit'.",
-                value -> value.equalsIgnoreCase("exit") || (value.matches("\\d+") && Integer.parseInt(value) >= 1 && Integer.parseInt(value) <= userList.size())
-        );
 
-        if (input == null) {
-            System.out.println("Selection cancelled.");
-            return null;
+        while (true) {
+            List<User> choices = shown;
+            String input = InputHandler.getValidatedInputWithExit(
+                    choices.isEmpty() ? "Search by user ID or name, or type 'exit' to cancel: "
+                            : "Select a user by number, search by user ID or name, or type 'exit' to cancel: ",
+                    "Invalid input. Please enter a number, a search or 'exit'.",
+                    value -> !value.trim().isEmpty()
+            );
+
+            if (input == null) {
+                System.out.println("Selection cancelled.");
+                return null;
+            }
+
+            String value = input.trim();
+            if (value.matches("\\d+") && Integer.parseInt(value) >= 1 && Integer.parseInt(value) <= choices.size()) {
+                String selectedUserID = choices.get(Integer.parseInt(value) - 1).getUserId();
+                System.out.println("You selected User ID: " + selectedUserID);
+                return selectedUserID;
+            }
+
+            List<User> matches = searchUsers(value, SEARCH_RESULT_LIMIT, userIDs);
+            if (matches.isEmpty()) {
+                System.out.println("No users match \"" + value + "\".");
+            } else {
+                shown = matches;
+                displaySelectionTable(matches);
+            }
         }
+    }
 
-        int selectedIndex = Integer.parseInt(input) - 1;
-        String selectedUserID = userList.get(selectedIndex).getUserId();
-        System.out.println("You selected User ID: " + selectedUserID);
-        return selectedUserID;
+    /**
+     * Displays numbered users to select from.
+     *
+     * @param userList the users to display.
+     */
+    private static void displaySelectionTable(List<User> userList) {
+        StringBuilder out = TableRenderer.buffer();
+        out.append("\n--- Select a User ---\n");
+        USER_SELECTION_TABLE.header(out, "No.", "User ID", "Name", "Role");
+        for (int i = 0; i < userList.size(); i++) {
+            User user = userList.get(i);
+            USER_SELECTION_TABLE.row(out)
+                    .cell(i + 1)
+                    .cell(user.getUserId())
+                    .cell(user.getName())
+                    .cell(user.getRole())
+                    .end();
+        }
+        USER_SELECTION_TABLE.border(out);
+        TableRenderer.flush(out);
     }
 
     /**
@@ -430,58 +507,46 @@ public class UserManagementSystem {
     // Data --
 
     /**
-     * Loads users from the saved file.
-     * This method will read the users from the CSV and populate the users map.
+     * Loads users from storage.
+     * This method will read the users and populate the users map.
      */
     public static void loadUsers() throws IOException {
-        BufferedReader br = new BufferedReader(new FileReader(USERS_FILE));
-        String line;
-        br.readLine(); // Skip Header
-
-        while ((line = br.readLine()) != null) {
-            String[] userDetails = line.split(",");
-            String userId = userDetails[0];
-            String password = userDetails[1];
-            String name = userDetails[2];
-            String gender = userDetails[3];
-            int age = Integer.parseInt(userDetails[4]);
-            String role = userDetails[5];
-
-            User user = switch (role.toLowerCase()) {
-                case "patient" -> new Patient(userId, password, name, gender, age);
-                case "doctor" -> new Doctor(userId, password, name, gender, age);
-                case "pharmacist" -> new Pharmacist(userId, password, name, gender, age);
-                case "administrator" -> new Administrator(userId, password, name, gender, age);
-                default -> null;
-            };
+        for (User user : Storage.users().loadAll()) {
             addUser(user);
         }
-        br.close();
     }
 
     /**
-     * Saves all users to the file.
-     * This method writes all user HMS.data to the CSV file for persistence.
+     * Replaces the users in memory with the users in storage, after another process changed them.
      */
-    public static void saveUsers() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(USERS_FILE))) {
-            bw.write("UserID,Password,Name,Gender,Age,Role");
-            bw.newLine();
-
-            for (User user : users.values()) {
-                String userLine = String.join(",",
-                        user.getUserId(),
-                        user.getPassword(),
-                        user.getName(),
-                        user.getGender(),
-                        String.valueOf(user.getAge()),
-                        user.getRole().toString()
-                );
-                bw.write(userLine);
-                bw.newLine();
-            }
+    static synchronized void reloadUsers() {
+        for (String userID : users.keySet()) {
+            userIndex.remove(userID);
+        }
+        users.clear();
+        patientCount = 0;
+        doctorCount = 0;
+        adminCount = 0;
+        pharmacistCount = 0;
+        try {
+            loadUsers();
+        } catch (IOException e) {
+            System.err.println("Error reloading users: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves all users to storage.
+     * This method writes all user HMS.data to storage for persistence.
+     */
+    public static synchronized void saveUsers() {
+        PersistenceEvent event = PersistenceEvent.start("users");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.users().saveAll(users.values());
         } catch (IOException e) {
             System.err.println("Failed to save users: " + e.getMessage());
         }
+        event.end(users.size(), bytesWritten);
     }
 }
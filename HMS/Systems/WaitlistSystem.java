@@ -0,0 +1,251 @@
+package HMS.Systems;
+
+import HMS.Enums.TimeWindow;
+import HMS.Enums.UserRole;
+import HMS.Models.WaitlistEntry;
+import HMS.Profiling.PersistenceEvent;
+import HMS.Storage.Storage;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Manages the waitlists of fully booked doctors.
+ * Each doctor has one priority queue per time window, ordered by request time, so that a freed slot is offered
+ * to the earliest waiting patient whose preferred window matches it in O(log n).
+ * Entries that leave the waitlist are only removed from the active entries and skipped when they reach the head of a queue.
+ */
+public class WaitlistSystem {
+    private static final Comparator<WaitlistEntry> REQUEST_ORDER =
+            Comparator.comparing(WaitlistEntry::getRequestedAt).thenComparingInt(WaitlistEntry::getID);
+
+    private static final Map<String, Map<TimeWindow, PriorityQueue<WaitlistEntry>>> waitlists = new HashMap<>();
+    private static final Map<Integer, WaitlistEntry> activeEntries = new LinkedHashMap<>();
+    private static int nextEntryID = 1;
+
+    /**
+     * Static initializer block to load the waitlist when the class is first accessed.
+     */
+    static {
+        loadWaitlist();
+    }
+
+    /**
+     * Adds a patient to the waitlist of a doctor.
+     *
+     * @param patientID  the ID of the waiting patient.
+     * @param doctorID   the ID of the fully booked doctor.
+     * @param timeWindow the preferred time of day of the patient.
+     * @return the created entry, or null if the patient is already waiting for this doctor.
+     */
+    public static synchronized WaitlistEntry joinWaitlist(String patientID, String doctorID, TimeWindow timeWindow) {
+        if (findEntry(patientID, doctorID) != null) {
+            return null;
+        }
+
+        WaitlistEntry entry = new WaitlistEntry(nextEntryID++, patientID, doctorID, timeWindow, new Date());
+        enqueue(entry);
+        saveWaitlist();
+        return entry;
+    }
+
+    /**
+     * Removes a patient from the waitlist of a doctor.
+     *
+     * @param patientID the ID of the waiting patient.
+     * @param doctorID  the ID of the doctor.
+     * @return true if the patient was waiting for the doctor, false otherwise.
+     */
+    public static synchronized boolean leaveWaitlist(String patientID, String doctorID) {
+        WaitlistEntry entry = findEntry(patientID, doctorID);
+        if (entry == null) {
+            return false;
+        }
+
+        activeEntries.remove(entry.getID()); // Skipped when it reaches the head of its queue
+        saveWaitlist();
+        return true;
+    }
+
+    /**
+     * Retrieves the waitlist entries of a patient.
+     *
+     * @param patientID the ID of the patient.
+     * @return the entries of the patient, in request order.
+     */
+    public static synchronized List<WaitlistEntry> getWaitlistByPatient(String patientID) {
+        return activeEntries.values().stream()
+                .filter(entry -> entry.getPatientID().equalsIgnoreCase(patientID))
+                .sorted(REQUEST_ORDER)
+                .toList();
+    }
+
+    /**
+     * Retrieves the number of patients waiting for a doctor.
+     *
+     * @param doctorID the ID of the doctor.
+     * @return the number of waiting patients.
+     */
+    public static synchronized int getWaitlistSize(String doctorID) {
+        return (int) activeEntries.values().stream()
+                .filter(entry -> entry.getDoctorID().equalsIgnoreCase(doctorID))
+                .count();
+    }
+
+    /**
+     * Removes and returns the best waiting patient for a freed slot of a doctor.
+     * The best patient is the earliest request among those waiting for the slot's window or for any window.
+     *
+     * @param doctorID the ID of the doctor whose slot was freed.
+     * @param slot     the date and time of the freed slot.
+     * @return the entry of the patient to offer the slot to, or null if no waiting patient matches the slot.
+     */
+    public static synchronized WaitlistEntry pollBestMatch(String doctorID, Date slot) {
+        Map<TimeWindow, PriorityQueue<WaitlistEntry>> queues = waitlists.get(doctorID);
+        if (queues == null) {
+            return null;
+        }
+
+        TimeWindow slotWindow = TimeWindow.of(slot);
+        PriorityQueue<WaitlistEntry> windowQueue = slotWindow == TimeWindow.ANY ? null : queues.get(slotWindow);
+        PriorityQueue<WaitlistEntry> anyQueue = queues.get(TimeWindow.ANY);
+        WaitlistEntry windowHead = peekActive(windowQueue);
+        WaitlistEntry anyHead = peekActive(anyQueue);
+
+        PriorityQueue<WaitlistEntry> bestQueue;
+        if (windowHead == null && anyHead == null) {
+            return null;
+        } else if (anyHead == null || (windowHead != null && REQUEST_ORDER.compare(windowHead, anyHead) <= 0)) {
+            bestQueue = windowQueue;
+        } else {
+            bestQueue = anyQueue;
+        }
+
+        WaitlistEntry best = bestQueue.poll();
+        activeEntries.remove(best.getID());
+        saveWaitlist();
+        return best;
+    }
+
+    /**
+     * Prompts a patient who found no available slots to join the waitlist of a doctor with a preferred time window.
+     *
+     * @param patientID the ID of the patient.
+     */
+    public static void joinWaitlistMenu(String patientID) {
+        boolean join = InputHandler.getValidatedInput(
+                "Would you like to join a doctor's waitlist? (yes/no): ",
+                "Invalid input. Please enter 'yes' or 'no'.",
+                input -> input.equalsIgnoreCase("yes") || input.equalsIgnoreCase("no")
+        ).equalsIgnoreCase("yes");
+        if (!join) {
+            return;
+        }
+
+        String doctorID = UserManagementSystem.selectUserIDMenu(UserManagementSystem.getUsersByRole(UserRole.DOCTOR));
+        if (doctorID == null) {
+            return;
+        }
+
+        TimeWindow timeWindow = TimeWindow.valueOf(InputHandler.getValidatedInput(
+                "Enter your preferred time window (morning/afternoon/any): ",
+                "Invalid input. Please enter 'morning', 'afternoon' or 'any'.",
+                input -> input.equalsIgnoreCase("morning") || input.equalsIgnoreCase("afternoon") || input.equalsIgnoreCase("any")
+        ).toUpperCase());
+
+        WaitlistEntry entry = joinWaitlist(patientID, doctorID, timeWindow);
+        if (entry == null) {
+            System.out.println("You are already on the waitlist of Doctor ID: " + doctorID);
+            return;
+        }
+        System.out.println("You have joined the waitlist of Doctor ID: " + doctorID + " (" + getWaitlistSize(doctorID) + " waiting)."
+                + " The next matching slot will be booked for you automatically.");
+    }
+
+    // Helpers --
+
+    /**
+     * Finds the active entry of a patient for a doctor.
+     *
+     * @param patientID the ID of the patient.
+     * @param doctorID  the ID of the doctor.
+     * @return the entry, or null if the patient is not waiting for the doctor.
+     */
+    private static WaitlistEntry findEntry(String patientID, String doctorID) {
+        for (WaitlistEntry entry : activeEntries.values()) {
+            if (entry.getPatientID().equalsIgnoreCase(patientID) && entry.getDoctorID().equalsIgnoreCase(doctorID)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds an entry to the active entries and to the queue of its doctor and window.
+     *
+     * @param entry the entry to add.
+     */
+    private static void enqueue(WaitlistEntry entry) {
+        activeEntries.put(entry.getID(), entry);
+        waitlists.computeIfAbsent(entry.getDoctorID(), k -> new EnumMap<>(TimeWindow.class))
+                .computeIfAbsent(entry.getTimeWindow(), k -> new PriorityQueue<>(REQUEST_ORDER))
+                .add(entry);
+    }
+
+    /**
+     * Returns the head of a queue, discarding entries that have left the waitlist.
+     *
+     * @param queue the queue to peek, may be null.
+     * @return the earliest active entry of the queue, or null if there is none.
+     */
+    private static WaitlistEntry peekActive(PriorityQueue<WaitlistEntry> queue) {
+        if (queue == null) {
+            return null;
+        }
+        WaitlistEntry head = queue.peek();
+        while (head != null && activeEntries.get(head.getID()) != head) {
+            queue.poll();
+            head = queue.peek();
+        }
+        return head;
+    }
+
+    // Data --
+
+    /**
+     * Loads the waitlist from storage and rebuilds the queues of every doctor.
+     */
+    private static void loadWaitlist() {
+        try {
+            for (WaitlistEntry entry : Storage.waitlist().loadAll()) {
+                enqueue(entry);
+                nextEntryID = Math.max(nextEntryID, entry.getID() + 1);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading waitlist: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the waitlist in memory with the waitlist in storage, after another process changed it.
+     */
+    static synchronized void reload() {
+        waitlists.clear();
+        activeEntries.clear();
+        loadWaitlist();
+    }
+
+    /**
+     * Saves the active waitlist entries to storage.
+     */
+    private static void saveWaitlist() {
+        PersistenceEvent event = PersistenceEvent.start("waitlist");
+        long bytesWritten = 0;
+        try {
+            bytesWritten = Storage.waitlist().saveAll(activeEntries.values());
+        } catch (IOException e) {
+            System.err.println("Error saving waitlist: " + e.getMessage());
+        }
+        event.end(activeEntries.size(), bytesWritten);
+    }
+}
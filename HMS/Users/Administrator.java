@@ -2,16 +2,21 @@ package HMS.Users;
 
 import HMS.Enums.UserRole;
 import HMS.Models.User;
+import HMS.Systems.AnalyticsSystem;
 import HMS.Systems.AppointmentSystem;
+import HMS.Systems.DataChangeMonitor;
 import HMS.Systems.InputHandler;
 import HMS.Systems.StockSystem;
 import HMS.Systems.UserManagementSystem;
 
+import java.util.Set;
+
 /**
  * Represents an administrator in the hospital management system.
  * Inherits from User class.
  */
 public class Administrator extends User implements UserMenuInterface {
+    private static final Set<Integer> CHANGING_FEATURES = Set.of(0, 1, 3, 4); // Refused while the HMS is read-only
 
     /**
      * Constructs a new Administrator.
@@ -37,12 +42,16 @@ public class Administrator extends User implements UserMenuInterface {
      *                  <li>2 - Display all appointments</li>
      *                  <li>3 - View and Mange stock inventory</li>
      *                  <li>4 - Handle stock replenishment requests</li>
-     *                  <li>5 - Exit the menu</li>
+     *                  <li>5 - View hospital analytics</li>
+     *                  <li>6 - Exit the menu</li>
      *                </ul>
      * @return {@code true} if the administrator chooses to exit the menu, otherwise {@code false}.
      */
     @Override
     public boolean functionCall(int feature) {
+        if (CHANGING_FEATURES.contains(feature) && !DataChangeMonitor.checkWritable()) {
+            return false;
+        }
         switch (feature) {
             case 0 -> UserManagementSystem.updatePassword(getUserId());
             case 1 -> manageUsers();
@@ -54,7 +63,8 @@ public class Administrator extends User implements UserMenuInterface {
                 StockSystem.printStocks();
             }
             case 4 -> StockSystem.handleReplenishRequests();
-            case 5 -> {
+            case 5 -> AnalyticsSystem.analyticsMenu();
+            case 6 -> {
                 return true;
             }
             default -> System.out.println("Invalid choice. Please try again.");
@@ -6,6 +6,8 @@ import HMS.Models.User;
 import HMS.Systems.*;
 
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 
@@ -14,6 +16,7 @@ import java.util.stream.Collectors;
  * Inherits from User class.
  */
 public class Doctor extends User implements UserMenuInterface {
+    private static final Set<Integer> CHANGING_FEATURES = Set.of(0, 2, 4, 5, 7); // Refused while the HMS is read-only
 
     /**
      * Constructs a new Doctor.
@@ -41,29 +44,30 @@ public class Doctor extends User implements UserMenuInterface {
      *                  <li>5 - Accept or Decline Appointment Requests</li>
      *                  <li>6 - View Upcoming Appointments</li>
      *                  <li>7 - Record Appointment Outcome</li>
-     *                  <li>8 - Logout</li>
+     *                  <li>8 - Search Clinical Notes</li>
+     *                  <li>9 - Logout</li>
      *                </ul>
      * @return {@code true} if the doctor chooses to exit the menu, otherwise {@code false}.
      */
     @Override
     public boolean functionCall(int feature) {
+        if (CHANGING_FEATURES.contains(feature) && !DataChangeMonitor.checkWritable()) {
+            return false;
+        }
         switch (feature) {
             case 0 -> UserManagementSystem.updatePassword(getUserId());
             case 1 -> {
-                // Retrieve all appointments for the current doctor
-                List<Appointment> doctorAppts = AppointmentSystem.getAppointments().stream()
-                        .filter(x -> x.getDoctorID().equals(getUserId()))
-                        .collect(Collectors.toList());
-
-                // Retrieve all patients for the current doctor based on their appointments
-                List<User> doctorPatients = UserManagementSystem.getUsersByRole(UserRole.PATIENT).stream()
-                        .filter(patient -> doctorAppts.stream()
-                                .anyMatch(appointment -> appointment.getPatientID().equals(patient.getUserId())))
-                        .collect(Collectors.toList());
-
                 // Show or create the medical record for the selected patient
-                String selectedPatientId = UserManagementSystem.selectUserIDMenu(doctorPatients);
+                String selectedPatientId = UserManagementSystem.selectUserIDMenu(getPatients());
                 MedicalRecordSystem.showOrCreateMedicalRecord(selectedPatientId);
+
+                if (selectedPatientId != null && InputHandler.getValidatedInput(
+                        "Do you want to view the history of this record? (yes/no): ",
+                        "Please enter 'yes' or 'no'.",
+                        input -> input.equalsIgnoreCase("yes") || input.equalsIgnoreCase("no")
+                ).equalsIgnoreCase("yes")) {
+                    MedicalRecordHistorySystem.historyMenu(selectedPatientId);
+                }
             }
             case 2 -> updateMedicalRecord();
             case 3 -> {
@@ -74,7 +78,8 @@ public class Doctor extends User implements UserMenuInterface {
             case 5 -> AppointmentSystem.approvePendingAppointments(getUserId());
             case 6 -> AppointmentSystem.viewUpcomingAppointments(getUserId());
             case 7 -> AppointmentOutcomeSystem.addOutcomeByDoctor(getUserId());
-            case 8 -> {
+            case 8 -> ClinicalSearchSystem.searchMenu(getUserId());
+            case 9 -> {
                 return true;
             }
             default -> System.out.println("Invalid choice. Please try again.");
@@ -83,23 +88,27 @@ public class Doctor extends User implements UserMenuInterface {
     }
 
     /**
-     * Updates a patient's medical record.
-     * The user can select a patient an update the patient's blood type or add a diagnosis.
+     * Retrieves the patients who have appointments with this doctor.
+     *
+     * @return the patients of the doctor.
      */
-    public void updateMedicalRecord() {
-        // Retrieve all appointments for the current doctor
-        List<Appointment> doctorAppts = AppointmentSystem.getAppointments().stream()
-                .filter(x -> x.getDoctorID().equals(getUserId()))
-                .collect(Collectors.toList());
+    private List<User> getPatients() {
+        Set<String> patientIDs = AppointmentSystem.getAppointmentsByDoctor(getUserId(), null).stream()
+                .map(Appointment::getPatientID)
+                .collect(Collectors.toCollection(TreeSet::new));
 
-        // Retrieve all patients for the current doctor based on their appointments
-        List<User> doctorPatients = UserManagementSystem.getUsersByRole(UserRole.PATIENT).stream()
-                .filter(patient -> doctorAppts.stream()
-                        .anyMatch(appointment -> appointment.getPatientID().equals(patient.getUserId())))
+        return UserManagementSystem.getUsersByIDs(patientIDs).stream()
+                .filter(patient -> patient.getRole() == UserRole.PATIENT)
                 .collect(Collectors.toList());
+    }
 
+    /**
+     * Updates a patient's medical record.
+     * The user can select a patient an update the patient's blood type or add a diagnosis.
+     */
+    public void updateMedicalRecord() {
         // Show or create the medical record for the selected patient
-        String patientID = UserManagementSystem.selectUserIDMenu(doctorPatients);
+        String patientID = UserManagementSystem.selectUserIDMenu(getPatients());
 
         if (patientID == null) {
             System.out.println("No patient selected. Exiting...");
@@ -137,7 +146,7 @@ public class Doctor extends User implements UserMenuInterface {
 
     /**
      * Sets the doctor's availability for appointments.
-     * The doctor can view, add, or remove availability, or exit the menu.
+     * The doctor can view, add, or remove single slots or recurring availability, or exit the menu.
      */
     public void setAvailability() {
         String doctorID = getUserId();
@@ -148,12 +157,14 @@ public class Doctor extends User implements UserMenuInterface {
             System.out.println("1. View Availability");
             System.out.println("2. Add Availability");
             System.out.println("3. Remove Availability");
-            System.out.println("4. Exit");
+            System.out.println("4. Add Recurring Availability");
+            System.out.println("5. Remove Recurring Availability");
+            System.out.println("6. Exit");
 
             String choice = InputHandler.getValidatedInput(
                     "Select an option: ",
-                    "Invalid input. Please enter a number between 1 and 4.",
-                    input -> input.matches("[1-4]")
+                    "Invalid input. Please enter a number between 1 and 6.",
+                    input -> input.matches("[1-6]")
             );
 
             switch (choice) {
@@ -167,6 +178,12 @@ public class Doctor extends User implements UserMenuInterface {
                     AppointmentSystem.removeDoctorAvailability(doctorID);
                     break;
                 case "4":
+                    AppointmentSystem.addRecurringAvailabilityMenu(doctorID);
+                    break;
+                case "5":
+                    RecurringAvailabilitySystem.removeRuleMenu(doctorID);
+                    break;
+                case "6":
                     return;
                 default:
                     System.out.println("Invalid option. Please try again.");
@@ -5,18 +5,23 @@ import HMS.Enums.UserRole;
 import HMS.Models.User;
 import HMS.Systems.AppointmentOutcomeSystem;
 import HMS.Systems.AppointmentSystem;
+import HMS.Systems.DataChangeMonitor;
 import HMS.Systems.InputHandler;
 import HMS.Systems.MedicalRecordSystem;
 import HMS.Systems.UserManagementSystem;
+import HMS.Systems.WaitlistSystem;
 
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Set;
 
 /**
  * Represents a patient in the Hospital Management System.
  * This class handles the patient's personal and medical information.
  */
 public class Patient extends User implements UserMenuInterface {
+    private static final Set<Integer> CHANGING_FEATURES = Set.of(0, 2, 4, 5, 6, 9); // Refused while the HMS is read-only
+
     /**
      * Constructs a new Patient with the specified details and an empty medical record.
      *
@@ -44,12 +49,16 @@ public class Patient extends User implements UserMenuInterface {
      *                  <li>6 - Cancel an Appointment</li>
      *                  <li>7 - View Scheduled Appointments</li>
      *                  <li>8 - View Past Appointment Outcome Records</li>
-     *                  <li>9 - Logout</li>
+     *                  <li>9 - Book Earliest Available Slot</li>
+     *                  <li>10 - Logout</li>
      *                </ul>
      * @return {@code true} if patient chooses to exit the menu; {@code false} otherwise.
      */
     @Override
     public boolean functionCall(int feature) {
+        if (CHANGING_FEATURES.contains(feature) && !DataChangeMonitor.checkWritable()) {
+            return false;
+        }
         switch (feature) {
             case 0 -> UserManagementSystem.updatePassword(getUserId());
             case 1 -> MedicalRecordSystem.showOrCreateMedicalRecord(getUserId());
@@ -60,7 +69,8 @@ public class Patient extends User implements UserMenuInterface {
             case 6 -> cancelAppointment();
             case 7 -> AppointmentSystem.displayAppointmentsByPatient(getUserId(), Arrays.asList(AppointmentStatus.PENDING, AppointmentStatus.APPROVED));
             case 8 -> AppointmentOutcomeSystem.displayOutcomesForPatient(getUserId());
-            case 9 -> {
+            case 9 -> AppointmentSystem.bookEarliestSlotMenu(getUserId());
+            case 10 -> {
                 return true;
             }
             default -> System.out.println("Invalid choice. Please try again.");
@@ -70,12 +80,12 @@ public class Patient extends User implements UserMenuInterface {
 
     /**
      * Allows the patient to schedule an appointment by selecting a doctor and an available timeslot
-     * If no slots are available, the scheduling process is cancelled
+     * If no slots are available, the patient is offered to join a doctor's waitlist
      */
     private void scheduleAppointment() {
         String doctorID = AppointmentSystem.selectDoctorWithAvailableSlots();
         if (doctorID == null) {
-            System.out.println("No doctors with available slots or selection canceled.");
+            WaitlistSystem.joinWaitlistMenu(getUserId());
             return;
         }
 
@@ -105,7 +115,9 @@ public class Patient extends User implements UserMenuInterface {
                         int id = Integer.parseInt(value);
                         return AppointmentSystem.getAppointmentsByPatient(patientID, null)
                                 .stream()
-                                .anyMatch(appointment -> appointment.getID() == id && !(appointment.getAppointmentStatus() == AppointmentStatus.CANCELLED));
+                                .anyMatch(appointment -> appointment.getID() == id
+                                        && (appointment.getAppointmentStatus() == AppointmentStatus.PENDING
+                                        || appointment.getAppointmentStatus() == AppointmentStatus.APPROVED));
                     } catch (NumberFormatException e) {
                         return false;
                     }
@@ -3,10 +3,13 @@ package HMS.Users;
 import HMS.Enums.UserRole;
 import HMS.Models.User;
 import HMS.Systems.AppointmentOutcomeSystem;
+import HMS.Systems.DataChangeMonitor;
 import HMS.Systems.InputHandler;
 import HMS.Systems.StockSystem;
 import HMS.Systems.UserManagementSystem;
 
+import java.util.Set;
+
 import static HMS.Systems.AppointmentOutcomeSystem.isValidOutcomeSelection;
 
 
@@ -15,6 +18,8 @@ import static HMS.Systems.AppointmentOutcomeSystem.isValidOutcomeSelection;
  * Inherits from User class.
  */
 public class Pharmacist extends User implements UserMenuInterface {
+    private static final Set<Integer> CHANGING_FEATURES = Set.of(0, 2, 4); // Refused while the HMS is read-only
+
     /**
      * Constructs a new Pharmacist.
      *
@@ -44,6 +49,9 @@ public class Pharmacist extends User implements UserMenuInterface {
      */
     @Override
     public boolean functionCall(int feature) {
+        if (CHANGING_FEATURES.contains(feature) && !DataChangeMonitor.checkWritable()) {
+            return false;
+        }
         switch (feature) {
             case 0 -> UserManagementSystem.updatePassword(getUserId());
             case 1 -> AppointmentOutcomeSystem.displayAllOutcomes();